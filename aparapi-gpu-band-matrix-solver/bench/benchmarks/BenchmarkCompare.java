@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Regression gate for two benchmark result files (CSV written by the 
+ * benchmarks of this folder). For each benchmark found in both files the 
+ * Welch confidence interval of the difference of the means is calculated. 
+ * A change is reported if the interval does not contain zero and the 
+ * relative change of the mean is at least the minimum effect.
+ * 
+ * Usage: BenchmarkCompare baseline.csv candidate.csv [--confidence 0.99] [--min-effect 0.05] 
+ *                         [--filter regex] [--fail-on-missing]
+ *                         
+ * Exit status: 0 no regression, 1 at least one regression, 2 invalid arguments or files
+ */
+public final class BenchmarkCompare {
+
+   public static final int EXIT_OK = 0;
+
+   public static final int EXIT_REGRESSION = 1;
+
+   public static final int EXIT_ERROR = 2;
+
+   enum Verdict {
+      UNCHANGED, IMPROVED, REGRESSED, MISSING
+   }
+
+   private final double confidence;
+
+   private final double minEffect;
+
+   BenchmarkCompare(final double confidence, final double minEffect) {
+      if (!(confidence > 0.0 && confidence < 1.0) || !(minEffect >= 0.0)) {
+         throw new IllegalArgumentException("confidence must be in (0, 1) and min-effect not negative");
+      }
+      this.confidence = confidence;
+      this.minEffect = minEffect;
+   }
+
+   public static void main(final String[] args) {
+      System.exit(run(args));
+   }
+
+   static int run(final String[] args) {
+      final CommandLine commandLine = new CommandLine(args);
+      if (commandLine.getArguments().size() != 2) {
+         System.err.println("usage: BenchmarkCompare baseline.csv candidate.csv [--confidence 0.99] [--min-effect 0.05] "
+               + "[--filter regex] [--fail-on-missing]");
+         return EXIT_ERROR;
+      }
+
+      final List<BenchmarkResult> baseline;
+      final List<BenchmarkResult> candidate;
+      final BenchmarkCompare compare;
+      try {
+         baseline = BenchmarkResult.readCsv(new File(commandLine.getArguments().get(0)));
+         candidate = BenchmarkResult.readCsv(new File(commandLine.getArguments().get(1)));
+         compare = new BenchmarkCompare(commandLine.getDouble("confidence", 0.99), commandLine.getDouble("min-effect", 0.05));
+      } catch (final IOException | IllegalArgumentException e) {
+         System.err.println(e.getMessage());
+         return EXIT_ERROR;
+      }
+      final Pattern filter = Pattern.compile(commandLine.getString("filter", ".*"));
+
+      final Map<String, BenchmarkResult> candidates = new LinkedHashMap<String, BenchmarkResult>();
+      for (final BenchmarkResult result : candidate) {
+         candidates.put(result.getKey(), result);
+      }
+
+      int regressions = 0;
+      int missing = 0;
+      System.out.println(String.format(Locale.ENGLISH, "%-10s %8s %22s  %s", "verdict", "change", "interval", "benchmark"));
+      for (final BenchmarkResult before : baseline) {
+         if (!filter.matcher(before.getKey()).find()) {
+            continue;
+         }
+         final BenchmarkResult after = candidates.get(before.getKey());
+         if (null == after) {
+            missing++;
+            System.out.println(String.format(Locale.ENGLISH, "%-10s %8s %22s  %s", Verdict.MISSING, "", "", before.getKey()));
+            continue;
+         }
+         if (!before.getUnit().equals(after.getUnit())) {
+            System.err.println("different units for " + before.getKey() + ": " + before.getUnit() + " and " + after.getUnit());
+            return EXIT_ERROR;
+         }
+
+         final double[] interval = compare.getInterval(before, after);
+         final Verdict verdict = compare.getVerdict(before, after);
+         if (verdict == Verdict.REGRESSED) {
+            regressions++;
+         }
+         System.out.println(String.format(Locale.ENGLISH, "%-10s %+7.1f%% [%+8.1f%%, %+8.1f%%]  %s", verdict, 100.0
+               * (after.getMean() - before.getMean()) / before.getMean(), 100.0 * interval[0] / before.getMean(), 100.0
+               * interval[1] / before.getMean(), before.getKey()));
+      }
+
+      System.out.println(regressions + " regression(s), " + missing + " missing at " + 100.0 * compare.confidence
+            + "% confidence and " + 100.0 * compare.minEffect + "% minimum effect");
+      return regressions > 0 || (missing > 0 && commandLine.getFlag("fail-on-missing")) ? EXIT_REGRESSION : EXIT_OK;
+   }
+
+   /**
+    * Welch confidence interval of mean(after) - mean(before)
+    */
+   double[] getInterval(final BenchmarkResult before, final BenchmarkResult after) {
+      final double difference = after.getMean() - before.getMean();
+      final double varianceBefore = variance(before);
+      final double varianceAfter = variance(after);
+      final double standardError = Math.sqrt(varianceBefore + varianceAfter);
+      if (standardError == 0.0) {
+         return new double[] { difference, difference };
+      }
+
+      // Welch-Satterthwaite degrees of freedom, one sample has no variance
+      double degreesOfFreedom = 0.0;
+      if (before.getSamples() > 1) {
+         degreesOfFreedom += varianceBefore * varianceBefore / (before.getSamples() - 1);
+      }
+      if (after.getSamples() > 1) {
+         degreesOfFreedom += varianceAfter * varianceAfter / (after.getSamples() - 1);
+      }
+      degreesOfFreedom = (standardError * standardError) * (standardError * standardError) / degreesOfFreedom;
+
+      final double halfWidth = studentQuantile(0.5 + 0.5 * confidence, degreesOfFreedom) * standardError;
+      return new double[] { difference - halfWidth, difference + halfWidth };
+   }
+
+   Verdict getVerdict(final BenchmarkResult before, final BenchmarkResult after) {
+      final double[] interval = getInterval(before, after);
+      final double relativeChange = (after.getMean() - before.getMean()) / before.getMean();
+      if (Math.abs(relativeChange) < minEffect || (interval[0] <= 0.0 && interval[1] >= 0.0)) {
+         return Verdict.UNCHANGED;
+      }
+      return (relativeChange > 0.0) == isHigherBetter(before.getUnit()) ? Verdict.IMPROVED : Verdict.REGRESSED;
+   }
+
+   /**
+    * Throughput units (ops/s, GFLOP/s, GB/s) are better when higher, time 
+    * units (ns/op, s/op) when lower
+    */
+   static boolean isHigherBetter(final String unit) {
+      return unit.endsWith("/s");
+   }
+
+   private static double variance(final BenchmarkResult result) {
+      return result.getStddev() * result.getStddev() / result.getSamples();
+   }
+
+   /**
+    * Quantile of the Student t distribution by bisection of the 
+    * distribution function
+    */
+   static double studentQuantile(final double p, final double degreesOfFreedom) {
+      double low = 0.0;
+      double high = 1.0;
+      while (studentDistribution(high, degreesOfFreedom) < p) {
+         high *= 2.0;
+      }
+      for (int i = 0; i < 100 && high - low > 1E-12 * high; i++) {
+         final double mid = 0.5 * (low + high);
+         if (studentDistribution(mid, degreesOfFreedom) < p) {
+            low = mid;
+         } else {
+            high = mid;
+         }
+      }
+      return 0.5 * (low + high);
+   }
+
+   /**
+    * P(T <= t) for t >= 0
+    */
+   static double studentDistribution(final double t, final double degreesOfFreedom) {
+      return 1.0 - 0.5 * incompleteBeta(degreesOfFreedom / (degreesOfFreedom + t * t), 0.5 * degreesOfFreedom, 0.5);
+   }
+
+   /**
+    * Regularized incomplete beta function I_x(a, b) with the continued 
+    * fraction expansion (modified Lentz)
+    */
+   static double incompleteBeta(final double x, final double a, final double b) {
+      if (x <= 0.0) {
+         return 0.0;
+      }
+      if (x >= 1.0) {
+         return 1.0;
+      }
+      if (x > (a + 1.0) / (a + b + 2.0)) {
+         return 1.0 - incompleteBeta(1.0 - x, b, a);
+      }
+      final double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1.0 - x))
+            / a;
+
+      final double tiny = 1E-300;
+      double c = 1.0;
+      double d = 1.0 - (a + b) * x / (a + 1.0);
+      d = 1.0 / (Math.abs(d) < tiny ? tiny : d);
+      double result = d;
+      for (int m = 1; m <= 300; m++) {
+         // even step
+         double numerator = m * (b - m) * x / ((a + 2.0 * m - 1.0) * (a + 2.0 * m));
+         d = 1.0 + numerator * d;
+         d = 1.0 / (Math.abs(d) < tiny ? tiny : d);
+         c = 1.0 + numerator / c;
+         c = Math.abs(c) < tiny ? tiny : c;
+         result *= d * c;
+
+         // odd step
+         numerator = -(a + m) * (a + b + m) * x / ((a + 2.0 * m) * (a + 2.0 * m + 1.0));
+         d = 1.0 + numerator * d;
+         d = 1.0 / (Math.abs(d) < tiny ? tiny : d);
+         c = 1.0 + numerator / c;
+         c = Math.abs(c) < tiny ? tiny : c;
+         final double delta = d * c;
+         result *= delta;
+         if (Math.abs(delta - 1.0) < 1E-15) {
+            break;
+         }
+      }
+      return front * result;
+   }
+
+   /**
+    * Lanczos approximation of log(Gamma(x)) for x > 0
+    */
+   static double logGamma(final double x) {
+      final double[] coefficients = { 76.18009172947146, -86.50532032941677, 24.01409824083091, -1.231739572450155,
+            0.1208650973866179e-2, -0.5395239384953e-5 };
+      double y = x;
+      final double temp = x + 5.5 - (x + 0.5) * Math.log(x + 5.5);
+      double series = 1.000000000190015;
+      for (final double coefficient : coefficients) {
+         series += coefficient / ++y;
+      }
+      return -temp + Math.log(2.5066282746310005 * series / x);
+   }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BenchmarkCompareTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void studentQuantile_KnownDegreesOfFreedom_TableValues() {
+
+      // ACT & CHECK
+      Assert.assertEquals(12.706204736, BenchmarkCompare.studentQuantile(0.975, 1.0), 1E-6);
+      Assert.assertEquals(4.604094871, BenchmarkCompare.studentQuantile(0.995, 4.0), 1E-6);
+      Assert.assertEquals(2.228138852, BenchmarkCompare.studentQuantile(0.975, 10.0), 1E-6);
+      Assert.assertEquals(2.878440473, BenchmarkCompare.studentQuantile(0.995, 18.0), 1E-6);
+   }
+
+   @Test
+   public void getInterval_EqualVariances_WelchInterval() {
+
+      // ARRANGE: standard error sqrt(10 + 10), 18 degrees of freedom
+      final BenchmarkResult before = new BenchmarkResult("b", "p", "ns/op", 10, 100.0, 10.0, 80.0, 120.0);
+      final BenchmarkResult after = new BenchmarkResult("b", "p", "ns/op", 10, 110.0, 10.0, 90.0, 130.0);
+
+      // ACT
+      final double[] interval = new BenchmarkCompare(0.99, 0.05).getInterval(before, after);
+
+      // CHECK
+      final double halfWidth = 2.878440473 * Math.sqrt(20.0);
+      Assert.assertEquals(10.0 - halfWidth, interval[0], 1E-5);
+      Assert.assertEquals(10.0 + halfWidth, interval[1], 1E-5);
+   }
+
+   @Test
+   public void getInterval_NoVariance_MeanDifference() {
+
+      // ARRANGE
+      final BenchmarkResult before = new BenchmarkResult("b", "p", "ns/op", 1, 100.0, 0.0, 100.0, 100.0);
+      final BenchmarkResult after = new BenchmarkResult("b", "p", "ns/op", 1, 90.0, 0.0, 90.0, 90.0);
+
+      // ACT
+      final double[] interval = new BenchmarkCompare(0.99, 0.05).getInterval(before, after);
+
+      // CHECK
+      Assert.assertArrayEquals(new double[] { -10.0, -10.0 }, interval, 0.0);
+   }
+
+   @Test
+   public void getVerdict_IntervalContainsZero_Unchanged() {
+
+      // ARRANGE: +10% but [-2.9, 22.9] at 99% confidence
+      final BenchmarkResult before = new BenchmarkResult("b", "p", "ns/op", 10, 100.0, 10.0, 80.0, 120.0);
+      final BenchmarkResult after = new BenchmarkResult("b", "p", "ns/op", 10, 110.0, 10.0, 90.0, 130.0);
+
+      // ACT
+      final BenchmarkCompare.Verdict verdict = new BenchmarkCompare(0.99, 0.05).getVerdict(before, after);
+
+      // CHECK
+      Assert.assertEquals(BenchmarkCompare.Verdict.UNCHANGED, verdict);
+   }
+
+   @Test
+   public void getVerdict_LowerConfidence_RegressedTimeImprovedThroughput() {
+
+      // ARRANGE: [0.6, 19.4] at 95% confidence
+      final BenchmarkCompare compare = new BenchmarkCompare(0.95, 0.05);
+      final BenchmarkResult before = new BenchmarkResult("b", "p", "ns/op", 10, 100.0, 10.0, 80.0, 120.0);
+      final BenchmarkResult after = new BenchmarkResult("b", "p", "ns/op", 10, 110.0, 10.0, 90.0, 130.0);
+      final BenchmarkResult beforeThroughput = new BenchmarkResult("b", "p", "ops/s", 10, 100.0, 10.0, 80.0, 120.0);
+      final BenchmarkResult afterThroughput = new BenchmarkResult("b", "p", "ops/s", 10, 110.0, 10.0, 90.0, 130.0);
+
+      // ACT & CHECK
+      Assert.assertEquals(BenchmarkCompare.Verdict.REGRESSED, compare.getVerdict(before, after));
+      Assert.assertEquals(BenchmarkCompare.Verdict.IMPROVED, compare.getVerdict(after, before));
+      Assert.assertEquals(BenchmarkCompare.Verdict.IMPROVED, compare.getVerdict(beforeThroughput, afterThroughput));
+   }
+
+   @Test
+   public void getVerdict_SignificantBelowMinimumEffect_Unchanged() {
+
+      // ARRANGE: +3% with a tiny interval
+      final BenchmarkResult before = new BenchmarkResult("b", "p", "ns/op", 10, 100.0, 0.1, 99.8, 100.2);
+      final BenchmarkResult after = new BenchmarkResult("b", "p", "ns/op", 10, 103.0, 0.1, 102.8, 103.2);
+
+      // ACT & CHECK
+      Assert.assertEquals(BenchmarkCompare.Verdict.UNCHANGED, new BenchmarkCompare(0.99, 0.05).getVerdict(before,
+            after));
+      Assert.assertEquals(BenchmarkCompare.Verdict.REGRESSED, new BenchmarkCompare(0.99, 0.01).getVerdict(before,
+            after));
+   }
+
+   @Test
+   public void run_Regression_ExitRegression() throws IOException {
+
+      // ARRANGE
+      final File baseline = write("baseline.csv", result("v3.times", 100.0));
+      final File candidate = write("candidate.csv", result("v3.times", 120.0));
+
+      // ACT
+      final int status = BenchmarkCompare.run(new String[] { baseline.getPath(), candidate.getPath() });
+
+      // CHECK
+      Assert.assertEquals(BenchmarkCompare.EXIT_REGRESSION, status);
+   }
+
+   @Test
+   public void run_ImprovementAndUnchanged_ExitOk() throws IOException {
+
+      // ARRANGE
+      final File baseline = write("baseline.csv", result("v3.times", 100.0), result("v3.plus", 50.0));
+      final File candidate = write("candidate.csv", result("v3.times", 80.0), result("v3.plus", 50.5));
+
+      // ACT
+      final int status = BenchmarkCompare.run(new String[] { baseline.getPath(), candidate.getPath() });
+
+      // CHECK
+      Assert.assertEquals(BenchmarkCompare.EXIT_OK, status);
+   }
+
+   @Test
+   public void run_FilterExcludesRegression_ExitOk() throws IOException {
+
+      // ARRANGE
+      final File baseline = write("baseline.csv", result("v3.times", 100.0), result("v3.plus", 50.0));
+      final File candidate = write("candidate.csv", result("v3.times", 100.0), result("v3.plus", 80.0));
+
+      // ACT
+      final int status = BenchmarkCompare.run(new String[] { baseline.getPath(), candidate.getPath(), "--filter",
+            "times" });
+
+      // CHECK
+      Assert.assertEquals(BenchmarkCompare.EXIT_OK, status);
+   }
+
+   @Test
+   public void run_Missing_ExitOkUnlessFailOnMissing() throws IOException {
+
+      // ARRANGE
+      final File baseline = write("baseline.csv", result("v3.times", 100.0), result("v3.plus", 50.0));
+      final File candidate = write("candidate.csv", result("v3.times", 100.0));
+
+      // ACT
+      final int status = BenchmarkCompare.run(new String[] { baseline.getPath(), candidate.getPath() });
+      final int strictStatus = BenchmarkCompare.run(new String[] { baseline.getPath(), candidate.getPath(),
+            "--fail-on-missing" });
+
+      // CHECK
+      Assert.assertEquals(BenchmarkCompare.EXIT_OK, status);
+      Assert.assertEquals(BenchmarkCompare.EXIT_REGRESSION, strictStatus);
+   }
+
+   @Test
+   public void run_DifferentUnits_ExitError() throws IOException {
+
+      // ARRANGE
+      final File baseline = write("baseline.csv", result("v3.times", 100.0));
+      final File candidate = write("candidate.csv", new BenchmarkResult("v3.times", "rows=1024", "us/op", 5, 0.1,
+            0.001, 0.09, 0.11));
+
+      // ACT
+      final int status = BenchmarkCompare.run(new String[] { baseline.getPath(), candidate.getPath() });
+
+      // CHECK
+      Assert.assertEquals(BenchmarkCompare.EXIT_ERROR, status);
+   }
+
+   @Test
+   public void run_InvalidArguments_ExitError() throws IOException {
+
+      // ARRANGE
+      final File baseline = write("baseline.csv", result("v3.times", 100.0));
+      final File invalid = folder.newFile("invalid.csv");
+
+      // ACT & CHECK
+      Assert.assertEquals(BenchmarkCompare.EXIT_ERROR, BenchmarkCompare.run(new String[] { baseline.getPath() }));
+      Assert.assertEquals(BenchmarkCompare.EXIT_ERROR, BenchmarkCompare.run(new String[] { baseline.getPath(),
+            invalid.getPath() }));
+      Assert.assertEquals(BenchmarkCompare.EXIT_ERROR, BenchmarkCompare.run(new String[] { baseline.getPath(),
+            baseline.getPath(), "--confidence", "1.5" }));
+   }
+
+   /**
+    * Five samples with a standard deviation of 1% of the mean
+    */
+   private static BenchmarkResult result(final String benchmark, final double mean) {
+      return new BenchmarkResult(benchmark, "rows=1024", "ns/op", 5, mean, 0.01 * mean, 0.98 * mean, 1.02 * mean);
+   }
+
+   private File write(final String name, final BenchmarkResult... results) throws IOException {
+      final File file = new File(folder.getRoot(), name);
+      BenchmarkResult.writeCsv(Arrays.asList(results), file);
+      return file;
+   }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import solver.SolveResult;
+import tests.BandMatrixGenerator;
+import tests.Parameter;
+
+import com.amd.aparapi.Kernel;
+
+/**
+ * Benchmark driver for large problem sizes. The rows are swept 
+ * geometrically, every combination of rows, bandwidth, matrix family and 
+ * solver is repeated and written as one line of a CSV or JSON file.
+ * 
+ * Usage: BenchmarkDriver [--min-rows 1024] [--max-rows 10000000] [--factor 4] [--bandwidth 11,101]
+ *                        [--families dominant,laplacian,ill_conditioned] [--solvers times,v3,v3fj,v4jtp]
+ *                        [--seed 1] [--repeats 3] [--format csv|json] [--output results.csv]
+ *                        
+ * Solvers: times (v3 matrix vector product), v2, v3, v3fj (ForkJoin), v4, v4jtp (Aparapi JTP)
+ */
+public final class BenchmarkDriver {
+
+   private static final String NL = System.getProperty("line.separator");
+
+   private static final String CSV_HEADER = BenchmarkResult.CSV_HEADER + ",gflops,gbs,iterations,residual";
+
+   /**
+    * Matrix vector products per repetition of the times benchmark
+    */
+   private static final int TIMES_PER_REPEAT = 10;
+
+   /**
+    * Largest array the virtual machines reliably allocate
+    */
+   private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+   private final int repeats;
+
+   private final long seed;
+
+   private final List<String> lines = new ArrayList<String>();
+
+   private final List<String> jsonObjects = new ArrayList<String>();
+
+   private BenchmarkDriver(final int repeats, final long seed) {
+      this.repeats = repeats;
+      this.seed = seed;
+   }
+
+   public static void main(final String[] args) throws IOException {
+      final CommandLine commandLine = new CommandLine(args);
+      final BenchmarkDriver driver = new BenchmarkDriver(commandLine.getInt("repeats", 3), commandLine.getLong("seed", 1L));
+      final int minRows = commandLine.getInt("min-rows", 1024);
+      final int maxRows = commandLine.getInt("max-rows", 10000000);
+      final double factor = commandLine.getDouble("factor", 4.0);
+      if (factor <= 1.0) {
+         throw new IllegalArgumentException("factor must be greater than one");
+      }
+
+      for (final String familyName : commandLine.getStrings("families", "dominant", "laplacian", "ill_conditioned")) {
+         final MatrixFamily family = MatrixFamily.parse(familyName);
+         for (final int bandwidth : commandLine.getInts("bandwidth", 11, Parameter.BAND_WIDTH)) {
+            for (double size = minRows; size <= maxRows; size *= factor) {
+               driver.run(family, (int) size, bandwidth, commandLine.getStrings("solvers", "times", "v3", "v3fj", "v4jtp"));
+            }
+         }
+      }
+
+      final String output = commandLine.getString("output", null);
+      if (null != output) {
+         driver.write(new File(output), commandLine.getString("format", output.endsWith(".json") ? "json" : "csv"));
+      }
+   }
+
+   private void run(final MatrixFamily family, final int requestedRows, final int bandwidth, final String[] solvers) {
+      final BandMatrixGenerator generator = family.create(requestedRows, bandwidth, seed);
+      final int rows = generator.getRows();
+
+      // the band is stored in one array, e.g. 10^7 rows allow a bandwidth of 214 at most
+      final long values = (long) rows * generator.getBandwidth();
+      if (values > MAX_ARRAY_LENGTH) {
+         System.out.println("skip " + family + " rows=" + rows + " bandwidth=" + bandwidth + ": " + values
+               + " band values exceed the maximal array length");
+         return;
+      }
+
+      // the matrix is stored once in double (v3) and possibly once more per other generation
+      final long requiredBytes = 8L * values * 2 + 64L * rows;
+      final Runtime runtime = Runtime.getRuntime();
+      if (requiredBytes > runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory())) {
+         System.out.println("skip " + family + " rows=" + rows + " bandwidth=" + bandwidth + ": needs about "
+               + (requiredBytes >> 20) + " MB heap");
+         return;
+      }
+
+      final v3.BandMatrixFull A = generator.createMatrixV3();
+      final v3.Vector b = generator.createRightHandSideV3();
+
+      for (final String solver : solvers) {
+         final String parameters = "family=" + family.name().toLowerCase(Locale.ENGLISH) + ";rows=" + rows + ";bandwidth="
+               + bandwidth;
+         if ("times".equals(solver)) {
+            runTimes(A, b, parameters);
+         } else if ("v2".equals(solver)) {
+            final v2.BandMatrix A2 = generator.createMatrixV2();
+            final v2.Vector b2 = generator.createRightHandSideV2();
+            final double[] samples = new double[repeats];
+            SolveResult<v2.Vector> result = null;
+            for (int i = 0; i < repeats; i++) {
+               final long start = System.nanoTime();
+               result = v2.BandMatrix.solveConjugateGradientWithResult(A2, b2);
+               samples[i] = (System.nanoTime() - start) * 1.0E-9;
+            }
+            recordSolve("v2.solveConjugateGradient", parameters, samples, A, result.getIterations(), residual(A, b,
+                  toV3(result.getSolution())));
+         } else if ("v3".equals(solver) || "v3fj".equals(solver)) {
+            final boolean forkJoin = "v3fj".equals(solver);
+            final double[] samples = new double[repeats];
+            SolveResult<v3.Vector> result = null;
+            for (int i = 0; i < repeats; i++) {
+               final long start = System.nanoTime();
+               result = forkJoin ? v3.BandMatrixFull.solveConjugateGradientForkAndJoinWithResult(A, b)
+                     : v3.BandMatrixFull.solveConjugateGradientWithResult(A, b);
+               samples[i] = (System.nanoTime() - start) * 1.0E-9;
+            }
+            recordSolve(forkJoin ? "v3.solveConjugateGradientForkAndJoin" : "v3.solveConjugateGradient", parameters,
+                  samples, A, result.getIterations(), residual(A, b, result.getSolution()));
+         } else if ("v4".equals(solver) || "v4jtp".equals(solver)) {
+            final boolean aparapi = "v4jtp".equals(solver);
+            final v4.BandMatrixFull A4 = generator.createMatrixV4();
+            final v4.Vector b4 = generator.createRightHandSideV4();
+            final double[] samples = new double[repeats];
+            SolveResult<v4.Vector> result = null;
+            for (int i = 0; i < repeats; i++) {
+               final long start = System.nanoTime();
+               result = aparapi ? v4.BandMatrixFull.solveConjugateGradientAparapiWithResult(A4, b4,
+                     Kernel.EXECUTION_MODE.JTP) : v4.BandMatrixFull.solveConjugateGradientStandardWithResult(A4, b4);
+               samples[i] = (System.nanoTime() - start) * 1.0E-9;
+            }
+            final v3.Vector x3 = new v3.Vector(rows);
+            for (int row = 0; row < rows; row++) {
+               x3.setValue(row, result.getSolution().getValue(row));
+            }
+            recordSolve(aparapi ? "v4.solveConjugateGradientAparapi" : "v4.solveConjugateGradientStandard", parameters,
+                  samples, A, result.getIterations(), residual(A, b, x3));
+         } else {
+            throw new IllegalArgumentException("unknown solver: " + solver);
+         }
+      }
+   }
+
+   private void runTimes(final v3.BandMatrixFull A, final v3.Vector b, final String parameters) {
+      final int rows = A.getMaxRows();
+      final int cols = A.getMaxCols();
+      final v3.Vector result = new v3.Vector(rows);
+
+      // warm-up
+      A.times(b, result);
+
+      final double[] samples = new double[repeats];
+      for (int i = 0; i < repeats; i++) {
+         final long start = System.nanoTime();
+         for (int k = 0; k < TIMES_PER_REPEAT; k++) {
+            A.times(b, result);
+         }
+         samples[i] = (System.nanoTime() - start) * 1.0E-9 / TIMES_PER_REPEAT;
+      }
+      final BenchmarkResult statistics = BenchmarkResult.create("v3.times", parameters, "s/op", samples);
+
+      // one multiply and one add per stored value, values and both vectors are moved once
+      final double flops = 2.0 * rows * cols;
+      final double bytes = 8.0 * rows * cols + 16.0 * rows;
+      record(statistics, flops / statistics.getMean() * 1.0E-9, bytes / statistics.getMean() * 1.0E-9, -1, Double.NaN);
+   }
+
+   /**
+    * Each conjugate gradient iteration has one matrix vector product, two 
+    * dot products and three vector updates (multi and plus), i.e. about 
+    * 2 * rows * cols + 10 * rows operations and 8 * rows * cols + 168 * rows 
+    * bytes of memory traffic.
+    */
+   private void recordSolve(final String benchmark, final String parameters, final double[] samples,
+         final v3.BandMatrixFull A, final int iterations, final double residual) {
+      final BenchmarkResult statistics = BenchmarkResult.create(benchmark, parameters, "s/op", samples);
+      final double rows = A.getMaxRows();
+      final double flops = iterations * (2.0 * rows * A.getMaxCols() + 10.0 * rows);
+      final double bytes = iterations * (8.0 * rows * A.getMaxCols() + 168.0 * rows);
+      record(statistics, flops / statistics.getMean() * 1.0E-9, bytes / statistics.getMean() * 1.0E-9, iterations,
+            residual);
+   }
+
+   /**
+    * Iterations are negative for benchmarks without iterations
+    */
+   private void record(final BenchmarkResult result, final double gflops, final double gbs, final int iterations,
+         final double residual) {
+      System.out.println(result + String.format(Locale.ENGLISH, "  %.3f GFLOP/s  %.3f GB/s  %s iterations  residual %.3E",
+            gflops, gbs, iterations < 0 ? "-" : Integer.toString(iterations), residual));
+      lines.add(result.toCsv() + String.format(Locale.ENGLISH, ",%.6E,%.6E,%s,%.6E", gflops, gbs, iterations < 0 ? ""
+            : Integer.toString(iterations), residual));
+      jsonObjects.add(String.format(Locale.ENGLISH, "{\"benchmark\":\"%s\",\"parameters\":\"%s\",\"unit\":\"%s\","
+            + "\"samples\":%d,\"mean\":%s,\"stddev\":%s,\"min\":%s,\"max\":%s,\"gflops\":%s,\"gbs\":%s,"
+            + "\"iterations\":%s,\"residual\":%s}", result.getBenchmark(), result.getParameters(), result.getUnit(),
+            result.getSamples(), json(result.getMean()), json(result.getStddev()), json(result.getMin()),
+            json(result.getMax()), json(gflops), json(gbs), iterations < 0 ? "null" : Integer.toString(iterations),
+            json(residual)));
+   }
+
+   private static String json(final double value) {
+      return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.format(Locale.ENGLISH, "%.6E", value);
+   }
+
+   private void write(final File file, final String format) throws IOException {
+      try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+         if ("json".equals(format)) {
+            writer.print("[" + NL);
+            for (int i = 0; i < jsonObjects.size(); i++) {
+               writer.print("  " + jsonObjects.get(i) + (i + 1 < jsonObjects.size() ? "," : "") + NL);
+            }
+            writer.print("]" + NL);
+         } else {
+            writer.println(CSV_HEADER);
+            for (final String line : lines) {
+               writer.println(line);
+            }
+         }
+      }
+   }
+
+   /**
+    * Relative residual |b - A * x| / |b|
+    */
+   private static double residual(final v3.BandMatrixFull A, final v3.Vector b, final v3.Vector x) {
+      final v3.Vector temp = new v3.Vector(b.getMaxRows());
+      A.times(x, temp);
+      b.minus(temp, temp);
+      return Math.sqrt(temp.dotProduct(temp) / b.dotProduct(b));
+   }
+
+   private static v3.Vector toV3(final v2.Vector x) {
+      final v3.Vector result = new v3.Vector(x.getMaxRows());
+      for (int row = 0; row < x.getMaxRows(); row++) {
+         result.setValue(row, x.getValue(row));
+      }
+      return result;
+   }
+
+}
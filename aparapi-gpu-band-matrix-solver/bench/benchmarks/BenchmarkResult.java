@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Statistics of the measurement iterations of one benchmark with one set 
+ * of parameters. 
+ */
+public final class BenchmarkResult {
+
+   public static final String CSV_HEADER = "benchmark,parameters,unit,samples,mean,stddev,min,max";
+
+   private final String benchmark;
+
+   private final String parameters;
+
+   private final String unit;
+
+   private final int samples;
+
+   private final double mean;
+
+   private final double stddev;
+
+   private final double min;
+
+   private final double max;
+
+   public BenchmarkResult(final String benchmark, final String parameters, final String unit, final int samples,
+         final double mean, final double stddev, final double min, final double max) {
+      this.benchmark = benchmark;
+      this.parameters = parameters;
+      this.unit = unit;
+      this.samples = samples;
+      this.mean = mean;
+      this.stddev = stddev;
+      this.min = min;
+      this.max = max;
+   }
+
+   public static BenchmarkResult create(final String benchmark, final String parameters, final String unit,
+         final double[] values) {
+      double sum = 0.0;
+      double min = Double.MAX_VALUE;
+      double max = -Double.MAX_VALUE;
+      for (final double value : values) {
+         sum += value;
+         min = Math.min(min, value);
+         max = Math.max(max, value);
+      }
+      final double mean = sum / values.length;
+      double squares = 0.0;
+      for (final double value : values) {
+         squares += (value - mean) * (value - mean);
+      }
+      final double stddev = values.length > 1 ? Math.sqrt(squares / (values.length - 1)) : 0.0;
+      return new BenchmarkResult(benchmark, parameters, unit, values.length, mean, stddev, min, max);
+   }
+
+   /**
+    * Identifies the same measurement in different result files
+    */
+   public String getKey() {
+      return benchmark + '[' + parameters + ']';
+   }
+
+   public String getBenchmark() {
+      return benchmark;
+   }
+
+   public String getParameters() {
+      return parameters;
+   }
+
+   public String getUnit() {
+      return unit;
+   }
+
+   public int getSamples() {
+      return samples;
+   }
+
+   public double getMean() {
+      return mean;
+   }
+
+   public double getStddev() {
+      return stddev;
+   }
+
+   public double getMin() {
+      return min;
+   }
+
+   public double getMax() {
+      return max;
+   }
+
+   public String toCsv() {
+      return String.format(Locale.ENGLISH, "%s,%s,%s,%d,%.6E,%.6E,%.6E,%.6E", benchmark, parameters, unit, samples, mean,
+            stddev, min, max);
+   }
+
+   public static void writeCsv(final List<BenchmarkResult> results, final File file) throws IOException {
+      try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+         writer.println(CSV_HEADER);
+         for (final BenchmarkResult result : results) {
+            writer.println(result.toCsv());
+         }
+      }
+   }
+
+   public static List<BenchmarkResult> readCsv(final File file) throws IOException {
+      final List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+      try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+         String line = reader.readLine();
+         if (null == line || !line.startsWith(CSV_HEADER)) {
+            throw new IOException("not a benchmark result file: " + file);
+         }
+         while (null != (line = reader.readLine())) {
+            if (line.trim().isEmpty()) {
+               continue;
+            }
+            final String[] tokens = line.split(",");
+            if (tokens.length < 8) {
+               throw new IOException("invalid line: " + line);
+            }
+            try {
+               results.add(new BenchmarkResult(tokens[0], tokens[1], tokens[2], Integer.parseInt(tokens[3]), Double
+                     .parseDouble(tokens[4]), Double.parseDouble(tokens[5]), Double.parseDouble(tokens[6]), Double
+                     .parseDouble(tokens[7])));
+            } catch (final NumberFormatException e) {
+               throw new IOException("invalid line: " + line, e);
+            }
+         }
+      }
+      return results;
+   }
+
+   @Override
+   public String toString() {
+      return String.format(Locale.ENGLISH, "%-50s %-40s %12.4E +- %10.4E %s (n=%d)", benchmark, parameters, mean, stddev,
+            unit, samples);
+   }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BenchmarkResultTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void create_Samples_Statistics() {
+
+      // ACT
+      final BenchmarkResult result = BenchmarkResult.create("b", "p", "ns/op", new double[] { 2.0, 4.0, 4.0, 4.0, 5.0,
+            5.0, 7.0, 9.0 });
+
+      // CHECK
+      Assert.assertEquals(8, result.getSamples());
+      Assert.assertEquals(5.0, result.getMean(), 1E-15);
+      Assert.assertEquals(Math.sqrt(32.0 / 7.0), result.getStddev(), 1E-15);
+      Assert.assertEquals(2.0, result.getMin(), 0.0);
+      Assert.assertEquals(9.0, result.getMax(), 0.0);
+      Assert.assertEquals("b[p]", result.getKey());
+   }
+
+   @Test
+   public void create_OneSample_NoDeviation() {
+
+      // ACT
+      final BenchmarkResult result = BenchmarkResult.create("b", "p", "ns/op", new double[] { 3.0 });
+
+      // CHECK
+      Assert.assertEquals(0.0, result.getStddev(), 0.0);
+   }
+
+   @Test
+   public void readCsv_WrittenResults_SameValues() throws IOException {
+
+      // ARRANGE
+      final File file = folder.newFile("results.csv");
+      final BenchmarkResult expected = new BenchmarkResult("SolverBenchmark.v3Times", "bandwidth=101;rows=1024",
+            "ns/op", 10, 330896.618, 24631.43, 306496.6, 355753.1);
+      BenchmarkResult.writeCsv(Arrays.asList(expected), file);
+
+      // ACT
+      final List<BenchmarkResult> results = BenchmarkResult.readCsv(file);
+
+      // CHECK
+      Assert.assertEquals(1, results.size());
+      final BenchmarkResult actual = results.get(0);
+      Assert.assertEquals(expected.getKey(), actual.getKey());
+      Assert.assertEquals("ns/op", actual.getUnit());
+      Assert.assertEquals(10, actual.getSamples());
+      Assert.assertEquals(expected.getMean(), actual.getMean(), 1E-6 * expected.getMean());
+      Assert.assertEquals(expected.getStddev(), actual.getStddev(), 1E-6 * expected.getStddev());
+      Assert.assertEquals(expected.getMin(), actual.getMin(), 1E-6 * expected.getMin());
+      Assert.assertEquals(expected.getMax(), actual.getMax(), 1E-6 * expected.getMax());
+   }
+
+   @Test
+   public void readCsv_ExtraColumnsAndBlankLines_Read() throws IOException {
+
+      // ARRANGE: format of BenchmarkDriver
+      final File file = write(BenchmarkResult.CSV_HEADER + ",gflops", "", "v3.times,rows=1024,s/op,3,1.0E-3,1.0E-5,"
+            + "9.9E-4,1.01E-3,1.5", "");
+
+      // ACT
+      final List<BenchmarkResult> results = BenchmarkResult.readCsv(file);
+
+      // CHECK
+      Assert.assertEquals(1, results.size());
+      Assert.assertEquals(1.0E-3, results.get(0).getMean(), 0.0);
+   }
+
+   @Test(expected = IOException.class)
+   public void readCsv_WrongHeader_Exception() throws IOException {
+      BenchmarkResult.readCsv(write("name,value", "a,1"));
+   }
+
+   @Test(expected = IOException.class)
+   public void readCsv_TooFewColumns_Exception() throws IOException {
+      BenchmarkResult.readCsv(write(BenchmarkResult.CSV_HEADER, "v3.times,rows=1024,ns/op,3,1.0"));
+   }
+
+   @Test(expected = IOException.class)
+   public void readCsv_InvalidNumber_Exception() throws IOException {
+      BenchmarkResult.readCsv(write(BenchmarkResult.CSV_HEADER, "v3.times,rows=1024,ns/op,three,1,1,1,1"));
+   }
+
+   private File write(final String... lines) throws IOException {
+      final File file = folder.newFile();
+      try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+         for (final String line : lines) {
+            writer.println(line);
+         }
+      }
+      return file;
+   }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the JMH benchmarks of this folder and writes every measurement 
+ * iteration as sample of a BenchmarkResult, i.e. in the CSV format read by 
+ * BenchmarkCompare. JMH forks a JVM per benchmark and consumes the returned 
+ * values with its own blackhole, so the benchmarks neither influence the 
+ * compilation of each other nor pay for boxing their results.
+ * 
+ * Usage: BenchmarkRunner [--filter regex] [--rows 1024,4096] [--bandwidth 101] [--seed 1]
+ *                        [--warmup 5] [--iterations 10] [--time 200] [--forks 1] [--output results.csv]
+ *                        
+ * The filter is matched against the full name, e.g. SolverBenchmark.v3Times. 
+ * Parameters which a benchmark does not have are ignored.
+ */
+public final class BenchmarkRunner {
+
+   private static final String[] PARAMETERS = { "rows", "bandwidth", "seed" };
+
+   private BenchmarkRunner() {
+   }
+
+   public static void main(final String[] args) throws IOException, RunnerException {
+      run(".*", args);
+   }
+
+   /**
+    * Runs the benchmarks of one class unless the command line has a filter
+    */
+   static void run(final Class<?> benchmarks, final String[] args) throws IOException, RunnerException {
+      run(benchmarks.getName() + "\\.", args);
+   }
+
+   private static void run(final String include, final String[] args) throws IOException, RunnerException {
+      final CommandLine commandLine = new CommandLine(args);
+      final TimeValue time = TimeValue.milliseconds(commandLine.getLong("time", 200));
+      final ChainedOptionsBuilder options = new OptionsBuilder().include(commandLine.getString("filter", include))
+            .warmupIterations(commandLine.getInt("warmup", 5)).warmupTime(time)
+            .measurementIterations(commandLine.getInt("iterations", 10)).measurementTime(time)
+            .forks(commandLine.getInt("forks", 1));
+      for (final String name : PARAMETERS) {
+         final String[] values = commandLine.getStrings(name);
+         if (values.length != 0) {
+            options.param(name, values);
+         }
+      }
+
+      final List<BenchmarkResult> results = toResults(new Runner(options.build()).run());
+      for (final BenchmarkResult result : results) {
+         System.out.println(result);
+      }
+      final String output = commandLine.getString("output", null);
+      if (null != output) {
+         BenchmarkResult.writeCsv(results, new File(output));
+      }
+   }
+
+   /**
+    * One result per benchmark and parameter set, the samples are the scores 
+    * of the measurement iterations of all forks
+    */
+   static List<BenchmarkResult> toResults(final Collection<RunResult> runResults) {
+      final List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+      for (final RunResult runResult : runResults) {
+         final BenchmarkParams params = runResult.getParams();
+         final StringBuilder parameters = new StringBuilder();
+         for (final String key : params.getParamsKeys()) {
+            parameters.append(parameters.length() == 0 ? "" : ";").append(key).append('=').append(params.getParam(key));
+         }
+         final List<Double> scores = new ArrayList<Double>();
+         for (final org.openjdk.jmh.results.BenchmarkResult fork : runResult.getBenchmarkResults()) {
+            for (final IterationResult iteration : fork.getIterationResults()) {
+               scores.add(iteration.getPrimaryResult().getScore());
+            }
+         }
+         final double[] samples = new double[scores.size()];
+         for (int i = 0; i < samples.length; i++) {
+            samples[i] = scores.get(i);
+         }
+         // benchmarks.SolverBenchmark.v3Times -> SolverBenchmark.v3Times
+         final String benchmark = params.getBenchmark();
+         final String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+         results.add(BenchmarkResult.create(name, parameters.toString(), runResult.getPrimaryResult().getScoreUnit(),
+               samples));
+      }
+      return results;
+   }
+
+}
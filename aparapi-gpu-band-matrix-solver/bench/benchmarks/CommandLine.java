@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal parser for command lines of the form --name value or --flag
+ */
+public final class CommandLine {
+
+   private final Map<String, String> options = new HashMap<String, String>();
+
+   private final List<String> arguments = new ArrayList<String>();
+
+   public CommandLine(final String[] args) {
+      for (int i = 0; i < args.length; i++) {
+         if (args[i].startsWith("--")) {
+            final String name = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+               options.put(name, args[++i]);
+            } else {
+               options.put(name, "true");
+            }
+         } else {
+            arguments.add(args[i]);
+         }
+      }
+   }
+
+   public String getString(final String name, final String defaultValue) {
+      final String value = options.get(name);
+      return null == value ? defaultValue : value;
+   }
+
+   public int getInt(final String name, final int defaultValue) {
+      final String value = options.get(name);
+      return null == value ? defaultValue : Integer.parseInt(value);
+   }
+
+   public long getLong(final String name, final long defaultValue) {
+      final String value = options.get(name);
+      return null == value ? defaultValue : Long.parseLong(value);
+   }
+
+   public double getDouble(final String name, final double defaultValue) {
+      final String value = options.get(name);
+      return null == value ? defaultValue : Double.parseDouble(value);
+   }
+
+   public boolean getFlag(final String name) {
+      return Boolean.parseBoolean(options.get(name));
+   }
+
+   /**
+    * Comma separated list, e.g. --rows 1024,4096
+    */
+   public int[] getInts(final String name, final int... defaultValues) {
+      final String value = options.get(name);
+      if (null == value) {
+         return defaultValues;
+      }
+      final String[] tokens = value.split(",");
+      final int[] result = new int[tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+         result[i] = Integer.parseInt(tokens[i].trim());
+      }
+      return result;
+   }
+
+   public String[] getStrings(final String name, final String... defaultValues) {
+      final String value = options.get(name);
+      return null == value ? defaultValues : value.split(",");
+   }
+
+   public List<String> getArguments() {
+      return arguments;
+   }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CommandLineTest {
+
+   @Test
+   public void create_OptionsFlagsAndArguments_Parsed() {
+
+      // ACT
+      final CommandLine commandLine = new CommandLine(new String[] { "baseline.csv", "--confidence", "0.95",
+            "--fail-on-missing", "--rows", "1024, 4096", "candidate.csv", "--verbose" });
+
+      // CHECK
+      Assert.assertEquals(0.95, commandLine.getDouble("confidence", 0.99), 0.0);
+      Assert.assertTrue(commandLine.getFlag("fail-on-missing"));
+      Assert.assertTrue(commandLine.getFlag("verbose"));
+      Assert.assertArrayEquals(new int[] { 1024, 4096 }, commandLine.getInts("rows", 1));
+      Assert.assertEquals(2, commandLine.getArguments().size());
+      Assert.assertEquals("baseline.csv", commandLine.getArguments().get(0));
+      Assert.assertEquals("candidate.csv", commandLine.getArguments().get(1));
+   }
+
+   @Test
+   public void get_MissingOptions_Defaults() {
+
+      // ACT
+      final CommandLine commandLine = new CommandLine(new String[0]);
+
+      // CHECK
+      Assert.assertEquals("csv", commandLine.getString("format", "csv"));
+      Assert.assertEquals(3, commandLine.getInt("repeats", 3));
+      Assert.assertEquals(1L, commandLine.getLong("seed", 1L));
+      Assert.assertFalse(commandLine.getFlag("fail-on-missing"));
+      Assert.assertArrayEquals(new int[] { 11, 101 }, commandLine.getInts("bandwidth", 11, 101));
+      Assert.assertArrayEquals(new String[] { "times", "v3" }, commandLine.getStrings("solvers", "times", "v3"));
+      Assert.assertEquals(0, commandLine.getStrings("rows").length);
+   }
+
+   @Test
+   public void getStrings_CommaSeparated_Split() {
+
+      // ACT
+      final CommandLine commandLine = new CommandLine(new String[] { "--families", "dominant,laplacian" });
+
+      // CHECK
+      Assert.assertArrayEquals(new String[] { "dominant", "laplacian" }, commandLine.getStrings("families"));
+   }
+
+   @Test(expected = NumberFormatException.class)
+   public void getInt_NoNumber_Exception() {
+      new CommandLine(new String[] { "--repeats", "many" }).getInt("repeats", 3);
+   }
+
+}
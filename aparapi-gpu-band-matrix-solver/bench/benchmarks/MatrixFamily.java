@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.util.Locale;
+
+import tests.BandMatrixGenerator;
+
+/**
+ * Families of symmetric positive definite band matrices for the benchmark
+ * driver, all of them are created with the BandMatrixGenerator.
+ */
+public enum MatrixFamily {
+
+   /**
+    * Random off-diagonal values and a strictly dominant diagonal
+    */
+   DOMINANT {
+      @Override
+      public BandMatrixGenerator create(final int rows, final int bandwidth, final long seed) {
+         return BandMatrixGenerator.diagonallyDominant(rows, bandwidth, seed);
+      }
+   },
+
+   /**
+    * Five point stencil of a 2D Laplacian on a grid with bandwidth / 2 points 
+    * per line, the rows are rounded down to complete lines
+    */
+   LAPLACIAN {
+      @Override
+      public BandMatrixGenerator create(final int rows, final int bandwidth, final long seed) {
+         final int gridWidth = Math.max(1, bandwidth >> 1);
+         return BandMatrixGenerator.poisson2D(gridWidth, Math.max(1, rows / gridWidth), seed);
+      }
+   },
+
+   /**
+    * Toeplitz matrix with the condition number 1E6 independent of the size
+    */
+   ILL_CONDITIONED {
+      @Override
+      public BandMatrixGenerator create(final int rows, final int bandwidth, final long seed) {
+         return BandMatrixGenerator.conditionNumber(rows, bandwidth, 1.0E6, seed);
+      }
+   };
+
+   public abstract BandMatrixGenerator create(int rows, int bandwidth, long seed);
+
+   public static MatrixFamily parse(final String name) {
+      return valueOf(name.trim().toUpperCase(Locale.ENGLISH).replace('-', '_'));
+   }
+
+}
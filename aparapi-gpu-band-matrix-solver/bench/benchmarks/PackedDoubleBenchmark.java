@@ -0,0 +1,381 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import v4.BandMatrixMultiplicatonAparapi;
+import v4.PackedDouble;
+
+/**
+ * JMH micro benchmarks of the PackedDouble operations and of their copies 
+ * in the Aparapi kernel, with double and float arithmetic as baseline. 
+ * Every operation is measured in up to three forms, the suffix of the 
+ * benchmark name:
+ * 
+ *  Scalar - independent operations, results are folded into a register (throughput)
+ *  Array  - results are stored into an array (throughput including memory traffic)
+ *  Chain  - each operation depends on the previous result (latency)
+ *  
+ * An invocation runs SIZE operations, the reported time is per single 
+ * operation. The input arrays hold SIZE + 1 values, so that the binary 
+ * operations on neighbours x[i] and x[i + 1] run SIZE times as well. The 
+ * kernel forms call the copies of addPacked and multiplyPacked in 
+ * BandMatrixMultiplicatonAparapi directly, without a kernel execution.
+ *  
+ * Usage: PackedDoubleBenchmark [--filter regex] [--seed 1] [--warmup 5] [--iterations 10] [--time 200]
+ *                              [--forks 1] [--output results.csv]
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@OperationsPerInvocation(PackedDoubleBenchmark.SIZE)
+@State(Scope.Thread)
+public class PackedDoubleBenchmark {
+
+   public static final int SIZE = 4096;
+
+   @Param({ "1" })
+   public long seed;
+
+   private double[] doubles;
+
+   private double[] doublesNearOne;
+
+   private float[] floats;
+
+   private float[] floatsNearOne;
+
+   private long[] packed;
+
+   private long[] packedNearOne;
+
+   private final double[] doubleResult = new double[SIZE];
+
+   private final float[] floatResult = new float[SIZE];
+
+   private final long[] packedResult = new long[SIZE];
+
+   private final BandMatrixMultiplicatonAparapi kernel = new BandMatrixMultiplicatonAparapi();
+
+   public static void main(final String[] args) throws IOException, RunnerException {
+      BenchmarkRunner.run(PackedDoubleBenchmark.class, args);
+   }
+
+   @Setup
+   public void setup() {
+      final Random random = new Random(seed);
+      doubles = new double[SIZE + 1];
+      doublesNearOne = new double[SIZE + 1];
+      floats = new float[SIZE + 1];
+      floatsNearOne = new float[SIZE + 1];
+      packed = new long[SIZE + 1];
+      packedNearOne = new long[SIZE + 1];
+      for (int i = 0; i <= SIZE; i++) {
+         doubles[i] = 2000.0 * (random.nextDouble() - 0.5);
+         doublesNearOne[i] = 1.0 + 1.0E-3 * (random.nextDouble() - 0.5);
+         floats[i] = (float) doubles[i];
+         floatsNearOne[i] = (float) doublesNearOne[i];
+         packed[i] = PackedDouble.pack(doubles[i]);
+         packedNearOne[i] = PackedDouble.pack(doublesNearOne[i]);
+      }
+   }
+
+   @Benchmark
+   public long packScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= PackedDouble.pack(doubles[i]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public long[] packArray() {
+      for (int i = 0; i < SIZE; i++) {
+         packedResult[i] = PackedDouble.pack(doubles[i]);
+      }
+      return packedResult;
+   }
+
+   @Benchmark
+   public long unpackScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= Double.doubleToRawLongBits(PackedDouble.unpack(packed[i]));
+      }
+      return result;
+   }
+
+   @Benchmark
+   public double[] unpackArray() {
+      for (int i = 0; i < SIZE; i++) {
+         doubleResult[i] = PackedDouble.unpack(packed[i]);
+      }
+      return doubleResult;
+   }
+
+   @Benchmark
+   public double roundtripChain() {
+      double value = doubles[0];
+      for (int i = 0; i < SIZE; i++) {
+         value = PackedDouble.unpack(PackedDouble.pack(value));
+      }
+      return value;
+   }
+
+   @Benchmark
+   public long addPackedScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= PackedDouble.addPacked(packed[i], packed[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public long[] addPackedArray() {
+      for (int i = 0; i < SIZE; i++) {
+         packedResult[i] = PackedDouble.addPacked(packed[i], packed[i + 1]);
+      }
+      return packedResult;
+   }
+
+   @Benchmark
+   public long addPackedChain() {
+      long sum = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         sum = PackedDouble.addPacked(sum, packed[i]);
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public long multiplyPackedScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= PackedDouble.multiplyPacked(packed[i], packed[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public long[] multiplyPackedArray() {
+      for (int i = 0; i < SIZE; i++) {
+         packedResult[i] = PackedDouble.multiplyPacked(packed[i], packed[i + 1]);
+      }
+      return packedResult;
+   }
+
+   @Benchmark
+   public long multiplyPackedChain() {
+      long product = PackedDouble.pack(1.0);
+      for (int i = 0; i < SIZE; i++) {
+         product = PackedDouble.multiplyPacked(product, packedNearOne[i]);
+      }
+      return product;
+   }
+
+   @Benchmark
+   public long kernelAddPackedScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= kernel.addPacked(packed[i], packed[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public long[] kernelAddPackedArray() {
+      for (int i = 0; i < SIZE; i++) {
+         packedResult[i] = kernel.addPacked(packed[i], packed[i + 1]);
+      }
+      return packedResult;
+   }
+
+   @Benchmark
+   public long kernelAddPackedChain() {
+      long sum = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         sum = kernel.addPacked(sum, packed[i]);
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public long kernelMultiplyPackedScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= kernel.multiplyPacked(packed[i], packed[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public long[] kernelMultiplyPackedArray() {
+      for (int i = 0; i < SIZE; i++) {
+         packedResult[i] = kernel.multiplyPacked(packed[i], packed[i + 1]);
+      }
+      return packedResult;
+   }
+
+   @Benchmark
+   public long kernelMultiplyPackedChain() {
+      long product = PackedDouble.pack(1.0);
+      for (int i = 0; i < SIZE; i++) {
+         product = kernel.multiplyPacked(product, packedNearOne[i]);
+      }
+      return product;
+   }
+
+   @Benchmark
+   public long doubleAddScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= Double.doubleToRawLongBits(doubles[i] + doubles[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public double[] doubleAddArray() {
+      for (int i = 0; i < SIZE; i++) {
+         doubleResult[i] = doubles[i] + doubles[i + 1];
+      }
+      return doubleResult;
+   }
+
+   @Benchmark
+   public double doubleAddChain() {
+      double sum = 0.0;
+      for (int i = 0; i < SIZE; i++) {
+         sum += doubles[i];
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public long doubleMultiplyScalar() {
+      long result = 0L;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= Double.doubleToRawLongBits(doubles[i] * doubles[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public double[] doubleMultiplyArray() {
+      for (int i = 0; i < SIZE; i++) {
+         doubleResult[i] = doubles[i] * doubles[i + 1];
+      }
+      return doubleResult;
+   }
+
+   @Benchmark
+   public double doubleMultiplyChain() {
+      double product = 1.0;
+      for (int i = 0; i < SIZE; i++) {
+         product *= doublesNearOne[i];
+      }
+      return product;
+   }
+
+   @Benchmark
+   public int floatAddScalar() {
+      int result = 0;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= Float.floatToRawIntBits(floats[i] + floats[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public float[] floatAddArray() {
+      for (int i = 0; i < SIZE; i++) {
+         floatResult[i] = floats[i] + floats[i + 1];
+      }
+      return floatResult;
+   }
+
+   @Benchmark
+   public float floatAddChain() {
+      float sum = 0.0f;
+      for (int i = 0; i < SIZE; i++) {
+         sum += floats[i];
+      }
+      return sum;
+   }
+
+   @Benchmark
+   public int floatMultiplyScalar() {
+      int result = 0;
+      for (int i = 0; i < SIZE; i++) {
+         result ^= Float.floatToRawIntBits(floats[i] * floats[i + 1]);
+      }
+      return result;
+   }
+
+   @Benchmark
+   public float[] floatMultiplyArray() {
+      for (int i = 0; i < SIZE; i++) {
+         floatResult[i] = floats[i] * floats[i + 1];
+      }
+      return floatResult;
+   }
+
+   @Benchmark
+   public float floatMultiplyChain() {
+      float product = 1.0f;
+      for (int i = 0; i < SIZE; i++) {
+         product *= floatsNearOne[i];
+      }
+      return product;
+   }
+
+}
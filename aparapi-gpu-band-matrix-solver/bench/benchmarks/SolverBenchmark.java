@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+import tests.BandMatrixGenerator;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+/**
+ * JMH benchmarks of the conjugate gradient solvers of all generations and 
+ * of their matrix and vector kernels, parameterized over rows and 
+ * bandwidth. The execution mode is part of the benchmark name (e.g. 
+ * v3SolveConjugateGradientForkAndJoin, v4SolveConjugateGradientAparapiJtp).
+ * Each generation has its own state, so a benchmark only builds the data 
+ * it uses.
+ * 
+ * Usage: SolverBenchmark [--rows 1024,4096] [--bandwidth 101] [--filter regex] [--seed 1]
+ *                        [--warmup 5] [--iterations 10] [--time 200] [--forks 1] [--output results.csv]
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class SolverBenchmark {
+
+   public static void main(final String[] args) throws IOException, RunnerException {
+      BenchmarkRunner.run(SolverBenchmark.class, args);
+   }
+
+   /**
+    * Parameters of the diagonally dominant test matrix
+    */
+   @State(Scope.Benchmark)
+   public abstract static class Data {
+
+      @Param({ "1024", "4096" })
+      public int rows;
+
+      @Param({ "101" })
+      public int bandwidth;
+
+      @Param({ "1" })
+      public long seed;
+
+      BandMatrixGenerator generator() {
+         return BandMatrixGenerator.diagonallyDominant(rows, bandwidth, seed);
+      }
+   }
+
+   public static class V1 extends Data {
+
+      v1.BandMatrix A;
+
+      v1.Matrix b;
+
+      @Setup(Level.Trial)
+      public void setup() {
+         final BandMatrixGenerator generator = generator();
+         A = generator.createMatrixV1();
+         b = generator.createRightHandSideV1();
+      }
+   }
+
+   public static class V2 extends Data {
+
+      v2.BandMatrix A;
+
+      v2.Vector b;
+
+      @Setup(Level.Trial)
+      public void setup() {
+         final BandMatrixGenerator generator = generator();
+         A = generator.createMatrixV2();
+         b = generator.createRightHandSideV2();
+      }
+   }
+
+   public static class V3 extends Data {
+
+      v3.BandMatrixFull A;
+
+      v3.Vector b;
+
+      v3.Vector result;
+
+      @Setup(Level.Trial)
+      public void setup() {
+         final BandMatrixGenerator generator = generator();
+         A = generator.createMatrixV3();
+         b = generator.createRightHandSideV3();
+         result = new v3.Vector(b.getMaxRows());
+      }
+   }
+
+   public static class V4 extends Data {
+
+      v4.BandMatrixFull A;
+
+      v4.Vector b;
+
+      v4.Vector result;
+
+      @Setup(Level.Trial)
+      public void setup() {
+         final BandMatrixGenerator generator = generator();
+         A = generator.createMatrixV4();
+         b = generator.createRightHandSideV4();
+         result = new v4.Vector(b.getMaxRows());
+      }
+   }
+
+   /**
+    * Aparapi kernel in the Java thread pool mode, created once per trial
+    */
+   public static class V4Kernel extends V4 {
+
+      v4.BandMatrixMultiplicatonAparapi kernel;
+
+      Range range;
+
+      @Setup(Level.Trial)
+      public void createKernel() {
+         kernel = v4.BandMatrixFull.createKernel(A, b, result);
+         kernel.setExecutionMode(Kernel.EXECUTION_MODE.JTP);
+         range = v4.BandMatrixFull.createRange(A.getMaxRows(), Kernel.EXECUTION_MODE.JTP);
+      }
+
+      @TearDown(Level.Trial)
+      public void dispose() {
+         kernel.dispose();
+      }
+   }
+
+   @Benchmark
+   public v1.Matrix v1SolveConjugateGradient(final V1 data) {
+      return v1.BandMatrix.solveConjugateGradient(data.A, data.b);
+   }
+
+   @Benchmark
+   public v2.Vector v2SolveConjugateGradient(final V2 data) {
+      return v2.BandMatrix.solveConjugateGradient(data.A, data.b);
+   }
+
+   @Benchmark
+   public v3.Vector v3SolveConjugateGradient(final V3 data) {
+      return v3.BandMatrixFull.solveConjugateGradient(data.A, data.b);
+   }
+
+   @Benchmark
+   public v3.Vector v3SolveConjugateGradientForkAndJoin(final V3 data) {
+      return v3.BandMatrixFull.solveConjugateGradientForkAndJoin(data.A, data.b);
+   }
+
+   @Benchmark
+   public v3.Vector v3Times(final V3 data) {
+      data.A.times(data.b, data.result);
+      return data.result;
+   }
+
+   @Benchmark
+   public v3.Vector v3TimesForkAndJoin(final V3 data) {
+      v3.BandMatrixFull.POOL.invoke(new v3.BandMatrixMultiplicatonTask(0, data.A.getMaxRows(), data.A, data.b,
+            data.result));
+      return data.result;
+   }
+
+   @Benchmark
+   public double v3VectorDotProduct(final V3 data) {
+      return data.b.dotProduct(data.result);
+   }
+
+   @Benchmark
+   public v3.Vector v3VectorPlus(final V3 data) {
+      data.b.plus(data.b, data.result);
+      return data.result;
+   }
+
+   @Benchmark
+   public v3.Vector v3VectorMulti(final V3 data) {
+      data.b.multi(0.5, data.result);
+      return data.result;
+   }
+
+   @Benchmark
+   public v4.Vector v4SolveConjugateGradientStandard(final V4 data) {
+      return v4.BandMatrixFull.solveConjugateGradientStandard(data.A, data.b);
+   }
+
+   @Benchmark
+   public v4.Vector v4SolveConjugateGradientAparapiJtp(final V4 data) {
+      return v4.BandMatrixFull.solveConjugateGradientAparapi(data.A, data.b, Kernel.EXECUTION_MODE.JTP);
+   }
+
+   @Benchmark
+   public v4.Vector v4Times(final V4 data) {
+      return data.A.times(data.b, data.result);
+   }
+
+   @Benchmark
+   public v4.Vector v4TimesAparapiJtp(final V4Kernel data) {
+      data.kernel.putVectorB();
+      data.kernel.execute(data.range);
+      data.kernel.getVectorX();
+      return data.result;
+   }
+
+   @Benchmark
+   public double v4VectorDotProduct(final V4 data) {
+      return data.b.dotProduct(data.result);
+   }
+
+   @Benchmark
+   public v4.Vector v4VectorPlus(final V4 data) {
+      return data.b.plus(data.b, data.result);
+   }
+
+   @Benchmark
+   public v4.Vector v4VectorMulti(final V4 data) {
+      return data.b.multi(0.5, data.result);
+   }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver.jfr;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import solver.SolveResult;
+import solver.SolverListener;
+
+/**
+ * Writes the solves as Java Flight Recorder events (needs a JVM with 
+ * jdk.jfr, i.e. Java 8u262 or later). The JFR classes are kept in the 
+ * separate project jfr, which is compiled with release 11 because javac 
+ * --release 8 has no jdk.jfr; build it with "ant test_jfr" or import it 
+ * into Eclipse next to the main project. Usage:
+ * 
+ *    SolverListeners.register(new JfrSolverListener());
+ *    
+ * and start the JVM with -XX:StartFlightRecording. The iteration events 
+ * are disabled in the default settings.
+ */
+public final class JfrSolverListener implements SolverListener {
+
+   /**
+    * Running solves of the current thread, solves may be nested
+    */
+   private final ThreadLocal<Deque<SolveEvent>> events = new ThreadLocal<Deque<SolveEvent>>() {
+      @Override
+      protected Deque<SolveEvent> initialValue() {
+         return new ArrayDeque<SolveEvent>();
+      }
+   };
+
+   @Override
+   public void solveStarted(final String solver, final int rows) {
+      final SolveEvent event = new SolveEvent();
+      event.solver = solver;
+      event.rows = rows;
+      event.begin();
+      events.get().push(event);
+   }
+
+   @Override
+   public void iterationCompleted(final String solver, final int iteration, final double residualNorm) {
+      final IterationEvent event = new IterationEvent();
+      if (event.isEnabled()) {
+         event.solver = solver;
+         event.iteration = iteration;
+         event.residualNorm = residualNorm;
+         event.commit();
+      }
+   }
+
+   @Override
+   public void solveCompleted(final String solver, final SolveResult<?> result) {
+      final SolveEvent event = events.get().poll();
+      if (null == event) {
+         return;
+      }
+      event.end();
+      if (event.shouldCommit()) {
+         event.iterations = result.getIterations();
+         event.residualNorm = result.getResidualNorm();
+         event.matVecTime = result.getMatVecNanos();
+         event.vectorTime = result.getVectorNanos();
+         event.reductionTime = result.getReductionNanos();
+         event.transferTime = result.getTransferNanos();
+         event.commit();
+      }
+   }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver.jfr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import solver.SolverListeners;
+import tests.BandMatrixGenerator;
+import v3.BandMatrixFull;
+
+public class JfrSolverListenerTest {
+
+   @Test
+   public void solveConjugateGradient_Recording_SolveEventWritten() throws IOException {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(100, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final JfrSolverListener listener = new JfrSolverListener();
+      final File file = File.createTempFile("solver", ".jfr");
+      file.deleteOnExit();
+
+      // ACT
+      try (Recording recording = new Recording()) {
+         recording.enable("solver.Solve");
+         recording.start();
+         SolverListeners.register(listener);
+         try {
+            BandMatrixFull.solveConjugateGradient(A, generator.createRightHandSideV3());
+         } finally {
+            SolverListeners.unregister(listener);
+         }
+         recording.stop();
+         recording.dump(file.toPath());
+      }
+
+      // CHECK
+      final List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+      Assert.assertEquals(1, events.size());
+      final RecordedEvent event = events.get(0);
+      Assert.assertEquals("v3.solveConjugateGradient", event.getString("solver"));
+      Assert.assertEquals(100, event.getInt("rows"));
+      Assert.assertTrue(event.getInt("iterations") > 0);
+      Assert.assertTrue(event.getDouble("residualNorm") < 1E-5);
+   }
+
+}
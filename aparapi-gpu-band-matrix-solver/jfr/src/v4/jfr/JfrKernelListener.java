@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v4.jfr;
+
+import java.util.List;
+
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+import com.amd.aparapi.ProfileInfo;
+
+import v4.BandMatrixMultiplicatonAparapi;
+import v4.KernelListener;
+
+/**
+ * Writes the kernel construction, launches and transfers as Java Flight 
+ * Recorder events (needs a JVM with jdk.jfr, i.e. Java 8u262 or later, 
+ * like the solver events in the separate project jfr). Usage:
+ * 
+ *    KernelListeners.register(new JfrKernelListener());
+ *    
+ * and start the JVM with -XX:StartFlightRecording. If Aparapi runs with 
+ * -Dcom.amd.aparapi.enableProfiling=true on a GPU, the OpenCL profile of 
+ * each launch is written as additional profile events.
+ */
+public final class JfrKernelListener implements KernelListener {
+
+   @Override
+   public Object operationStarted(final BandMatrixMultiplicatonAparapi kernel, final Operation operation) {
+      final jdk.jfr.Event event;
+      switch (operation) {
+         case CREATE:
+            event = new KernelCreateEvent();
+            break;
+         case EXECUTE:
+            event = new KernelExecuteEvent();
+            break;
+         default:
+            event = new KernelTransferEvent();
+            break;
+      }
+      event.begin();
+      return event;
+   }
+
+   @Override
+   public void operationCompleted(final Object context, final BandMatrixMultiplicatonAparapi kernel,
+         final Operation operation, final EXECUTION_MODE requestedMode, final long size, final long nanos) {
+      final jdk.jfr.Event event = (jdk.jfr.Event) context;
+      event.end();
+      if (!event.shouldCommit()) {
+         return;
+      }
+      final String kernelName = kernel.getClass().getName();
+      final EXECUTION_MODE executionMode = kernel.getExecutionMode();
+      switch (operation) {
+         case CREATE:
+            final KernelCreateEvent create = (KernelCreateEvent) event;
+            create.kernel = kernelName;
+            create.executionMode = executionMode.name();
+            create.commit();
+            break;
+         case EXECUTE:
+            final KernelExecuteEvent execute = (KernelExecuteEvent) event;
+            execute.kernel = kernelName;
+            execute.globalSize = size;
+            execute.requestedMode = requestedMode.name();
+            execute.executionMode = executionMode.name();
+            execute.fallback = requestedMode != executionMode;
+            execute.conversionTime = kernel.getConversionTime();
+            execute.executionTime = kernel.getExecutionTime();
+            execute.commit();
+            writeProfile(kernel, kernelName);
+            break;
+         default:
+            final KernelTransferEvent transfer = (KernelTransferEvent) event;
+            transfer.kernel = kernelName;
+            transfer.direction = operation.name();
+            transfer.bytes = size;
+            transfer.executionMode = executionMode.name();
+            transfer.commit();
+            break;
+      }
+   }
+
+   private static void writeProfile(final BandMatrixMultiplicatonAparapi kernel, final String kernelName) {
+      final KernelProfileEvent enabled = new KernelProfileEvent();
+      if (!enabled.isEnabled()) {
+         return;
+      }
+      final List<ProfileInfo> profile = kernel.getProfileInfo();
+      if (null == profile) {
+         return;
+      }
+      for (final ProfileInfo info : profile) {
+         final KernelProfileEvent event = new KernelProfileEvent();
+         event.kernel = kernelName;
+         event.label = info.getLabel();
+         event.type = String.valueOf(info.getType());
+         event.queuedTime = info.getStart() - info.getQueued();
+         event.deviceTime = info.getEnd() - info.getStart();
+         event.commit();
+      }
+   }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v4.jfr;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import v4.BandMatrixMultiplicatonAparapi;
+import v4.KernelListeners;
+
+import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
+
+public class JfrKernelListenerTest {
+
+   @Test
+   public void execute_Recording_KernelEventsWritten() throws IOException {
+
+      // ARRANGE
+      final int rows = 8;
+      final JfrKernelListener listener = new JfrKernelListener();
+      final File file = File.createTempFile("kernel", ".jfr");
+      file.deleteOnExit();
+
+      // ACT
+      try (Recording recording = new Recording()) {
+         recording.enable("aparapi.KernelCreate");
+         recording.enable("aparapi.KernelExecute");
+         recording.enable("aparapi.KernelTransfer");
+         recording.start();
+         KernelListeners.register(listener);
+         try {
+            final BandMatrixMultiplicatonAparapi kernel = new BandMatrixMultiplicatonAparapi();
+            kernel.setMatrixA(new long[rows * 3], rows, 3);
+            kernel.setVectorX(new long[rows]);
+            kernel.setExecutionMode(Kernel.EXECUTION_MODE.SEQ);
+            kernel.execute(Range.create(rows, 1));
+            kernel.getVectorX();
+            kernel.dispose();
+         } finally {
+            KernelListeners.unregister(listener);
+         }
+         recording.stop();
+         recording.dump(file.toPath());
+      }
+
+      // CHECK
+      final List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+      int creates = 0;
+      int executes = 0;
+      long putBytes = 0;
+      long getBytes = 0;
+      for (final RecordedEvent event : events) {
+         final String name = event.getEventType().getName();
+         if ("aparapi.KernelCreate".equals(name)) {
+            creates++;
+         } else if ("aparapi.KernelExecute".equals(name)) {
+            executes++;
+            Assert.assertEquals(rows, event.getLong("globalSize"));
+            Assert.assertEquals("SEQ", event.getString("requestedMode"));
+            Assert.assertEquals("SEQ", event.getString("executionMode"));
+            Assert.assertFalse(event.getBoolean("fallback"));
+         } else if ("PUT".equals(event.getString("direction"))) {
+            putBytes += event.getLong("bytes");
+         } else {
+            getBytes += event.getLong("bytes");
+         }
+      }
+      Assert.assertEquals(1, creates);
+      Assert.assertEquals(1, executes);
+      Assert.assertEquals((100 + rows) * 8, putBytes);
+      Assert.assertEquals(rows * 8, getBytes);
+   }
+
+}
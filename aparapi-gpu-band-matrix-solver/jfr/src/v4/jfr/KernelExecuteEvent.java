@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v4.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("aparapi.KernelExecute")
+@Label("Kernel Execute")
+@Category({ "Band Matrix Solver", "Aparapi" })
+@Description("One launch of a band matrix kernel")
+public class KernelExecuteEvent extends jdk.jfr.Event {
+
+   @Label("Kernel")
+   String kernel;
+
+   @Label("Global Size")
+   long globalSize;
+
+   @Label("Requested Mode")
+   String requestedMode;
+
+   @Label("Execution Mode")
+   String executionMode;
+
+   @Label("Fallback")
+   @Description("The kernel did not run in the requested mode, e.g. GPU failed and Aparapi used JTP")
+   boolean fallback;
+
+   @Label("Conversion Time")
+   @Description("Time of the bytecode to OpenCL conversion as reported by Aparapi")
+   @Timespan(Timespan.MILLISECONDS)
+   long conversionTime;
+
+   @Label("Execution Time")
+   @Description("Execution time of the last launch as reported by Aparapi")
+   @Timespan(Timespan.MILLISECONDS)
+   long executionTime;
+
+}
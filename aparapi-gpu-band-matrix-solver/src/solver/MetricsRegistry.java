@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process registry of named counters and histograms, e.g. for the 
+ * export to a monitoring system. All metrics can be updated concurrently.
+ */
+public final class MetricsRegistry {
+
+   private static final String NL = System.getProperty("line.separator");
+
+   private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+   private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+   public Counter counter(final String name) {
+      Counter counter = counters.get(name);
+      if (null == counter) {
+         final Counter created = new Counter();
+         counter = counters.putIfAbsent(name, created);
+         if (null == counter) {
+            counter = created;
+         }
+      }
+      return counter;
+   }
+
+   public Histogram histogram(final String name) {
+      Histogram histogram = histograms.get(name);
+      if (null == histogram) {
+         final Histogram created = new Histogram();
+         histogram = histograms.putIfAbsent(name, created);
+         if (null == histogram) {
+            histogram = created;
+         }
+      }
+      return histogram;
+   }
+
+   /**
+    * Counters sorted by name
+    */
+   public Map<String, Counter> getCounters() {
+      return new TreeMap<String, Counter>(counters);
+   }
+
+   /**
+    * Histograms sorted by name
+    */
+   public Map<String, Histogram> getHistograms() {
+      return new TreeMap<String, Histogram>(histograms);
+   }
+
+   /**
+    * One line per metric, e.g. "solver.v3.solveConjugateGradient.solves 12"
+    */
+   @Override
+   public String toString() {
+      final StringBuilder sb = new StringBuilder();
+      for (final Map.Entry<String, Counter> entry : getCounters().entrySet()) {
+         sb.append(entry.getKey()).append(' ').append(entry.getValue().get()).append(NL);
+      }
+      for (final Map.Entry<String, Histogram> entry : getHistograms().entrySet()) {
+         sb.append(entry.getKey()).append(' ').append(entry.getValue()).append(NL);
+      }
+      return sb.toString();
+   }
+
+   public static final class Counter {
+
+      private final LongAdder value = new LongAdder();
+
+      public void increment() {
+         value.increment();
+      }
+
+      public void add(final long delta) {
+         value.add(delta);
+      }
+
+      public long get() {
+         return value.sum();
+      }
+
+   }
+
+   /**
+    * Histogram of non-negative long values with logarithmic buckets, eight 
+    * buckets per power of two, so the percentiles have a relative error 
+    * below 12.5%.
+    */
+   public static final class Histogram {
+
+      private static final int SUB_BUCKET_BITS = 3;
+
+      private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+      private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+
+      private final LongAdder count = new LongAdder();
+
+      private final LongAdder sum = new LongAdder();
+
+      private final AtomicLong max = new AtomicLong();
+
+      public void record(final long value) {
+         final long positive = Math.max(0L, value);
+         buckets.incrementAndGet(getBucket(positive));
+         count.increment();
+         sum.add(positive);
+         long current = max.get();
+         while (positive > current && !max.compareAndSet(current, positive)) {
+            current = max.get();
+         }
+      }
+
+      public long getCount() {
+         return count.sum();
+      }
+
+      public long getSum() {
+         return sum.sum();
+      }
+
+      public long getMax() {
+         return max.get();
+      }
+
+      public double getMean() {
+         final long n = getCount();
+         return n == 0 ? 0.0 : (double) getSum() / n;
+      }
+
+      /**
+       * Upper limit of the bucket which contains the percentile, e.g. 
+       * getPercentile(0.99)
+       */
+      public long getPercentile(final double percentile) {
+         final long n = getCount();
+         if (n == 0) {
+            return 0L;
+         }
+         final long rank = Math.max(1L, (long) Math.ceil(percentile * n));
+         long seen = 0;
+         for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+               return Math.min(getUpperLimit(i), getMax());
+            }
+         }
+         return getMax();
+      }
+
+      static int getBucket(final long value) {
+         if (value < SUB_BUCKETS) {
+            return (int) value;
+         }
+         final int exponent = 63 - Long.numberOfLeadingZeros(value);
+         final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+         return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+      }
+
+      static long getUpperLimit(final int bucket) {
+         if (bucket < SUB_BUCKETS) {
+            return bucket;
+         }
+         final int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+         final long lower = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+         return lower + (1L << shift) - 1;
+      }
+
+      @Override
+      public String toString() {
+         return String.format(Locale.ENGLISH, "count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d", getCount(), getMean(),
+               getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), getMax());
+      }
+
+   }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+   @Test
+   public void histogram_UniformValues_PercentilesWithinBucketError() {
+
+      // ARRANGE
+      final MetricsRegistry registry = new MetricsRegistry();
+      final MetricsRegistry.Histogram histogram = registry.histogram("latency");
+
+      // ACT
+      for (int value = 1; value <= 1000; value++) {
+         histogram.record(value);
+      }
+
+      // CHECK
+      Assert.assertSame(histogram, registry.histogram("latency"));
+      Assert.assertEquals(1000, histogram.getCount());
+      Assert.assertEquals(500.5, histogram.getMean(), 1E-9);
+      Assert.assertEquals(1000, histogram.getMax());
+      Assert.assertEquals(500.0, histogram.getPercentile(0.5), 500.0 * 0.125);
+      Assert.assertEquals(990.0, histogram.getPercentile(0.99), 990.0 * 0.125);
+      Assert.assertEquals(1000, histogram.getPercentile(1.0));
+   }
+
+   @Test
+   public void getBucket_BucketLimits_Consistent() {
+
+      // CHECK
+      for (long value = 0; value < 100000; value++) {
+         final int bucket = MetricsRegistry.Histogram.getBucket(value);
+         Assert.assertTrue(value <= MetricsRegistry.Histogram.getUpperLimit(bucket));
+         if (bucket > 0) {
+            Assert.assertTrue(value > MetricsRegistry.Histogram.getUpperLimit(bucket - 1));
+         }
+      }
+      Assert.assertEquals(Long.MAX_VALUE, MetricsRegistry.Histogram.getUpperLimit(MetricsRegistry.Histogram
+            .getBucket(Long.MAX_VALUE)));
+   }
+
+   @Test
+   public void counter_AddedValues_Sum() {
+
+      // ARRANGE
+      final MetricsRegistry registry = new MetricsRegistry();
+
+      // ACT
+      registry.counter("solves").increment();
+      registry.counter("solves").add(41);
+
+      // CHECK
+      Assert.assertEquals(42L, registry.counter("solves").get());
+      Assert.assertTrue(registry.toString().contains("solves 42"));
+   }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+/**
+ * Exports the solves to a metrics registry. For each solver name the 
+ * following metrics are updated:
+ * 
+ * - solver.<name>.solves (counter) 
+ * - solver.<name>.iterations (counter and histogram) 
+ * - solver.<name>.latency (histogram in nanoseconds)
+ */
+public final class MetricsSolverListener implements SolverListener {
+
+   private static final String PREFIX = "solver.";
+
+   private final MetricsRegistry registry;
+
+   public MetricsSolverListener(final MetricsRegistry registry) {
+      this.registry = registry;
+   }
+
+   @Override
+   public void solveStarted(final String solver, final int rows) {
+      // nothing to do
+   }
+
+   @Override
+   public void iterationCompleted(final String solver, final int iteration, final double residualNorm) {
+      // nothing to do
+   }
+
+   @Override
+   public void solveCompleted(final String solver, final SolveResult<?> result) {
+      registry.counter(PREFIX + solver + ".solves").increment();
+      registry.counter(PREFIX + solver + ".iterations").add(result.getIterations());
+      registry.histogram(PREFIX + solver + ".iterations").record(result.getIterations());
+      registry.histogram(PREFIX + solver + ".latency").record(result.getTotalNanos());
+   }
+
+   public MetricsRegistry getRegistry() {
+      return registry;
+   }
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Collects the statistics of one solver run. The solvers measure a phase 
+ * with 
+ * 
+ *    final long start = recorder.time();
+ *    A.times(p, Ap);
+ *    recorder.matVec(start);
+ *    
+ * Without timing the clock is not read at all, so the recorder costs 
+ * nothing more than a few field updates per iteration. The registered 
+ * solver listeners are notified about the start, each iteration and the 
+ * end of the solve; with listeners the phases are always timed.
+ * 
+ * The recorder also applies the stopping criteria of the solver options, 
+ * the loop of a solver is
+ * 
+ *    recorder.initialResidual(rsold);
+ *    while (!recorder.isStopped()) {
+ *       ...
+ *       if (recorder.iteration(rsnew)) {
+ *          break;
+ *       }
+ *       ...
+ *    }
+ */
+public final class SolveRecorder {
+
+   public static final int DEFAULT_HISTORY_CAPACITY = 1024;
+
+   private final String solver;
+
+   private final SolverListener[] listeners;
+
+   private final boolean timing;
+
+   private final SolverOptions options;
+
+   private final CancellationToken cancellationToken;
+
+   private final long startNanos;
+
+   private final long deadlineNanos;
+
+   private double limitSquared;
+
+   private SolveResult.Status status;
+
+   private final double[] history;
+
+   private int historySize;
+
+   private int historyStride = 1;
+
+   private int iterations;
+
+   private double[] alphas = new double[0];
+
+   private double[] betas = new double[0];
+
+   private int coefficients;
+
+   private double residualSquared = Double.NaN;
+
+   private long matVecNanos;
+
+   private long vectorNanos;
+
+   private long reductionNanos;
+
+   private long transferNanos;
+
+   /**
+    * @param solver name of the solver for the listeners
+    * @param rows number of equations
+    * @param statistics record the residual history and measure the phases
+    */
+   public SolveRecorder(final String solver, final int rows, final boolean statistics) {
+      this(solver, rows, statistics, SolverOptions.DEFAULT);
+   }
+
+   /**
+    * @param options stopping criteria of the solve
+    */
+   public SolveRecorder(final String solver, final int rows, final boolean statistics, final SolverOptions options) {
+      this(solver, rows, statistics ? DEFAULT_HISTORY_CAPACITY : 0, statistics, options);
+   }
+
+   /**
+    * @param historyCapacity maximal number of stored residuals, zero disables the history
+    * @param timing measure the phases
+    */
+   SolveRecorder(final String solver, final int rows, final int historyCapacity, final boolean timing) {
+      this(solver, rows, historyCapacity, timing, SolverOptions.DEFAULT);
+   }
+
+   SolveRecorder(final String solver, final int rows, final int historyCapacity, final boolean timing,
+         final SolverOptions options) {
+      if (historyCapacity < 0 || historyCapacity == 1) {
+         throw new IllegalArgumentException("history capacity must be zero or at least two");
+      }
+      if (null == options) {
+         throw new IllegalArgumentException("options must not be null");
+      }
+      this.solver = solver;
+      this.options = options;
+      this.cancellationToken = options.getCancellationToken();
+      this.listeners = SolverListeners.getListeners();
+      this.timing = timing || listeners.length != 0;
+      this.history = new double[historyCapacity];
+      this.startNanos = this.timing || options.getTimeoutNanos() != 0L ? System.nanoTime() : 0L;
+      this.deadlineNanos = startNanos + options.getTimeoutNanos();
+      for (final SolverListener listener : listeners) {
+         listener.solveStarted(solver, rows);
+      }
+   }
+
+   /**
+    * Start time of a phase, zero without timing
+    */
+   public long time() {
+      return timing ? System.nanoTime() : 0L;
+   }
+
+   public void matVec(final long start) {
+      if (timing) {
+         matVecNanos += System.nanoTime() - start;
+      }
+   }
+
+   public void vector(final long start) {
+      if (timing) {
+         vectorNanos += System.nanoTime() - start;
+      }
+   }
+
+   public void reduction(final long start) {
+      if (timing) {
+         reductionNanos += System.nanoTime() - start;
+      }
+   }
+
+   public void transfer(final long start) {
+      if (timing) {
+         transferNanos += System.nanoTime() - start;
+      }
+   }
+
+   /**
+    * Squared norm of the residual before the first iteration, the solve is 
+    * stopped at once if it already fulfills the tolerance. For an initial 
+    * guess of zero the residual is b and the relative tolerance refers to 
+    * its norm.
+    */
+   public boolean initialResidual(final double rs) {
+      return initialResidual(rs, rs);
+   }
+
+   /**
+    * @param bNormSquared squared norm of the right hand side, the reference of the relative tolerance
+    */
+   public boolean initialResidual(final double rs, final double bNormSquared) {
+      residualSquared = rs;
+      limitSquared = options.getLimitSquared(bNormSquared);
+      record(0, rs);
+      if (isConverged(rs)) {
+         status = SolveResult.Status.CONVERGED;
+      }
+      return null != status;
+   }
+
+   /**
+    * Called once per iteration with the squared norm of the new residual,
+    * returns true if the solver has to stop. A residual which is not a
+    * finite number stops the solve with the status DIVERGED.
+    */
+   public boolean iteration(final double rs) {
+      residualSquared = rs;
+      record(++iterations, rs);
+      if (listeners.length != 0) {
+         final double residualNorm = Math.sqrt(rs);
+         for (final SolverListener listener : listeners) {
+            listener.iterationCompleted(solver, iterations, residualNorm);
+         }
+      }
+      if (isConverged(rs)) {
+         status = SolveResult.Status.CONVERGED;
+      } else if (Double.isNaN(rs) || Double.isInfinite(rs)) {
+         status = SolveResult.Status.DIVERGED;
+      } else {
+         checkLimits();
+      }
+      return null != status;
+   }
+
+   /**
+    * Called for an iteration which has not computed its residual (e.g. the 
+    * Chebyshev iteration checks the residual only from time to time). The
+    * solve stops only because of the iteration limit, the timeout or the
+    * cancellation; the history repeats the last known residual and the 
+    * listeners are not notified.
+    */
+   public boolean iteration() {
+      record(++iterations, residualSquared);
+      checkLimits();
+      return null != status;
+   }
+
+   /**
+    * Stops the solve with the status BREAKDOWN, called by solvers which 
+    * can not continue from the current approximation
+    */
+   public void breakdown() {
+      status = SolveResult.Status.BREAKDOWN;
+   }
+
+   /**
+    * A residual of zero is an exact solution, also for b = 0 with both 
+    * tolerances zero, where the next step would divide 0 / 0
+    */
+   private boolean isConverged(final double rs) {
+      return rs < limitSquared || rs == 0.0;
+   }
+
+   private void checkLimits() {
+      if (iterations >= options.getMaxIterations()) {
+         status = SolveResult.Status.MAX_ITERATIONS;
+      } else if (null != cancellationToken && cancellationToken.isCancelled()) {
+         status = SolveResult.Status.CANCELLED;
+      } else if (deadlineNanos != startNanos && System.nanoTime() - deadlineNanos >= 0L) {
+         status = SolveResult.Status.TIMEOUT;
+      }
+   }
+
+   /**
+    * CG coefficients of the current iteration (alpha = rsold / p' * A * p, 
+    * beta = rsnew / rsold), called before iteration(rsnew). They are kept 
+    * with statistics only and allow to rebuild the Lanczos tridiagonal 
+    * matrix, see SpectrumEstimate.
+    */
+   public void coefficients(final double alpha, final double beta) {
+      alpha(alpha);
+      beta(beta);
+   }
+
+   /**
+    * Step length alpha of the current iteration, called before 
+    * iteration(rsnew) by solvers which know beta only after the convergence 
+    * check (e.g. the preconditioned CG, where beta = rznew / rzold needs 
+    * z = M^-1 * r). The beta of the last iteration stays zero if the solve 
+    * stops before beta(double) is called.
+    */
+   public void alpha(final double alpha) {
+      if (history.length == 0) {
+         return;
+      }
+      if (coefficients == alphas.length) {
+         final int capacity = Math.max(64, coefficients << 1);
+         alphas = Arrays.copyOf(alphas, capacity);
+         betas = Arrays.copyOf(betas, capacity);
+      }
+      alphas[coefficients] = alpha;
+      betas[coefficients] = 0.0;
+      coefficients++;
+   }
+
+   /**
+    * Beta of the iteration whose alpha has been recorded last
+    */
+   public void beta(final double beta) {
+      if (history.length == 0 || coefficients == 0) {
+         return;
+      }
+      betas[coefficients - 1] = beta;
+   }
+
+   /**
+    * True after the solve has converged or has been stopped
+    */
+   public boolean isStopped() {
+      return null != status;
+   }
+
+   public int getIterations() {
+      return iterations;
+   }
+
+   public <T> SolveResult<T> finish(final T solution) {
+      final SolveResult<T> result = new SolveResult<T>(solution, status, iterations, Math.sqrt(residualSquared),
+            Arrays.copyOf(history, historySize), historyStride, matVecNanos, vectorNanos, reductionNanos,
+            transferNanos, timing ? System.nanoTime() - startNanos : 0L, Arrays.copyOf(alphas, coefficients),
+            Arrays.copyOf(betas, coefficients));
+      for (final SolverListener listener : listeners) {
+         listener.solveCompleted(solver, result);
+      }
+      return result;
+   }
+
+   private void record(final int iteration, final double rs) {
+      if (history.length == 0 || iteration % historyStride != 0) {
+         return;
+      }
+      if (historySize == history.length) {
+         // keep every second entry and double the stride
+         historySize = (historySize + 1) >> 1;
+         for (int i = 0; i < historySize; i++) {
+            history[i] = history[i << 1];
+         }
+         historyStride <<= 1;
+         if (iteration % historyStride != 0) {
+            return;
+         }
+      }
+      history[historySize++] = Math.sqrt(rs);
+   }
+
+}
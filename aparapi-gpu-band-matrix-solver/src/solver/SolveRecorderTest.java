@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SolveRecorderTest {
+
+   @Test
+   public void finish_FewIterations_CompleteHistory() {
+
+      // ARRANGE
+      final SolveRecorder recorder = new SolveRecorder("test", 3, 8, false);
+
+      // ACT
+      recorder.initialResidual(16.0);
+      recorder.iteration(4.0);
+      recorder.iteration(1.0);
+      final SolveResult<String> result = recorder.finish("x");
+
+      // CHECK
+      Assert.assertEquals("x", result.getSolution());
+      Assert.assertEquals(2, result.getIterations());
+      Assert.assertEquals(1.0, result.getResidualNorm(), 0.0);
+      Assert.assertEquals(1, result.getHistoryStride());
+      Assert.assertArrayEquals(new double[] { 4.0, 2.0, 1.0 }, result.getResidualHistory(), 0.0);
+      Assert.assertEquals(0L, result.getTotalNanos());
+   }
+
+   @Test
+   public void finish_ManyIterations_DownSampledHistory() {
+
+      // ARRANGE
+      final SolveRecorder recorder = new SolveRecorder("test", 3, 5, false);
+
+      // ACT
+      recorder.initialResidual(0.0);
+      for (int i = 1; i <= 20; i++) {
+         recorder.iteration((double) i * i);
+      }
+      final SolveResult<String> result = recorder.finish("x");
+
+      // CHECK
+      Assert.assertEquals(20, result.getIterations());
+      Assert.assertEquals(20.0, result.getResidualNorm(), 0.0);
+      Assert.assertEquals(8, result.getHistoryStride());
+      Assert.assertArrayEquals(new double[] { 0.0, 8.0, 16.0 }, result.getResidualHistory(), 0.0);
+   }
+
+   @Test
+   public void finish_Timing_PhasesWithinTotal() throws InterruptedException {
+
+      // ARRANGE
+      final SolveRecorder recorder = new SolveRecorder("test", 3, true);
+
+      // ACT
+      final long start = recorder.time();
+      Thread.sleep(2);
+      recorder.matVec(start);
+      final SolveResult<String> result = recorder.finish("x");
+
+      // CHECK
+      Assert.assertTrue(result.getMatVecNanos() >= 2000000L);
+      Assert.assertTrue(result.getTotalNanos() >= result.getMatVecNanos());
+      Assert.assertEquals(0L, result.getTransferNanos());
+   }
+
+   @Test
+   public void iteration_RelativeTolerance_ConvergedRelativeToRightHandSide() {
+
+      // ARRANGE
+      final SolverOptions options = SolverOptions.DEFAULT.withRelativeTolerance(1E-3);
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false, options);
+
+      // ACT
+      final boolean initialStop = recorder.initialResidual(1E12);
+      final boolean firstStop = recorder.iteration(1E7);
+      final boolean secondStop = recorder.iteration(1E5);
+      final SolveResult<String> result = recorder.finish("x");
+
+      // CHECK
+      Assert.assertFalse(initialStop);
+      Assert.assertFalse(firstStop);
+      Assert.assertTrue(secondStop);
+      Assert.assertEquals(SolveResult.Status.CONVERGED, result.getStatus());
+      Assert.assertEquals(2, result.getIterations());
+   }
+
+   @Test
+   public void iteration_RelativeToleranceSmallRightHandSide_NoDefaultAbsoluteFloor() {
+
+      // ARRANGE
+      final SolverOptions options = SolverOptions.DEFAULT.withRelativeTolerance(1E-8);
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false, options);
+
+      // ACT
+      recorder.initialResidual(1.0);
+      final boolean firstStop = recorder.iteration(1E-12);
+      final boolean secondStop = recorder.iteration(1E-17);
+
+      // CHECK
+      Assert.assertEquals(0.0, options.getAbsoluteTolerance(), 0.0);
+      Assert.assertFalse(firstStop);
+      Assert.assertTrue(secondStop);
+   }
+
+   @Test
+   public void iteration_ExplicitAbsoluteTolerance_KeptWithRelativeTolerance() {
+
+      // ARRANGE
+      final SolverOptions options = SolverOptions.DEFAULT.withAbsoluteTolerance(1E-3).withRelativeTolerance(1E-8);
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false, options);
+
+      // ACT
+      recorder.initialResidual(1.0);
+      final boolean stop = recorder.iteration(1E-7);
+
+      // CHECK
+      Assert.assertEquals(1E-3, options.getAbsoluteTolerance(), 0.0);
+      Assert.assertTrue(stop);
+   }
+
+   @Test
+   public void initialResidual_ZeroRightHandSideZeroTolerances_Converged() {
+
+      // ARRANGE
+      final SolverOptions options = SolverOptions.DEFAULT.withRelativeTolerance(0.0).withAbsoluteTolerance(0.0);
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false, options);
+
+      // ACT
+      final boolean stop = recorder.initialResidual(0.0);
+
+      // CHECK
+      Assert.assertTrue(stop);
+      Assert.assertEquals(SolveResult.Status.CONVERGED, recorder.finish("x").getStatus());
+   }
+
+   @Test
+   public void iteration_MaxIterations_StoppedWithoutConvergence() {
+
+      // ARRANGE
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false, SolverOptions.DEFAULT.withMaxIterations(2));
+
+      // ACT
+      recorder.initialResidual(1.0);
+      final boolean firstStop = recorder.iteration(1.0);
+      final boolean secondStop = recorder.iteration(1.0);
+      final SolveResult<String> result = recorder.finish("x");
+
+      // CHECK
+      Assert.assertFalse(firstStop);
+      Assert.assertTrue(secondStop);
+      Assert.assertEquals(SolveResult.Status.MAX_ITERATIONS, result.getStatus());
+      Assert.assertFalse(result.isConverged());
+   }
+
+   @Test
+   public void iteration_NaNResidual_Diverged() {
+
+      // ARRANGE
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false);
+      recorder.initialResidual(1.0);
+
+      // ACT
+      final boolean stop = recorder.iteration(Double.NaN);
+      final SolveResult<String> result = recorder.finish("x");
+
+      // CHECK
+      Assert.assertTrue(stop);
+      Assert.assertEquals(SolveResult.Status.DIVERGED, result.getStatus());
+      Assert.assertFalse(result.isConverged());
+   }
+
+   @Test
+   public void iteration_Cancelled_StoppedWithoutConvergence() {
+
+      // ARRANGE
+      final CancellationToken token = new CancellationToken();
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false,
+            SolverOptions.DEFAULT.withCancellationToken(token));
+      recorder.initialResidual(1.0);
+      final boolean firstStop = recorder.iteration(1.0);
+
+      // ACT
+      token.cancel();
+      final boolean secondStop = recorder.iteration(1.0);
+
+      // CHECK
+      Assert.assertFalse(firstStop);
+      Assert.assertTrue(secondStop);
+      Assert.assertTrue(recorder.isStopped());
+      Assert.assertEquals(SolveResult.Status.CANCELLED, recorder.finish("x").getStatus());
+   }
+
+   @Test
+   public void iteration_Timeout_StoppedWithoutConvergence() throws InterruptedException {
+
+      // ARRANGE
+      final SolveRecorder recorder = new SolveRecorder("test", 3, false,
+            SolverOptions.DEFAULT.withTimeout(1, TimeUnit.MILLISECONDS));
+      recorder.initialResidual(1.0);
+
+      // ACT
+      Thread.sleep(2);
+      final boolean stop = recorder.iteration(1.0);
+
+      // CHECK
+      Assert.assertTrue(stop);
+      Assert.assertEquals(SolveResult.Status.TIMEOUT, recorder.finish("x").getStatus());
+   }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Solution of an iterative solver together with the convergence history 
+ * and the time spent in the different phases of the solver.
+ * 
+ * The residual history contains the norm |r| of the initial residual and 
+ * of every historyStride-th iteration, i.e. entry k belongs to iteration 
+ * k * historyStride. The stride grows when the history gets longer than 
+ * the capacity of the recorder.
+ */
+public final class SolveResult<T> {
+
+   /**
+    * Reason why the solver has stopped, the solution of a solve which has 
+    * not converged is the best approximation found so far
+    */
+   public enum Status {
+      CONVERGED, MAX_ITERATIONS, TIMEOUT, CANCELLED,
+      /**
+       * The residual is not a finite number any more (overflow or a
+       * breakdown of the method), the solution is not usable
+       */
+      DIVERGED,
+      /**
+       * The method can not continue from the current approximation, e.g. 
+       * BiCGSTAB breaks down again right after a restart
+       */
+      BREAKDOWN
+   }
+
+   private final T solution;
+
+   private final Status status;
+
+   private final int iterations;
+
+   private final double residualNorm;
+
+   private final double[] residualHistory;
+
+   private final int historyStride;
+
+   private final long matVecNanos;
+
+   private final long vectorNanos;
+
+   private final long reductionNanos;
+
+   private final long transferNanos;
+
+   private final long totalNanos;
+
+   private final double[] alphas;
+
+   private final double[] betas;
+
+   public SolveResult(final T solution, final Status status, final int iterations, final double residualNorm,
+         final double[] residualHistory, final int historyStride, final long matVecNanos, final long vectorNanos,
+         final long reductionNanos, final long transferNanos, final long totalNanos, final double[] alphas,
+         final double[] betas) {
+      this.solution = solution;
+      this.status = status;
+      this.iterations = iterations;
+      this.residualNorm = residualNorm;
+      this.residualHistory = residualHistory;
+      this.historyStride = historyStride;
+      this.matVecNanos = matVecNanos;
+      this.vectorNanos = vectorNanos;
+      this.reductionNanos = reductionNanos;
+      this.transferNanos = transferNanos;
+      this.totalNanos = totalNanos;
+      this.alphas = alphas;
+      this.betas = betas;
+   }
+
+   /**
+    * Same statistics for another representation of the solution, e.g. 
+    * after the permutation of a reordered system has been reverted
+    */
+   public <U> SolveResult<U> withSolution(final U other) {
+      return new SolveResult<U>(other, status, iterations, residualNorm, residualHistory, historyStride, matVecNanos,
+            vectorNanos, reductionNanos, transferNanos, totalNanos, alphas, betas);
+   }
+
+   public T getSolution() {
+      return solution;
+   }
+
+   public Status getStatus() {
+      return status;
+   }
+
+   public boolean isConverged() {
+      return Status.CONVERGED == status;
+   }
+
+   /**
+    * Number of executed iterations (matrix vector products of the loop)
+    */
+   public int getIterations() {
+      return iterations;
+   }
+
+   /**
+    * Norm of the last computed residual |r| = sqrt(rsnew)
+    */
+   public double getResidualNorm() {
+      return residualNorm;
+   }
+
+   public double[] getResidualHistory() {
+      return Arrays.copyOf(residualHistory, residualHistory.length);
+   }
+
+   public int getHistoryStride() {
+      return historyStride;
+   }
+
+   public long getMatVecNanos() {
+      return matVecNanos;
+   }
+
+   /**
+    * Vector updates like x = x + alpha * p
+    */
+   public long getVectorNanos() {
+      return vectorNanos;
+   }
+
+   /**
+    * Dot products
+    */
+   public long getReductionNanos() {
+      return reductionNanos;
+   }
+
+   /**
+    * Copies between host and device (Aparapi put and get)
+    */
+   public long getTransferNanos() {
+      return transferNanos;
+   }
+
+   public long getTotalNanos() {
+      return totalNanos;
+   }
+
+   /**
+    * Step lengths alpha of the iterations, empty without statistics or for 
+    * solvers which don't record them
+    */
+   public double[] getAlphas() {
+      return Arrays.copyOf(alphas, alphas.length);
+   }
+
+   /**
+    * Ratios beta = rsnew / rsold of the iterations, same length as the alphas
+    */
+   public double[] getBetas() {
+      return Arrays.copyOf(betas, betas.length);
+   }
+
+   @Override
+   public String toString() {
+      return String.format(Locale.ENGLISH, "SolveResult[status=%s, iterations=%d, residual=%.3E, total=%.3f ms, "
+            + "matVec=%.3f ms, vector=%.3f ms, reduction=%.3f ms, transfer=%.3f ms]", status, iterations, residualNorm,
+            totalNanos * 1E-6, matVecNanos * 1E-6, vectorNanos * 1E-6, reductionNanos * 1E-6, transferNanos * 1E-6);
+   }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+import v3.BandMatrixFull;
+import v3.Vector;
+
+public class SolverListenersTest {
+
+   private final MetricsRegistry registry = new MetricsRegistry();
+
+   private final MetricsSolverListener metrics = new MetricsSolverListener(registry);
+
+   private final CountingListener counting = new CountingListener();
+
+   @After
+   public void tearDown() {
+      SolverListeners.unregister(metrics);
+      SolverListeners.unregister(counting);
+   }
+
+   @Test
+   public void solveConjugateGradient_RegisteredListeners_AllEventsFired() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(50, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = generator.createRightHandSideV3();
+      SolverListeners.register(metrics);
+      SolverListeners.register(counting);
+
+      // ACT
+      BandMatrixFull.solveConjugateGradient(A, b);
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientWithResult(A, b);
+
+      // CHECK
+      Assert.assertEquals(2, counting.started);
+      Assert.assertEquals(2, counting.completed);
+      Assert.assertEquals(2 * result.getIterations(), counting.iterations);
+      Assert.assertEquals(50, counting.rows);
+      Assert.assertEquals("v3.solveConjugateGradient", counting.solver);
+      Assert.assertTrue(counting.lastResult.getTotalNanos() > 0L);
+      Assert.assertEquals(2L, registry.counter("solver.v3.solveConjugateGradient.solves").get());
+      Assert.assertEquals(2L * result.getIterations(), registry.counter("solver.v3.solveConjugateGradient.iterations")
+            .get());
+      Assert.assertEquals(2L, registry.histogram("solver.v3.solveConjugateGradient.latency").getCount());
+   }
+
+   @Test
+   public void solveConjugateGradient_UnregisteredListener_NoEvents() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(20, 1L);
+      SolverListeners.register(counting);
+      SolverListeners.unregister(counting);
+
+      // ACT
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientWithResult(generator.createMatrixV3(),
+            generator.createRightHandSideV3());
+
+      // CHECK
+      Assert.assertTrue(result.getIterations() > 0);
+      Assert.assertEquals(0, counting.started);
+      Assert.assertEquals(0, counting.iterations);
+   }
+
+   private static final class CountingListener implements SolverListener {
+
+      int started;
+
+      int iterations;
+
+      int completed;
+
+      int rows;
+
+      String solver;
+
+      SolveResult<?> lastResult;
+
+      @Override
+      public void solveStarted(final String solver, final int rows) {
+         this.solver = solver;
+         this.rows = rows;
+         started++;
+      }
+
+      @Override
+      public void iterationCompleted(final String solver, final int iteration, final double residualNorm) {
+         iterations++;
+      }
+
+      @Override
+      public void solveCompleted(final String solver, final SolveResult<?> result) {
+         lastResult = result;
+         completed++;
+      }
+   }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stopping criteria of the iterative solvers. A solve has converged when
+ * 
+ *    |r| < max(absoluteTolerance, relativeTolerance * |b|)
+ *    
+ * and stops without convergence after maxIterations iterations, when the 
+ * timeout has elapsed or when the cancellation token has been cancelled. 
+ * In all cases the solver returns its current approximation, the reason 
+ * is available from SolveResult.getStatus().
+ * 
+ * The options are immutable, e.g.
+ * 
+ *    SolverOptions.DEFAULT.withRelativeTolerance(1E-8).withTimeout(50, TimeUnit.MILLISECONDS)
+ *    
+ * DEFAULT corresponds to the former fixed criterion rsnew < 1e-10, i.e. 
+ * an absolute tolerance of 1E-5 for the residual norm. This default floor 
+ * applies only as long as neither tolerance has been set, so the example 
+ * above stops at |r| < 1E-8 * |b| for any right hand side. An absolute 
+ * floor together with a relative tolerance has to be set explicitly.
+ */
+public final class SolverOptions {
+
+   public static final double DEFAULT_ABSOLUTE_TOLERANCE = 1E-5;
+
+   // NaN as long as the absolute tolerance has not been set
+   private static final double UNSET = Double.NaN;
+
+   public static final SolverOptions DEFAULT = new SolverOptions(0.0, UNSET, 100000, 0L, null);
+
+   private final double relativeTolerance;
+
+   private final double absoluteTolerance;
+
+   private final int maxIterations;
+
+   private final long timeoutNanos;
+
+   private final CancellationToken cancellationToken;
+
+   private SolverOptions(final double relativeTolerance, final double absoluteTolerance, final int maxIterations,
+         final long timeoutNanos, final CancellationToken cancellationToken) {
+      this.relativeTolerance = relativeTolerance;
+      this.absoluteTolerance = absoluteTolerance;
+      this.maxIterations = maxIterations;
+      this.timeoutNanos = timeoutNanos;
+      this.cancellationToken = cancellationToken;
+   }
+
+   public SolverOptions withRelativeTolerance(final double tolerance) {
+      checkTolerance(tolerance);
+      return new SolverOptions(tolerance, absoluteTolerance, maxIterations, timeoutNanos, cancellationToken);
+   }
+
+   public SolverOptions withAbsoluteTolerance(final double tolerance) {
+      checkTolerance(tolerance);
+      return new SolverOptions(relativeTolerance, tolerance, maxIterations, timeoutNanos, cancellationToken);
+   }
+
+   public SolverOptions withMaxIterations(final int iterations) {
+      if (iterations < 1) {
+         throw new IllegalArgumentException("max iterations must be positive");
+      }
+      return new SolverOptions(relativeTolerance, absoluteTolerance, iterations, timeoutNanos, cancellationToken);
+   }
+
+   /**
+    * Wall clock time of one solve, measured from the start of the solve. 
+    * A timeout of zero means no limit.
+    */
+   public SolverOptions withTimeout(final long timeout, final TimeUnit unit) {
+      if (timeout < 0) {
+         throw new IllegalArgumentException("timeout must not be negative");
+      }
+      return new SolverOptions(relativeTolerance, absoluteTolerance, maxIterations, unit.toNanos(timeout),
+            cancellationToken);
+   }
+
+   public SolverOptions withCancellationToken(final CancellationToken token) {
+      return new SolverOptions(relativeTolerance, absoluteTolerance, maxIterations, timeoutNanos, token);
+   }
+
+   public double getRelativeTolerance() {
+      return relativeTolerance;
+   }
+
+   /**
+    * DEFAULT_ABSOLUTE_TOLERANCE if no tolerance has been set, zero if only 
+    * the relative tolerance has been set
+    */
+   public double getAbsoluteTolerance() {
+      if (!Double.isNaN(absoluteTolerance)) {
+         return absoluteTolerance;
+      }
+      return relativeTolerance == 0.0 ? DEFAULT_ABSOLUTE_TOLERANCE : 0.0;
+   }
+
+   public int getMaxIterations() {
+      return maxIterations;
+   }
+
+   /**
+    * Zero if the solve has no time limit
+    */
+   public long getTimeoutNanos() {
+      return timeoutNanos;
+   }
+
+   /**
+    * Null if the solve can't be cancelled
+    */
+   public CancellationToken getCancellationToken() {
+      return cancellationToken;
+   }
+
+   /**
+    * Limit for the squared residual norm r' * r of a system with the 
+    * right hand side norm |b| = sqrt(bNormSquared)
+    */
+   double getLimitSquared(final double bNormSquared) {
+      final double absolute = getAbsoluteTolerance();
+      final double relative = relativeTolerance * relativeTolerance * bNormSquared;
+      return Math.max(absolute * absolute, relative);
+   }
+
+   @Override
+   public String toString() {
+      return String.format(Locale.ENGLISH, "SolverOptions[relativeTolerance=%.3E, absoluteTolerance=%.3E, "
+            + "maxIterations=%d, timeout=%.3f ms, cancellable=%b]", relativeTolerance, getAbsoluteTolerance(),
+            maxIterations, timeoutNanos * 1E-6, null != cancellationToken);
+   }
+
+   private static void checkTolerance(final double tolerance) {
+      if (!(tolerance >= 0.0) || Double.isInfinite(tolerance)) {
+         throw new IllegalArgumentException("tolerance must be a non negative number");
+      }
+   }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import java.util.Locale;
+
+/**
+ * Estimate of the extreme eigenvalues of a symmetric positive definite
+ * matrix from the coefficients of a CG solve, without any additional
+ * matrix vector product. CG is equivalent to Lanczos, the tridiagonal
+ * Lanczos matrix T of m iterations is
+ *
+ *    T(j, j)     = 1 / alpha(j) + beta(j - 1) / alpha(j - 1)
+ *    T(j, j + 1) = sqrt(beta(j)) / alpha(j)
+ *
+ * and its eigenvalues (Ritz values) approximate the spectrum of A, the
+ * extreme ones first. The extreme eigenvalues of T are computed by
+ * bisection with Sturm sequences.
+ *
+ * The Ritz values lie inside the spectrum of A, so the condition number
+ * is underestimated when the solve had only a few iterations. For a
+ * preconditioned solve the estimate refers to M^-1 * A.
+ */
+public final class SpectrumEstimate {
+
+   private static final int MAX_BISECTION_STEPS = 200;
+
+   private final double minEigenvalue;
+
+   private final double maxEigenvalue;
+
+   private final int steps;
+
+   private SpectrumEstimate(final double minEigenvalue, final double maxEigenvalue, final int steps) {
+      this.minEigenvalue = minEigenvalue;
+      this.maxEigenvalue = maxEigenvalue;
+      this.steps = steps;
+   }
+
+   /**
+    * Estimate from a solve with statistics, e.g. of
+    * v3.BandMatrixFull.solveConjugateGradientWithResult
+    */
+   public static SpectrumEstimate fromResult(final SolveResult<?> result) {
+      return fromCoefficients(result.getAlphas(), result.getBetas());
+   }
+
+   public static SpectrumEstimate fromCoefficients(final double[] alphas, final double[] betas) {
+      if (alphas.length != betas.length) {
+         throw new IllegalArgumentException("alphas and betas must have the same length");
+      }
+      final int m = alphas.length;
+      if (m == 0) {
+         return new SpectrumEstimate(Double.NaN, Double.NaN, 0);
+      }
+
+      // Lanczos tridiagonal matrix
+      final double[] diagonal = new double[m];
+      final double[] offDiagonalSquared = new double[m];
+      for (int j = 0; j < m; j++) {
+         diagonal[j] = 1.0 / alphas[j] + (j > 0 ? betas[j - 1] / alphas[j - 1] : 0.0);
+         if (j < m - 1) {
+            offDiagonalSquared[j] = betas[j] / (alphas[j] * alphas[j]);
+         }
+      }
+
+      // Gershgorin interval
+      double lower = Double.MAX_VALUE;
+      double upper = -Double.MAX_VALUE;
+      for (int j = 0; j < m; j++) {
+         final double radius = Math.sqrt(offDiagonalSquared[j]) + (j > 0 ? Math.sqrt(offDiagonalSquared[j - 1]) : 0.0);
+         lower = Math.min(lower, diagonal[j] - radius);
+         upper = Math.max(upper, diagonal[j] + radius);
+      }
+
+      final double min = bisection(diagonal, offDiagonalSquared, 1, lower, upper);
+      final double max = bisection(diagonal, offDiagonalSquared, m, lower, upper);
+      return new SpectrumEstimate(min, max, m);
+   }
+
+   public double getMinEigenvalue() {
+      return minEigenvalue;
+   }
+
+   public double getMaxEigenvalue() {
+      return maxEigenvalue;
+   }
+
+   public double getConditionNumber() {
+      return maxEigenvalue / minEigenvalue;
+   }
+
+   /**
+    * Number of CG iterations the estimate is based on
+    */
+   public int getSteps() {
+      return steps;
+   }
+
+   /**
+    * Number of CG iterations to reduce the A-norm of the error by the given
+    * factor, from the classical bound 2 * ((sqrt(k) - 1) / (sqrt(k) + 1))^n
+    * with the condition number k. The bound ignores the clustering of the
+    * eigenvalues, so CG often needs fewer iterations.
+    */
+   public int predictIterations(final double tolerance) {
+      if (!(tolerance > 0.0 && tolerance < 1.0)) {
+         throw new IllegalArgumentException("tolerance must be between zero and one");
+      }
+      final double sqrtKappa = Math.sqrt(Math.max(1.0, getConditionNumber()));
+      if (sqrtKappa == 1.0) {
+         return 1;
+      }
+      final double rate = Math.log((sqrtKappa + 1.0) / (sqrtKappa - 1.0));
+      return (int) Math.ceil(Math.log(2.0 / tolerance) / rate);
+   }
+
+   @Override
+   public String toString() {
+      return String.format(Locale.ENGLISH, "SpectrumEstimate[min=%.6E, max=%.6E, condition=%.3E, steps=%d]",
+            minEigenvalue, maxEigenvalue, getConditionNumber(), steps);
+   }
+
+   /**
+    * k-th smallest eigenvalue (k = 1 ... m) of the tridiagonal matrix
+    */
+   private static double bisection(final double[] diagonal, final double[] offDiagonalSquared, final int k,
+         double lower, double upper) {
+      for (int step = 0; step < MAX_BISECTION_STEPS; step++) {
+         final double mid = 0.5 * (lower + upper);
+         if (mid <= lower || mid >= upper) {
+            break;
+         }
+         if (countBelow(diagonal, offDiagonalSquared, mid) >= k) {
+            upper = mid;
+         } else {
+            lower = mid;
+         }
+      }
+      return 0.5 * (lower + upper);
+   }
+
+   /**
+    * Number of eigenvalues smaller than x, i.e. the number of negative
+    * pivots of the LDL' factorization of T - x * I (Sturm sequence)
+    */
+   static int countBelow(final double[] diagonal, final double[] offDiagonalSquared, final double x) {
+      int count = 0;
+      double q = 1.0;
+      for (int j = 0; j < diagonal.length; j++) {
+         q = diagonal[j] - x - (j > 0 ? offDiagonalSquared[j - 1] / q : 0.0);
+         if (q == 0.0) {
+            q = -Double.MIN_NORMAL;
+         }
+         if (q < 0.0) {
+            count++;
+         }
+      }
+      return count;
+   }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+import v3.BandMatrixFull;
+import v3.Vector;
+
+public class SpectrumEstimateTest {
+
+   @Test
+   public void fromCoefficients_DiagonalLanczosMatrix_Eigenvalues() {
+
+      // ARRANGE
+      final double[] alphas = { 0.5, 0.25 };
+      final double[] betas = { 0.0, 0.0 };
+
+      // ACT
+      final SpectrumEstimate estimate = SpectrumEstimate.fromCoefficients(alphas, betas);
+
+      // CHECK
+      Assert.assertEquals(2.0, estimate.getMinEigenvalue(), 1E-12);
+      Assert.assertEquals(4.0, estimate.getMaxEigenvalue(), 1E-12);
+      Assert.assertEquals(2, estimate.getSteps());
+   }
+
+   @Test
+   public void countBelow_TridiagonalMatrix_SturmCount() {
+
+      // ARRANGE (eigenvalues of [2 -1 0; -1 2 -1; 0 -1 2] are 2 - sqrt(2), 2 and 2 + sqrt(2))
+      final double[] diagonal = { 2.0, 2.0, 2.0 };
+      final double[] offDiagonalSquared = { 1.0, 1.0, 0.0 };
+
+      // ACT & CHECK
+      Assert.assertEquals(0, SpectrumEstimate.countBelow(diagonal, offDiagonalSquared, 0.5));
+      Assert.assertEquals(1, SpectrumEstimate.countBelow(diagonal, offDiagonalSquared, 1.0));
+      Assert.assertEquals(2, SpectrumEstimate.countBelow(diagonal, offDiagonalSquared, 3.0));
+      Assert.assertEquals(3, SpectrumEstimate.countBelow(diagonal, offDiagonalSquared, 3.5));
+   }
+
+   @Test
+   public void fromResult_KnownConditionNumber_Estimated() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.conditionNumber(500, 3, 100.0, 1L);
+      final SolverOptions options = SolverOptions.DEFAULT.withRelativeTolerance(1E-8);
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientWithResult(generator.createMatrixV3(),
+            generator.createRightHandSideV3(), options);
+
+      // ACT
+      final SpectrumEstimate estimate = SpectrumEstimate.fromResult(result);
+
+      // CHECK
+      Assert.assertEquals(result.getIterations(), estimate.getSteps());
+      Assert.assertEquals(generator.getMaxEigenvalue(), estimate.getMaxEigenvalue(), generator.getMaxEigenvalue() * 0.05);
+      Assert.assertEquals(generator.getMinEigenvalue(), estimate.getMinEigenvalue(), generator.getMinEigenvalue() * 0.05);
+      Assert.assertEquals(generator.getConditionNumber(), estimate.getConditionNumber(), 10.0);
+      Assert.assertTrue(estimate.predictIterations(1E-8) >= result.getIterations());
+   }
+
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package tests;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Deterministic generator of symmetric positive definite band matrices, 
+ * exact solutions and the matching right hand sides (b = A * x).
+ * 
+ * Each row has its own random stream (SplitMix64 seeded with the seed and 
+ * the row index), so every value can be computed without the previous rows 
+ * and the formats are filled in parallel with identical results.
+ * 
+ * Families:
+ * 
+ * - 1D Poisson stencil [-1 2 -1], bandwidth 3 
+ * - 2D Poisson five point stencil on a gridWidth x gridHeight grid, bandwidth 2 * gridWidth + 1 
+ * - Toeplitz matrix with a chosen condition number, a on the diagonal and -1 at the outermost 
+ *   band offset, so the spectrum is a - 2 * cos(k * PI / (m + 1)) 
+ * - random diagonally dominant matrix (spectrum not known in closed form)
+ */
+public final class BandMatrixGenerator {
+
+   public interface MatrixSink {
+      /**
+       * Called once for the diagonal and each upper band element (col >= row). 
+       * Different rows are filled concurrently.
+       */
+      void setValue(int row, int col, double value);
+   }
+
+   public interface VectorSink {
+      void setValue(int row, double value);
+   }
+
+   private enum Family {
+      POISSON_1D, POISSON_2D, CONDITION_NUMBER, DIAGONALLY_DOMINANT
+   }
+
+   /**
+    * Rows per task of the parallel fill
+    */
+   private static final int MIN_ROWS_PER_TASK = 1024;
+
+   private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+   /**
+    * Offset of the exact solution stream, keeps it independent of the matrix values
+    */
+   private static final long SOLUTION_STREAM = 0x5DEECE66DL;
+
+   private final Family family;
+
+   private final int rows;
+
+   private final int bandwidth;
+
+   private final int gridWidth;
+
+   private final double diagonal;
+
+   private final long seed;
+
+   private final double minEigenvalue;
+
+   private final double maxEigenvalue;
+
+   private BandMatrixGenerator(final Family family, final int rows, final int bandwidth, final int gridWidth,
+         final double diagonal, final long seed, final double minEigenvalue, final double maxEigenvalue) {
+      if (rows <= 0 || bandwidth <= 0 || (bandwidth & 1) == 0) {
+         throw new IllegalArgumentException("rows must be positive and the bandwidth positive and odd");
+      }
+      this.family = family;
+      this.rows = rows;
+      this.bandwidth = bandwidth;
+      this.gridWidth = gridWidth;
+      this.diagonal = diagonal;
+      this.seed = seed;
+      this.minEigenvalue = minEigenvalue;
+      this.maxEigenvalue = maxEigenvalue;
+   }
+
+   public static BandMatrixGenerator poisson1D(final int rows, final long seed) {
+      final double c = Math.cos(Math.PI / (rows + 1));
+      return new BandMatrixGenerator(Family.POISSON_1D, rows, 3, 1, 2.0, seed, 2.0 - 2.0 * c, 2.0 + 2.0 * c);
+   }
+
+   public static BandMatrixGenerator poisson2D(final int gridWidth, final int gridHeight, final long seed) {
+      final double c = Math.cos(Math.PI / (gridWidth + 1)) + Math.cos(Math.PI / (gridHeight + 1));
+      return new BandMatrixGenerator(Family.POISSON_2D, gridWidth * gridHeight, 2 * gridWidth + 1, gridWidth, 4.0, seed,
+            4.0 - 2.0 * c, 4.0 + 2.0 * c);
+   }
+
+   /**
+    * The -1 values at offset bandwidth / 2 split the matrix into independent 
+    * tridiagonal Toeplitz chains with at most m = ceil(rows / offset) rows. 
+    * The diagonal a = 2c (k + 1) / (k - 1) with c = cos(PI / (m + 1)) gives 
+    * the extreme eigenvalues a - 2c and a + 2c of the longest chain.
+    */
+   public static BandMatrixGenerator conditionNumber(final int rows, final int bandwidth, final double conditionNumber,
+         final long seed) {
+      if (!(conditionNumber > 1.0) || bandwidth < 3) {
+         throw new IllegalArgumentException("condition number must be greater than one and bandwidth at least three");
+      }
+      final int offset = bandwidth >> 1;
+      final int chain = (rows + offset - 1) / offset;
+      final double c = Math.cos(Math.PI / (chain + 1));
+      final double a = 2.0 * c * (conditionNumber + 1.0) / (conditionNumber - 1.0);
+      return new BandMatrixGenerator(Family.CONDITION_NUMBER, rows, bandwidth, offset, a, seed, a - 2.0 * c, a + 2.0 * c);
+   }
+
+   /**
+    * Off-diagonal values are uniform in [-1, 1), the diagonal is the sum of 
+    * the absolute values of the row plus one.
+    */
+   public static BandMatrixGenerator diagonallyDominant(final int rows, final int bandwidth, final long seed) {
+      return new BandMatrixGenerator(Family.DIAGONALLY_DOMINANT, rows, bandwidth, 0, 1.0, seed, Double.NaN, Double.NaN);
+   }
+
+   public int getRows() {
+      return rows;
+   }
+
+   public int getBandwidth() {
+      return bandwidth;
+   }
+
+   /**
+    * Smallest eigenvalue, NaN if not known in closed form
+    */
+   public double getMinEigenvalue() {
+      return minEigenvalue;
+   }
+
+   /**
+    * Largest eigenvalue, NaN if not known in closed form
+    */
+   public double getMaxEigenvalue() {
+      return maxEigenvalue;
+   }
+
+   public double getConditionNumber() {
+      return maxEigenvalue / minEigenvalue;
+   }
+
+   /**
+    * Value of the symmetric matrix, zero outside of the band
+    */
+   public double getValue(final int row, final int col) {
+      if (row > col) {
+         return getValue(col, row);
+      }
+      final int offset = col - row;
+      if (offset > (bandwidth >> 1) || col >= rows) {
+         return 0.0;
+      }
+      if (offset == 0) {
+         return getDiagonal(row);
+      }
+      return getUpperValue(row, offset);
+   }
+
+   public double getExactSolution(final int row) {
+      return 10.0 * (uniform(streamSeed(seed + SOLUTION_STREAM, row), 0) - 0.5);
+   }
+
+   public double getRightHandSide(final int row) {
+      final int halfBand = bandwidth >> 1;
+      double sum = 0.0;
+      for (int col = Math.max(0, row - halfBand); col <= Math.min(rows - 1, row + halfBand); col++) {
+         sum += getValue(row, col) * getExactSolution(col);
+      }
+      return sum;
+   }
+
+   public void fill(final MatrixSink sink) {
+      final int halfBand = bandwidth >> 1;
+      v3.BandMatrixFull.POOL.invoke(new FillTask(0, rows, new RowFiller() {
+         @Override
+         public void fill(final int row) {
+            sink.setValue(row, row, getDiagonal(row));
+            for (int offset = 1; offset <= halfBand && row + offset < rows; offset++) {
+               final double value = getUpperValue(row, offset);
+               if (value != 0.0) {
+                  sink.setValue(row, row + offset, value);
+               }
+            }
+         }
+      }));
+   }
+
+   public void fillExactSolution(final VectorSink sink) {
+      v3.BandMatrixFull.POOL.invoke(new FillTask(0, rows, new RowFiller() {
+         @Override
+         public void fill(final int row) {
+            sink.setValue(row, getExactSolution(row));
+         }
+      }));
+   }
+
+   public void fillRightHandSide(final VectorSink sink) {
+      v3.BandMatrixFull.POOL.invoke(new FillTask(0, rows, new RowFiller() {
+         @Override
+         public void fill(final int row) {
+            sink.setValue(row, getRightHandSide(row));
+         }
+      }));
+   }
+
+   public v1.BandMatrix createMatrixV1() {
+      final v1.BandMatrix A = new v1.BandMatrix(rows, (bandwidth >> 1) + 1);
+      fill(new MatrixSink() {
+         @Override
+         public void setValue(final int row, final int col, final double value) {
+            A.setValue(row, col, value);
+         }
+      });
+      return A;
+   }
+
+   public v1.Matrix createRightHandSideV1() {
+      final v1.Matrix b = new v1.Matrix(rows, 1);
+      fillRightHandSide(new VectorSink() {
+         @Override
+         public void setValue(final int row, final double value) {
+            b.setValue(row, 0, value);
+         }
+      });
+      return b;
+   }
+
+   public v2.BandMatrix createMatrixV2() {
+      final v2.BandMatrix A = new v2.BandMatrix(rows, (bandwidth >> 1) + 1);
+      fill(new MatrixSink() {
+         @Override
+         public void setValue(final int row, final int col, final double value) {
+            A.setValue(row, col, value);
+         }
+      });
+      return A;
+   }
+
+   public v2.Vector createRightHandSideV2() {
+      final double[] values = new double[rows];
+      fillRightHandSide(new VectorSink() {
+         @Override
+         public void setValue(final int row, final double value) {
+            values[row] = value;
+         }
+      });
+      return new v2.Vector(values);
+   }
+
+   public v3.BandMatrixFull createMatrixV3() {
+      final v3.BandMatrixFull A = new v3.BandMatrixFull(rows, bandwidth);
+      fill(new MatrixSink() {
+         @Override
+         public void setValue(final int row, final int col, final double value) {
+            A.setValue(row, col, value);
+         }
+      });
+      return A;
+   }
+
+   public v3.Vector createRightHandSideV3() {
+      final v3.Vector b = new v3.Vector(rows);
+      fillRightHandSide(new VectorSink() {
+         @Override
+         public void setValue(final int row, final double value) {
+            b.setValue(row, value);
+         }
+      });
+      return b;
+   }
+
+   public v3.Vector createExactSolutionV3() {
+      final v3.Vector x = new v3.Vector(rows);
+      fillExactSolution(new VectorSink() {
+         @Override
+         public void setValue(final int row, final double value) {
+            x.setValue(row, value);
+         }
+      });
+      return x;
+   }
+
+   public v4.BandMatrixFull createMatrixV4() {
+      final v4.BandMatrixFull A = new v4.BandMatrixFull(rows, bandwidth);
+      fill(new MatrixSink() {
+         @Override
+         public void setValue(final int row, final int col, final double value) {
+            A.setValue(row, col, value);
+         }
+      });
+      return A;
+   }
+
+   public v4.Vector createRightHandSideV4() {
+      final v4.Vector b = new v4.Vector(rows);
+      fillRightHandSide(new VectorSink() {
+         @Override
+         public void setValue(final int row, final double value) {
+            b.setValue(row, value);
+         }
+      });
+      return b;
+   }
+
+   private double getDiagonal(final int row) {
+      if (family != Family.DIAGONALLY_DOMINANT) {
+         return diagonal;
+      }
+      // strict diagonal dominance makes the matrix positive definite
+      double sum = diagonal;
+      for (int offset = 1; offset <= (bandwidth >> 1); offset++) {
+         if (row + offset < rows) {
+            sum += Math.abs(getUpperValue(row, offset));
+         }
+         if (row - offset >= 0) {
+            sum += Math.abs(getUpperValue(row - offset, offset));
+         }
+      }
+      return sum;
+   }
+
+   /**
+    * Value at (row, row + offset) with 0 < offset <= bandwidth / 2
+    */
+   private double getUpperValue(final int row, final int offset) {
+      switch (family) {
+      case POISSON_1D:
+         return -1.0;
+      case POISSON_2D:
+         if (offset == gridWidth) {
+            return -1.0;
+         }
+         return offset == 1 && (row + 1) % gridWidth != 0 ? -1.0 : 0.0;
+      case CONDITION_NUMBER:
+         return offset == gridWidth ? -1.0 : 0.0;
+      default:
+         return 2.0 * uniform(streamSeed(seed, row), offset) - 1.0;
+      }
+   }
+
+   private static long streamSeed(final long seed, final int row) {
+      return mix(seed + GOLDEN_GAMMA * (row + 1L));
+   }
+
+   /**
+    * The n-th value of the SplitMix64 stream starting at streamSeed as double in [0, 1)
+    */
+   private static double uniform(final long streamSeed, final int n) {
+      return (mix(streamSeed + GOLDEN_GAMMA * (n + 1L)) >>> 11) * 0x1.0p-53;
+   }
+
+   private static long mix(final long value) {
+      long z = value;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }
+
+   private interface RowFiller {
+      void fill(int row);
+   }
+
+   private static final class FillTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int rowStart;
+
+      private final int rowEnd;
+
+      private final RowFiller filler;
+
+      FillTask(final int rowStart, final int rowEnd, final RowFiller filler) {
+         this.rowStart = rowStart;
+         this.rowEnd = rowEnd;
+         this.filler = filler;
+      }
+
+      @Override
+      protected void compute() {
+         if (rowEnd - rowStart <= MIN_ROWS_PER_TASK) {
+            for (int row = rowStart; row < rowEnd; row++) {
+               filler.fill(row);
+            }
+         } else {
+            final int mid = (rowEnd + rowStart) >> 1;
+
+            final FillTask firstWorker = new FillTask(rowStart, mid, filler);
+            firstWorker.fork();
+
+            final FillTask secondWorker = new FillTask(mid, rowEnd, filler);
+            secondWorker.compute();
+            firstWorker.join();
+         }
+      }
+   }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package tests;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import v3.BandMatrixFull;
+import v3.Vector;
+
+public class BandMatrixGeneratorTest {
+
+   @Test
+   public void createMatrixV3_DiagonallyDominant_SameProductAsGetValue() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(5000, 11, 7L);
+
+      final Vector y = new Vector(5000);
+      for (int row = 0; row < 5000; row++) {
+         y.setValue(row, row % 13 - 6.0);
+      }
+
+      // ACT
+      final BandMatrixFull A = generator.createMatrixV3();
+
+      // CHECK
+      final Vector actual = new Vector(5000);
+      A.times(y, actual);
+      for (int row = 0; row < 5000; row++) {
+         double expected = 0.0;
+         for (int col = Math.max(0, row - 5); col < Math.min(5000, row + 6); col++) {
+            expected += generator.getValue(row, col) * y.getValue(col);
+         }
+         Assert.assertEquals(expected, actual.getValue(row), 1E-10);
+      }
+   }
+
+   @Test
+   public void diagonallyDominant_SameSeed_SameValues() {
+
+      // ARRANGE
+      final BandMatrixGenerator first = BandMatrixGenerator.diagonallyDominant(100, 5, 42L);
+      final BandMatrixGenerator second = BandMatrixGenerator.diagonallyDominant(100, 5, 42L);
+      final BandMatrixGenerator other = BandMatrixGenerator.diagonallyDominant(100, 5, 43L);
+
+      // ACT
+      final double expected = first.getValue(50, 52);
+
+      // CHECK
+      Assert.assertEquals(expected, second.getValue(50, 52), 0.0);
+      Assert.assertEquals(first.getExactSolution(17), second.getExactSolution(17), 0.0);
+      Assert.assertNotEquals(expected, other.getValue(50, 52), 0.0);
+   }
+
+   @Test
+   public void createRightHandSideV3_DiagonallyDominant_ExactSolutionSolvesSystem() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(3000, 21, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector x = generator.createExactSolutionV3();
+
+      // ACT
+      final Vector b = generator.createRightHandSideV3();
+
+      // CHECK
+      final Vector expected = new Vector(3000);
+      A.times(x, expected);
+      for (int row = 0; row < 3000; row++) {
+         Assert.assertEquals(expected.getValue(row), b.getValue(row), 1E-10);
+      }
+   }
+
+   @Test
+   public void conditionNumber_LowestEigenvector_ExpectedEigenvalue() {
+
+      // ARRANGE
+      final int rows = 200;
+      final BandMatrixGenerator generator = BandMatrixGenerator.conditionNumber(rows, 3, 1000.0, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector v = new Vector(rows);
+      for (int row = 0; row < rows; row++) {
+         v.setValue(row, Math.sin(Math.PI * (row + 1) / (rows + 1)));
+      }
+
+      // ACT
+      final Vector Av = new Vector(rows);
+      A.times(v, Av);
+
+      // CHECK
+      Assert.assertEquals(1000.0, generator.getConditionNumber(), 1E-9);
+      for (int row = 0; row < rows; row++) {
+         Assert.assertEquals(generator.getMinEigenvalue() * v.getValue(row), Av.getValue(row), 1E-12);
+      }
+   }
+
+   @Test
+   public void poisson2D_HighestEigenvector_ExpectedEigenvalue() {
+
+      // ARRANGE
+      final int width = 7;
+      final int height = 9;
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson2D(width, height, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector v = new Vector(width * height);
+      for (int row = 0; row < width * height; row++) {
+         final int i = row % width + 1;
+         final int j = row / width + 1;
+         v.setValue(row, Math.sin(Math.PI * width * i / (width + 1)) * Math.sin(Math.PI * height * j / (height + 1)));
+      }
+
+      // ACT
+      final Vector Av = new Vector(width * height);
+      A.times(v, Av);
+
+      // CHECK
+      Assert.assertEquals(2 * width + 1, generator.getBandwidth());
+      for (int row = 0; row < width * height; row++) {
+         Assert.assertEquals(generator.getMaxEigenvalue() * v.getValue(row), Av.getValue(row), 1E-12);
+      }
+   }
+
+}
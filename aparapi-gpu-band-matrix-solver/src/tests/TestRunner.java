@@ -47,6 +47,8 @@ public class TestRunner {
 
    private static final Object HANDLER_INIT_LOCK = new Object();
 
+   private static final long SEED = 20140101L;
+
    public static BandMatrix A;
 
    public static Vector B;
@@ -79,20 +81,19 @@ public class TestRunner {
    public static void setupTestData() {
       synchronized (HANDLER_INIT_LOCK) {
          if (initNeeded) {
-            A = new v2.BandMatrix(Parameter.ROW_NUMBER_MAX, Parameter.BAND_WIDTH);
-            B = new v2.Vector(Parameter.ROW_NUMBER_MAX);
-            for (int row = 0; row < Parameter.ROW_NUMBER_MAX; row++) {
-               for (int col = 0; col <= (Parameter.BAND_WIDTH >> 1); col++) {
-                  A.setValue(row, row + col, createRandomNumber());
+            final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(Parameter.ROW_NUMBER_MAX,
+                  Parameter.BAND_WIDTH, SEED);
+            final BandMatrix matrix = new v2.BandMatrix(Parameter.ROW_NUMBER_MAX, Parameter.BAND_WIDTH);
+            generator.fill(new BandMatrixGenerator.MatrixSink() {
+               @Override
+               public void setValue(final int row, final int col, final double value) {
+                  matrix.setValue(row, col, value);
                }
-               B.setValue(row, createRandomNumber());
-            }
+            });
+            A = matrix;
+            B = generator.createRightHandSideV2();
             initNeeded = false;
          }
       }
    }
-
-   private static double createRandomNumber() {
-      return 10 * (Math.random() - 0.5);
-   }
 }
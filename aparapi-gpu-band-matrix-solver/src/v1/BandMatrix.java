@@ -30,9 +30,11 @@
  */
 package v1;
 
-final public class BandMatrix {
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
 
-   private static final int MAX_NUMBER_OF_ITTERATIONS = 100000;
+final public class BandMatrix {
 
    private final int rows;
 
@@ -78,27 +80,58 @@ final public class BandMatrix {
    }
 
    public static Matrix solveConjugateGradient(final BandMatrix A, final Matrix b) {
+      return solveConjugateGradient(A, b, new SolveRecorder("v1.solveConjugateGradient", b.rows, false)).getSolution();
+   }
+
+   public static SolveResult<Matrix> solveConjugateGradientWithResult(final BandMatrix A, final Matrix b) {
+      return solveConjugateGradientWithResult(A, b, SolverOptions.DEFAULT);
+   }
+
+   public static SolveResult<Matrix> solveConjugateGradientWithResult(final BandMatrix A, final Matrix b,
+         final SolverOptions options) {
+      return solveConjugateGradient(A, b, new SolveRecorder("v1.solveConjugateGradient", b.rows, true, options));
+   }
+
+   private static SolveResult<Matrix> solveConjugateGradient(final BandMatrix A, final Matrix b, final SolveRecorder recorder) {
 
+      long start = recorder.time();
       Matrix x = new Matrix(b.rows, b.cols);
-      Matrix r = b.minus(A.times(x));
+      final Matrix Ax = A.times(x);
+      recorder.matVec(start);
+      start = recorder.time();
+      Matrix r = b.minus(Ax);
       Matrix p = new Matrix(r);
+      recorder.vector(start);
+      start = recorder.time();
       double rsold = r.transpose().times(r).getValue(0, 0);
+      recorder.reduction(start);
+      recorder.initialResidual(rsold);
 
-      for (int i = 1; i < MAX_NUMBER_OF_ITTERATIONS; i++) {
+      while (!recorder.isStopped()) {
+         start = recorder.time();
          final Matrix Ap = A.times(p);
+         recorder.matVec(start);
+         start = recorder.time();
          final double alpha = rsold / p.transpose().times(Ap).getValue(0, 0);
+         recorder.reduction(start);
+         start = recorder.time();
          x = x.plus(p.multi(alpha));
          r = r.minus(Ap.multi(alpha));
+         recorder.vector(start);
+         start = recorder.time();
          final double rsnew = r.transpose().times(r).getValue(0, 0);
+         recorder.reduction(start);
          final double beta = rsnew / rsold;
-         if (rsnew < 1e-10) {
+         if (recorder.iteration(rsnew)) {
             break;
          }
+         start = recorder.time();
          p = r.plus(p.multi(beta));
+         recorder.vector(start);
          rsold = rsnew;
       }
 
-      return x;
+      return recorder.finish(x);
    }
 
 }
\ No newline at end of file
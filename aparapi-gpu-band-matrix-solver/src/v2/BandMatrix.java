@@ -30,6 +30,10 @@
  */
 package v2;
 
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
+
 /* The symmetric banded matrix ( '-' indicates zero values):
  * 
  * |  a0  a1  a2   0    0  |
@@ -54,8 +58,6 @@ package v2;
 
 final public class BandMatrix {
 
-   private static final int MAX_NUMBER_OF_ITTERATIONS = 100000;
-
    private final int rows;
 
    private final int cols;
@@ -110,27 +112,79 @@ final public class BandMatrix {
    }
 
    public static Vector solveConjugateGradient(final BandMatrix A, final Vector b) {
+      return solveConjugateGradient(A, b, null, new SolveRecorder("v2.solveConjugateGradient",
+            b.getMaxRows(), false)).getSolution();
+   }
+
+   /**
+    * Starts the iteration with the initial guess x0 instead of zero
+    */
+   public static Vector solveConjugateGradient(final BandMatrix A, final Vector b, final Vector x0) {
+      return solveConjugateGradient(A, b, x0, new SolveRecorder("v2.solveConjugateGradient",
+            b.getMaxRows(), false)).getSolution();
+   }
 
-      Vector x = new Vector(b.getMaxRows());
-      Vector r = b.minus(A.times(x));
+   public static SolveResult<Vector> solveConjugateGradientWithResult(final BandMatrix A, final Vector b) {
+      return solveConjugateGradientWithResult(A, b, SolverOptions.DEFAULT);
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientWithResult(final BandMatrix A, final Vector b,
+         final SolverOptions options) {
+      return solveConjugateGradient(A, b, null, new SolveRecorder("v2.solveConjugateGradient", b.getMaxRows(), true,
+            options));
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientWithResult(final BandMatrix A, final Vector b,
+         final Vector x0, final SolverOptions options) {
+      return solveConjugateGradient(A, b, x0, new SolveRecorder("v2.solveConjugateGradient", b.getMaxRows(), true,
+            options));
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   private static SolveResult<Vector> solveConjugateGradient(final BandMatrix A, final Vector b, final Vector x0,
+         final SolveRecorder recorder) {
+
+      long start = recorder.time();
+      Vector x = null == x0 ? new Vector(b.getMaxRows()) : new Vector(x0);
+      final Vector Ax = A.times(x);
+      recorder.matVec(start);
+      start = recorder.time();
+      Vector r = b.minus(Ax);
       Vector p = new Vector(r);
+      recorder.vector(start);
+      start = recorder.time();
       double rsold = r.dotProduct(r);
+      final double bNormSquared = null == x0 ? rsold : b.dotProduct(b);
+      recorder.reduction(start);
+      recorder.initialResidual(rsold, bNormSquared);
 
-      for (int i = 1; i < MAX_NUMBER_OF_ITTERATIONS; i++) {
+      while (!recorder.isStopped()) {
+         start = recorder.time();
          final Vector Ap = A.times(p);
+         recorder.matVec(start);
+         start = recorder.time();
          final double alpha = rsold / p.dotProduct(Ap);
+         recorder.reduction(start);
+         start = recorder.time();
          x = x.plus(p.multi(alpha));
          r = r.minus(Ap.multi(alpha));
+         recorder.vector(start);
+         start = recorder.time();
          final double rsnew = r.dotProduct(r);
+         recorder.reduction(start);
          final double beta = rsnew / rsold;
-         if (rsnew < 1e-10) {
+         if (recorder.iteration(rsnew)) {
             break;
          }
+         start = recorder.time();
          p = r.plus(p.multi(beta));
+         recorder.vector(start);
          rsold = rsnew;
       }
 
-      return x;
+      return recorder.finish(x);
    }
 
 }
@@ -0,0 +1,605 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+
+/* The Cholesky factor L of a symmetric positive definite band matrix with
+ * the half bandwidth k = 2 ( '-' indicates zero values):
+ *
+ * |  l0   -    -    -    -  |
+ * |  l1   l2   -    -    -  |
+ * |  l3   l4   l5   -    -  |
+ * |  -    l6   l7   l8   -  |
+ * |  -    -    l9   l10  l11|
+ *
+ * is stored row by row with k + 1 values per row, the diagonal is the
+ * last value of a row:
+ *
+ * [ -, -, l0,   -, l1, l2,   l3, l4, l5,   l6, l7, l8,   l9, l10, l11 ]
+ *
+ */
+public final class BandCholesky {
+
+   /**
+    * Default edge length of the tiles of the blocked factorization
+    */
+   public static final int TILE_SIZE = 16;
+
+   /**
+    * Minimal half bandwidth for the blocked factorization, below the tiles
+    * are too small for the micro-kernel
+    */
+   public static final int BLOCKED_MIN_HALF_BANDWIDTH = 32;
+
+   private final int rows;
+
+   private final int halfBandwidth;
+
+   final double[] values;
+
+   BandCholesky(final int rows, final int halfBandwidth) {
+      this.rows = rows;
+      this.halfBandwidth = halfBandwidth;
+      values = new double[rows * (halfBandwidth + 1)];
+   }
+
+   /**
+    * Cholesky factorization A = L * L', the factor has the same band as the
+    * matrix (no fill-in outside of the band). Wide bands are factored
+    * blocked with TILE_SIZE.
+    */
+   public static BandCholesky factor(final BandMatrixFull A) {
+      return factor(A, 0, A.getMaxRows());
+   }
+
+   /**
+    * Blocked factorization with tiles of the given size, see factorBlocked
+    */
+   public static BandCholesky factorBlocked(final BandMatrixFull A, final int tileSize) {
+      if (tileSize < 1) {
+         throw new IllegalArgumentException("tile size must be positive");
+      }
+      final BandCholesky L = new BandCholesky(A.getMaxRows(), A.getMaxCols() >> 1);
+      L.copyLowerBand(A, 0);
+      L.factorBlocked(tileSize);
+      return L;
+   }
+
+   /**
+    * Unblocked factorization, e.g. as reference for the blocked one
+    */
+   public static BandCholesky factorUnblocked(final BandMatrixFull A) {
+      final BandCholesky L = new BandCholesky(A.getMaxRows(), A.getMaxCols() >> 1);
+      L.copyLowerBand(A, 0);
+      L.factorUnblocked(0, L.rows);
+      return L;
+   }
+
+   /**
+    * Factorization of the diagonal block of the rows [rowStart, rowEnd)
+    */
+   static BandCholesky factor(final BandMatrixFull A, final int rowStart, final int rowEnd) {
+      final int k = A.getMaxCols() >> 1;
+      final BandCholesky L = new BandCholesky(rowEnd - rowStart, k);
+      L.copyLowerBand(A, rowStart);
+      if (k >= BLOCKED_MIN_HALF_BANDWIDTH) {
+         L.factorBlocked(TILE_SIZE);
+      } else {
+         L.factorUnblocked(0, L.rows);
+      }
+      return L;
+   }
+
+   /**
+    * Copies the lower band of the diagonal block starting at rowStart
+    */
+   void copyLowerBand(final BandMatrixFull A, final int rowStart) {
+      final int cols = A.getMaxCols();
+      final int width = halfBandwidth + 1;
+      for (int row = 0; row < rows; row++) {
+         final int first = Math.max(0, halfBandwidth - row);
+         System.arraycopy(A.values, (rowStart + row) * cols + first, values, row * width + first, width - first);
+      }
+   }
+
+   /**
+    * Row oriented factorization of the rows [rowStart, rowEnd), the rows
+    * before rowStart must already be factored
+    */
+   void factorUnblocked(final int rowStart, final int rowEnd) {
+      final int k = halfBandwidth;
+      final int width = k + 1;
+      final double[] l = values;
+      for (int row = rowStart; row < rowEnd; row++) {
+         final int rowOffset = row * width - row + k;
+         final int firstColumn = Math.max(0, row - k);
+
+         // l(row,col) = (a(row,col) - sum l(row,t) * l(col,t)) / l(col,col)
+         for (int col = firstColumn; col < row; col++) {
+            final int colOffset = col * width - col + k;
+            double sum = l[rowOffset + col];
+            for (int t = Math.max(firstColumn, col - k); t < col; t++) {
+               sum -= l[rowOffset + t] * l[colOffset + t];
+            }
+            l[rowOffset + col] = sum / l[colOffset + col];
+         }
+
+         double sum = l[rowOffset + row];
+         for (int t = firstColumn; t < row; t++) {
+            sum -= l[rowOffset + t] * l[rowOffset + t];
+         }
+         if (sum <= 0.0) {
+            throw new IllegalStateException("matrix is not positive definite in row " + row);
+         }
+         l[rowOffset + row] = Math.sqrt(sum);
+      }
+   }
+
+   /**
+    * Right looking factorization by panels of nb columns. The panel and the
+    * at most k rows below it are copied into a dense buffer P:
+    *
+    *    | P11 |    P11 = L11 * L11'           (POTRF, nb x nb)
+    *    | P21 |    P21 = P21 * L11'^-1        (TRSM, k x nb)
+    *
+    * and the trailing k x k window of the band is updated with
+    * A22 = A22 - P21 * P21' (SYRK), which is most of the operations. The
+    * SYRK runs in 4 x 4 register tiles over the contiguous rows of P, so
+    * every loaded value is used four times instead of once.
+    */
+   void factorBlocked(final int nb) {
+      final int k = halfBandwidth;
+      final double[] panel = new double[(nb + k) * nb];
+      for (int panelStart = 0; panelStart < rows; panelStart += nb) {
+         final int panelEnd = Math.min(rows, panelStart + nb);
+         final int b = panelEnd - panelStart;
+         final int m = Math.min(rows, panelEnd + k) - panelStart;
+
+         packPanel(panel, panelStart, m, b);
+         potrf(panel, b, panelStart);
+         trsm(panel, m, b);
+         unpackPanel(panel, panelStart, m, b);
+         syrk(panel, panelStart, m, b);
+      }
+   }
+
+   /**
+    * P(r, c) = L(panelStart + r, panelStart + c), zero outside of the band
+    */
+   private void packPanel(final double[] panel, final int panelStart, final int m, final int b) {
+      final int k = halfBandwidth;
+      final int width = k + 1;
+      for (int r = 0; r < m; r++) {
+         final int row = panelStart + r;
+         final int rowOffset = row * width - row + k;
+         for (int c = 0; c < b; c++) {
+            final int col = panelStart + c;
+            panel[r * b + c] = col <= row && row - col <= k ? values[rowOffset + col] : 0.0;
+         }
+      }
+   }
+
+   private void unpackPanel(final double[] panel, final int panelStart, final int m, final int b) {
+      final int k = halfBandwidth;
+      final int width = k + 1;
+      for (int r = 0; r < m; r++) {
+         final int row = panelStart + r;
+         final int rowOffset = row * width - row + k;
+         for (int c = Math.max(0, r - k); c < b && c <= r; c++) {
+            values[rowOffset + panelStart + c] = panel[r * b + c];
+         }
+      }
+   }
+
+   /**
+    * Dense Cholesky factorization of the diagonal tile P11
+    */
+   private static void potrf(final double[] panel, final int b, final int panelStart) {
+      for (int r = 0; r < b; r++) {
+         for (int c = 0; c < r; c++) {
+            double sum = panel[r * b + c];
+            for (int s = 0; s < c; s++) {
+               sum -= panel[r * b + s] * panel[c * b + s];
+            }
+            panel[r * b + c] = sum / panel[c * b + c];
+         }
+         double sum = panel[r * b + r];
+         for (int s = 0; s < r; s++) {
+            sum -= panel[r * b + s] * panel[r * b + s];
+         }
+         if (sum <= 0.0) {
+            throw new IllegalStateException("matrix is not positive definite in row " + (panelStart + r));
+         }
+         panel[r * b + r] = Math.sqrt(sum);
+      }
+   }
+
+   /**
+    * P21 = P21 * L11'^-1, four rows at once, so that every value of L11 is
+    * loaded once for four rows
+    */
+   private static void trsm(final double[] panel, final int m, final int b) {
+      int r = b;
+      for (; r + 4 <= m; r += 4) {
+         final int p0 = r * b;
+         final int p1 = p0 + b;
+         final int p2 = p1 + b;
+         final int p3 = p2 + b;
+         for (int c = 0; c < b; c++) {
+            final int q = c * b;
+            double sum0 = panel[p0 + c];
+            double sum1 = panel[p1 + c];
+            double sum2 = panel[p2 + c];
+            double sum3 = panel[p3 + c];
+            for (int s = 0; s < c; s++) {
+               final double l = panel[q + s];
+               sum0 -= panel[p0 + s] * l;
+               sum1 -= panel[p1 + s] * l;
+               sum2 -= panel[p2 + s] * l;
+               sum3 -= panel[p3 + s] * l;
+            }
+            final double diagonal = panel[q + c];
+            panel[p0 + c] = sum0 / diagonal;
+            panel[p1 + c] = sum1 / diagonal;
+            panel[p2 + c] = sum2 / diagonal;
+            panel[p3 + c] = sum3 / diagonal;
+         }
+      }
+      for (; r < m; r++) {
+         for (int c = 0; c < b; c++) {
+            double sum = panel[r * b + c];
+            for (int s = 0; s < c; s++) {
+               sum -= panel[r * b + s] * panel[c * b + s];
+            }
+            panel[r * b + c] = sum / panel[c * b + c];
+         }
+      }
+   }
+
+   /**
+    * A22 = A22 - P21 * P21' for the lower triangle of the trailing window
+    */
+   private void syrk(final double[] panel, final int panelStart, final int m, final int b) {
+      final int k = halfBandwidth;
+      final int width = k + 1;
+      final double[] l = values;
+      final int first = panelStart + b;
+      final int last = panelStart + m;
+      for (int i = first; i < last; i += 4) {
+         final int i1 = Math.min(i + 4, last);
+         for (int c = first; c < i1; c += 4) {
+            final int c1 = Math.min(c + 4, i1);
+            if (i1 - i == 4 && c1 - c == 4 && c + 3 < i) {
+               microKernel(panel, (i - panelStart) * b, panel, (c - panelStart) * b, b, l, i * width - i + k + c,
+                     width - 1);
+            } else {
+               // edge and diagonal tiles
+               for (int row = i; row < i1; row++) {
+                  final int p = (row - panelStart) * b;
+                  for (int col = c; col < c1 && col <= row; col++) {
+                     final int q = (col - panelStart) * b;
+                     double sum = 0.0;
+                     for (int s = 0; s < b; s++) {
+                        sum += panel[p + s] * panel[q + s];
+                     }
+                     l[row * width - row + k + col] -= sum;
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * 4 x 4 tile C(0..3, 0..3) -= A(0..3) * B(0..3)' with rows of the length
+    * b, which start at p in a and at q in bt and follow each other. The
+    * result starts at offset in l, stride is the distance between C(0, 0)
+    * and C(1, 0).
+    */
+   static void microKernel(final double[] a, final int p, final double[] bt, final int q, final int b,
+         final double[] l, final int offset, final int stride) {
+      double s00 = 0.0, s01 = 0.0, s02 = 0.0, s03 = 0.0;
+      double s10 = 0.0, s11 = 0.0, s12 = 0.0, s13 = 0.0;
+      double s20 = 0.0, s21 = 0.0, s22 = 0.0, s23 = 0.0;
+      double s30 = 0.0, s31 = 0.0, s32 = 0.0, s33 = 0.0;
+      for (int s = 0; s < b; s++) {
+         final double a0 = a[p + s];
+         final double a1 = a[p + b + s];
+         final double a2 = a[p + 2 * b + s];
+         final double a3 = a[p + 3 * b + s];
+         final double b0 = bt[q + s];
+         final double b1 = bt[q + b + s];
+         final double b2 = bt[q + 2 * b + s];
+         final double b3 = bt[q + 3 * b + s];
+         s00 += a0 * b0;
+         s01 += a0 * b1;
+         s02 += a0 * b2;
+         s03 += a0 * b3;
+         s10 += a1 * b0;
+         s11 += a1 * b1;
+         s12 += a1 * b2;
+         s13 += a1 * b3;
+         s20 += a2 * b0;
+         s21 += a2 * b1;
+         s22 += a2 * b2;
+         s23 += a2 * b3;
+         s30 += a3 * b0;
+         s31 += a3 * b1;
+         s32 += a3 * b2;
+         s33 += a3 * b3;
+      }
+      l[offset] -= s00;
+      l[offset + 1] -= s01;
+      l[offset + 2] -= s02;
+      l[offset + 3] -= s03;
+      l[offset + stride] -= s10;
+      l[offset + stride + 1] -= s11;
+      l[offset + stride + 2] -= s12;
+      l[offset + stride + 3] -= s13;
+      l[offset + 2 * stride] -= s20;
+      l[offset + 2 * stride + 1] -= s21;
+      l[offset + 2 * stride + 2] -= s22;
+      l[offset + 2 * stride + 3] -= s23;
+      l[offset + 3 * stride] -= s30;
+      l[offset + 3 * stride + 1] -= s31;
+      l[offset + 3 * stride + 2] -= s32;
+      l[offset + 3 * stride + 3] -= s33;
+   }
+
+   /**
+    * Solves L * L' * x = b
+    */
+   public Vector solve(final Vector b) {
+      final double[] x = b.values.clone();
+      solveInPlace(x, 0);
+      return new Vector(x);
+   }
+
+   /**
+    * Solves L * L' * x = b in place for a right hand side b which is zero
+    * in the rows before rowStart. Only the rows from rowStart are computed,
+    * e.g. the last rows of the inverse with O(k^2) operations per column.
+    */
+   void solveInPlace(final double[] x, final int rowStart) {
+      final int k = halfBandwidth;
+      final int width = k + 1;
+      final double[] l = values;
+
+      // forward substitution L * y = b
+      for (int row = rowStart; row < rows; row++) {
+         final int rowOffset = row * width - row + k;
+         double sum = x[row];
+         for (int col = Math.max(rowStart, row - k); col < row; col++) {
+            sum -= l[rowOffset + col] * x[col];
+         }
+         x[row] = sum / l[rowOffset + row];
+      }
+
+      // backward substitution L' * x = y (column oriented)
+      for (int row = rows - 1; row >= rowStart; row--) {
+         final int rowOffset = row * width - row + k;
+         x[row] /= l[rowOffset + row];
+         final double xRow = x[row];
+         for (int col = Math.max(rowStart, row - k); col < row; col++) {
+            x[col] -= l[rowOffset + col] * xRow;
+         }
+      }
+   }
+
+   /**
+    * Rank-1 update to the factor of A + v * v'. The nonzero values of v
+    * must lie within k + 1 consecutive rows, so that the band of A is kept.
+    * The rows of the factor from the first nonzero row s of v on change,
+    * i.e. the update costs O((n - s) * k) instead of O(n * k^2) for a new
+    * factorization.
+    */
+   public void update(final Vector v) {
+      update(new Vector[] { v });
+   }
+
+   /**
+    * Rank-1 downdate to the factor of A - v * v'
+    *
+    * @throws IllegalStateException if A - v * v' is not positive definite,
+    *            the factor is unchanged then
+    */
+   public void downdate(final Vector v) {
+      downdate(new Vector[] { v });
+   }
+
+   /**
+    * Rank-k update to the factor of A + V * V' in one pass over the factor
+    */
+   public void update(final Vector[] V) {
+      final double[] signs = new double[V.length];
+      Arrays.fill(signs, 1.0);
+      modify(V, signs);
+   }
+
+   /**
+    * Rank-k downdate to the factor of A - V * V' in one pass over the factor
+    */
+   public void downdate(final Vector[] V) {
+      final double[] signs = new double[V.length];
+      Arrays.fill(signs, -1.0);
+      modify(V, signs);
+   }
+
+   /**
+    * Updates the factor for A(row, col) + delta and A(col, row) + delta
+    * within the band. An off-diagonal change is split into
+    *
+    *    delta * (e(row) * e(col)' + e(col) * e(row)') = delta / 2 * (u * u' - w * w')
+    *
+    * with u = e(row) + e(col) and w = e(row) - e(col), the update is
+    * applied before the downdate. Changes outside of the band are solved
+    * with a WoodburySolver.
+    */
+   public void add(final int row, final int col, final double delta) {
+      if (Math.abs(row - col) > halfBandwidth) {
+         throw new IllegalArgumentException("position is outside of the band, use WoodburySolver");
+      }
+      if (row == col) {
+         final Vector v = new Vector(rows);
+         v.values[row] = Math.sqrt(Math.abs(delta));
+         modify(new Vector[] { v }, new double[] { Math.signum(delta) });
+         return;
+      }
+      final double scale = Math.sqrt(0.5 * Math.abs(delta));
+      final Vector u = new Vector(rows);
+      u.values[row] = scale;
+      u.values[col] = scale;
+      final Vector w = new Vector(rows);
+      w.values[row] = scale;
+      w.values[col] = -scale;
+      if (delta > 0.0) {
+         modify(new Vector[] { u, w }, new double[] { 1.0, -1.0 });
+      } else if (delta < 0.0) {
+         modify(new Vector[] { w, u }, new double[] { 1.0, -1.0 });
+      }
+   }
+
+   /**
+    * Applies the updates (sign +1) and downdates (sign -1) column by column
+    * (Golub and Van Loan, Matrix Computations, 6.5.4):
+    *
+    *    r = sqrt(l(j, j)^2 + sign * v(j)^2), c = r / l(j, j), s = v(j) / l(j, j)
+    *    l(j, j) = r
+    *    l(i, j) = (l(i, j) + sign * s * v(i)) / c     for i = j + 1 ... j + k
+    *    v(i) = c * v(i) - s * l(i, j)
+    *
+    * The vectors are copied, after the column j only their values
+    * v(j + 1) ... v(j + k) are nonzero, so the band is kept. A vector is
+    * finished as soon as these values are zero, e.g. after its values
+    * have decayed below the smallest double for a diagonally dominant A.
+    */
+   private void modify(final Vector[] V, final double[] signs) {
+      final int k = halfBandwidth;
+      final int width = k + 1;
+      final int m = V.length;
+      final double[][] w = new double[m][];
+      final int[] starts = new int[m];
+      int first = rows;
+      for (int p = 0; p < m; p++) {
+         final double[] v = V[p].values;
+         int start = 0;
+         while (start < rows && v[start] == 0.0) {
+            start++;
+         }
+         int end = rows - 1;
+         while (end > start && v[end] == 0.0) {
+            end--;
+         }
+         if (end - start > k) {
+            throw new IllegalArgumentException("vector exceeds the band, use WoodburySolver");
+         }
+         w[p] = v.clone();
+         starts[p] = start;
+         first = Math.min(first, start);
+      }
+      if (first == rows) {
+         return;
+      }
+
+      // only a downdate can fail, the rows from first on are restored then
+      boolean downdate = false;
+      for (final double sign : signs) {
+         downdate |= sign < 0.0;
+      }
+      final double[] backup = downdate ? Arrays.copyOfRange(values, first * width, values.length) : null;
+      int active = m;
+      try {
+         for (int j = first; j < rows && active > 0; j++) {
+            final int diagonal = j * width + k;
+            final int lastRow = Math.min(rows - 1, j + k);
+            for (int p = 0; p < m; p++) {
+               final double[] v = w[p];
+               if (j < starts[p]) {
+                  continue;
+               }
+               final double vj = v[j];
+               if (vj == 0.0) {
+                  // no change in this column, the vector is done if v(j + 1) ... v(j + k) are zero too
+                  int i = j + 1;
+                  while (i <= lastRow && v[i] == 0.0) {
+                     i++;
+                  }
+                  if (i > lastRow) {
+                     starts[p] = rows;
+                     active--;
+                  }
+                  continue;
+               }
+               final double l = values[diagonal];
+               final double sign = signs[p];
+               final double squared = l * l + sign * vj * vj;
+               if (!(squared > 0.0)) {
+                  throw new IllegalStateException("matrix is not positive definite in row " + j);
+               }
+               final double r = Math.sqrt(squared);
+               final double c = r / l;
+               final double s = vj / l;
+               final double inverse = l / r;
+               final double signedS = sign * s;
+               values[diagonal] = r;
+               for (int i = j + 1, index = (j + 1) * k + k + j; i <= lastRow; i++, index += k) {
+                  final double value = (values[index] + signedS * v[i]) * inverse;
+                  values[index] = value;
+                  v[i] = c * v[i] - s * value;
+               }
+            }
+         }
+      } catch (final IllegalStateException e) {
+         System.arraycopy(backup, 0, values, first * width, backup.length);
+         throw e;
+      }
+   }
+
+   /**
+    * Value of the factor, zero outside of the band
+    */
+   public double getValue(final int row, final int col) {
+      if (col > row || row - col > halfBandwidth) {
+         return 0.0;
+      }
+      return values[row * (halfBandwidth + 1) + halfBandwidth + col - row];
+   }
+
+   public int getMaxRows() {
+      return rows;
+   }
+
+   public int getHalfBandwidth() {
+      return halfBandwidth;
+   }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+
+public class BandCholeskyTest {
+
+   @Test
+   public void solve_DiagonallyDominantMatrix_ExactSolution() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(500, 31, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+
+      // ACT
+      final Vector x = BandCholesky.factor(A).solve(generator.createRightHandSideV3());
+
+      // CHECK
+      final Vector expected = generator.createExactSolutionV3();
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(expected.getValue(row), x.getValue(row), 1E-10);
+      }
+   }
+
+   @Test
+   public void factor_SmallMatrix_SameAsProfileCholesky() {
+
+      // ARRANGE
+      final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(12, 5, 2L).createMatrixV3();
+
+      // ACT
+      final BandCholesky L = BandCholesky.factor(A);
+
+      // CHECK
+      final ProfileMatrix expected = ProfileMatrix.create(A).cholesky();
+      for (int row = 0; row < 12; row++) {
+         for (int col = 0; col <= row; col++) {
+            Assert.assertEquals(expected.getValue(row, col), L.getValue(row, col), 1E-12);
+         }
+      }
+   }
+
+   @Test
+   public void factorBlocked_DifferentTileSizes_SameAsUnblocked() {
+      for (final int tileSize : new int[] { 1, 4, 7, 32, 64 }) {
+         for (final int bandwidth : new int[] { 3, 21, 101 }) {
+
+            // ARRANGE
+            final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(301, bandwidth, 3L).createMatrixV3();
+
+            // ACT
+            final BandCholesky L = BandCholesky.factorBlocked(A, tileSize);
+
+            // CHECK
+            final BandCholesky expected = BandCholesky.factorUnblocked(A);
+            for (int row = 0; row < A.getMaxRows(); row++) {
+               for (int col = Math.max(0, row - (bandwidth >> 1)); col <= row; col++) {
+                  Assert.assertEquals(expected.getValue(row, col), L.getValue(row, col), 1E-12);
+               }
+            }
+         }
+      }
+   }
+
+   @Test
+   public void update_RankOneInsideBand_SameAsNewFactor() {
+
+      // ARRANGE
+      final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(200, 11, 4L).createMatrixV3();
+      final BandCholesky L = BandCholesky.factor(A);
+      final Vector v = new Vector(200);
+      for (int row = 40; row <= 45; row++) {
+         v.setValue(row, 0.5 + 0.1 * row);
+      }
+
+      // ACT
+      L.update(v);
+
+      // CHECK
+      for (int row = 40; row <= 45; row++) {
+         for (int col = row; col <= 45; col++) {
+            A.setValue(row, col, getValue(A, row, col) + v.getValue(row) * v.getValue(col));
+         }
+      }
+      assertSameFactor(BandCholesky.factor(A), L);
+   }
+
+   @Test
+   public void downdate_RankTwo_SameAsNewFactor() {
+
+      // ARRANGE
+      final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(200, 11, 5L).createMatrixV3();
+      final BandCholesky L = BandCholesky.factor(A);
+      final Vector[] V = { new Vector(200), new Vector(200) };
+      V[0].setValue(10, 0.7);
+      V[0].setValue(14, -0.4);
+      V[1].setValue(150, 0.3);
+      V[1].setValue(151, 0.6);
+
+      // ACT
+      L.downdate(V);
+
+      // CHECK
+      for (final Vector v : V) {
+         for (int row = 0; row < 200; row++) {
+            for (int col = row; col < Math.min(200, row + 6); col++) {
+               A.setValue(row, col, getValue(A, row, col) - v.getValue(row) * v.getValue(col));
+            }
+         }
+      }
+      assertSameFactor(BandCholesky.factor(A), L);
+   }
+
+   @Test
+   public void add_ValuesInsideBand_SameAsNewFactor() {
+
+      // ARRANGE
+      final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(100, 7, 6L).createMatrixV3();
+      final BandCholesky L = BandCholesky.factor(A);
+
+      // ACT
+      L.add(20, 23, 0.4);
+      L.add(60, 57, -0.3);
+      L.add(80, 80, -0.5);
+
+      // CHECK
+      A.setValue(20, 23, getValue(A, 20, 23) + 0.4);
+      A.setValue(57, 60, getValue(A, 57, 60) - 0.3);
+      A.setValue(80, 80, getValue(A, 80, 80) - 0.5);
+      assertSameFactor(BandCholesky.factor(A), L);
+   }
+
+   @Test
+   public void downdate_IndefiniteResult_ExceptionAndFactorUnchanged() {
+
+      // ARRANGE
+      final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(50, 5, 7L).createMatrixV3();
+      final BandCholesky L = BandCholesky.factor(A);
+      final Vector v = new Vector(50);
+      v.setValue(30, 100.0);
+
+      // ACT
+      try {
+         L.downdate(v);
+         Assert.fail("exception expected");
+      } catch (final IllegalStateException e) {
+         // expected
+      }
+
+      // CHECK
+      assertSameFactor(BandCholesky.factor(A), L);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void update_VectorExceedsBand_Exception() {
+
+      // ARRANGE
+      final BandCholesky L = BandCholesky.factor(BandMatrixGenerator.diagonallyDominant(50, 5, 7L).createMatrixV3());
+      final Vector v = new Vector(50);
+      v.setValue(10, 1.0);
+      v.setValue(13, 1.0);
+
+      // ACT
+      L.update(v);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void factor_IndefiniteMatrix_Exception() {
+
+      // ARRANGE
+      final BandMatrixFull A = new BandMatrixFull(3, 3);
+      A.setValue(0, 0, 1.0);
+      A.setValue(0, 1, 2.0);
+      A.setValue(1, 1, 1.0);
+      A.setValue(2, 2, 1.0);
+
+      // ACT
+      BandCholesky.factor(A);
+   }
+
+   private static double getValue(final BandMatrixFull A, final int row, final int col) {
+      final int cols = A.getMaxCols();
+      return A.values[row * cols + (cols >> 1) + col - row];
+   }
+
+   private static void assertSameFactor(final BandCholesky expected, final BandCholesky actual) {
+      final int k = expected.getHalfBandwidth();
+      for (int row = 0; row < expected.getMaxRows(); row++) {
+         for (int col = Math.max(0, row - k); col <= row; col++) {
+            Assert.assertEquals(expected.getValue(row, col), actual.getValue(row, col), 1E-12);
+         }
+      }
+   }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+/**
+ * LU factorization with partial pivoting P * A = L * U of a nonsymmetric
+ * band matrix (LAPACK dgbtrf). The row exchanges widen the band of U from
+ * ku to kl + ku superdiagonals, so every row is stored with the columns
+ * row - kl ... row + kl + ku, row major with the width 2 * kl + ku + 1.
+ * The columns left of the diagonal hold the multipliers of L; as in
+ * LAPACK they are not permuted by the later row exchanges, so the solve
+ * applies the exchanges and eliminations column by column.
+ *
+ * The elimination of a column updates the kl rows below the pivot row over
+ * their contiguous kl + ku values.
+ */
+public final class BandLU {
+
+   private final int rows;
+
+   private final int lowerBandwidth;
+
+   private final int upperBandwidth;
+
+   private final int width;
+
+   private final double[] values;
+
+   // row exchanged with row j in step j
+   private final int[] pivots;
+
+   private BandLU(final int rows, final int lowerBandwidth, final int upperBandwidth) {
+      this.rows = rows;
+      this.lowerBandwidth = lowerBandwidth;
+      this.upperBandwidth = upperBandwidth;
+      width = 2 * lowerBandwidth + upperBandwidth + 1;
+      values = new double[rows * width];
+      pivots = new int[rows];
+   }
+
+   /**
+    * @throws IllegalStateException if the matrix is singular
+    */
+   public static BandLU factor(final GeneralBandMatrix A) {
+      final int kl = A.getLowerBandwidth();
+      final int ku = A.getUpperBandwidth();
+      final BandLU lu = new BandLU(A.getMaxRows(), kl, ku);
+      final int cols = kl + ku + 1;
+      for (int row = 0; row < lu.rows; row++) {
+         System.arraycopy(A.values, row * cols, lu.values, row * lu.width, cols);
+      }
+      lu.factor();
+      return lu;
+   }
+
+   public static Vector solve(final GeneralBandMatrix A, final Vector b) {
+      return factor(A).solve(b);
+   }
+
+   private void factor() {
+      final int kl = lowerBandwidth;
+      final int w = width;
+      for (int j = 0; j < rows; j++) {
+         final int lastRow = Math.min(rows - 1, j + kl);
+         final int lastCol = Math.min(rows - 1, j + kl + upperBandwidth);
+
+         // the largest value of the column j on and below the diagonal
+         int pivot = j;
+         double maximum = Math.abs(values[j * w + kl]);
+         for (int row = j + 1; row <= lastRow; row++) {
+            final double value = Math.abs(values[row * w + kl + j - row]);
+            if (value > maximum) {
+               maximum = value;
+               pivot = row;
+            }
+         }
+         if (maximum == 0.0) {
+            throw new IllegalStateException("matrix is singular in column " + j);
+         }
+         pivots[j] = pivot;
+
+         // exchange the rows j and pivot from the column j on
+         final int offsetJ = j * w + kl - j;
+         if (pivot != j) {
+            final int offsetPivot = pivot * w + kl - pivot;
+            for (int col = j; col <= lastCol; col++) {
+               final double temp = values[offsetJ + col];
+               values[offsetJ + col] = values[offsetPivot + col];
+               values[offsetPivot + col] = temp;
+            }
+         }
+
+         // eliminate the column j below the diagonal
+         final double diagonal = values[offsetJ + j];
+         for (int row = j + 1; row <= lastRow; row++) {
+            final int offset = row * w + kl - row;
+            final double l = values[offset + j] / diagonal;
+            values[offset + j] = l;
+            if (l != 0.0) {
+               for (int col = j + 1; col <= lastCol; col++) {
+                  values[offset + col] -= l * values[offsetJ + col];
+               }
+            }
+         }
+      }
+   }
+
+   public Vector solve(final Vector b) {
+      final Vector x = new Vector(b);
+      solveInPlace(x.values);
+      return x;
+   }
+
+   void solveInPlace(final double[] x) {
+      final int kl = lowerBandwidth;
+      final int w = width;
+
+      // L * y = P * b
+      for (int j = 0; j < rows; j++) {
+         final int pivot = pivots[j];
+         if (pivot != j) {
+            final double temp = x[j];
+            x[j] = x[pivot];
+            x[pivot] = temp;
+         }
+         final double value = x[j];
+         if (value != 0.0) {
+            final int lastRow = Math.min(rows - 1, j + kl);
+            for (int row = j + 1; row <= lastRow; row++) {
+               x[row] -= values[row * w + kl + j - row] * value;
+            }
+         }
+      }
+
+      // U * x = y
+      final int ku = kl + upperBandwidth;
+      for (int row = rows - 1; row >= 0; row--) {
+         final int offset = row * w + kl - row;
+         final int lastCol = Math.min(rows - 1, row + ku);
+         double sum = x[row];
+         for (int col = row + 1; col <= lastCol; col++) {
+            sum -= values[offset + col] * x[col];
+         }
+         x[row] = sum / values[offset + row];
+      }
+   }
+
+   /**
+    * The factorization as preconditioner, e.g. of a neighbouring time step
+    */
+   public Preconditioner createPreconditioner() {
+      return new Preconditioner() {
+         @Override
+         public void apply(final Vector r, final Vector z) {
+            System.arraycopy(r.values, 0, z.values, 0, rows);
+            solveInPlace(z.values);
+         }
+      };
+   }
+
+   public int getMaxRows() {
+      return rows;
+   }
+
+   public int getLowerBandwidth() {
+      return lowerBandwidth;
+   }
+
+   public int getUpperBandwidth() {
+      return upperBandwidth;
+   }
+
+}
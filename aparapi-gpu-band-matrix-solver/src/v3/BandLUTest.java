@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BandLUTest {
+
+   @Test
+   public void solve_ConvectionDominated_ExactSolution() {
+
+      // ARRANGE
+      final GeneralBandMatrix A = GeneralBandMatrixTest.convectionDiffusion(30, 3.0);
+      final Vector expected = createSolution(A.getMaxRows());
+      final Vector b = new Vector(A.getMaxRows());
+      A.times(expected, b);
+
+      // ACT
+      final Vector x = BandLU.solve(A, b);
+
+      // CHECK
+      Assert.assertArrayEquals(expected.getValues(), x.getValues(), 1E-9);
+   }
+
+   @Test
+   public void solve_ZeroDiagonal_ExactSolution() {
+
+      // ARRANGE
+      final int rows = 101;
+      final GeneralBandMatrix A = new GeneralBandMatrix(rows, 2, 1);
+      for (int row = 0; row < rows; row++) {
+         A.setValue(row, row - 2, 1.0 + 0.01 * row);
+         A.setValue(row, row - 1, -0.5);
+         A.setValue(row, row + 1, 2.0);
+      }
+      A.setValue(0, 0, 1.0);
+      final Vector expected = createSolution(rows);
+      final Vector b = new Vector(rows);
+      A.times(expected, b);
+
+      // ACT
+      final Vector x = BandLU.factor(A).solve(b);
+
+      // CHECK
+      Assert.assertArrayEquals(expected.getValues(), x.getValues(), 1E-9);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void factor_SingularMatrix_Exception() {
+
+      // ARRANGE
+      final GeneralBandMatrix A = new GeneralBandMatrix(3, 1, 1);
+      A.setValue(0, 0, 1.0);
+      A.setValue(0, 1, 2.0);
+      A.setValue(1, 0, 2.0);
+      A.setValue(1, 1, 4.0);
+      A.setValue(2, 2, 1.0);
+
+      // ACT
+      BandLU.factor(A);
+   }
+
+   private static Vector createSolution(final int rows) {
+      final Vector x = new Vector(rows);
+      for (int row = 0; row < rows; row++) {
+         x.setValue(row, Math.cos(0.1 * row) + 0.5);
+      }
+      return x;
+   }
+
+}
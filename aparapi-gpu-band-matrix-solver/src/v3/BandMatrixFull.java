@@ -32,6 +32,9 @@ package v3;
 
 import java.util.concurrent.ForkJoinPool;
 
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
 import tests.Parameter;
 
 /* The symmetric banded matrix ( '-' indicates zero values):
@@ -60,8 +63,6 @@ public final class BandMatrixFull {
    // create thread pool
    public static final ForkJoinPool POOL = new ForkJoinPool(Parameter.NUMBER_OF_POCESSORS << 1);
 
-   private static final int MAX_NUMBER_OF_ITTERATIONS = 100000;
-
    private final int rows;
 
    private final int cols;
@@ -133,108 +134,182 @@ public final class BandMatrixFull {
       }
    }
 
-   public static Vector solveConjugateGradient(final BandMatrixFull A, final Vector b) {
+   /**
+    * Solves with the direct NarrowBandSolver for the bandwidths three and
+    * five, otherwise with the fork and join CG
+    */
+   public static Vector solve(final BandMatrixFull A, final Vector b) {
+      if (NarrowBandSolver.isNarrow(A)) {
+         return NarrowBandSolver.solve(A, b);
+      }
+      return solveConjugateGradientForkAndJoin(A, b);
+   }
 
-      // create local variables
-      int i = -1;
-      double rsnew = 1.0;
-      double alpha = 0.0;
-      final int numberOfEquations = b.getMaxRows();
-      final Vector Ap = new Vector(numberOfEquations);
-      final Vector x = new Vector(numberOfEquations);
+   public static Vector solveConjugateGradient(final BandMatrixFull A, final Vector b) {
+      return conjugateGradient(A, b, null, false, new SolveRecorder("v3.solveConjugateGradient",
+            b.getMaxRows(), false)).getSolution();
+   }
 
-      // r = b - A * x
-      final Vector r = new Vector(b);
-      final Vector temp = new Vector(numberOfEquations);
-      A.times(x, temp);
-      b.minus(temp, r);
+   /**
+    * Starts the iteration with the initial guess x0 instead of zero, e.g. 
+    * with the solution of the previous time step
+    */
+   public static Vector solveConjugateGradient(final BandMatrixFull A, final Vector b, final Vector x0) {
+      return conjugateGradient(A, b, x0, false, new SolveRecorder("v3.solveConjugateGradient",
+            b.getMaxRows(), false)).getSolution();
+   }
 
-      // p = r
-      final Vector p = new Vector(r);
+   public static SolveResult<Vector> solveConjugateGradientWithResult(final BandMatrixFull A, final Vector b) {
+      return solveConjugateGradientWithResult(A, b, SolverOptions.DEFAULT);
+   }
 
-      // rsold = r' * r
-      double rsold = r.dotProduct(r);
+   public static SolveResult<Vector> solveConjugateGradientWithResult(final BandMatrixFull A, final Vector b,
+         final SolverOptions options) {
+      return conjugateGradient(A, b, null, false, new SolveRecorder("v3.solveConjugateGradient", b.getMaxRows(),
+            true, options));
+   }
 
-      while (i++ < MAX_NUMBER_OF_ITTERATIONS && rsnew > 1e-10) {
-         // Ap = A * p
-         A.times(p, Ap);
+   public static SolveResult<Vector> solveConjugateGradientWithResult(final BandMatrixFull A, final Vector b,
+         final Vector x0, final SolverOptions options) {
+      return conjugateGradient(A, b, x0, false, new SolveRecorder("v3.solveConjugateGradient", b.getMaxRows(),
+            true, options));
+   }
 
-         // alpha = rsold / ( p' * Ap )
-         alpha = rsold / p.dotProduct(Ap);
+   public static Vector solveConjugateGradientForkAndJoin(BandMatrixFull A, Vector b) {
+      return conjugateGradient(A, b, null, true, new SolveRecorder("v3.solveConjugateGradientForkAndJoin",
+            b.getMaxRows(), false)).getSolution();
+   }
 
-         // x = x + alpha * p
-         p.multi(alpha, temp);
-         x.plus(temp, x);
+   public static Vector solveConjugateGradientForkAndJoin(final BandMatrixFull A, final Vector b, final Vector x0) {
+      return conjugateGradient(A, b, x0, true, new SolveRecorder("v3.solveConjugateGradientForkAndJoin",
+            b.getMaxRows(), false)).getSolution();
+   }
 
-         // r = r - alpha * Ap
-         Ap.multi(alpha, temp);
-         r.minus(temp, r);
+   public static SolveResult<Vector> solveConjugateGradientForkAndJoinWithResult(final BandMatrixFull A, final Vector b) {
+      return solveConjugateGradientForkAndJoinWithResult(A, b, SolverOptions.DEFAULT);
+   }
 
-         // rsnew = r' * r
-         rsnew = r.dotProduct(r);
+   public static SolveResult<Vector> solveConjugateGradientForkAndJoinWithResult(final BandMatrixFull A, final Vector b,
+         final SolverOptions options) {
+      return conjugateGradient(A, b, null, true, new SolveRecorder("v3.solveConjugateGradientForkAndJoin",
+            b.getMaxRows(), true, options));
+   }
 
-         // p = r + rsnew / rsold * p
-         p.multi(rsnew / rsold, temp);
-         r.plus(temp, p);
+   public static SolveResult<Vector> solveConjugateGradientForkAndJoinWithResult(final BandMatrixFull A, final Vector b,
+         final Vector x0, final SolverOptions options) {
+      return conjugateGradient(A, b, x0, true, new SolveRecorder("v3.solveConjugateGradientForkAndJoin",
+            b.getMaxRows(), true, options));
+   }
 
-         // rsold = rsnew
-         rsold = rsnew;
-      }
+   /**
+    * Fork and join CG preconditioned with M, e.g. a MultigridPreconditioner
+    */
+   public static Vector solveConjugateGradientPreconditioned(final BandMatrixFull A, final Vector b,
+         final Preconditioner M) {
+      return preconditionedConjugateGradient(A, b, null, M, new SolveRecorder(
+            "v3.solveConjugateGradientPreconditioned", b.getMaxRows(), false)).getSolution();
+   }
 
-      return x;
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   public static SolveResult<Vector> solveConjugateGradientPreconditionedWithResult(final BandMatrixFull A,
+         final Vector b, final Vector x0, final Preconditioner M, final SolverOptions options) {
+      return preconditionedConjugateGradient(A, b, x0, M, new SolveRecorder("v3.solveConjugateGradientPreconditioned",
+            b.getMaxRows(), true, options));
    }
 
-   public static Vector solveConjugateGradientForkAndJoin(BandMatrixFull A, Vector b) {
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   private static SolveResult<Vector> conjugateGradient(final BandMatrixFull A, final Vector b, final Vector x0,
+         final boolean forkJoin, final SolveRecorder recorder) {
 
       // create local variables
       double rsnew = 1.0;
       double alpha = 0.0;
       final int numberOfEquations = b.getMaxRows();
       final Vector Ap = new Vector(numberOfEquations);
-      final Vector x = new Vector(numberOfEquations);
+      final Vector x = null == x0 ? new Vector(numberOfEquations) : new Vector(x0);
 
       // r = b - A * x
       final Vector r = new Vector(b);
       final Vector temp = new Vector(numberOfEquations);
+      long start = recorder.time();
       A.times(x, temp);
+      recorder.matVec(start);
+      start = recorder.time();
       b.minus(temp, r);
 
       // p = r
       final Vector p = new Vector(r);
+      recorder.vector(start);
 
       // rsold = r' * r
+      start = recorder.time();
       double rsold = r.dotProduct(r);
+      final double bNormSquared = null == x0 ? rsold : b.dotProduct(b);
+      recorder.reduction(start);
+      recorder.initialResidual(rsold, bNormSquared);
 
-      for (int i = 1; i < MAX_NUMBER_OF_ITTERATIONS; i++) {
+      while (!recorder.isStopped()) {
          // Ap = A * p
-         POOL.invoke(new v3.BandMatrixMultiplicatonTask(0, A.getMaxRows(), A, p, Ap));
+         start = recorder.time();
+         if (forkJoin) {
+            POOL.invoke(new v3.BandMatrixMultiplicatonTask(0, A.getMaxRows(), A, p, Ap));
+         } else {
+            A.times(p, Ap);
+         }
+         recorder.matVec(start);
 
          // alpha = rsold / ( p' * Ap )
+         start = recorder.time();
          alpha = rsold / p.dotProduct(Ap);
+         recorder.reduction(start);
 
          // x = x + alpha * p
+         start = recorder.time();
          p.multi(alpha, temp);
          x.plus(temp, x);
 
          // r = r - alpha * Ap
          Ap.multi(alpha, temp);
          r.minus(temp, r);
+         recorder.vector(start);
 
          // rsnew = r' * r
+         start = recorder.time();
          rsnew = r.dotProduct(r);
-         if (rsnew < 1e-10) {
+         recorder.reduction(start);
+         recorder.coefficients(alpha, rsnew / rsold);
+         if (recorder.iteration(rsnew)) {
             break;
          }
 
          // p = r + rsnew / rsold * p
+         start = recorder.time();
          p.multi(rsnew / rsold, temp);
          r.plus(temp, p);
+         recorder.vector(start);
 
          // rsold = rsnew
          rsold = rsnew;
       }
 
-      return x;
+      return recorder.finish(x);
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   private static SolveResult<Vector> preconditionedConjugateGradient(final BandMatrixFull A, final Vector b,
+         final Vector x0, final Preconditioner M, final SolveRecorder recorder) {
+      return new PreconditionedConjugateGradient() {
+         @Override
+         void times(final Vector x, final Vector y) {
+            POOL.invoke(new v3.BandMatrixMultiplicatonTask(0, A.getMaxRows(), A, x, y));
+         }
+      }.solve(b, x0, M, recorder);
    }
 
    public int getMaxRows() {
@@ -36,6 +36,8 @@ import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
+import solver.SolveResult;
+import solver.SolverOptions;
 import tests.Parameter;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
@@ -226,4 +228,38 @@ public class BandMatrixFullTest {
       System.out.print("\t" + (end - start));
    }
 
+   @Test
+   public void v3_solveConjugateGradientWithResult_LargeRandomBandMatrix_Statistics() {
+
+      // ACT
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientWithResult(A, B);
+
+      // CHECK
+      final Vector expected = BandMatrixFull.solveConjugateGradient(A, B);
+      for (int row = 0; row < Parameter.ROW_NUMBER; row++) {
+         Assert.assertEquals(expected.getValue(row), result.getSolution().getValue(row), 0.0);
+      }
+      Assert.assertTrue(result.getIterations() > 0);
+      Assert.assertTrue(result.getResidualNorm() < 1E-5);
+      Assert.assertEquals(Math.sqrt(B.dotProduct(B)), result.getResidualHistory()[0], 1E-12);
+      Assert.assertEquals(result.getIterations() + 1, result.getResidualHistory().length);
+      Assert.assertTrue(result.getTotalNanos() >= result.getMatVecNanos() + result.getReductionNanos());
+      Assert.assertEquals(SolveResult.Status.CONVERGED, result.getStatus());
+   }
+
+   @Test
+   public void v3_solveConjugateGradientWithResult_MaxIterations_BestEffortSolution() {
+
+      // ARRANGE
+      final SolverOptions options = SolverOptions.DEFAULT.withMaxIterations(2);
+
+      // ACT
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientWithResult(A, B, options);
+
+      // CHECK
+      Assert.assertEquals(SolveResult.Status.MAX_ITERATIONS, result.getStatus());
+      Assert.assertEquals(2, result.getIterations());
+      Assert.assertTrue(result.getResidualNorm() < result.getResidualHistory()[0]);
+   }
+
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/* Binary file format for band matrices and vectors (all values little endian):
+ *
+ * | magic 'BMSF' (int) | version (short) | kind (byte) | encoding (byte) | rows (int) | cols (int) | count (long) |
+ * | payload: count values of 8 bytes each                                                                   |
+ * | CRC32 of header and payload (long)                                                                      |
+ *
+ * The payload is the internal value array of the full band matrix format
+ * (row by row, including the unused corner elements), so that it can be
+ * transfered with bulk copies and without any per element method calls.
+ *
+ */
+public final class BandMatrixIO {
+
+   static final int MAGIC = 0x46534D42;
+
+   static final short VERSION = 1;
+
+   static final byte KIND_MATRIX = 1;
+
+   static final byte KIND_VECTOR = 2;
+
+   static final byte ENCODING_DOUBLE = 1;
+
+   static final byte ENCODING_PACKED = 2;
+
+   static final int HEADER_SIZE = 24;
+
+   /**
+    * Size of the direct buffer used for the bulk transfers
+    */
+   private static final int BUFFER_SIZE = 1 << 20;
+
+   private BandMatrixIO() {
+   }
+
+   public static void save(final BandMatrixFull A, final File file) throws IOException {
+      write(file, KIND_MATRIX, A.getMaxRows(), A.getMaxCols(), A.values);
+   }
+
+   public static void save(final Vector b, final File file) throws IOException {
+      write(file, KIND_VECTOR, b.getMaxRows(), 1, b.values);
+   }
+
+   public static BandMatrixFull loadBandMatrixFull(final File file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         final CRC32 crc = new CRC32();
+         final ByteBuffer header = readHeader(channel, crc, KIND_MATRIX);
+         final BandMatrixFull A = new BandMatrixFull(header.getInt(8), header.getInt(12));
+         readPayload(channel, crc, A.values);
+         return A;
+      }
+   }
+
+   public static Vector loadVector(final File file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         final CRC32 crc = new CRC32();
+         final ByteBuffer header = readHeader(channel, crc, KIND_VECTOR);
+         final Vector b = new Vector(header.getInt(8));
+         readPayload(channel, crc, b.values);
+         return b;
+      }
+   }
+
+   private static void write(final File file, final byte kind, final int rows, final int cols, final double[] values)
+         throws IOException {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+         final CRC32 crc = new CRC32();
+
+         // header
+         final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+         header.putInt(MAGIC).putShort(VERSION).put(kind).put(ENCODING_DOUBLE);
+         header.putInt(rows).putInt(cols).putLong(values.length);
+         header.flip();
+         crc.update(header.array(), 0, HEADER_SIZE);
+         writeFully(channel, header);
+
+         // payload
+         final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+         final int chunk = BUFFER_SIZE >> 3;
+         for (int offset = 0; offset < values.length; offset += chunk) {
+            final int count = Math.min(chunk, values.length - offset);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, offset, count);
+            buffer.limit(count << 3);
+            crc.update(buffer.duplicate());
+            writeFully(channel, buffer);
+         }
+
+         // checksum
+         final ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+         trailer.putLong(crc.getValue()).flip();
+         writeFully(channel, trailer);
+      }
+   }
+
+   private static ByteBuffer readHeader(final FileChannel channel, final CRC32 crc, final byte kind) throws IOException {
+      final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, header);
+      crc.update(header.array(), 0, HEADER_SIZE);
+
+      if (header.getInt(0) != MAGIC) {
+         throw new IOException("not a band matrix file");
+      }
+      if (header.getShort(4) != VERSION) {
+         throw new IOException("unsupported file version " + header.getShort(4));
+      }
+      if (header.get(6) != kind) {
+         throw new IOException("unexpected content kind " + header.get(6));
+      }
+      if (header.get(7) != ENCODING_DOUBLE) {
+         throw new IOException("unsupported value encoding " + header.get(7));
+      }
+      final long expected = (long) header.getInt(8) * header.getInt(12);
+      if (header.getInt(8) < 0 || header.getInt(12) < 0 || header.getLong(16) != expected) {
+         throw new IOException("inconsistent header");
+      }
+      return header;
+   }
+
+   private static void readPayload(final FileChannel channel, final CRC32 crc, final double[] values) throws IOException {
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      final int chunk = BUFFER_SIZE >> 3;
+      for (int offset = 0; offset < values.length; offset += chunk) {
+         final int count = Math.min(chunk, values.length - offset);
+         buffer.clear().limit(count << 3);
+         readFully(channel, buffer);
+         buffer.flip();
+         crc.update(buffer.duplicate());
+         buffer.asDoubleBuffer().get(values, offset, count);
+      }
+
+      final ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, trailer);
+      if (trailer.getLong(0) != crc.getValue()) {
+         throw new IOException("checksum mismatch");
+      }
+   }
+
+   private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+   }
+
+   private static void readFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+         if (channel.read(buffer) < 0) {
+            throw new IOException("unexpected end of file");
+         }
+      }
+   }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BandMatrixIOTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void v3_saveAndLoad_7x5_SymetricBandMatrix_SameValues() throws IOException {
+
+      // ARRANGE
+      final BandMatrixFull A = new BandMatrixFull(7, 5);
+      for (int row = 0; row < 7; row++) {
+         for (int col = row; col < row + 3 && col < 7; col++) {
+            A.setValue(row, col, 10.0 + row + 0.1 * col);
+         }
+      }
+      final File file = folder.newFile("A.bin");
+
+      // ACT
+      BandMatrixIO.save(A, file);
+      final BandMatrixFull result = BandMatrixIO.loadBandMatrixFull(file);
+
+      // CHECK
+      Assert.assertEquals(7, result.getMaxRows());
+      Assert.assertEquals(5, result.getMaxCols());
+      Assert.assertArrayEquals(A.values, result.values, 0.0);
+   }
+
+   @Test
+   public void v3_saveAndLoad_LargeVector_SameValues() throws IOException {
+
+      // ARRANGE
+      final Vector b = new Vector(300000);
+      for (int row = 0; row < b.getMaxRows(); row++) {
+         b.setValue(row, Math.sin(row));
+      }
+      final File file = folder.newFile("b.bin");
+
+      // ACT
+      BandMatrixIO.save(b, file);
+      final Vector result = BandMatrixIO.loadVector(file);
+
+      // CHECK
+      Assert.assertArrayEquals(b.getValues(), result.getValues(), 0.0);
+   }
+
+   @Test(expected = IOException.class)
+   public void v3_load_CorruptedPayload_ChecksumMismatch() throws IOException {
+
+      // ARRANGE
+      final Vector b = new Vector(new double[] { 1.0, 2.0, 3.0 });
+      final File file = folder.newFile("b.bin");
+      BandMatrixIO.save(b, file);
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+         raf.seek(BandMatrixIO.HEADER_SIZE + 3);
+         raf.write(0x7F);
+      }
+
+      // ACT
+      BandMatrixIO.loadVector(file);
+   }
+
+   @Test(expected = IOException.class)
+   public void v3_load_MatrixFileAsVector_Rejected() throws IOException {
+
+      // ARRANGE
+      final File file = folder.newFile("A.bin");
+      BandMatrixIO.save(new BandMatrixFull(3, 3), file);
+
+      // ACT
+      BandMatrixIO.loadVector(file);
+   }
+
+}
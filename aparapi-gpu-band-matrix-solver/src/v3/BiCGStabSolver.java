@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
+
+/**
+ * BiCGSTAB for nonsymmetric band matrices (van der Vorst 1992) with an
+ * optional right preconditioner M, i.e. the method solves A * M^-1 * y = b
+ * with x = M^-1 * y, so the recorded residual is the true residual
+ * b - A * x:
+ *
+ *    r = b - A * x, rhat = r, rho = alpha = omega = 1, v = p = 0
+ *    loop
+ *       rhoNew = rhat' * r, beta = rhoNew / rho * alpha / omega
+ *       p = r + beta * (p - omega * v)
+ *       v = A * M^-1 * p, alpha = rhoNew / (rhat' * v)
+ *       s = r - alpha * v
+ *       t = A * M^-1 * s, omega = t' * s / t' * t
+ *       x = x + alpha * M^-1 * p + omega * M^-1 * s
+ *       r = s - omega * t
+ *
+ * An iteration needs two matrix vector products, which run in parallel
+ * on BandMatrixFull.POOL. If rhoNew, rhat' * v or omega vanishes, the
+ * method would break down; it is restarted with rhat = r instead. If the
+ * breakdown happens again right after a restart, a further restart would
+ * repeat the same step, so the solve stops with the status BREAKDOWN.
+ */
+public final class BiCGStabSolver {
+
+   private BiCGStabSolver() {
+   }
+
+   public static Vector solveBiCGStab(final GeneralBandMatrix A, final Vector b) {
+      return solveBiCGStab(A, b, null);
+   }
+
+   /**
+    * @param M right preconditioner, null for none
+    */
+   public static Vector solveBiCGStab(final GeneralBandMatrix A, final Vector b, final Preconditioner M) {
+      return biCGStab(A, b, null, M, new SolveRecorder("v3.solveBiCGStab", b.getMaxRows(), false)).getSolution();
+   }
+
+   public static SolveResult<Vector> solveBiCGStabWithResult(final GeneralBandMatrix A, final Vector b,
+         final SolverOptions options) {
+      return solveBiCGStabWithResult(A, b, null, null, options);
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    * @param M right preconditioner, null for none
+    */
+   public static SolveResult<Vector> solveBiCGStabWithResult(final GeneralBandMatrix A, final Vector b,
+         final Vector x0, final Preconditioner M, final SolverOptions options) {
+      return biCGStab(A, b, x0, M, new SolveRecorder("v3.solveBiCGStab", b.getMaxRows(), true, options));
+   }
+
+   private static SolveResult<Vector> biCGStab(final GeneralBandMatrix A, final Vector b, final Vector x0,
+         final Preconditioner M, final SolveRecorder recorder) {
+
+      // create local variables
+      final int n = b.getMaxRows();
+      final Vector x = null == x0 ? new Vector(n) : new Vector(x0);
+      final Vector r = new Vector(n);
+      final Vector rhat = new Vector(n);
+      final Vector p = new Vector(n);
+      final Vector v = new Vector(n);
+      final Vector t = new Vector(n);
+      final Vector phat = null == M ? p : new Vector(n);
+      final Vector shat = null == M ? r : new Vector(n);
+
+      // r = b - A * x
+      long start = recorder.time();
+      A.timesForkAndJoin(x, t);
+      recorder.matVec(start);
+      start = recorder.time();
+      b.minus(t, r);
+      recorder.vector(start);
+
+      start = recorder.time();
+      final double rs = r.dotProduct(r);
+      recorder.initialResidual(rs, null == x0 ? rs : b.dotProduct(b));
+      recorder.reduction(start);
+
+      double rho = 1.0;
+      double alpha = 1.0;
+      double omega = 1.0;
+      boolean restart = true;
+      while (!recorder.isStopped()) {
+         // x and r are the same as at the last restart
+         final boolean restarted = restart;
+         if (restart) {
+            // rhat = r, v = p = 0
+            System.arraycopy(r.values, 0, rhat.values, 0, n);
+            Arrays.fill(p.values, 0.0);
+            Arrays.fill(v.values, 0.0);
+            rho = alpha = omega = 1.0;
+            restart = false;
+         }
+
+         // rhoNew = rhat' * r
+         start = recorder.time();
+         final double rhoNew = rhat.dotProduct(r);
+         recorder.reduction(start);
+         if (rhoNew == 0.0) {
+            if (restarted) {
+               recorder.breakdown();
+               break;
+            }
+            // counted as iteration, so that the iteration limit holds
+            if (recorder.iteration(r.dotProduct(r))) {
+               break;
+            }
+            restart = true;
+            continue;
+         }
+
+         // p = r + beta * (p - omega * v)
+         start = recorder.time();
+         final double beta = rhoNew / rho * (alpha / omega);
+         for (int i = 0; i < n; i++) {
+            p.values[i] = r.values[i] + beta * (p.values[i] - omega * v.values[i]);
+         }
+         recorder.vector(start);
+
+         // v = A * M^-1 * p
+         if (null != M) {
+            start = recorder.time();
+            M.apply(p, phat);
+            recorder.vector(start);
+         }
+         start = recorder.time();
+         A.timesForkAndJoin(phat, v);
+         recorder.matVec(start);
+
+         // alpha = rhoNew / (rhat' * v)
+         start = recorder.time();
+         final double rhatV = rhat.dotProduct(v);
+         recorder.reduction(start);
+         if (rhatV == 0.0) {
+            if (restarted) {
+               recorder.breakdown();
+               break;
+            }
+            // x and r are unchanged, restart as for rhoNew == 0
+            if (recorder.iteration(r.dotProduct(r))) {
+               break;
+            }
+            restart = true;
+            continue;
+         }
+         alpha = rhoNew / rhatV;
+
+         // x = x + alpha * M^-1 * p, s = r - alpha * v (s is kept in r)
+         start = recorder.time();
+         for (int i = 0; i < n; i++) {
+            x.values[i] += alpha * phat.values[i];
+            r.values[i] -= alpha * v.values[i];
+         }
+         recorder.vector(start);
+
+         // t = A * M^-1 * s
+         if (null != M) {
+            start = recorder.time();
+            M.apply(r, shat);
+            recorder.vector(start);
+         }
+         start = recorder.time();
+         A.timesForkAndJoin(shat, t);
+         recorder.matVec(start);
+
+         // omega = t' * s / t' * t
+         start = recorder.time();
+         final double tt = t.dotProduct(t);
+         omega = tt == 0.0 ? 0.0 : t.dotProduct(r) / tt;
+         recorder.reduction(start);
+
+         // x = x + omega * M^-1 * s, r = s - omega * t
+         start = recorder.time();
+         for (int i = 0; i < n; i++) {
+            x.values[i] += omega * shat.values[i];
+            r.values[i] -= omega * t.values[i];
+         }
+         recorder.vector(start);
+
+         // rsnew = r' * r
+         start = recorder.time();
+         final double rsnew = r.dotProduct(r);
+         recorder.reduction(start);
+         if (recorder.iteration(rsnew)) {
+            break;
+         }
+
+         rho = rhoNew;
+         restart = omega == 0.0;
+      }
+
+      return recorder.finish(x);
+   }
+
+}
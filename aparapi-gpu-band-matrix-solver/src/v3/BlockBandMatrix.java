@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
+import tests.Parameter;
+
+/* Symmetric band matrix of a problem with d degrees of freedom per node. 
+ * The matrix is managed like the full band matrix format, but each element
+ * is a dense d x d block (here d = 2, block bandwidth = 3):
+ * 
+ * |  A00  A01   -    -  |          |   -   A00  A01 |
+ * |  A10  A11  A12   -  |   --->   |  A10  A11  A12 |
+ * |   -   A21  A22  A23 |          |  A21  A22  A23 |
+ * |   -    -   A32  A33 |          |  A32  A33   -  |
+ * 
+ * is stored as array of row major blocks:
+ * 
+ * [ -, -, -, -,   a00, a01, a10, a11,   ... ]
+ * 
+ * Dense blocks need one index calculation per block instead of one per value
+ * and the inner loops are small fixed size matrix vector products.
+ */
+public final class BlockBandMatrix {
+
+   private final int nodes;
+
+   private final int blockSize;
+
+   private final int blockBandwidth;
+
+   final double[] values;
+
+   /**
+    * @param nodesNumber number of nodes
+    * @param dofPerNode degrees of freedom per node (block size)
+    * @param bandwidth bandwidth in blocks, odd number
+    */
+   public BlockBandMatrix(final int nodesNumber, final int dofPerNode, final int bandwidth) {
+      nodes = nodesNumber;
+      blockSize = dofPerNode;
+      blockBandwidth = bandwidth;
+      values = new double[nodes * blockBandwidth * blockSize * blockSize];
+   }
+
+   /**
+    * Sets a value of the symmetric matrix, the mirrored value is set too.
+    */
+   public void setValue(final int row, final int col, final double value) {
+      final int indexUpper = getIndex(row, col);
+      if (indexUpper >= 0) {
+         values[indexUpper] = value;
+      }
+      if (row != col) {
+         final int indexLower = getIndex(col, row);
+         if (indexLower >= 0) {
+            values[indexLower] = value;
+         }
+      }
+   }
+
+   public double getValue(final int row, final int col) {
+      final int index = getIndex(row, col);
+      return index >= 0 ? values[index] : 0.0;
+   }
+
+   private int getIndex(final int row, final int col) {
+      final int blockRow = row / blockSize;
+      final int blockCol = (blockBandwidth >> 1) + col / blockSize - blockRow;
+      if (row < 0 || col < 0 || blockRow >= nodes || col / blockSize >= nodes || blockCol < 0 || blockCol >= blockBandwidth) {
+         return -1;
+      }
+      return ((blockRow * blockBandwidth + blockCol) * blockSize + row % blockSize) * blockSize + col % blockSize;
+   }
+
+   public void times(final Vector b, final Vector result) {
+      times(b, result, 0, nodes);
+   }
+
+   void times(final Vector b, final Vector result, final int nodeStart, final int nodeEnd) {
+      switch (blockSize) {
+      case 2:
+         times2(b.values, result.values, nodeStart, nodeEnd);
+         break;
+      case 3:
+         times3(b.values, result.values, nodeStart, nodeEnd);
+         break;
+      default:
+         timesGeneric(b.values, result.values, nodeStart, nodeEnd);
+      }
+   }
+
+   private void times2(final double[] x, final double[] y, final int nodeStart, final int nodeEnd) {
+      final int mid = blockBandwidth >> 1;
+      for (int node = nodeStart; node < nodeEnd; node++) {
+         final int colStart = Math.max(0, mid - node);
+         final int colEnd = Math.min(blockBandwidth, nodes - node + mid);
+         double y0 = 0.0;
+         double y1 = 0.0;
+         int index = (node * blockBandwidth + colStart) << 2;
+         int xIndex = (node - mid + colStart) << 1;
+         for (int col = colStart; col < colEnd; col++, index += 4, xIndex += 2) {
+            final double x0 = x[xIndex];
+            final double x1 = x[xIndex + 1];
+            y0 += values[index] * x0 + values[index + 1] * x1;
+            y1 += values[index + 2] * x0 + values[index + 3] * x1;
+         }
+         y[node << 1] = y0;
+         y[(node << 1) + 1] = y1;
+      }
+   }
+
+   private void times3(final double[] x, final double[] y, final int nodeStart, final int nodeEnd) {
+      final int mid = blockBandwidth >> 1;
+      for (int node = nodeStart; node < nodeEnd; node++) {
+         final int colStart = Math.max(0, mid - node);
+         final int colEnd = Math.min(blockBandwidth, nodes - node + mid);
+         double y0 = 0.0;
+         double y1 = 0.0;
+         double y2 = 0.0;
+         int index = (node * blockBandwidth + colStart) * 9;
+         int xIndex = (node - mid + colStart) * 3;
+         for (int col = colStart; col < colEnd; col++, index += 9, xIndex += 3) {
+            final double x0 = x[xIndex];
+            final double x1 = x[xIndex + 1];
+            final double x2 = x[xIndex + 2];
+            y0 += values[index] * x0 + values[index + 1] * x1 + values[index + 2] * x2;
+            y1 += values[index + 3] * x0 + values[index + 4] * x1 + values[index + 5] * x2;
+            y2 += values[index + 6] * x0 + values[index + 7] * x1 + values[index + 8] * x2;
+         }
+         y[node * 3] = y0;
+         y[node * 3 + 1] = y1;
+         y[node * 3 + 2] = y2;
+      }
+   }
+
+   private void timesGeneric(final double[] x, final double[] y, final int nodeStart, final int nodeEnd) {
+      final int mid = blockBandwidth >> 1;
+      final int d = blockSize;
+      final int blockLength = d * d;
+      final double[] sum = new double[d];
+      for (int node = nodeStart; node < nodeEnd; node++) {
+         final int colStart = Math.max(0, mid - node);
+         final int colEnd = Math.min(blockBandwidth, nodes - node + mid);
+         Arrays.fill(sum, 0.0);
+         int index = (node * blockBandwidth + colStart) * blockLength;
+         int xIndex = (node - mid + colStart) * d;
+         for (int col = colStart; col < colEnd; col++, xIndex += d) {
+            for (int r = 0; r < d; r++) {
+               double s = 0.0;
+               for (int c = 0; c < d; c++) {
+                  s += values[index++] * x[xIndex + c];
+               }
+               sum[r] += s;
+            }
+         }
+         System.arraycopy(sum, 0, y, node * d, d);
+      }
+   }
+
+   /**
+    * Block Jacobi preconditioner with the inverses of the diagonal blocks
+    */
+   public Preconditioner createBlockJacobiPreconditioner() {
+      final int d = blockSize;
+      final int blockLength = d * d;
+      final int mid = blockBandwidth >> 1;
+      final double[] inverses = new double[nodes * blockLength];
+      for (int node = 0; node < nodes; node++) {
+         invert(values, (node * blockBandwidth + mid) * blockLength, inverses, node * blockLength, d);
+      }
+      return new Preconditioner() {
+         @Override
+         public void apply(final Vector r, final Vector z) {
+            for (int node = 0, index = 0; node < nodes; node++) {
+               final int offset = node * d;
+               for (int row = 0; row < d; row++) {
+                  double sum = 0.0;
+                  for (int col = 0; col < d; col++) {
+                     sum += inverses[index++] * r.values[offset + col];
+                  }
+                  z.values[offset + row] = sum;
+               }
+            }
+         }
+      };
+   }
+
+   /**
+    * Gauss-Jordan inversion with partial pivoting of a d x d block
+    */
+   private static void invert(final double[] source, final int sourceOffset, final double[] target, final int targetOffset,
+         final int d) {
+      final double[] a = new double[d * d];
+      System.arraycopy(source, sourceOffset, a, 0, d * d);
+      final double[] inverse = new double[d * d];
+      for (int i = 0; i < d; i++) {
+         inverse[i * d + i] = 1.0;
+      }
+      for (int col = 0; col < d; col++) {
+         int pivot = col;
+         for (int row = col + 1; row < d; row++) {
+            if (Math.abs(a[row * d + col]) > Math.abs(a[pivot * d + col])) {
+               pivot = row;
+            }
+         }
+         if (a[pivot * d + col] == 0.0) {
+            throw new IllegalStateException("singular diagonal block");
+         }
+         if (pivot != col) {
+            for (int k = 0; k < d; k++) {
+               double temp = a[col * d + k];
+               a[col * d + k] = a[pivot * d + k];
+               a[pivot * d + k] = temp;
+               temp = inverse[col * d + k];
+               inverse[col * d + k] = inverse[pivot * d + k];
+               inverse[pivot * d + k] = temp;
+            }
+         }
+         final double scale = 1.0 / a[col * d + col];
+         for (int k = 0; k < d; k++) {
+            a[col * d + k] *= scale;
+            inverse[col * d + k] *= scale;
+         }
+         for (int row = 0; row < d; row++) {
+            final double factor = a[row * d + col];
+            if (row != col && factor != 0.0) {
+               for (int k = 0; k < d; k++) {
+                  a[row * d + k] -= factor * a[col * d + k];
+                  inverse[row * d + k] -= factor * inverse[col * d + k];
+               }
+            }
+         }
+      }
+      System.arraycopy(inverse, 0, target, targetOffset, d * d);
+   }
+
+   public static Vector solveConjugateGradientBlockJacobi(final BlockBandMatrix A, final Vector b) {
+      return solveConjugateGradientBlockJacobi(A, b, null, new SolveRecorder("v3.solveConjugateGradientBlockJacobi",
+            b.getMaxRows(), false)).getSolution();
+   }
+
+   /**
+    * Starts the iteration with the initial guess x0 instead of zero
+    */
+   public static Vector solveConjugateGradientBlockJacobi(final BlockBandMatrix A, final Vector b, final Vector x0) {
+      return solveConjugateGradientBlockJacobi(A, b, x0, new SolveRecorder("v3.solveConjugateGradientBlockJacobi",
+            b.getMaxRows(), false)).getSolution();
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientBlockJacobiWithResult(final BlockBandMatrix A, final Vector b) {
+      return solveConjugateGradientBlockJacobiWithResult(A, b, SolverOptions.DEFAULT);
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientBlockJacobiWithResult(final BlockBandMatrix A, final Vector b,
+         final SolverOptions options) {
+      return solveConjugateGradientBlockJacobi(A, b, null, new SolveRecorder("v3.solveConjugateGradientBlockJacobi",
+            b.getMaxRows(), true, options));
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientBlockJacobiWithResult(final BlockBandMatrix A, final Vector b,
+         final Vector x0, final SolverOptions options) {
+      return solveConjugateGradientBlockJacobi(A, b, x0, new SolveRecorder("v3.solveConjugateGradientBlockJacobi",
+            b.getMaxRows(), true, options));
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   private static SolveResult<Vector> solveConjugateGradientBlockJacobi(final BlockBandMatrix A, final Vector b,
+         final Vector x0, final SolveRecorder recorder) {
+      return new PreconditionedConjugateGradient() {
+         @Override
+         void times(final Vector x, final Vector y) {
+            BandMatrixFull.POOL.invoke(new Task(0, A.nodes, A, x, y));
+         }
+      }.solve(b, x0, A.createBlockJacobiPreconditioner(), recorder);
+   }
+
+   public int getMaxRows() {
+      return nodes * blockSize;
+   }
+
+   public int getNodes() {
+      return nodes;
+   }
+
+   public int getBlockSize() {
+      return blockSize;
+   }
+
+   public int getBlockBandwidth() {
+      return blockBandwidth;
+   }
+
+   private static final class Task extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int nodeStart;
+      private final int nodeEnd;
+      private final BlockBandMatrix matrix;
+      private final Vector b;
+      private final Vector result;
+
+      Task(final int nodeStart, final int nodeEnd, final BlockBandMatrix matrix, final Vector b, final Vector result) {
+         this.nodeStart = nodeStart;
+         this.nodeEnd = nodeEnd;
+         this.matrix = matrix;
+         this.b = b;
+         this.result = result;
+      }
+
+      @Override
+      protected void compute() {
+         if (nodeEnd - nodeStart < matrix.nodes / Parameter.NUMBER_OF_POCESSORS + 1) {
+            matrix.times(b, result, nodeStart, nodeEnd);
+         } else {
+            final int mid = (nodeEnd + nodeStart) >> 1;
+            final Task firstWorker = new Task(nodeStart, mid, matrix, b, result);
+            firstWorker.fork();
+            new Task(mid, nodeEnd, matrix, b, result).compute();
+            firstWorker.join();
+         }
+      }
+   }
+
+}
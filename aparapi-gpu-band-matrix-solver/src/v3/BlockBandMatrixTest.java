@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+
+public class BlockBandMatrixTest {
+
+   @Test
+   public void v3_times_BlockSizeTwo_SameAsBandMatrixFull() {
+      assertTimesSameAsBandMatrixFull(2);
+   }
+
+   @Test
+   public void v3_times_BlockSizeThree_SameAsBandMatrixFull() {
+      assertTimesSameAsBandMatrixFull(3);
+   }
+
+   @Test
+   public void v3_times_BlockSizeSix_SameAsBandMatrixFull() {
+      assertTimesSameAsBandMatrixFull(6);
+   }
+
+   @Test
+   public void v3_solveConjugateGradientBlockJacobi_BlockSizeThree_Solved() {
+
+      // ARRANGE
+      final int nodes = 400;
+      final BlockBandMatrix A = createMatrix(nodes, 3);
+      final Vector expected = new Vector(A.getMaxRows());
+      for (int row = 0; row < A.getMaxRows(); row++) {
+         expected.setValue(row, Math.sin(0.01 * row));
+      }
+      final Vector b = new Vector(A.getMaxRows());
+      A.times(expected, b);
+
+      // ACT
+      final Vector x = BlockBandMatrix.solveConjugateGradientBlockJacobi(A, b);
+
+      // CHECK
+      Assert.assertArrayEquals(expected.getValues(), x.getValues(), 1E-4);
+   }
+
+   @Test
+   public void v3_solveConjugateGradientBlockJacobiWithResult_Converged_OneAlphaPerIteration() {
+
+      // ARRANGE
+      final BlockBandMatrix A = createMatrix(100, 3);
+      final Vector b = new Vector(A.getMaxRows());
+      for (int row = 0; row < A.getMaxRows(); row++) {
+         b.setValue(row, Math.cos(0.1 * row));
+      }
+
+      // ACT
+      final SolveResult<Vector> result = BlockBandMatrix.solveConjugateGradientBlockJacobiWithResult(A, b,
+            SolverOptions.DEFAULT.withRelativeTolerance(1E-10));
+
+      // CHECK
+      Assert.assertTrue(result.isConverged());
+      Assert.assertEquals(result.getIterations(), result.getAlphas().length);
+      Assert.assertEquals(result.getIterations(), result.getBetas().length);
+      Assert.assertTrue(result.getAlphas()[result.getIterations() - 1] > 0.0);
+      Assert.assertTrue(result.getBetas()[result.getIterations() - 2] > 0.0);
+   }
+
+   private static void assertTimesSameAsBandMatrixFull(final int d) {
+
+      // ARRANGE
+      final int nodes = 20;
+      final BlockBandMatrix A = createMatrix(nodes, d);
+      final int bandwidth = 2 * (A.getBlockBandwidth() / 2 * d + d - 1) + 1;
+      final BandMatrixFull B = new BandMatrixFull(nodes * d, bandwidth);
+      for (int row = 0; row < nodes * d; row++) {
+         for (int col = row; col < nodes * d; col++) {
+            B.setValue(row, col, A.getValue(row, col));
+         }
+      }
+      final Vector b = new Vector(nodes * d);
+      for (int row = 0; row < nodes * d; row++) {
+         b.setValue(row, row % 7 - 3.0);
+      }
+
+      // ACT
+      final Vector actual = new Vector(nodes * d);
+      A.times(b, actual);
+      final Vector expected = new Vector(nodes * d);
+      B.times(b, expected);
+
+      // CHECK
+      Assert.assertArrayEquals(expected.getValues(), actual.getValues(), 1E-12);
+   }
+
+   /**
+    * Diagonally dominant matrix with couplings to the direct neighbour nodes
+    */
+   private static BlockBandMatrix createMatrix(final int nodes, final int d) {
+      final BlockBandMatrix A = new BlockBandMatrix(nodes, d, 3);
+      for (int node = 0; node < nodes; node++) {
+         for (int i = 0; i < d; i++) {
+            final int row = node * d + i;
+            A.setValue(row, row, 10.0 + i);
+            for (int k = i + 1; k < d; k++) {
+               A.setValue(row, node * d + k, 1.0 / (1 + k + i));
+            }
+            if (node + 1 < nodes) {
+               for (int k = 0; k < d; k++) {
+                  A.setValue(row, (node + 1) * d + k, k == i ? -1.0 : 0.25);
+               }
+            }
+         }
+      }
+      return A;
+   }
+
+}
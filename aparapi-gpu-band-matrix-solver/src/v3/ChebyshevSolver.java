@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
+import solver.SpectrumEstimate;
+
+/**
+ * Chebyshev semi-iterative method for symmetric positive definite band
+ * matrices with eigenvalues in [lambdaMin, lambdaMax] (Saad, Iterative
+ * Methods for Sparse Linear Systems, algorithm 12.1):
+ *
+ *    theta = (lambdaMax + lambdaMin) / 2, delta = (lambdaMax - lambdaMin) / 2
+ *    sigma = theta / delta, rho = 1 / sigma, d = r / theta
+ *    loop
+ *       x = x + d, r = r - A * d
+ *       rhoNew = 1 / (2 * sigma - rho)
+ *       d = rhoNew * rho * d + 2 * rhoNew / delta * r
+ *
+ * In contrast to CG an iteration needs no dot product, i.e. no global
+ * reduction, only the matrix vector product and one fused vector update.
+ * The residual norm is computed every RESIDUAL_CHECK_INTERVAL iterations
+ * for the stopping criterion.
+ *
+ * An upper bound which is too small lets the iteration diverge, a lower
+ * bound which is too large only slows down the convergence.
+ */
+public final class ChebyshevSolver {
+
+   /**
+    * Number of iterations between two computations of the residual norm
+    */
+   public static final int RESIDUAL_CHECK_INTERVAL = 10;
+
+   /**
+    * Number of CG iterations for the estimation of the eigenvalue bounds
+    */
+   public static final int ESTIMATION_STEPS = 30;
+
+   /**
+    * Safety factor for the estimated upper eigenvalue bound
+    */
+   private static final double UPPER_BOUND_FACTOR = 1.05;
+
+   /**
+    * Minimal number of rows of an update task
+    */
+   private static final int UPDATE_THRESHOLD = 1 << 14;
+
+   private ChebyshevSolver() {
+   }
+
+   public static Vector solveChebyshev(final BandMatrixFull A, final Vector b, final double lambdaMin,
+         final double lambdaMax) {
+      return chebyshev(A, b, null, lambdaMin, lambdaMax, new SolveRecorder("v3.solveChebyshev", b.getMaxRows(),
+            false)).getSolution();
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   public static SolveResult<Vector> solveChebyshevWithResult(final BandMatrixFull A, final Vector b, final Vector x0,
+         final double lambdaMin, final double lambdaMax, final SolverOptions options) {
+      return chebyshev(A, b, x0, lambdaMin, lambdaMax, new SolveRecorder("v3.solveChebyshev", b.getMaxRows(), true,
+            options));
+   }
+
+   /**
+    * Estimates the eigenvalue bounds with ESTIMATION_STEPS iterations of CG
+    * and continues with the Chebyshev iteration from the CG approximation.
+    * If CG has already converged, its result is returned. The iteration
+    * limit and the timeout hold for both phases together, the Chebyshev
+    * iteration gets what CG has left. The iterations of the result are the
+    * Chebyshev iterations without the CG iterations.
+    */
+   public static SolveResult<Vector> solveChebyshevWithResult(final BandMatrixFull A, final Vector b,
+         final SolverOptions options) {
+      final long startNanos = System.nanoTime();
+      final SolveResult<Vector> start = BandMatrixFull.solveConjugateGradientWithResult(A, b, null,
+            options.withMaxIterations(Math.min(ESTIMATION_STEPS, options.getMaxIterations())));
+      if (start.getStatus() != SolveResult.Status.MAX_ITERATIONS || start.getIterations() == options.getMaxIterations()) {
+         return start;
+      }
+      SolverOptions remaining = options.withMaxIterations(options.getMaxIterations() - start.getIterations());
+      if (options.getTimeoutNanos() != 0L) {
+         // at least one nanosecond, zero would mean no limit
+         final long timeoutNanos = options.getTimeoutNanos() - (System.nanoTime() - startNanos);
+         remaining = remaining.withTimeout(Math.max(1L, timeoutNanos), TimeUnit.NANOSECONDS);
+      }
+      final SpectrumEstimate estimate = SpectrumEstimate.fromResult(start);
+      return solveChebyshevWithResult(A, b, start.getSolution(), estimate.getMinEigenvalue(),
+            UPPER_BOUND_FACTOR * estimate.getMaxEigenvalue(), remaining);
+   }
+
+   /**
+    * Fixed number of Chebyshev iterations on x without any residual check,
+    * e.g. as smoother of a multigrid method with the bounds
+    * [lambdaMax / 30, 1.1 * lambdaMax], which damps the upper part of the
+    * spectrum.
+    */
+   public static void smooth(final BandMatrixFull A, final Vector b, final Vector x, final double lambdaMin,
+         final double lambdaMax, final int steps) {
+      checkBounds(lambdaMin, lambdaMax);
+      final int n = b.getMaxRows();
+      final double theta = 0.5 * (lambdaMax + lambdaMin);
+      final double delta = 0.5 * (lambdaMax - lambdaMin);
+      final double sigma = theta / delta;
+      final Vector r = new Vector(n);
+      final Vector d = new Vector(n);
+      final Vector Ad = new Vector(n);
+
+      // r = b - A * x, d = r / theta
+      BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, n, A, x, Ad));
+      b.minus(Ad, r);
+      r.multi(1.0 / theta, d);
+
+      double rho = 1.0 / sigma;
+      for (int i = 0; i < steps; i++) {
+         BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, n, A, d, Ad));
+         final double rhoNew = 1.0 / (2.0 * sigma - rho);
+         BandMatrixFull.POOL.invoke(new UpdateTask(0, n, x, r, d, Ad, rhoNew * rho, 2.0 * rhoNew / delta));
+         rho = rhoNew;
+      }
+   }
+
+   private static SolveResult<Vector> chebyshev(final BandMatrixFull A, final Vector b, final Vector x0,
+         final double lambdaMin, final double lambdaMax, final SolveRecorder recorder) {
+      checkBounds(lambdaMin, lambdaMax);
+
+      // create local variables
+      final int n = b.getMaxRows();
+      final double theta = 0.5 * (lambdaMax + lambdaMin);
+      final double delta = 0.5 * (lambdaMax - lambdaMin);
+      final double sigma = theta / delta;
+      final Vector x = null == x0 ? new Vector(n) : new Vector(x0);
+      final Vector r = new Vector(n);
+      final Vector d = new Vector(n);
+      final Vector Ad = new Vector(n);
+
+      // r = b - A * x
+      long start = recorder.time();
+      BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, n, A, x, Ad));
+      recorder.matVec(start);
+      start = recorder.time();
+      b.minus(Ad, r);
+
+      // d = r / theta
+      r.multi(1.0 / theta, d);
+      recorder.vector(start);
+
+      start = recorder.time();
+      final double rs = r.dotProduct(r);
+      recorder.initialResidual(rs, null == x0 ? rs : b.dotProduct(b));
+      recorder.reduction(start);
+
+      double rho = 1.0 / sigma;
+      int sinceCheck = 0;
+      while (!recorder.isStopped()) {
+         // Ad = A * d
+         start = recorder.time();
+         BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, n, A, d, Ad));
+         recorder.matVec(start);
+
+         // x = x + d, r = r - Ad, d = rhoNew * rho * d + 2 * rhoNew / delta * r
+         start = recorder.time();
+         final double rhoNew = 1.0 / (2.0 * sigma - rho);
+         BandMatrixFull.POOL.invoke(new UpdateTask(0, n, x, r, d, Ad, rhoNew * rho, 2.0 * rhoNew / delta));
+         rho = rhoNew;
+         recorder.vector(start);
+
+         if (++sinceCheck == RESIDUAL_CHECK_INTERVAL) {
+            sinceCheck = 0;
+            start = recorder.time();
+            final double rsnew = r.dotProduct(r);
+            recorder.reduction(start);
+            if (recorder.iteration(rsnew)) {
+               break;
+            }
+         } else if (recorder.iteration()) {
+            break;
+         }
+      }
+
+      return recorder.finish(x);
+   }
+
+   private static void checkBounds(final double lambdaMin, final double lambdaMax) {
+      if (!(lambdaMin > 0.0 && lambdaMax > lambdaMin) || Double.isInfinite(lambdaMax)) {
+         throw new IllegalArgumentException("eigenvalue bounds must fulfill 0 < lambdaMin < lambdaMax");
+      }
+   }
+
+   /**
+    * Fused update of one Chebyshev iteration for the rows [rowStart,
+    * rowEnd), so the vectors are read only once
+    */
+   private static final class UpdateTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int rowStart;
+      private final int rowEnd;
+      private final double[] x;
+      private final double[] r;
+      private final double[] d;
+      private final double[] Ad;
+      private final double dFactor;
+      private final double rFactor;
+
+      UpdateTask(final int rowStart, final int rowEnd, final Vector x, final Vector r, final Vector d,
+            final Vector Ad, final double dFactor, final double rFactor) {
+         this(rowStart, rowEnd, x.values, r.values, d.values, Ad.values, dFactor, rFactor);
+      }
+
+      private UpdateTask(final int rowStart, final int rowEnd, final double[] x, final double[] r, final double[] d,
+            final double[] Ad, final double dFactor, final double rFactor) {
+         this.rowStart = rowStart;
+         this.rowEnd = rowEnd;
+         this.x = x;
+         this.r = r;
+         this.d = d;
+         this.Ad = Ad;
+         this.dFactor = dFactor;
+         this.rFactor = rFactor;
+      }
+
+      @Override
+      protected void compute() {
+         if (rowEnd - rowStart <= UPDATE_THRESHOLD) {
+            for (int i = rowStart; i < rowEnd; i++) {
+               x[i] += d[i];
+               r[i] -= Ad[i];
+               d[i] = dFactor * d[i] + rFactor * r[i];
+            }
+         } else {
+            final int mid = (rowEnd + rowStart) >> 1;
+            final UpdateTask firstWorker = new UpdateTask(rowStart, mid, x, r, d, Ad, dFactor, rFactor);
+            firstWorker.fork();
+            new UpdateTask(mid, rowEnd, x, r, d, Ad, dFactor, rFactor).compute();
+            firstWorker.join();
+         }
+      }
+
+   }
+
+}
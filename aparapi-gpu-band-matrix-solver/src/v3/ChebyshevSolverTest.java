@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+import tests.BandMatrixGenerator;
+
+public class ChebyshevSolverTest {
+
+   private static final SolverOptions OPTIONS = SolverOptions.DEFAULT.withRelativeTolerance(1E-8);
+
+   @Test
+   public void solveChebyshevWithResult_ExactBounds_SolutionOfConjugateGradient() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.conditionNumber(500, 3, 100.0, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = generator.createRightHandSideV3();
+
+      // ACT
+      final SolveResult<Vector> result = ChebyshevSolver.solveChebyshevWithResult(A, b, null,
+            generator.getMinEigenvalue(), generator.getMaxEigenvalue(), OPTIONS);
+
+      // CHECK
+      final Vector expected = BandMatrixFull.solveConjugateGradientWithResult(A, b, OPTIONS).getSolution();
+      Assert.assertTrue(result.isConverged());
+      Assert.assertEquals(0, result.getIterations() % ChebyshevSolver.RESIDUAL_CHECK_INTERVAL);
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(expected.getValue(row), result.getSolution().getValue(row), 1E-6);
+      }
+   }
+
+   @Test
+   public void solveChebyshevWithResult_EstimatedBounds_Converged() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.conditionNumber(2000, 11, 1000.0, 2L);
+
+      // ACT
+      final SolveResult<Vector> result = ChebyshevSolver.solveChebyshevWithResult(generator.createMatrixV3(),
+            generator.createRightHandSideV3(), OPTIONS);
+
+      // CHECK
+      Assert.assertTrue(result.isConverged());
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(generator.getExactSolution(row), result.getSolution().getValue(row), 1E-4);
+      }
+   }
+
+   @Test
+   public void solveChebyshevWithResult_EstimatedBounds_IterationLimitIncludesEstimation() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.conditionNumber(2000, 11, 1000.0, 2L);
+
+      // ACT
+      final SolveResult<Vector> result = ChebyshevSolver.solveChebyshevWithResult(generator.createMatrixV3(),
+            generator.createRightHandSideV3(), OPTIONS.withMaxIterations(ChebyshevSolver.ESTIMATION_STEPS + 10));
+
+      // CHECK
+      Assert.assertEquals(SolveResult.Status.MAX_ITERATIONS, result.getStatus());
+      Assert.assertEquals(10, result.getIterations());
+   }
+
+   @Test
+   public void smooth_HighFrequencyError_Damped() {
+
+      // ARRANGE
+      final int rows = 256;
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(rows, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = new Vector(rows);
+      final Vector x = new Vector(rows);
+      for (int row = 0; row < rows; row++) {
+         x.setValue(row, (row & 1) == 0 ? 1.0 : -1.0);
+      }
+      final double lambdaMax = generator.getMaxEigenvalue();
+
+      // ACT
+      ChebyshevSolver.smooth(A, b, x, lambdaMax / 30.0, 1.1 * lambdaMax, 3);
+
+      // CHECK (exact solution is zero, three steps damp the highest mode by about 0.2)
+      Assert.assertTrue(Math.sqrt(x.dotProduct(x)) < 0.25 * Math.sqrt(rows));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void solveChebyshev_InvalidBounds_Exception() {
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(10, 1L);
+      ChebyshevSolver.solveChebyshev(generator.createMatrixV3(), generator.createRightHandSideV3(), 2.0, 1.0);
+   }
+
+}
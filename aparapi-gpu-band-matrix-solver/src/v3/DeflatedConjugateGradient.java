@@ -0,0 +1,455 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
+
+/**
+ * Deflated conjugate gradient solver for sequences of nearly identical
+ * systems (Saad, Yeung, Erhel, Guyomarc'h 2000). The solver keeps a small
+ * basis W of approximate eigenvectors of the smallest eigenvalues and
+ * runs CG in the A-orthogonal complement of W:
+ *
+ *    x0 = x + W * E^-1 * W' * r          with E = W' * A * W
+ *    p  = r + beta * p - W * E^-1 * (A * W)' * r
+ *
+ * so the slow modes of W no longer delay the convergence. During the 
+ * solve the search directions are collected, whenever the window is full 
+ * a Rayleigh-Ritz step compresses the span of the candidates to the Ritz 
+ * vectors of the k smallest Ritz values (like eigCG of Stathopoulos and 
+ * Orginos). These become the basis of the next solve, so the basis gets 
+ * better with every solve as long as the matrix changes only slowly.
+ *
+ * Costs per solve are k matrix vector products for A * W (the matrix may
+ * have changed since the last solve), per iteration k dot products and 
+ * k vector updates and per window one Rayleigh-Ritz step with about 
+ * 3 * (k + window)^2 * n operations.
+ */
+public final class DeflatedConjugateGradient {
+
+   private static final int MAX_JACOBI_SWEEPS = 100;
+
+   private final int maxDeflationVectors;
+
+   private final int window;
+
+   /**
+    * Current deflation basis, the orthonormal Ritz vectors of the last harvest
+    */
+   private double[][] basis = new double[0][];
+
+   private double[] ritzValues = new double[0];
+
+   /**
+    * @param maxDeflationVectors number of kept approximate eigenvectors
+    * @param window number of search directions collected before each Rayleigh-Ritz step
+    */
+   public DeflatedConjugateGradient(final int maxDeflationVectors, final int window) {
+      if (maxDeflationVectors < 1 || window < 1) {
+         throw new IllegalArgumentException("number of vectors must be positive");
+      }
+      this.maxDeflationVectors = maxDeflationVectors;
+      this.window = window;
+   }
+
+   public Vector solveConjugateGradient(final BandMatrixFull A, final Vector b) {
+      return solve(A, b, null, new SolveRecorder("v3.solveConjugateGradientDeflated", b.getMaxRows(), false))
+            .getSolution();
+   }
+
+   public SolveResult<Vector> solveConjugateGradientWithResult(final BandMatrixFull A, final Vector b, final Vector x0,
+         final SolverOptions options) {
+      return solve(A, b, x0, new SolveRecorder("v3.solveConjugateGradientDeflated", b.getMaxRows(), true, options));
+   }
+
+   /**
+    * Number of vectors in the current deflation basis
+    */
+   public int getDeflationVectors() {
+      return basis.length;
+   }
+
+   /**
+    * Rayleigh quotients of the deflation basis at the time of the last
+    * harvest, in ascending order
+    */
+   public double[] getRitzValues() {
+      return Arrays.copyOf(ritzValues, ritzValues.length);
+   }
+
+   /**
+    * Forgets the deflation basis, e.g. when the matrix has changed a lot
+    */
+   public void reset() {
+      basis = new double[0][];
+      ritzValues = new double[0];
+   }
+
+   private SolveResult<Vector> solve(final BandMatrixFull A, final Vector b, final Vector x0,
+         final SolveRecorder recorder) {
+
+      final int n = b.getMaxRows();
+      if (basis.length > 0 && basis[0].length != n) {
+         reset();
+      }
+
+      // AW = A * W and the Cholesky factor of E = W' * A * W
+      long start = recorder.time();
+      int k = basis.length;
+      final double[][] AW = new double[k][];
+      for (int i = 0; i < k; i++) {
+         AW[i] = times(A, basis[i]);
+      }
+      recorder.matVec(start);
+      start = recorder.time();
+      final double[] L = new double[k * k];
+      for (int i = 0; i < k; i++) {
+         for (int j = 0; j <= i; j++) {
+            L[i * k + j] = 0.5 * (dot(basis[i], AW[j]) + dot(basis[j], AW[i]));
+         }
+      }
+      if (!cholesky(L, k)) {
+         // basis has lost its A-orthogonality (matrix changed too much)
+         reset();
+         k = 0;
+      }
+      recorder.reduction(start);
+      final double[][] W = basis;
+      final double[] mu = new double[k];
+
+      // r = b - A * x
+      final Vector x = null == x0 ? new Vector(n) : new Vector(x0);
+      final Vector r = new Vector(n);
+      final Vector Ap = new Vector(n);
+      start = recorder.time();
+      A.times(x, Ap);
+      recorder.matVec(start);
+      start = recorder.time();
+      b.minus(Ap, r);
+
+      // x = x + W * E^-1 * W' * r, r = r - A * W * E^-1 * W' * r
+      project(W, r.values, L, mu);
+      for (int i = 0; i < k; i++) {
+         axpy(mu[i], W[i], x.values);
+         axpy(-mu[i], AW[i], r.values);
+      }
+
+      // p = r - W * E^-1 * (A * W)' * r
+      final Vector p = new Vector(r);
+      project(AW, r.values, L, mu);
+      for (int i = 0; i < k; i++) {
+         axpy(-mu[i], W[i], p.values);
+      }
+      recorder.vector(start);
+
+      start = recorder.time();
+      double rsold = r.dotProduct(r);
+      recorder.reduction(start);
+      recorder.initialResidual(rsold, b.dotProduct(b));
+
+      // candidates of the next basis: the old basis and the search directions
+      final double[][] Z = new double[maxDeflationVectors + window][];
+      final double[][] AZ = new double[Z.length][];
+      final double[] values = new double[Z.length];
+      int candidates = k;
+      System.arraycopy(W, 0, Z, 0, k);
+      System.arraycopy(AW, 0, AZ, 0, k);
+
+      while (!recorder.isStopped()) {
+         // Ap = A * p
+         start = recorder.time();
+         BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, n, A, p, Ap));
+         recorder.matVec(start);
+
+         // collect p and Ap, compress the candidates when the window is full
+         if (candidates == Z.length) {
+            candidates = rayleighRitz(n, Z, AZ, candidates, maxDeflationVectors, values);
+         }
+         Z[candidates] = Arrays.copyOf(p.values, n);
+         AZ[candidates] = Arrays.copyOf(Ap.values, n);
+         candidates++;
+
+         // alpha = rsold / ( p' * Ap )
+         start = recorder.time();
+         final double alpha = rsold / p.dotProduct(Ap);
+         recorder.reduction(start);
+
+         // x = x + alpha * p, r = r - alpha * Ap
+         start = recorder.time();
+         axpy(alpha, p.values, x.values);
+         axpy(-alpha, Ap.values, r.values);
+         recorder.vector(start);
+
+         // rsnew = r' * r
+         start = recorder.time();
+         final double rsnew = r.dotProduct(r);
+         recorder.reduction(start);
+         if (recorder.iteration(rsnew)) {
+            break;
+         }
+
+         // p = r + rsnew / rsold * p - W * E^-1 * (A * W)' * r
+         start = recorder.time();
+         project(AW, r.values, L, mu);
+         final double beta = rsnew / rsold;
+         final double[] pv = p.values;
+         final double[] rv = r.values;
+         for (int j = 0; j < n; j++) {
+            pv[j] = rv[j] + beta * pv[j];
+         }
+         for (int i = 0; i < k; i++) {
+            axpy(-mu[i], W[i], pv);
+         }
+         recorder.vector(start);
+
+         rsold = rsnew;
+      }
+
+      candidates = rayleighRitz(n, Z, AZ, candidates, maxDeflationVectors, values);
+      basis = Arrays.copyOf(Z, candidates);
+      ritzValues = Arrays.copyOf(values, candidates);
+
+      return recorder.finish(x);
+   }
+
+   /**
+    * Rayleigh-Ritz on the span of Z[0..count): orthonormalizes the vectors 
+    * (and applies the same operations to their products with A in AZ), 
+    * solves the small eigenproblem of Q' * A * Q and stores the Ritz 
+    * vectors of the smallest Ritz values in Z and AZ. Returns the number 
+    * of kept vectors, the Ritz values are written to values.
+    */
+   private static int rayleighRitz(final int n, final double[][] Z, final double[][] AZ, final int count,
+         final int keep, final double[] values) {
+      final double[][] Q = new double[count][];
+      final double[][] AQ = new double[count][];
+      int m = 0;
+      for (int c = 0; c < count; c++) {
+         final double[] z = Arrays.copyOf(Z[c], n);
+         final double[] Az = Arrays.copyOf(AZ[c], n);
+         final double norm = Math.sqrt(dot(z, z));
+         // modified Gram-Schmidt, twice is enough
+         for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < m; i++) {
+               final double h = dot(Q[i], z);
+               axpy(-h, Q[i], z);
+               axpy(-h, AQ[i], Az);
+            }
+         }
+         final double rest = Math.sqrt(dot(z, z));
+         if (rest > 1E-8 * norm && rest > 0.0) {
+            scale(1.0 / rest, z);
+            scale(1.0 / rest, Az);
+            Q[m] = z;
+            AQ[m] = Az;
+            m++;
+         }
+      }
+
+      // H = Q' * A * Q
+      final double[][] H = new double[m][m];
+      for (int i = 0; i < m; i++) {
+         for (int j = 0; j <= i; j++) {
+            H[i][j] = 0.5 * (dot(Q[i], AQ[j]) + dot(Q[j], AQ[i]));
+            H[j][i] = H[i][j];
+         }
+      }
+      final double[][] Y = new double[m][m];
+      jacobiEigenvalues(H, Y);
+      final Integer[] order = new Integer[m];
+      for (int i = 0; i < m; i++) {
+         order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+         @Override
+         public int compare(final Integer a, final Integer b) {
+            return Double.compare(H[a][a], H[b][b]);
+         }
+      });
+
+      final int k = Math.min(keep, m);
+      for (int i = 0; i < k; i++) {
+         final int column = order[i];
+         final double[] w = new double[n];
+         final double[] Aw = new double[n];
+         for (int j = 0; j < m; j++) {
+            axpy(Y[j][column], Q[j], w);
+            axpy(Y[j][column], AQ[j], Aw);
+         }
+         Z[i] = w;
+         AZ[i] = Aw;
+         values[i] = H[column][column];
+      }
+      for (int i = k; i < count; i++) {
+         Z[i] = null;
+         AZ[i] = null;
+      }
+      return k;
+   }
+
+   /**
+    * Cyclic Jacobi method, on return the diagonal of a contains the
+    * eigenvalues and the columns of v the eigenvectors
+    */
+   static void jacobiEigenvalues(final double[][] a, final double[][] v) {
+      final int n = a.length;
+      for (int i = 0; i < n; i++) {
+         Arrays.fill(v[i], 0.0);
+         v[i][i] = 1.0;
+      }
+      for (int sweep = 0; sweep < MAX_JACOBI_SWEEPS; sweep++) {
+         double off = 0.0;
+         double diagonal = 0.0;
+         for (int p = 0; p < n; p++) {
+            diagonal += a[p][p] * a[p][p];
+            for (int q = p + 1; q < n; q++) {
+               off += a[p][q] * a[p][q];
+            }
+         }
+         if (off <= 1E-30 * diagonal) {
+            return;
+         }
+         for (int p = 0; p < n; p++) {
+            for (int q = p + 1; q < n; q++) {
+               if (a[p][q] == 0.0) {
+                  continue;
+               }
+               final double theta = (a[q][q] - a[p][p]) / (2.0 * a[p][q]);
+               final double t = Math.signum(theta == 0.0 ? 1.0 : theta)
+                     / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+               final double c = 1.0 / Math.sqrt(t * t + 1.0);
+               final double s = t * c;
+               for (int r = 0; r < n; r++) {
+                  final double arp = a[r][p];
+                  final double arq = a[r][q];
+                  a[r][p] = c * arp - s * arq;
+                  a[r][q] = s * arp + c * arq;
+               }
+               for (int r = 0; r < n; r++) {
+                  final double apr = a[p][r];
+                  final double aqr = a[q][r];
+                  a[p][r] = c * apr - s * aqr;
+                  a[q][r] = s * apr + c * aqr;
+               }
+               for (int r = 0; r < n; r++) {
+                  final double vrp = v[r][p];
+                  final double vrq = v[r][q];
+                  v[r][p] = c * vrp - s * vrq;
+                  v[r][q] = s * vrp + c * vrq;
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * mu = E^-1 * V' * r with the Cholesky factor L of E
+    */
+   private static void project(final double[][] V, final double[] r, final double[] L, final double[] mu) {
+      final int k = mu.length;
+      for (int i = 0; i < k; i++) {
+         mu[i] = dot(V[i], r);
+      }
+      // forward substitution L * y = mu
+      for (int i = 0; i < k; i++) {
+         double sum = mu[i];
+         for (int j = 0; j < i; j++) {
+            sum -= L[i * k + j] * mu[j];
+         }
+         mu[i] = sum / L[i * k + i];
+      }
+      // backward substitution L' * mu = y
+      for (int i = k - 1; i >= 0; i--) {
+         double sum = mu[i];
+         for (int j = i + 1; j < k; j++) {
+            sum -= L[j * k + i] * mu[j];
+         }
+         mu[i] = sum / L[i * k + i];
+      }
+   }
+
+   /**
+    * In place Cholesky factorization of the lower triangle, false if the
+    * matrix is not positive definite
+    */
+   private static boolean cholesky(final double[] a, final int k) {
+      for (int j = 0; j < k; j++) {
+         double d = a[j * k + j];
+         for (int m = 0; m < j; m++) {
+            d -= a[j * k + m] * a[j * k + m];
+         }
+         if (!(d > 0.0)) {
+            return false;
+         }
+         a[j * k + j] = Math.sqrt(d);
+         for (int i = j + 1; i < k; i++) {
+            double sum = a[i * k + j];
+            for (int m = 0; m < j; m++) {
+               sum -= a[i * k + m] * a[j * k + m];
+            }
+            a[i * k + j] = sum / a[j * k + j];
+         }
+      }
+      return true;
+   }
+
+   private static double[] times(final BandMatrixFull A, final double[] x) {
+      final Vector result = new Vector(x.length);
+      BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, x.length, A, new Vector(x), result));
+      return result.values;
+   }
+
+   private static double dot(final double[] a, final double[] b) {
+      double sum = 0.0;
+      for (int i = 0; i < a.length; i++) {
+         sum += a[i] * b[i];
+      }
+      return sum;
+   }
+
+   private static void axpy(final double alpha, final double[] x, final double[] y) {
+      for (int i = 0; i < x.length; i++) {
+         y[i] += alpha * x[i];
+      }
+   }
+
+   private static void scale(final double alpha, final double[] x) {
+      for (int i = 0; i < x.length; i++) {
+         x[i] *= alpha;
+      }
+   }
+
+}
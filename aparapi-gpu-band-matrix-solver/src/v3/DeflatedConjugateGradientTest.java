@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+import tests.BandMatrixGenerator;
+
+public class DeflatedConjugateGradientTest {
+
+   private static final int ROWS = 400;
+
+   private static final SolverOptions OPTIONS = SolverOptions.DEFAULT.withRelativeTolerance(1E-8);
+
+   @Test
+   public void solveConjugateGradientWithResult_SequenceOfSimilarMatrices_FewerIterations() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(ROWS, 1L);
+      final DeflatedConjugateGradient solver = new DeflatedConjugateGradient(8, 20);
+      solver.solveConjugateGradientWithResult(shiftedMatrix(generator, 0.0), generator.createRightHandSideV3(), null,
+            OPTIONS);
+      final BandMatrixFull A = shiftedMatrix(generator, 1E-5);
+      final Vector b = BandMatrixGenerator.poisson1D(ROWS, 2L).createRightHandSideV3();
+
+      // ACT
+      final SolveResult<Vector> result = solver.solveConjugateGradientWithResult(A, b, null, OPTIONS);
+
+      // CHECK
+      final SolveResult<Vector> expected = BandMatrixFull.solveConjugateGradientWithResult(A, b, OPTIONS);
+      Assert.assertEquals(8, solver.getDeflationVectors());
+      Assert.assertTrue(result.isConverged());
+      Assert.assertTrue(result.getIterations() * 4 < expected.getIterations() * 3);
+      for (int row = 0; row < ROWS; row++) {
+         Assert.assertEquals(expected.getSolution().getValue(row), result.getSolution().getValue(row), 1E-4);
+      }
+   }
+
+   @Test
+   public void solveConjugateGradient_FirstSolve_SmallestRitzValueNearMinimalEigenvalue() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(ROWS, 1L);
+      final DeflatedConjugateGradient solver = new DeflatedConjugateGradient(4, 20);
+
+      // ACT
+      solver.solveConjugateGradient(generator.createMatrixV3(), generator.createRightHandSideV3());
+
+      // CHECK
+      final double[] ritzValues = solver.getRitzValues();
+      Assert.assertEquals(4, ritzValues.length);
+      Assert.assertEquals(generator.getMinEigenvalue(), ritzValues[0], generator.getMinEigenvalue() * 0.01);
+      Assert.assertTrue(ritzValues[0] <= ritzValues[1]);
+   }
+
+   @Test
+   public void jacobiEigenvalues_SymmetricMatrix_Diagonalized() {
+
+      // ARRANGE
+      final double[][] a = { { 2.0, -1.0, 0.0 }, { -1.0, 2.0, -1.0 }, { 0.0, -1.0, 2.0 } };
+      final double[][] v = new double[3][3];
+
+      // ACT
+      DeflatedConjugateGradient.jacobiEigenvalues(a, v);
+
+      // CHECK
+      final double[] eigenvalues = { a[0][0], a[1][1], a[2][2] };
+      Arrays.sort(eigenvalues);
+      Assert.assertEquals(2.0 - Math.sqrt(2.0), eigenvalues[0], 1E-12);
+      Assert.assertEquals(2.0, eigenvalues[1], 1E-12);
+      Assert.assertEquals(2.0 + Math.sqrt(2.0), eigenvalues[2], 1E-12);
+      for (int column = 0; column < 3; column++) {
+         double norm = 0.0;
+         for (int row = 0; row < 3; row++) {
+            norm += v[row][column] * v[row][column];
+         }
+         Assert.assertEquals(1.0, norm, 1E-12);
+      }
+   }
+
+   private static BandMatrixFull shiftedMatrix(final BandMatrixGenerator generator, final double shift) {
+      final BandMatrixFull A = generator.createMatrixV3();
+      for (int row = 0; row < generator.getRows(); row++) {
+         A.setValue(row, row, generator.getValue(row, row) + shift);
+      }
+      return A;
+   }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.concurrent.RecursiveAction;
+
+import tests.Parameter;
+
+/* Nonsymmetric band matrix with kl sub- and ku superdiagonals, e.g. of a
+ * convection diffusion problem. In contrast to BandMatrixFull the values
+ * are not mirrored, each row stores its own kl + ku + 1 values
+ * (here kl = 1, ku = 2):
+ *
+ * |  a0  a1  a2   -    -  |          |   -   a0   a1   a2 |
+ * |  a3  a4  a5  a6    -  |          |  a3   a4   a5   a6 |
+ * |  -   a7  a8  a9  a10  |   --->   |  a7   a8   a9  a10 |
+ * |  -   -  a11  a12 a13  |          | a11  a12  a13    - |
+ * |  -   -   -   a14 a15  |          | a14  a15    -    - |
+ *
+ * is stored as array:
+ *
+ * [ -, a0, a1, a2,   a3, a4, a5, a6,   a7, a8, a9, a10,   a11, a12, a13, -,   a14, a15, -, - ]
+ */
+public final class GeneralBandMatrix {
+
+   private final int rows;
+
+   private final int lowerBandwidth;
+
+   private final int upperBandwidth;
+
+   private final int cols;
+
+   final double[] values;
+
+   /**
+    * @param lower number of subdiagonals kl
+    * @param upper number of superdiagonals ku
+    */
+   public GeneralBandMatrix(final int rowsNumber, final int lower, final int upper) {
+      if (lower < 0 || upper < 0) {
+         throw new IllegalArgumentException("bandwidths must not be negative");
+      }
+      rows = rowsNumber;
+      lowerBandwidth = lower;
+      upperBandwidth = upper;
+      cols = lower + upper + 1;
+      values = new double[rows * cols];
+   }
+
+   /**
+    * Copies the symmetric matrix A, e.g. to add a convection term
+    */
+   public static GeneralBandMatrix create(final BandMatrixFull A) {
+      final int bandwidth = A.getMaxCols();
+      final int k = bandwidth >> 1;
+      final GeneralBandMatrix result = new GeneralBandMatrix(A.getMaxRows(), k, k);
+      for (int row = 0; row < result.rows; row++) {
+         for (int col = Math.max(0, row - k); col < Math.min(result.rows, row - k + bandwidth); col++) {
+            result.values[row * result.cols + k + col - row] = A.values[row * bandwidth + k + col - row];
+         }
+      }
+      return result;
+   }
+
+   private int getIndex(final int row, final int col) {
+      final int offset = lowerBandwidth + col - row;
+      if (row < 0 || col < 0 || row >= rows || col >= rows || offset < 0 || offset >= cols) {
+         return -1;
+      }
+      return row * cols + offset;
+   }
+
+   /**
+    * Sets the value of the position (row, col) only, values outside the
+    * band are ignored
+    */
+   public void setValue(final int row, final int col, final double value) {
+      final int index = getIndex(row, col);
+      if (index >= 0) {
+         values[index] = value;
+      }
+   }
+
+   public double getValue(final int row, final int col) {
+      final int index = getIndex(row, col);
+      return index >= 0 ? values[index] : 0.0;
+   }
+
+   public void times(final Vector b, final Vector result) {
+      times(b.values, result.values, 0, rows);
+   }
+
+   /**
+    * Parallel matrix vector product with the tasks of BandMatrixFull.POOL
+    */
+   public void timesForkAndJoin(final Vector b, final Vector result) {
+      BandMatrixFull.POOL.invoke(new Task(0, rows, this, b.values, result.values));
+   }
+
+   private void times(final double[] b, final double[] result, final int rowStart, final int rowEnd) {
+      for (int row = rowStart; row < rowEnd; row++) {
+         final int colStart = Math.max(0, row - lowerBandwidth);
+         final int colEnd = Math.min(rows - 1, row + upperBandwidth);
+         final int offset = row * cols + lowerBandwidth - row;
+         double sum = 0.0;
+         for (int col = colStart; col <= colEnd; col++) {
+            sum += values[offset + col] * b[col];
+         }
+         result[row] = sum;
+      }
+   }
+
+   public int getMaxRows() {
+      return rows;
+   }
+
+   public int getLowerBandwidth() {
+      return lowerBandwidth;
+   }
+
+   public int getUpperBandwidth() {
+      return upperBandwidth;
+   }
+
+   private static final class Task extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int rowStart;
+      private final int rowEnd;
+      private final GeneralBandMatrix matrix;
+      private final double[] b;
+      private final double[] result;
+
+      Task(final int rowStart, final int rowEnd, final GeneralBandMatrix matrix, final double[] b,
+            final double[] result) {
+         this.rowStart = rowStart;
+         this.rowEnd = rowEnd;
+         this.matrix = matrix;
+         this.b = b;
+         this.result = result;
+      }
+
+      @Override
+      protected void compute() {
+         if (rowEnd - rowStart < matrix.rows / Parameter.NUMBER_OF_POCESSORS + 1) {
+            matrix.times(b, result, rowStart, rowEnd);
+         } else {
+            final int mid = (rowEnd + rowStart) >> 1;
+            final Task firstWorker = new Task(rowStart, mid, matrix, b, result);
+            firstWorker.fork();
+            new Task(mid, rowEnd, matrix, b, result).compute();
+            firstWorker.join();
+         }
+      }
+   }
+
+}
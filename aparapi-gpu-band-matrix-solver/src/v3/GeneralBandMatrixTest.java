@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+
+public class GeneralBandMatrixTest {
+
+   @Test
+   public void times_DifferentBandwidths_SameAsDense() {
+
+      // ARRANGE
+      final int rows = 9;
+      final GeneralBandMatrix A = new GeneralBandMatrix(rows, 1, 3);
+      final double[][] dense = new double[rows][rows];
+      for (int row = 0; row < rows; row++) {
+         for (int col = Math.max(0, row - 1); col < Math.min(rows, row + 4); col++) {
+            dense[row][col] = 1.0 + row * 0.5 - col * 0.25;
+            A.setValue(row, col, dense[row][col]);
+         }
+      }
+      final Vector b = new Vector(rows);
+      for (int row = 0; row < rows; row++) {
+         b.setValue(row, row % 3 - 1.0);
+      }
+
+      // ACT
+      final Vector result = new Vector(rows);
+      A.times(b, result);
+
+      // CHECK
+      for (int row = 0; row < rows; row++) {
+         double expected = 0.0;
+         for (int col = 0; col < rows; col++) {
+            expected += dense[row][col] * b.getValue(col);
+         }
+         Assert.assertEquals(expected, result.getValue(row), 1E-12);
+         Assert.assertEquals(0.0, A.getValue(row, row + 4), 0.0);
+      }
+   }
+
+   @Test
+   public void timesForkAndJoin_ConvectionDiffusion_SameAsTimes() {
+
+      // ARRANGE
+      final GeneralBandMatrix A = convectionDiffusion(100, 0.4);
+      final Vector b = new Vector(A.getMaxRows());
+      for (int row = 0; row < A.getMaxRows(); row++) {
+         b.setValue(row, Math.sin(0.01 * row));
+      }
+
+      // ACT
+      final Vector actual = new Vector(A.getMaxRows());
+      A.timesForkAndJoin(b, actual);
+
+      // CHECK
+      final Vector expected = new Vector(A.getMaxRows());
+      A.times(b, expected);
+      Assert.assertArrayEquals(expected.getValues(), actual.getValues(), 0.0);
+   }
+
+   @Test
+   public void create_SymmetricMatrix_SameProduct() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(50, 7, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = generator.createExactSolutionV3();
+
+      // ACT
+      final GeneralBandMatrix B = GeneralBandMatrix.create(A);
+
+      // CHECK
+      final Vector expected = new Vector(50);
+      A.times(b, expected);
+      final Vector actual = new Vector(50);
+      B.times(b, actual);
+      Assert.assertArrayEquals(expected.getValues(), actual.getValues(), 1E-12);
+   }
+
+   /**
+    * Central differences of -u'' + c * (u_x + u_y) on the n x n grid, the
+    * matrix is nonsymmetric for a cell Peclet number p = c * h / 2 > 0 and
+    * not diagonally dominant for p > 1
+    */
+   static GeneralBandMatrix convectionDiffusion(final int n, final double peclet) {
+      final GeneralBandMatrix A = new GeneralBandMatrix(n * n, n, n);
+      for (int y = 0; y < n; y++) {
+         for (int x = 0; x < n; x++) {
+            final int row = y * n + x;
+            A.setValue(row, row, 4.0);
+            if (x > 0) {
+               A.setValue(row, row - 1, -1.0 - peclet);
+            }
+            if (x + 1 < n) {
+               A.setValue(row, row + 1, -1.0 + peclet);
+            }
+            if (y > 0) {
+               A.setValue(row, row - n, -1.0 - peclet);
+            }
+            if (y + 1 < n) {
+               A.setValue(row, row + n, -1.0 + peclet);
+            }
+         }
+      }
+      return A;
+   }
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
+
+/**
+ * Restarted GMRES(m) for nonsymmetric band matrices (Saad, Iterative
+ * Methods for Sparse Linear Systems, algorithm 6.11) with an optional
+ * right preconditioner M. A cycle builds the orthonormal basis V of the
+ * Krylov space of A * M^-1 with modified Gram-Schmidt and minimizes the
+ * residual with Givens rotations of the Hessenberg matrix H:
+ *
+ *    r = b - A * x, beta = |r|, v(0) = r / beta, g = beta * e(0)
+ *    for j = 0 ... m - 1
+ *       w = A * M^-1 * v(j)
+ *       h(i, j) = w' * v(i), w = w - h(i, j) * v(i) for i = 0 ... j
+ *       h(j + 1, j) = |w|, v(j + 1) = w / h(j + 1, j)
+ *       rotate column j of H and g, |g(j + 1)| is the residual norm
+ *    x = x + M^-1 * V * y with H * y = g
+ *
+ * The residual norm of an iteration is the estimate |g(j + 1)|, which
+ * needs no extra product. In contrast to BiCGSTAB the residual norm never
+ * increases, but a cycle keeps m + 1 vectors and its orthogonalization
+ * costs grow with j.
+ */
+public final class GmresSolver {
+
+   /**
+    * Number of iterations between two restarts
+    */
+   public static final int DEFAULT_RESTART = 30;
+
+   private GmresSolver() {
+   }
+
+   public static Vector solveGmres(final GeneralBandMatrix A, final Vector b) {
+      return solveGmres(A, b, DEFAULT_RESTART, null);
+   }
+
+   /**
+    * @param restart number of iterations m between two restarts
+    * @param M right preconditioner, null for none
+    */
+   public static Vector solveGmres(final GeneralBandMatrix A, final Vector b, final int restart,
+         final Preconditioner M) {
+      return gmres(A, b, null, restart, M, new SolveRecorder("v3.solveGmres", b.getMaxRows(), false))
+            .getSolution();
+   }
+
+   public static SolveResult<Vector> solveGmresWithResult(final GeneralBandMatrix A, final Vector b,
+         final SolverOptions options) {
+      return solveGmresWithResult(A, b, null, DEFAULT_RESTART, null, options);
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    * @param restart number of iterations m between two restarts
+    * @param M right preconditioner, null for none
+    */
+   public static SolveResult<Vector> solveGmresWithResult(final GeneralBandMatrix A, final Vector b,
+         final Vector x0, final int restart, final Preconditioner M, final SolverOptions options) {
+      return gmres(A, b, x0, restart, M, new SolveRecorder("v3.solveGmres", b.getMaxRows(), true, options));
+   }
+
+   private static SolveResult<Vector> gmres(final GeneralBandMatrix A, final Vector b, final Vector x0,
+         final int restart, final Preconditioner M, final SolveRecorder recorder) {
+      if (restart < 1) {
+         throw new IllegalArgumentException("restart must be positive");
+      }
+
+      // create local variables
+      final int n = b.getMaxRows();
+      final int m = restart;
+      final Vector x = null == x0 ? new Vector(n) : new Vector(x0);
+      final Vector r = new Vector(n);
+      final Vector z = new Vector(n);
+      final Vector[] V = new Vector[m + 1];
+      for (int i = 0; i <= m; i++) {
+         V[i] = new Vector(n);
+      }
+      // column j of H is H[j], so that the rotations run over an array
+      final double[][] H = new double[m][m + 1];
+      final double[] cosines = new double[m];
+      final double[] sines = new double[m];
+      final double[] g = new double[m + 1];
+
+      // r = b - A * x
+      long start = recorder.time();
+      A.timesForkAndJoin(x, z);
+      recorder.matVec(start);
+      start = recorder.time();
+      b.minus(z, r);
+      recorder.vector(start);
+
+      start = recorder.time();
+      double rs = r.dotProduct(r);
+      recorder.initialResidual(rs, null == x0 ? rs : b.dotProduct(b));
+      recorder.reduction(start);
+
+      while (!recorder.isStopped()) {
+         if (0.0 == rs) {
+            // exact solution, but a tolerance of zero
+            recorder.iteration(rs);
+            continue;
+         }
+
+         // v(0) = r / beta, g = beta * e(0)
+         final double beta = Math.sqrt(rs);
+         start = recorder.time();
+         r.multi(1.0 / beta, V[0]);
+         recorder.vector(start);
+         Arrays.fill(g, 0.0);
+         g[0] = beta;
+
+         int j = 0;
+         while (j < m) {
+            // w = A * M^-1 * v(j)
+            final Vector w = V[j + 1];
+            if (null != M) {
+               start = recorder.time();
+               M.apply(V[j], z);
+               recorder.vector(start);
+            }
+            start = recorder.time();
+            A.timesForkAndJoin(null == M ? V[j] : z, w);
+            recorder.matVec(start);
+
+            // modified Gram-Schmidt
+            final double[] h = H[j];
+            for (int i = 0; i <= j; i++) {
+               start = recorder.time();
+               h[i] = w.dotProduct(V[i]);
+               recorder.reduction(start);
+               start = recorder.time();
+               final double[] v = V[i].values;
+               for (int k = 0; k < n; k++) {
+                  w.values[k] -= h[i] * v[k];
+               }
+               recorder.vector(start);
+            }
+            start = recorder.time();
+            h[j + 1] = Math.sqrt(w.dotProduct(w));
+            recorder.reduction(start);
+            if (h[j + 1] != 0.0) {
+               start = recorder.time();
+               w.multi(1.0 / h[j + 1], w);
+               recorder.vector(start);
+            }
+
+            // apply the previous rotations and eliminate h(j + 1, j)
+            for (int i = 0; i < j; i++) {
+               final double temp = cosines[i] * h[i] + sines[i] * h[i + 1];
+               h[i + 1] = -sines[i] * h[i] + cosines[i] * h[i + 1];
+               h[i] = temp;
+            }
+            final double norm = Math.hypot(h[j], h[j + 1]);
+            cosines[j] = h[j] / norm;
+            sines[j] = h[j + 1] / norm;
+            h[j] = norm;
+            h[j + 1] = 0.0;
+            g[j + 1] = -sines[j] * g[j];
+            g[j] = cosines[j] * g[j];
+            j++;
+
+            // the Krylov space is invariant after a vanishing h(j + 1, j)
+            if (recorder.iteration(g[j] * g[j]) || 0.0 == sines[j - 1]) {
+               break;
+            }
+         }
+
+         // H * y = g, the solution y is kept in g
+         for (int i = j - 1; i >= 0; i--) {
+            double sum = g[i];
+            for (int k = i + 1; k < j; k++) {
+               sum -= H[k][i] * g[k];
+            }
+            g[i] = sum / H[i][i];
+         }
+
+         // x = x + M^-1 * V * y
+         start = recorder.time();
+         Arrays.fill(r.values, 0.0);
+         for (int i = 0; i < j; i++) {
+            final double[] v = V[i].values;
+            for (int k = 0; k < n; k++) {
+               r.values[k] += g[i] * v[k];
+            }
+         }
+         if (null != M) {
+            M.apply(r, z);
+            x.plus(z, x);
+         } else {
+            x.plus(r, x);
+         }
+         recorder.vector(start);
+
+         if (recorder.isStopped()) {
+            break;
+         }
+
+         // r = b - A * x, the true residual of the restart
+         start = recorder.time();
+         A.timesForkAndJoin(x, z);
+         recorder.matVec(start);
+         start = recorder.time();
+         b.minus(z, r);
+         recorder.vector(start);
+         start = recorder.time();
+         rs = r.dotProduct(r);
+         recorder.reduction(start);
+      }
+
+      return recorder.finish(x);
+   }
+
+}
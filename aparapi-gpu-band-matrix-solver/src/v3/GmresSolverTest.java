@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+
+public class GmresSolverTest {
+
+   @Test
+   public void solveGmres_ConvectionDiffusion_Solved() {
+
+      // ARRANGE
+      final GeneralBandMatrix A = GeneralBandMatrixTest.convectionDiffusion(40, 0.4);
+      final Vector expected = createSolution(A.getMaxRows());
+      final Vector b = new Vector(A.getMaxRows());
+      A.times(expected, b);
+
+      // ACT
+      final SolveResult<Vector> result = GmresSolver.solveGmresWithResult(A, b,
+            SolverOptions.DEFAULT.withRelativeTolerance(1E-10));
+
+      // CHECK
+      Assert.assertTrue(result.isConverged());
+      Assert.assertArrayEquals(expected.getValues(), result.getSolution().getValues(), 1E-6);
+   }
+
+   @Test
+   public void solveGmres_ShortRestart_SameSolution() {
+
+      // ARRANGE
+      final GeneralBandMatrix A = GeneralBandMatrixTest.convectionDiffusion(20, 0.8);
+      final Vector expected = createSolution(A.getMaxRows());
+      final Vector b = new Vector(A.getMaxRows());
+      A.times(expected, b);
+
+      // ACT
+      final SolveResult<Vector> result = GmresSolver.solveGmresWithResult(A, b, null, 5, null,
+            SolverOptions.DEFAULT.withRelativeTolerance(1E-10));
+
+      // CHECK
+      Assert.assertTrue(result.isConverged());
+      Assert.assertTrue(result.getIterations() > 5);
+      Assert.assertArrayEquals(expected.getValues(), result.getSolution().getValues(), 1E-6);
+   }
+
+   @Test
+   public void solveGmres_LUPreconditioner_OneIteration() {
+
+      // ARRANGE
+      final GeneralBandMatrix A = GeneralBandMatrixTest.convectionDiffusion(20, 2.0);
+      final Vector expected = createSolution(A.getMaxRows());
+      final Vector b = new Vector(A.getMaxRows());
+      A.times(expected, b);
+
+      // ACT
+      final Preconditioner M = BandLU.factor(A).createPreconditioner();
+      final SolveResult<Vector> result = GmresSolver.solveGmresWithResult(A, b, null, GmresSolver.DEFAULT_RESTART, M,
+            SolverOptions.DEFAULT.withRelativeTolerance(1E-10));
+
+      // CHECK
+      Assert.assertTrue(result.isConverged());
+      Assert.assertEquals(1, result.getIterations());
+      Assert.assertArrayEquals(expected.getValues(), result.getSolution().getValues(), 1E-8);
+   }
+
+   private static Vector createSolution(final int rows) {
+      final Vector x = new Vector(rows);
+      for (int row = 0; row < rows; row++) {
+         x.setValue(row, Math.sin(0.05 * row));
+      }
+      return x;
+   }
+
+}
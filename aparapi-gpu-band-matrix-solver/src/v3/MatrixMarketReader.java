@@ -0,0 +1,443 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reads Matrix Market coordinate files (real, integer or pattern; general or
+ * symmetric) directly into the full band matrix format.
+ *
+ * The file is mapped into memory and parsed in two parallel passes over
+ * chunks of complete lines. The first pass determines the bandwidth, the
+ * second pass writes the values straight into the band storage. Entries
+ * outside of an optional bandwidth limit are either dropped and counted or
+ * rejected with an IOException.
+ */
+public final class MatrixMarketReader {
+
+   private static final String BANNER = "%%MatrixMarket";
+
+   /**
+    * Files smaller than this are parsed in a single chunk
+    */
+   private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+   private static final double[] POW_10 = new double[23];
+   static {
+      POW_10[0] = 1.0;
+      for (int i = 1; i < POW_10.length; i++) {
+         POW_10[i] = 10.0 * POW_10[i - 1];
+      }
+   }
+
+   private int maxBandwidth = Integer.MAX_VALUE;
+
+   private boolean rejectEntriesOutsideBand = false;
+
+   private long entriesOutsideBand = 0;
+
+   /**
+    * Limits the bandwidth of the created matrix, must be an odd number.
+    */
+   public void setMaxBandwidth(final int bandwidth) {
+      if (bandwidth < 1 || (bandwidth & 1) == 0) {
+         throw new IllegalArgumentException("bandwidth must be a positive odd number: " + bandwidth);
+      }
+      maxBandwidth = bandwidth;
+   }
+
+   public void setRejectEntriesOutsideBand(final boolean reject) {
+      rejectEntriesOutsideBand = reject;
+   }
+
+   /**
+    * Number of entries of the last read file which have been dropped,
+    * because they are outside of the maximal bandwidth.
+    */
+   public long getEntriesOutsideBand() {
+      return entriesOutsideBand;
+   }
+
+   public BandMatrixFull read(final File file) throws IOException {
+      entriesOutsideBand = 0;
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         if (channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("file too large: " + channel.size());
+         }
+         final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         final Header header = parseHeader(buffer);
+
+         // first pass - determine bandwidth
+         final int[] chunks = createChunks(buffer, header.dataStart);
+         final Chunk scan = invoke(new ChunkTask(buffer, chunks, 0, chunks.length - 1, header, null, 0, 0));
+         if (scan.count != header.entries) {
+            throw new IOException("expected " + header.entries + " entries, but found " + scan.count);
+         }
+         final int bandwidth = (int) Math.min(maxBandwidth, 2L * scan.maxDistance + 1);
+         final int limit = bandwidth >> 1;
+         if (scan.maxDistance > limit && rejectEntriesOutsideBand) {
+            throw new IOException("entries outside of band with width " + bandwidth + ", maximal distance to diagonal is "
+                  + scan.maxDistance);
+         }
+
+         // second pass - parse values into band storage
+         final BandMatrixFull A = new BandMatrixFull(header.rows, bandwidth);
+         final Chunk fill = invoke(new ChunkTask(buffer, chunks, 0, chunks.length - 1, header, A.values, bandwidth, limit));
+         entriesOutsideBand = fill.outside;
+         return A;
+      }
+   }
+
+   private static Chunk invoke(final ChunkTask task) throws IOException {
+      try {
+         return BandMatrixFull.POOL.invoke(task);
+      } catch (final IllegalStateException e) {
+         throw new IOException(e.getMessage(), e);
+      }
+   }
+
+   private static Header parseHeader(final MappedByteBuffer buffer) throws IOException {
+      int position = 0;
+      final int end = buffer.limit();
+
+      // banner line
+      int lineEnd = nextLine(buffer, position, end);
+      final String banner = new String(readBytes(buffer, position, lineEnd), StandardCharsets.US_ASCII).trim()
+            .toLowerCase(Locale.ENGLISH);
+      final String[] tokens = banner.split("\\s+");
+      if (tokens.length != 5 || !tokens[0].equals(BANNER.toLowerCase(Locale.ENGLISH)) || !tokens[1].equals("matrix")) {
+         throw new IOException("not a Matrix Market file");
+      }
+      if (!tokens[2].equals("coordinate")) {
+         throw new IOException("unsupported format: " + tokens[2]);
+      }
+      if (!tokens[3].equals("real") && !tokens[3].equals("integer") && !tokens[3].equals("pattern")) {
+         throw new IOException("unsupported field: " + tokens[3]);
+      }
+      if (!tokens[4].equals("general") && !tokens[4].equals("symmetric")) {
+         throw new IOException("unsupported symmetry: " + tokens[4]);
+      }
+
+      // skip comments and empty lines
+      position = lineEnd;
+      String line = "";
+      while (position < end && line.isEmpty()) {
+         lineEnd = nextLine(buffer, position, end);
+         line = new String(readBytes(buffer, position, lineEnd), StandardCharsets.US_ASCII).trim();
+         if (line.startsWith("%")) {
+            line = "";
+         }
+         position = lineEnd;
+      }
+
+      // size line
+      final String[] size = line.split("\\s+");
+      if (size.length != 3) {
+         throw new IOException("invalid size line: " + line);
+      }
+      final Header header = new Header();
+      try {
+         header.rows = Integer.parseInt(size[0]);
+         header.entries = Long.parseLong(size[2]);
+         if (header.rows != Integer.parseInt(size[1])) {
+            throw new IOException("matrix is not square: " + line);
+         }
+      } catch (final NumberFormatException e) {
+         throw new IOException("invalid size line: " + line, e);
+      }
+      header.symmetric = tokens[4].equals("symmetric");
+      header.pattern = tokens[3].equals("pattern");
+      header.dataStart = position;
+      return header;
+   }
+
+   private static int nextLine(final MappedByteBuffer buffer, int position, final int end) {
+      while (position < end && buffer.get(position) != '\n') {
+         position++;
+      }
+      return Math.min(position + 1, end);
+   }
+
+   private static byte[] readBytes(final MappedByteBuffer buffer, final int start, final int end) {
+      final byte[] bytes = new byte[end - start];
+      for (int i = start; i < end; i++) {
+         bytes[i - start] = buffer.get(i);
+      }
+      return bytes;
+   }
+
+   /**
+    * Splits the data section in chunks which start at the beginning of a line
+    */
+   private static int[] createChunks(final MappedByteBuffer buffer, final int dataStart) {
+      final int end = buffer.limit();
+      final int length = end - dataStart;
+      final int numberOfChunks = Math.max(1, Math.min(BandMatrixFull.POOL.getParallelism() << 2, length / MIN_CHUNK_SIZE));
+      final int[] chunks = new int[numberOfChunks + 1];
+      chunks[0] = dataStart;
+      for (int i = 1; i < numberOfChunks; i++) {
+         final int candidate = Math.max(chunks[i - 1], dataStart + (int) ((long) length * i / numberOfChunks));
+         chunks[i] = nextLine(buffer, candidate - 1, end);
+      }
+      chunks[numberOfChunks] = end;
+      return chunks;
+   }
+
+   private static final class Header {
+      int rows;
+      long entries;
+      boolean symmetric;
+      boolean pattern;
+      int dataStart;
+   }
+
+   private static final class Chunk {
+      long count;
+      long outside;
+      int maxDistance;
+   }
+
+   private static final class ChunkTask extends RecursiveTask<Chunk> {
+
+      private static final long serialVersionUID = 1L;
+
+      private final MappedByteBuffer buffer;
+      private final int[] chunks;
+      private final int chunkStart;
+      private final int chunkEnd;
+      private final Header header;
+      private final double[] values;
+      private final int cols;
+      private final int limit;
+
+      private int position;
+
+      /**
+       * Without values only the indices are parsed (first pass), otherwise
+       * the values are stored in the band storage (second pass).
+       */
+      ChunkTask(final MappedByteBuffer buffer, final int[] chunks, final int chunkStart, final int chunkEnd,
+            final Header header, final double[] values, final int cols, final int limit) {
+         this.buffer = buffer;
+         this.chunks = chunks;
+         this.chunkStart = chunkStart;
+         this.chunkEnd = chunkEnd;
+         this.header = header;
+         this.values = values;
+         this.cols = cols;
+         this.limit = limit;
+      }
+
+      @Override
+      protected Chunk compute() {
+         if (chunkEnd - chunkStart <= 1) {
+            return parse(chunks[chunkStart], chunks[chunkEnd]);
+         }
+
+         final int mid = (chunkStart + chunkEnd) >> 1;
+         final ChunkTask firstWorker = new ChunkTask(buffer, chunks, chunkStart, mid, header, values, cols, limit);
+         firstWorker.fork();
+         final ChunkTask secondWorker = new ChunkTask(buffer, chunks, mid, chunkEnd, header, values, cols, limit);
+         final Chunk second = secondWorker.compute();
+         final Chunk first = firstWorker.join();
+
+         first.count += second.count;
+         first.outside += second.outside;
+         first.maxDistance = Math.max(first.maxDistance, second.maxDistance);
+         return first;
+      }
+
+      private Chunk parse(final int start, final int end) {
+         final Chunk chunk = new Chunk();
+         final int rows = header.rows;
+         final int mid = cols >> 1;
+         position = start;
+         while (position < end) {
+            skipBlanks(end);
+            if (position >= end) {
+               break;
+            }
+            final byte first = buffer.get(position);
+            if (first == '\n' || first == '\r') {
+               position++;
+               continue;
+            }
+            if (first == '%') {
+               skipLine(end);
+               continue;
+            }
+
+            final int row = parseInt(end) - 1;
+            final int col = parseInt(end) - 1;
+            if (row < 0 || col < 0 || row >= rows || col >= rows) {
+               throw new IllegalStateException("index out of range: " + (row + 1) + " " + (col + 1));
+            }
+            final int distance = Math.abs(row - col);
+            chunk.count++;
+
+            if (null == values) {
+               chunk.maxDistance = Math.max(chunk.maxDistance, distance);
+            } else if (distance > limit) {
+               chunk.outside++;
+            } else {
+               final double value = header.pattern ? 1.0 : parseDouble(end);
+               values[row * cols + mid + col - row] = value;
+               if (header.symmetric) {
+                  values[col * cols + mid + row - col] = value;
+               }
+            }
+            skipLine(end);
+         }
+         return chunk;
+      }
+
+      private void skipBlanks(final int end) {
+         while (position < end && (buffer.get(position) == ' ' || buffer.get(position) == '\t')) {
+            position++;
+         }
+      }
+
+      private void skipLine(final int end) {
+         while (position < end && buffer.get(position) != '\n') {
+            position++;
+         }
+         position++;
+      }
+
+      private int parseInt(final int end) {
+         skipBlanks(end);
+         int result = 0;
+         int digits = 0;
+         while (position < end) {
+            final int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+               break;
+            }
+            result = result * 10 + digit;
+            digits++;
+            position++;
+         }
+         if (digits == 0 || digits > 9) {
+            throw new IllegalStateException("invalid index at byte " + position);
+         }
+         return result;
+      }
+
+      /**
+       * Parses a decimal number without creating any objects. Numbers with
+       * up to 15 significant digits and small exponents are exact (both
+       * operands of the scaling are exact doubles), all others are parsed
+       * by Double.parseDouble.
+       */
+      private double parseDouble(final int end) {
+         skipBlanks(end);
+         final int start = position;
+         boolean negative = false;
+         if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+            negative = buffer.get(position) == '-';
+            position++;
+         }
+
+         long mantissa = 0;
+         int digits = 0;
+         int scale = 0;
+         boolean anyDigit = false;
+         boolean dot = false;
+         while (position < end) {
+            final byte c = buffer.get(position);
+            if (c >= '0' && c <= '9') {
+               anyDigit = true;
+               if (digits < 18) {
+                  if (mantissa != 0 || c != '0') {
+                     digits++;
+                  }
+                  mantissa = mantissa * 10 + (c - '0');
+                  if (dot) {
+                     scale--;
+                  }
+               } else if (!dot) {
+                  scale++;
+                  digits++;
+               }
+            } else if (c == '.' && !dot) {
+               dot = true;
+            } else {
+               break;
+            }
+            position++;
+         }
+
+         int exponent = 0;
+         if (position < end && (buffer.get(position) == 'e' || buffer.get(position) == 'E' || buffer.get(position) == 'd'
+               || buffer.get(position) == 'D')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+               negativeExponent = buffer.get(position) == '-';
+               position++;
+            }
+            int exponentDigits = 0;
+            while (position < end && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+               if (exponent < 100000) {
+                  exponent = exponent * 10 + (buffer.get(position) - '0');
+               }
+               exponentDigits++;
+               position++;
+            }
+            if (exponentDigits == 0) {
+               throw new IllegalStateException("invalid number at byte " + start);
+            }
+            exponent = negativeExponent ? -exponent : exponent;
+         }
+         if (!anyDigit) {
+            throw new IllegalStateException("invalid number at byte " + start);
+         }
+
+         final int totalScale = scale + exponent;
+         if (digits <= 15 && totalScale >= -22 && totalScale <= 22) {
+            final double value = totalScale < 0 ? mantissa / POW_10[-totalScale] : mantissa * POW_10[totalScale];
+            return negative ? -value : value;
+         }
+
+         final byte[] bytes = readBytes(buffer, start, position);
+         return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII).replace('d', 'e').replace('D', 'e'));
+      }
+   }
+
+}
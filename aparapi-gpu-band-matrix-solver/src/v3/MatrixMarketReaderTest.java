@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MatrixMarketReaderTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void v3_read_5x5_SymmetricFile_CorrectResult() throws IOException {
+
+      // ARRANGE
+      /*
+       * |  10   11    12    -    - |
+       * |  11   13    14   15    - |
+       * |  12   14    16   17   18 |   
+       * |  -    15    17   19   20 |
+       * |  -    -     18   20   21 |
+       */
+      final File file = createFile("%%MatrixMarket matrix coordinate real symmetric", "% lower triangle", "5 5 12",
+            "1 1 10.0", "2 1 11", "3 1 1.2e1", "2 2 13.0", "3 2 14.0", "4 2 15.0", "3 3 16.0", "4 3 17.0", "5 3 18.0",
+            "4 4 19.0", "5 4 20.0", "5 5 21.0");
+      final Vector b = new Vector(new double[] { 1, 2, 3, 4, 5 });
+
+      // ACT
+      final BandMatrixFull A = new MatrixMarketReader().read(file);
+      final Vector x = new Vector(5);
+      A.times(b, x);
+
+      // CHECK
+      Assert.assertEquals(5, A.getMaxCols());
+      Assert.assertArrayEquals(new double[] { 68.0, 139.0, 246.0, 257.0, 239.0 }, x.getValues(), 0.0);
+   }
+
+   @Test
+   public void v3_read_GeneralFile_NotMirrored() throws IOException {
+
+      // ARRANGE
+      final File file = createFile("%%MatrixMarket matrix coordinate real general", "3 3 4", "1 1 2.0", "1 2 -1.0",
+            "2 2 2.0", "3 3 4.5");
+      final Vector b = new Vector(new double[] { 1, 1, 1 });
+
+      // ACT
+      final BandMatrixFull A = new MatrixMarketReader().read(file);
+      final Vector x = new Vector(3);
+      A.times(b, x);
+
+      // CHECK
+      Assert.assertEquals(3, A.getMaxCols());
+      Assert.assertArrayEquals(new double[] { 1.0, 2.0, 4.5 }, x.getValues(), 0.0);
+   }
+
+   @Test
+   public void v3_read_EntriesOutsideMaxBandwidth_Dropped() throws IOException {
+
+      // ARRANGE
+      final File file = createFile("%%MatrixMarket matrix coordinate real symmetric", "4 4 5", "1 1 1", "2 2 1", "3 3 1",
+            "4 4 1", "4 1 7");
+      final MatrixMarketReader reader = new MatrixMarketReader();
+      reader.setMaxBandwidth(3);
+
+      // ACT
+      final BandMatrixFull A = reader.read(file);
+
+      // CHECK
+      Assert.assertEquals(3, A.getMaxCols());
+      Assert.assertEquals(1, reader.getEntriesOutsideBand());
+   }
+
+   @Test(expected = IOException.class)
+   public void v3_read_EntriesOutsideMaxBandwidth_Rejected() throws IOException {
+
+      // ARRANGE
+      final File file = createFile("%%MatrixMarket matrix coordinate real symmetric", "4 4 5", "1 1 1", "2 2 1", "3 3 1",
+            "4 4 1", "4 1 7");
+      final MatrixMarketReader reader = new MatrixMarketReader();
+      reader.setMaxBandwidth(3);
+      reader.setRejectEntriesOutsideBand(true);
+
+      // ACT
+      reader.read(file);
+   }
+
+   @Test
+   public void v3_read_LargeTridiagonalFile_SameAsSetValue() throws IOException {
+
+      // ARRANGE
+      final int rows = 50000;
+      final File file = folder.newFile("large.mtx");
+      final BandMatrixFull expected = new BandMatrixFull(rows, 3);
+      try (PrintWriter writer = new PrintWriter(file, "US-ASCII")) {
+         writer.println("%%MatrixMarket matrix coordinate real symmetric");
+         writer.println(rows + " " + rows + " " + (2 * rows - 1));
+         for (int row = 0; row < rows; row++) {
+            final double diagonal = 2.0 + row * 1.0E-3;
+            writer.println((row + 1) + " " + (row + 1) + " " + diagonal);
+            expected.setValue(row, row, diagonal);
+            if (row > 0) {
+               final double offDiagonal = -1.0 / row;
+               writer.println((row + 1) + " " + row + " " + offDiagonal);
+               expected.setValue(row - 1, row, offDiagonal);
+            }
+         }
+      }
+
+      // ACT
+      final BandMatrixFull A = new MatrixMarketReader().read(file);
+
+      // CHECK
+      Assert.assertEquals(rows, A.getMaxRows());
+      Assert.assertArrayEquals(expected.values, A.values, 0.0);
+   }
+
+   private File createFile(final String... lines) throws IOException {
+      final File file = folder.newFile();
+      try (PrintWriter writer = new PrintWriter(file, "US-ASCII")) {
+         for (final String line : lines) {
+            writer.println(line);
+         }
+      }
+      return file;
+   }
+
+}
@@ -0,0 +1,458 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Geometric multigrid V-cycle as preconditioner of band matrices from
+ * structured 1D or 2D grids (rows numbered row by row, e.g. the Poisson
+ * matrices of tests.BandMatrixGenerator). A grid of n points is coarsened
+ * to the (n - 1) / 2 points with odd index, per direction in 2D:
+ *
+ *    fine     0   1   2   3   4   5   6
+ *    coarse       0       1       2
+ *
+ * The prolongation P interpolates linearly (bilinearly in 2D) with zero
+ * boundary values, the restriction is P' and the coarse matrix is the
+ * Galerkin product P' * A * P, which is stored as BandMatrixFull again. The
+ * coarsest level is solved directly with BandCholesky. A cycle is
+ *
+ *    x = S(b, 0)                  pre smoothing
+ *    x = x + P * V(P' * (b - A * x))
+ *    x = S(b, x)                  post smoothing
+ *
+ * With the same number of damped Jacobi or Chebyshev steps before and
+ * after the coarse correction the cycle is symmetric, so it can be used by
+ * the preconditioned CG. The number of CG iterations then stays almost
+ * constant if the grid is refined, while it grows with the square root of
+ * the condition number without preconditioner.
+ *
+ * An instance keeps the work vectors of the levels and must not be used by
+ * concurrent solves.
+ */
+public final class MultigridPreconditioner implements Preconditioner {
+
+   public enum Smoother {
+      /**
+       * Damped Jacobi x = x + omega * D^-1 * (b - A * x)
+       */
+      JACOBI,
+      /**
+       * ChebyshevSolver.smooth for the upper part [lambdaMax / 30, lambdaMax]
+       * of the spectrum, with the Gershgorin bound as lambdaMax
+       */
+      CHEBYSHEV
+   }
+
+   /**
+    * Levels with at most this number of rows are solved directly
+    */
+   public static final int COARSEST_ROWS = 100;
+
+   /**
+    * Default number of smoothing steps before and after the coarse correction
+    */
+   public static final int SMOOTHING_STEPS = 2;
+
+   private static final double JACOBI_DAMPING = 2.0 / 3.0;
+
+   private static final double CHEBYSHEV_RANGE = 30.0;
+
+   private final Level[] levels;
+
+   private final Smoother smoother;
+
+   private final int steps;
+
+   private final BandCholesky coarsest;
+
+   private MultigridPreconditioner(final BandMatrixFull A, final int gridWidth, final int gridHeight,
+         final Smoother smoother, final int steps) {
+      if (A.getMaxRows() != gridWidth * gridHeight) {
+         throw new IllegalArgumentException("number of rows must be the number of grid points");
+      }
+      if (steps < 1) {
+         throw new IllegalArgumentException("number of smoothing steps must be positive");
+      }
+      this.smoother = smoother;
+      this.steps = steps;
+      final List<Level> list = new ArrayList<Level>();
+      Level level = new Level(A, gridWidth, gridHeight);
+      list.add(level);
+      while (level.canCoarsen()) {
+         level = level.createCoarse();
+         list.add(level);
+      }
+      levels = list.toArray(new Level[list.size()]);
+      coarsest = BandCholesky.factor(level.A);
+   }
+
+   public static MultigridPreconditioner create1D(final BandMatrixFull A) {
+      return create1D(A, Smoother.JACOBI, SMOOTHING_STEPS);
+   }
+
+   public static MultigridPreconditioner create1D(final BandMatrixFull A, final Smoother smoother, final int steps) {
+      return new MultigridPreconditioner(A, A.getMaxRows(), 1, smoother, steps);
+   }
+
+   public static MultigridPreconditioner create2D(final BandMatrixFull A, final int gridWidth) {
+      return create2D(A, gridWidth, Smoother.JACOBI, SMOOTHING_STEPS);
+   }
+
+   /**
+    * @param gridWidth number of grid points of a grid row, the number of rows
+    *           of A is a multiple of it
+    */
+   public static MultigridPreconditioner create2D(final BandMatrixFull A, final int gridWidth, final Smoother smoother,
+         final int steps) {
+      return new MultigridPreconditioner(A, gridWidth, A.getMaxRows() / gridWidth, smoother, steps);
+   }
+
+   /**
+    * One V-cycle for A * z = r with the initial guess zero
+    */
+   @Override
+   public void apply(final Vector r, final Vector z) {
+      cycle(0, r, z);
+   }
+
+   private void cycle(final int index, final Vector b, final Vector x) {
+      final Level level = levels[index];
+      if (index == levels.length - 1) {
+         System.arraycopy(b.values, 0, x.values, 0, b.values.length);
+         coarsest.solveInPlace(x.values, 0);
+         return;
+      }
+      final Level coarse = levels[index + 1];
+
+      Arrays.fill(x.values, 0.0);
+      smooth(level, b, x, true);
+
+      // coarse correction
+      BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, b.values.length, level.A, x, level.temp));
+      b.minus(level.temp, level.temp);
+      level.restrict(level.temp, coarse.b);
+      cycle(index + 1, coarse.b, coarse.x);
+      level.prolongate(coarse.x, x);
+
+      smooth(level, b, x, false);
+   }
+
+   private void smooth(final Level level, final Vector b, final Vector x, final boolean zeroGuess) {
+      if (Smoother.CHEBYSHEV == smoother) {
+         ChebyshevSolver.smooth(level.A, b, x, level.lambdaMax / CHEBYSHEV_RANGE, level.lambdaMax, steps);
+         return;
+      }
+      final int n = b.values.length;
+      final double[] inverseDiagonal = level.inverseDiagonal;
+      for (int step = 0; step < steps; step++) {
+         if (zeroGuess && step == 0) {
+            // x = omega * D^-1 * b without the product A * 0
+            for (int i = 0; i < n; i++) {
+               x.values[i] = JACOBI_DAMPING * inverseDiagonal[i] * b.values[i];
+            }
+            continue;
+         }
+         BandMatrixFull.POOL.invoke(new BandMatrixMultiplicatonTask(0, n, level.A, x, level.temp));
+         for (int i = 0; i < n; i++) {
+            x.values[i] += JACOBI_DAMPING * inverseDiagonal[i] * (b.values[i] - level.temp.values[i]);
+         }
+      }
+   }
+
+   public int getLevels() {
+      return levels.length;
+   }
+
+   BandMatrixFull getMatrix(final int level) {
+      return levels[level].A;
+   }
+
+   /**
+    * Matrix, grid and work vectors of one level. The interpolation is a
+    * tensor product of the 1D interpolations in x and y, which are kept as
+    * tables of the (at most two) coarse parents of every fine index.
+    */
+   private static final class Level {
+
+      private final BandMatrixFull A;
+      private final int width;
+      private final int height;
+      private final int coarseWidth;
+      private final int coarseHeight;
+      private final double[] inverseDiagonal;
+      private final double lambdaMax;
+      private final Vector b;
+      private final Vector x;
+      private final Vector temp;
+
+      // parent[2 * i + p] is the coarse index p of the fine index i, -1 for none
+      private int[] parentsX;
+      private double[] weightsX;
+      private int[] parentsY;
+      private double[] weightsY;
+
+      Level(final BandMatrixFull A, final int width, final int height) {
+         this.A = A;
+         this.width = width;
+         this.height = height;
+         coarseWidth = (width - 1) / 2;
+         coarseHeight = height == 1 ? 1 : (height - 1) / 2;
+         final int n = A.getMaxRows();
+         final int cols = A.getMaxCols();
+         final int mid = cols >> 1;
+         inverseDiagonal = new double[n];
+         double maximum = 0.0;
+         for (int row = 0; row < n; row++) {
+            inverseDiagonal[row] = 1.0 / A.values[row * cols + mid];
+            double sum = 0.0;
+            for (int col = Math.max(0, row - mid); col < Math.min(n, row - mid + cols); col++) {
+               sum += Math.abs(A.values[row * cols + mid + col - row]);
+            }
+            maximum = Math.max(maximum, sum);
+         }
+         lambdaMax = maximum;
+         b = new Vector(n);
+         x = new Vector(n);
+         temp = new Vector(n);
+      }
+
+      boolean canCoarsen() {
+         return A.getMaxRows() > COARSEST_ROWS && coarseWidth > 0 && coarseHeight > 0;
+      }
+
+      Level createCoarse() {
+         parentsX = new int[2 * width];
+         weightsX = new double[2 * width];
+         fillParents(width, coarseWidth, parentsX, weightsX);
+         parentsY = new int[2 * height];
+         weightsY = new double[2 * height];
+         if (height == 1) {
+            parentsY[0] = 0;
+            parentsY[1] = -1;
+            weightsY[0] = 1.0;
+         } else {
+            fillParents(height, coarseHeight, parentsY, weightsY);
+         }
+         return new Level(galerkin(), coarseWidth, coarseHeight);
+      }
+
+      private static void fillParents(final int n, final int coarseN, final int[] parents, final double[] weights) {
+         for (int i = 0; i < n; i++) {
+            parents[2 * i] = -1;
+            parents[2 * i + 1] = -1;
+            if ((i & 1) == 1) {
+               if (i >> 1 < coarseN) {
+                  parents[2 * i] = i >> 1;
+                  weights[2 * i] = 1.0;
+               }
+            } else {
+               if (i >> 1 > 0) {
+                  parents[2 * i] = (i >> 1) - 1;
+                  weights[2 * i] = 0.5;
+               }
+               if (i >> 1 < coarseN) {
+                  parents[2 * i + 1] = i >> 1;
+                  weights[2 * i + 1] = 0.5;
+               }
+            }
+         }
+      }
+
+      /**
+       * result = P' * fine
+       */
+      void restrict(final Vector fine, final Vector result) {
+         Arrays.fill(result.values, 0.0);
+         for (int y = 0; y < height; y++) {
+            for (int py = 2 * y; py < 2 * y + 2; py++) {
+               final int parentY = parentsY[py];
+               if (parentY < 0) {
+                  continue;
+               }
+               for (int x = 0; x < width; x++) {
+                  final double value = weightsY[py] * fine.values[y * width + x];
+                  for (int px = 2 * x; px < 2 * x + 2; px++) {
+                     if (parentsX[px] >= 0) {
+                        result.values[parentY * coarseWidth + parentsX[px]] += weightsX[px] * value;
+                     }
+                  }
+               }
+            }
+         }
+      }
+
+      /**
+       * fine = fine + P * coarse
+       */
+      void prolongate(final Vector coarse, final Vector fine) {
+         for (int y = 0; y < height; y++) {
+            for (int py = 2 * y; py < 2 * y + 2; py++) {
+               final int parentY = parentsY[py];
+               if (parentY < 0) {
+                  continue;
+               }
+               for (int x = 0; x < width; x++) {
+                  double sum = 0.0;
+                  for (int px = 2 * x; px < 2 * x + 2; px++) {
+                     if (parentsX[px] >= 0) {
+                        sum += weightsX[px] * coarse.values[parentY * coarseWidth + parentsX[px]];
+                     }
+                  }
+                  fine.values[y * width + x] += weightsY[py] * sum;
+               }
+            }
+         }
+      }
+
+      /**
+       * P' * A * P column by column: the column P * e(J) has at most 3 (1D)
+       * or 9 (2D) fine values, its product with A is restricted again. The
+       * values below the diagonal are collected first, because the
+       * bandwidth of the coarse matrix is not known before.
+       */
+      private BandMatrixFull galerkin() {
+         final int n = A.getMaxRows();
+         final int cols = A.getMaxCols();
+         final int mid = cols >> 1;
+         final int coarseRows = coarseWidth * coarseHeight;
+         final Vector column = new Vector(n);
+         final Vector product = new Vector(n);
+         final Vector restricted = new Vector(coarseRows);
+         final int[] support = new int[9];
+         int[] entryRows = new int[16];
+         int[] entryCols = new int[16];
+         double[] entryValues = new double[16];
+         int entries = 0;
+         int halfBandwidth = 0;
+
+         for (int J = 0; J < coarseRows; J++) {
+            // column = P * e(J)
+            final int cx = J % coarseWidth;
+            final int cy = J / coarseWidth;
+            int count = 0;
+            for (int y = height == 1 ? 0 : 2 * cy; y <= (height == 1 ? 0 : 2 * cy + 2); y++) {
+               final double wy = height == 1 ? 1.0 : (y == 2 * cy + 1 ? 1.0 : 0.5);
+               for (int x = 2 * cx; x <= 2 * cx + 2; x++) {
+                  final int i = y * width + x;
+                  column.values[i] = wy * (x == 2 * cx + 1 ? 1.0 : 0.5);
+                  support[count++] = i;
+               }
+            }
+
+            // product = A * column on the rows within the band of the support
+            final int rowStart = Math.max(0, support[0] - mid);
+            final int rowEnd = Math.min(n, support[count - 1] + mid + 1);
+            for (int row = rowStart; row < rowEnd; row++) {
+               double sum = 0.0;
+               for (int s = 0; s < count; s++) {
+                  final int col = support[s];
+                  final int offset = mid + col - row;
+                  if (offset >= 0 && offset < cols) {
+                     sum += A.values[row * cols + offset] * column.values[col];
+                  }
+               }
+               product.values[row] = sum;
+            }
+            for (int s = 0; s < count; s++) {
+               column.values[support[s]] = 0.0;
+            }
+
+            // restricted = P' * product, keep the values on and below the diagonal
+            restrictRows(product, restricted, rowStart, rowEnd);
+            Arrays.fill(product.values, rowStart, rowEnd, 0.0);
+            final int coarseStart = coarseIndex(rowStart, -1);
+            final int coarseEnd = Math.min(coarseRows, coarseIndex(rowEnd - 1, 0) + 1);
+            for (int I = J; I < coarseEnd; I++) {
+               final double value = restricted.values[I];
+               if (value != 0.0) {
+                  if (entries == entryValues.length) {
+                     entryRows = Arrays.copyOf(entryRows, entries << 1);
+                     entryCols = Arrays.copyOf(entryCols, entries << 1);
+                     entryValues = Arrays.copyOf(entryValues, entries << 1);
+                  }
+                  entryRows[entries] = I;
+                  entryCols[entries] = J;
+                  entryValues[entries++] = value;
+                  halfBandwidth = Math.max(halfBandwidth, I - J);
+               }
+            }
+            Arrays.fill(restricted.values, coarseStart, coarseEnd, 0.0);
+         }
+
+         final BandMatrixFull coarse = new BandMatrixFull(coarseRows, 2 * halfBandwidth + 1);
+         for (int e = 0; e < entries; e++) {
+            coarse.setValue(entryCols[e], entryRows[e], entryValues[e]);
+         }
+         return coarse;
+      }
+
+      /**
+       * Bound of the coarse indices of the parents of the fine index i, the
+       * smallest with shift -1, the largest with shift 0
+       */
+      private int coarseIndex(final int i, final int shift) {
+         if (height == 1) {
+            return Math.max(0, (i >> 1) + shift);
+         }
+         return Math.max(0, ((i / width) >> 1) + shift) * coarseWidth + (shift < 0 ? 0 : coarseWidth - 1);
+      }
+
+      /**
+       * result = result + P' * fine for the fine rows [rowStart, rowEnd)
+       */
+      private void restrictRows(final Vector fine, final Vector result, final int rowStart, final int rowEnd) {
+         for (int i = rowStart; i < rowEnd; i++) {
+            final double value = fine.values[i];
+            if (value == 0.0) {
+               continue;
+            }
+            final int x = i % width;
+            final int y = i / width;
+            for (int py = 2 * y; py < 2 * y + 2; py++) {
+               if (parentsY[py] < 0) {
+                  continue;
+               }
+               for (int px = 2 * x; px < 2 * x + 2; px++) {
+                  if (parentsX[px] >= 0) {
+                     result.values[parentsY[py] * coarseWidth + parentsX[px]] += weightsX[px] * weightsY[py] * value;
+                  }
+               }
+            }
+         }
+      }
+
+   }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+import tests.BandMatrixGenerator;
+
+public class MultigridPreconditionerTest {
+
+   private static final SolverOptions OPTIONS = SolverOptions.DEFAULT.withRelativeTolerance(1E-8);
+
+   @Test
+   public void create1D_Poisson_GalerkinStencil() {
+
+      // ARRANGE
+      final BandMatrixFull A = BandMatrixGenerator.poisson1D(255, 1L).createMatrixV3();
+
+      // ACT
+      final MultigridPreconditioner M = MultigridPreconditioner.create1D(A);
+
+      // CHECK
+      Assert.assertEquals(3, M.getLevels());
+      final BandMatrixFull coarse = M.getMatrix(1);
+      Assert.assertEquals(127, coarse.getMaxRows());
+      Assert.assertEquals(3, coarse.getMaxCols());
+      for (int row = 1; row < 126; row++) {
+         Assert.assertEquals(-0.5, coarse.values[row * 3], 1E-15);
+         Assert.assertEquals(1.0, coarse.values[row * 3 + 1], 1E-15);
+         Assert.assertEquals(-0.5, coarse.values[row * 3 + 2], 1E-15);
+      }
+   }
+
+   @Test
+   public void solveConjugateGradientPreconditioned_Poisson1D_IterationsIndependentOfSize() {
+      final int[] iterations = new int[3];
+      final int[] sizes = { 255, 4095, 65535 };
+      for (int i = 0; i < sizes.length; i++) {
+
+         // ARRANGE
+         final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(sizes[i], 1L);
+         final BandMatrixFull A = generator.createMatrixV3();
+         final Vector b = generator.createRightHandSideV3();
+
+         // ACT
+         final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientPreconditionedWithResult(A, b,
+               null, MultigridPreconditioner.create1D(A), OPTIONS);
+
+         // CHECK
+         Assert.assertTrue(result.isConverged());
+         Assert.assertEquals(result.getIterations(), result.getAlphas().length);
+         iterations[i] = result.getIterations();
+      }
+      Assert.assertTrue(iterations[2] <= iterations[0] + 2);
+      Assert.assertTrue(iterations[2] < 15);
+   }
+
+   @Test
+   public void solveConjugateGradientPreconditioned_Poisson2D_IterationsIndependentOfSize() {
+      assertIterationsIndependentOfSize(MultigridPreconditioner.Smoother.JACOBI);
+   }
+
+   @Test
+   public void solveConjugateGradientPreconditioned_ChebyshevSmoother_IterationsIndependentOfSize() {
+      assertIterationsIndependentOfSize(MultigridPreconditioner.Smoother.CHEBYSHEV);
+   }
+
+   private static void assertIterationsIndependentOfSize(final MultigridPreconditioner.Smoother smoother) {
+      final int[] iterations = new int[3];
+      final int[] widths = { 15, 31, 63 };
+      for (int i = 0; i < widths.length; i++) {
+
+         // ARRANGE
+         final int width = widths[i];
+         final BandMatrixGenerator generator = BandMatrixGenerator.poisson2D(width, width, 1L);
+         final BandMatrixFull A = generator.createMatrixV3();
+         final Vector b = generator.createRightHandSideV3();
+         final MultigridPreconditioner M = MultigridPreconditioner.create2D(A, width, smoother,
+               MultigridPreconditioner.SMOOTHING_STEPS);
+
+         // ACT
+         final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientPreconditionedWithResult(A, b,
+               null, M, OPTIONS);
+
+         // CHECK
+         Assert.assertTrue(result.isConverged());
+         final Vector expected = generator.createExactSolutionV3();
+         Assert.assertArrayEquals(expected.getValues(), result.getSolution().getValues(), 1E-5);
+         iterations[i] = result.getIterations();
+      }
+      Assert.assertTrue(iterations[2] <= iterations[0] + 3);
+      Assert.assertTrue(iterations[2] < 20);
+   }
+
+}
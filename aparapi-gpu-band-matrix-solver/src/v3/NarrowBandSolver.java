@@ -0,0 +1,393 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Direct solvers for symmetric positive definite band matrices with the
+ * bandwidth three (tridiagonal) or five (pentadiagonal), which need O(n)
+ * operations instead of the O(n * bandwidth) operations per CG iteration.
+ *
+ * The serial solver is the LDL' factorization of the band (Thomas
+ * algorithm). The parallel solver is the parallel cyclic reduction (PCR)
+ * of the matrix as block tridiagonal matrix with 2x2 blocks, which covers
+ * both bandwidths:
+ *
+ *    L(i) * x(i - s) + D(i) * x(i) + U(i) * x(i + s) = r(i)
+ *
+ * Every step eliminates the couplings to the blocks i - s and i + s with
+ * the equations of these blocks and doubles the stride s, after
+ * ceil(log2(n / 2)) steps the blocks are decoupled. All blocks of a step
+ * are independent, so a step is one fork/join task.
+ */
+public final class NarrowBandSolver {
+
+   /**
+    * Minimal number of rows for the parallel cyclic reduction, below the
+    * serial LDL' factorization is faster
+    */
+   public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+   /**
+    * Minimal number of blocks of a reduction task
+    */
+   private static final int REDUCTION_THRESHOLD = 1 << 12;
+
+   private NarrowBandSolver() {
+   }
+
+   public static boolean isNarrow(final BandMatrixFull A) {
+      return A.getMaxCols() == 3 || A.getMaxCols() == 5;
+   }
+
+   /**
+    * LDL' factorization for small and parallel cyclic reduction for large
+    * matrices
+    */
+   public static Vector solve(final BandMatrixFull A, final Vector b) {
+      return A.getMaxRows() < PARALLEL_THRESHOLD ? solveThomas(A, b) : solveCyclicReduction(A, b);
+   }
+
+   /**
+    * Serial LDL' factorization and forward and backward substitution, an
+    * empty system has the empty solution
+    */
+   public static Vector solveThomas(final BandMatrixFull A, final Vector b) {
+      checkNarrow(A);
+      final Vector x = new Vector(b.getMaxRows());
+      if (b.getMaxRows() == 0) {
+         return x;
+      } else if (A.getMaxCols() == 3) {
+         thomasTridiagonal(A.values, b.values, x.values);
+      } else {
+         thomasPentadiagonal(A.values, b.values, x.values);
+      }
+      return x;
+   }
+
+   /**
+    * Parallel cyclic reduction with 2x2 blocks on the fork/join pool
+    */
+   public static Vector solveCyclicReduction(final BandMatrixFull A, final Vector b) {
+      checkNarrow(A);
+      final int n = b.getMaxRows();
+      final int blocks = (n + 1) >> 1;
+
+      // two buffers, every step reads the one and writes the other
+      double[] lower = new double[blocks << 2];
+      double[] diagonal = new double[blocks << 2];
+      double[] upper = new double[blocks << 2];
+      double[] rhs = new double[blocks << 1];
+      double[] lowerNext = new double[blocks << 2];
+      double[] diagonalNext = new double[blocks << 2];
+      double[] upperNext = new double[blocks << 2];
+      double[] rhsNext = new double[blocks << 1];
+      toBlocks(A, b, lower, diagonal, upper, rhs);
+
+      for (int stride = 1; stride < blocks; stride <<= 1) {
+         BandMatrixFull.POOL.invoke(new ReductionTask(0, blocks, stride, lower, diagonal, upper, rhs, lowerNext,
+               diagonalNext, upperNext, rhsNext));
+         double[] swap = lower;
+         lower = lowerNext;
+         lowerNext = swap;
+         swap = diagonal;
+         diagonal = diagonalNext;
+         diagonalNext = swap;
+         swap = upper;
+         upper = upperNext;
+         upperNext = swap;
+         swap = rhs;
+         rhs = rhsNext;
+         rhsNext = swap;
+      }
+
+      // x(i) = D(i)^-1 * r(i), the blocks stay positive definite
+      final Vector x = new Vector(n);
+      for (int block = 0; block < blocks; block++) {
+         final int d = block << 2;
+         final double det = diagonal[d] * diagonal[d + 3] - diagonal[d + 1] * diagonal[d + 2];
+         if (!(diagonal[d] > 0.0 && det > 0.0)) {
+            throw new IllegalArgumentException("matrix is not positive definite");
+         }
+         final int row = block << 1;
+         x.values[row] = (diagonal[d + 3] * rhs[row] - diagonal[d + 1] * rhs[row + 1]) / det;
+         if (row + 1 < n) {
+            x.values[row + 1] = (diagonal[d] * rhs[row + 1] - diagonal[d + 2] * rhs[row]) / det;
+         }
+      }
+      return x;
+   }
+
+   private static void checkNarrow(final BandMatrixFull A) {
+      if (!isNarrow(A)) {
+         throw new IllegalArgumentException("bandwidth must be three or five, but is " + A.getMaxCols());
+      }
+   }
+
+   /**
+    * d(i) = a(i, i) - l(i)^2 * d(i - 1), l(i) = a(i, i - 1) / d(i - 1)
+    */
+   private static void thomasTridiagonal(final double[] values, final double[] b, final double[] x) {
+      final int n = b.length;
+      final double[] d = new double[n];
+      final double[] l = new double[n];
+
+      // factorization and forward substitution L * y = b
+      for (int i = 0; i < n; i++) {
+         final double diagonal = values[3 * i + 1];
+         if (i == 0) {
+            d[i] = diagonal;
+            x[i] = b[i];
+         } else {
+            l[i] = values[3 * i] / d[i - 1];
+            d[i] = diagonal - l[i] * values[3 * i];
+            x[i] = b[i] - l[i] * x[i - 1];
+         }
+         if (!(d[i] > 0.0)) {
+            throw new IllegalArgumentException("matrix is not positive definite");
+         }
+      }
+
+      // backward substitution L' * x = D^-1 * y
+      x[n - 1] /= d[n - 1];
+      for (int i = n - 2; i >= 0; i--) {
+         x[i] = x[i] / d[i] - l[i + 1] * x[i + 1];
+      }
+   }
+
+   /**
+    * d(i) = a(i, i) - l1(i)^2 * d(i - 1) - l2(i)^2 * d(i - 2) with the
+    * multipliers l1(i) = L(i, i - 1) and l2(i) = L(i, i - 2)
+    */
+   private static void thomasPentadiagonal(final double[] values, final double[] b, final double[] x) {
+      final int n = b.length;
+      final double[] d = new double[n];
+      final double[] l1 = new double[n];
+      final double[] l2 = new double[n];
+
+      // factorization and forward substitution L * y = b
+      for (int i = 0; i < n; i++) {
+         final int offset = 5 * i;
+         double diagonal = values[offset + 2];
+         double y = b[i];
+         if (i >= 2) {
+            l2[i] = values[offset] / d[i - 2];
+            diagonal -= l2[i] * values[offset];
+            y -= l2[i] * x[i - 2];
+         }
+         if (i >= 1) {
+            l1[i] = (values[offset + 1] - (i >= 2 ? l2[i] * d[i - 2] * l1[i - 1] : 0.0)) / d[i - 1];
+            diagonal -= l1[i] * l1[i] * d[i - 1];
+            y -= l1[i] * x[i - 1];
+         }
+         if (!(diagonal > 0.0)) {
+            throw new IllegalArgumentException("matrix is not positive definite");
+         }
+         d[i] = diagonal;
+         x[i] = y;
+      }
+
+      // backward substitution L' * x = D^-1 * y
+      for (int i = n - 1; i >= 0; i--) {
+         double value = x[i] / d[i];
+         if (i + 1 < n) {
+            value -= l1[i + 1] * x[i + 1];
+         }
+         if (i + 2 < n) {
+            value -= l2[i + 2] * x[i + 2];
+         }
+         x[i] = value;
+      }
+   }
+
+   /**
+    * Copies the band into 2x2 blocks (row major), for an odd number of rows
+    * the last block is completed with the identity
+    */
+   static void toBlocks(final BandMatrixFull A, final Vector b, final double[] lower, final double[] diagonal,
+         final double[] upper, final double[] rhs) {
+      final int n = b.getMaxRows();
+      for (int row = 0; row < rhs.length; row++) {
+         final int block = (row >> 1) << 2;
+         final int offset = (row & 1) << 1;
+         final int first = (row >> 1) << 1;
+         for (int k = 0; k < 2; k++) {
+            lower[block + offset + k] = getValue(A, row, first - 2 + k);
+            diagonal[block + offset + k] = row < n ? getValue(A, row, first + k) : (row == first + k ? 1.0 : 0.0);
+            upper[block + offset + k] = getValue(A, row, first + 2 + k);
+         }
+         rhs[row] = row < n ? b.values[row] : 0.0;
+      }
+   }
+
+   private static double getValue(final BandMatrixFull A, final int row, final int col) {
+      final int n = A.getMaxRows();
+      final int cols = A.getMaxCols();
+      final int offset = col - row + (cols >> 1);
+      if (row >= n || col < 0 || col >= n || offset < 0 || offset >= cols) {
+         return 0.0;
+      }
+      return A.values[row * cols + offset];
+   }
+
+   /**
+    * One reduction step for the blocks [blockStart, blockEnd)
+    */
+   private static final class ReductionTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int blockStart;
+      private final int blockEnd;
+      private final int stride;
+      private final double[] lower;
+      private final double[] diagonal;
+      private final double[] upper;
+      private final double[] rhs;
+      private final double[] lowerNext;
+      private final double[] diagonalNext;
+      private final double[] upperNext;
+      private final double[] rhsNext;
+
+      ReductionTask(final int blockStart, final int blockEnd, final int stride, final double[] lower,
+            final double[] diagonal, final double[] upper, final double[] rhs, final double[] lowerNext,
+            final double[] diagonalNext, final double[] upperNext, final double[] rhsNext) {
+         this.blockStart = blockStart;
+         this.blockEnd = blockEnd;
+         this.stride = stride;
+         this.lower = lower;
+         this.diagonal = diagonal;
+         this.upper = upper;
+         this.rhs = rhs;
+         this.lowerNext = lowerNext;
+         this.diagonalNext = diagonalNext;
+         this.upperNext = upperNext;
+         this.rhsNext = rhsNext;
+      }
+
+      @Override
+      protected void compute() {
+         if (blockEnd - blockStart <= REDUCTION_THRESHOLD) {
+            final double[] factor = new double[4];
+            final int blocks = rhs.length >> 1;
+            for (int block = blockStart; block < blockEnd; block++) {
+               final int m = block << 2;
+               final int v = block << 1;
+               System.arraycopy(diagonal, m, diagonalNext, m, 4);
+               rhsNext[v] = rhs[v];
+               rhsNext[v + 1] = rhs[v + 1];
+
+               // F = -L(i) * D(i - s)^-1, L'(i) = F * L(i - s), D'(i) += F * U(i - s)
+               final int previous = block - stride;
+               if (previous >= 0) {
+                  factor(lower, m, diagonal, previous << 2, factor);
+                  multiply(factor, lower, previous << 2, lowerNext, m, false);
+                  multiply(factor, upper, previous << 2, diagonalNext, m, true);
+                  multiplyAdd(factor, rhs, previous << 1, rhsNext, v);
+               } else {
+                  clear(lowerNext, m);
+               }
+
+               // F = -U(i) * D(i + s)^-1, U'(i) = F * U(i + s), D'(i) += F * L(i + s)
+               final int next = block + stride;
+               if (next < blocks) {
+                  factor(upper, m, diagonal, next << 2, factor);
+                  multiply(factor, upper, next << 2, upperNext, m, false);
+                  multiply(factor, lower, next << 2, diagonalNext, m, true);
+                  multiplyAdd(factor, rhs, next << 1, rhsNext, v);
+               } else {
+                  clear(upperNext, m);
+               }
+            }
+         } else {
+            final int mid = (blockEnd + blockStart) >> 1;
+            final ReductionTask firstWorker = new ReductionTask(blockStart, mid, stride, lower, diagonal, upper, rhs,
+                  lowerNext, diagonalNext, upperNext, rhsNext);
+            firstWorker.fork();
+            new ReductionTask(mid, blockEnd, stride, lower, diagonal, upper, rhs, lowerNext, diagonalNext, upperNext,
+                  rhsNext).compute();
+            firstWorker.join();
+         }
+      }
+
+      /**
+       * result = -C * D^-1
+       */
+      private static void factor(final double[] C, final int c, final double[] D, final int d, final double[] result) {
+         final double det = D[d] * D[d + 3] - D[d + 1] * D[d + 2];
+         result[0] = (C[c + 1] * D[d + 2] - C[c] * D[d + 3]) / det;
+         result[1] = (C[c] * D[d + 1] - C[c + 1] * D[d]) / det;
+         result[2] = (C[c + 3] * D[d + 2] - C[c + 2] * D[d + 3]) / det;
+         result[3] = (C[c + 2] * D[d + 1] - C[c + 3] * D[d]) / det;
+      }
+
+      /**
+       * result = F * M or result += F * M
+       */
+      private static void multiply(final double[] F, final double[] M, final int m, final double[] result,
+            final int r, final boolean add) {
+         final double r0 = F[0] * M[m] + F[1] * M[m + 2];
+         final double r1 = F[0] * M[m + 1] + F[1] * M[m + 3];
+         final double r2 = F[2] * M[m] + F[3] * M[m + 2];
+         final double r3 = F[2] * M[m + 1] + F[3] * M[m + 3];
+         if (add) {
+            result[r] += r0;
+            result[r + 1] += r1;
+            result[r + 2] += r2;
+            result[r + 3] += r3;
+         } else {
+            result[r] = r0;
+            result[r + 1] = r1;
+            result[r + 2] = r2;
+            result[r + 3] = r3;
+         }
+      }
+
+      /**
+       * result += F * v
+       */
+      private static void multiplyAdd(final double[] F, final double[] v, final int i, final double[] result,
+            final int r) {
+         result[r] += F[0] * v[i] + F[1] * v[i + 1];
+         result[r + 1] += F[2] * v[i] + F[3] * v[i + 1];
+      }
+
+      private static void clear(final double[] M, final int m) {
+         M[m] = 0.0;
+         M[m + 1] = 0.0;
+         M[m + 2] = 0.0;
+         M[m + 3] = 0.0;
+      }
+
+   }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+
+public class NarrowBandSolverTest {
+
+   @Test
+   public void solveThomas_Tridiagonal_ExactSolution() {
+      assertThomasExactSolution(3);
+   }
+
+   @Test
+   public void solveThomas_Pentadiagonal_ExactSolution() {
+      assertThomasExactSolution(5);
+   }
+
+   @Test
+   public void solveCyclicReduction_DifferentSizes_SameAsThomas() {
+      for (final int bandwidth : new int[] { 3, 5 }) {
+         for (final int rows : new int[] { 1, 2, 3, 7, 64, 1001 }) {
+
+            // ARRANGE
+            final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(rows, bandwidth, 1L);
+            final BandMatrixFull A = generator.createMatrixV3();
+            final Vector b = generator.createRightHandSideV3();
+
+            // ACT
+            final Vector x = NarrowBandSolver.solveCyclicReduction(A, b);
+
+            // CHECK
+            final Vector expected = NarrowBandSolver.solveThomas(A, b);
+            for (int row = 0; row < rows; row++) {
+               Assert.assertEquals(expected.getValue(row), x.getValue(row), 1E-10);
+            }
+         }
+      }
+   }
+
+   @Test
+   public void solve_EmptyMatrix_EmptySolution() {
+      for (final int bandwidth : new int[] { 3, 5 }) {
+
+         // ACT
+         final Vector x = BandMatrixFull.solve(new BandMatrixFull(0, bandwidth), new Vector(0));
+
+         // CHECK
+         Assert.assertEquals(0, x.getMaxRows());
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void solveThomas_IndefiniteMatrix_Exception() {
+
+      // ARRANGE
+      final BandMatrixFull A = new BandMatrixFull(3, 3);
+      A.setValue(0, 0, 1.0);
+      A.setValue(0, 1, 2.0);
+      A.setValue(1, 1, 1.0);
+      A.setValue(1, 2, 0.5);
+      A.setValue(2, 2, 1.0);
+
+      // ACT
+      NarrowBandSolver.solveThomas(A, new Vector(3));
+   }
+
+   private static void assertThomasExactSolution(final int bandwidth) {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(1000, bandwidth, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = generator.createRightHandSideV3();
+
+      // ACT
+      final Vector x = NarrowBandSolver.solveThomas(A, b);
+
+      // CHECK
+      final Vector expected = generator.createExactSolutionV3();
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(expected.getValue(row), x.getValue(row), 1E-10);
+      }
+   }
+
+}
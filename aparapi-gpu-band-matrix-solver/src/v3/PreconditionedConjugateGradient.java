@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import solver.SolveRecorder;
+import solver.SolveResult;
+
+/**
+ * Preconditioned conjugate gradient loop shared by the matrix types of v3,
+ * a subclass provides the matrix vector product. With z = M^-1 * r an
+ * iteration is
+ *
+ *    alpha = r' * z / p' * A * p
+ *    x = x + alpha * p,  r = r - alpha * A * p
+ *    beta = rznew / rzold,  p = z + beta * p
+ *
+ * The recorded coefficients belong to the preconditioned operator M^-1 * A.
+ */
+abstract class PreconditionedConjugateGradient {
+
+   // y = A * x
+   abstract void times(Vector x, Vector y);
+
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   final SolveResult<Vector> solve(final Vector b, final Vector x0, final Preconditioner M,
+         final SolveRecorder recorder) {
+
+      // create local variables
+      final int numberOfEquations = b.getMaxRows();
+      final Vector Ap = new Vector(numberOfEquations);
+      final Vector x = null == x0 ? new Vector(numberOfEquations) : new Vector(x0);
+      final Vector z = new Vector(numberOfEquations);
+      final Vector temp = new Vector(numberOfEquations);
+
+      // r = b - A * x
+      final Vector r = new Vector(b);
+      long start;
+      if (null != x0) {
+         start = recorder.time();
+         times(x, temp);
+         recorder.matVec(start);
+         b.minus(temp, r);
+      }
+
+      // z = M^-1 * r, p = z
+      start = recorder.time();
+      M.apply(r, z);
+      final Vector p = new Vector(z);
+      recorder.vector(start);
+
+      // rzold = r' * z
+      start = recorder.time();
+      double rzold = r.dotProduct(z);
+      final double rsold = r.dotProduct(r);
+      recorder.initialResidual(rsold, null == x0 ? rsold : b.dotProduct(b));
+      recorder.reduction(start);
+
+      while (!recorder.isStopped()) {
+         // Ap = A * p
+         start = recorder.time();
+         times(p, Ap);
+         recorder.matVec(start);
+
+         // alpha = rzold / ( p' * Ap )
+         start = recorder.time();
+         final double alpha = rzold / p.dotProduct(Ap);
+         recorder.reduction(start);
+         recorder.alpha(alpha);
+
+         // x = x + alpha * p
+         start = recorder.time();
+         p.multi(alpha, temp);
+         x.plus(temp, x);
+
+         // r = r - alpha * Ap
+         Ap.multi(alpha, temp);
+         r.minus(temp, r);
+         recorder.vector(start);
+
+         // rsnew = r' * r
+         start = recorder.time();
+         final double rsnew = r.dotProduct(r);
+         recorder.reduction(start);
+         if (recorder.iteration(rsnew)) {
+            break;
+         }
+
+         // z = M^-1 * r
+         start = recorder.time();
+         M.apply(r, z);
+         recorder.vector(start);
+         start = recorder.time();
+         final double rznew = r.dotProduct(z);
+         recorder.reduction(start);
+         recorder.beta(rznew / rzold);
+
+         // p = z + rznew / rzold * p
+         start = recorder.time();
+         p.multi(rznew / rzold, temp);
+         z.plus(temp, p);
+         recorder.vector(start);
+
+         // rzold = rznew
+         rzold = rznew;
+      }
+
+      return recorder.finish(x);
+   }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+/* The symmetric matrix with variable bandwidth ( '-' indicates zero values):
+ * 
+ * |  a0   a1   -    -   a5  |
+ * |  a1   a2   a3   -    -  |
+ * |  -    a3   a4   -   a6  |   
+ * |  -    -    -   a7   a8  |
+ * |  a5   -    a6  a8   a9  |
+ * 
+ * is managed in the profile (skyline) format, every row keeps the values 
+ * from its first non zero value up to the diagonal:
+ * 
+ * |  a0                   |
+ * |  a1   a2              |
+ * |       a3   a4         |   
+ * |                 a7    |
+ * |  a5   0    a6   a8  a9|
+ * 
+ * is stored as array:
+ * 
+ * [ a0,   a1, a2,   a3, a4,   a7,   a5, 0, a6, a8, a9 ] with row pointers [ 0, 1, 3, 5, 6, 11 ]
+ * 
+ */
+public final class ProfileMatrix {
+
+   private final int rows;
+
+   final int[] rowPointers;
+
+   final double[] values;
+
+   /**
+    * @param firstColumns index of the first non zero value in each row
+    */
+   public ProfileMatrix(final int[] firstColumns) {
+      rows = firstColumns.length;
+      rowPointers = new int[rows + 1];
+      for (int row = 0; row < rows; row++) {
+         if (firstColumns[row] < 0 || firstColumns[row] > row) {
+            throw new IllegalArgumentException("invalid first column " + firstColumns[row] + " in row " + row);
+         }
+         rowPointers[row + 1] = rowPointers[row] + row - firstColumns[row] + 1;
+      }
+      values = new double[rowPointers[rows]];
+   }
+
+   private ProfileMatrix(final int[] rowPointers, final double[] values) {
+      rows = rowPointers.length - 1;
+      this.rowPointers = rowPointers;
+      this.values = values;
+   }
+
+   /**
+    * Creates the profile of the non zero values of a symmetric band matrix
+    * and copies these values.
+    */
+   public static ProfileMatrix create(final BandMatrixFull A) {
+      final int rows = A.getMaxRows();
+      final int cols = A.getMaxCols();
+      final int mid = cols >> 1;
+      final int[] firstColumns = new int[rows];
+      for (int row = 0; row < rows; row++) {
+         firstColumns[row] = row;
+         for (int col = Math.max(0, row - mid); col < row; col++) {
+            if (A.values[row * cols + mid + col - row] != 0.0) {
+               firstColumns[row] = col;
+               break;
+            }
+         }
+      }
+      final ProfileMatrix P = new ProfileMatrix(firstColumns);
+      for (int row = 0; row < rows; row++) {
+         for (int col = firstColumns[row]; col <= row; col++) {
+            P.values[P.rowPointers[row + 1] - 1 - row + col] = A.values[row * cols + mid + col - row];
+         }
+      }
+      return P;
+   }
+
+   public void times(final Vector b, final Vector result) {
+      final double[] x = b.values;
+      final double[] y = result.values;
+      for (int row = 0; row < rows; row++) {
+         final int diagonal = rowPointers[row + 1] - 1;
+         final int firstColumn = row - diagonal + rowPointers[row];
+         double sum = values[diagonal] * x[row];
+         final double xRow = x[row];
+         for (int i = rowPointers[row], col = firstColumn; i < diagonal; i++, col++) {
+            sum += values[i] * x[col];
+            // upper part by symmetry
+            y[col] += values[i] * xRow;
+         }
+         y[row] = sum;
+      }
+   }
+
+   /**
+    * Cholesky factorization A = L * L' in the same profile, the profile of 
+    * the factor is identical to the profile of the matrix (no fill-in 
+    * outside of the envelope).
+    */
+   public ProfileMatrix cholesky() {
+      final double[] l = values.clone();
+      for (int row = 0; row < rows; row++) {
+         final int rowStart = rowPointers[row];
+         final int diagonal = rowPointers[row + 1] - 1;
+         final int firstColumn = row - diagonal + rowStart;
+
+         for (int col = firstColumn; col < row; col++) {
+            final int colStart = rowPointers[col];
+            final int colDiagonal = rowPointers[col + 1] - 1;
+            final int colFirst = col - colDiagonal + colStart;
+
+            // l(row,col) = (a(row,col) - sum l(row,k) * l(col,k)) / l(col,col)
+            final int k0 = Math.max(firstColumn, colFirst);
+            double sum = l[rowStart + col - firstColumn];
+            for (int k = k0, ir = rowStart + k0 - firstColumn, ic = colStart + k0 - colFirst; k < col; k++, ir++, ic++) {
+               sum -= l[ir] * l[ic];
+            }
+            l[rowStart + col - firstColumn] = sum / l[colDiagonal];
+         }
+
+         double sum = l[diagonal];
+         for (int i = rowStart; i < diagonal; i++) {
+            sum -= l[i] * l[i];
+         }
+         if (sum <= 0.0) {
+            throw new IllegalStateException("matrix is not positive definite in row " + row);
+         }
+         l[diagonal] = Math.sqrt(sum);
+      }
+      return new ProfileMatrix(rowPointers, l);
+   }
+
+   /**
+    * Solves L * L' * x = b with the factor of cholesky()
+    */
+   public static Vector solveCholesky(final ProfileMatrix L, final Vector b) {
+      final int rows = L.rows;
+      final double[] x = b.values.clone();
+
+      // forward substitution L * y = b
+      for (int row = 0; row < rows; row++) {
+         final int diagonal = L.rowPointers[row + 1] - 1;
+         final int firstColumn = row - diagonal + L.rowPointers[row];
+         double sum = x[row];
+         for (int i = L.rowPointers[row], col = firstColumn; i < diagonal; i++, col++) {
+            sum -= L.values[i] * x[col];
+         }
+         x[row] = sum / L.values[diagonal];
+      }
+
+      // backward substitution L' * x = y (column oriented)
+      for (int row = rows - 1; row >= 0; row--) {
+         final int diagonal = L.rowPointers[row + 1] - 1;
+         final int firstColumn = row - diagonal + L.rowPointers[row];
+         x[row] /= L.values[diagonal];
+         final double xRow = x[row];
+         for (int i = L.rowPointers[row], col = firstColumn; i < diagonal; i++, col++) {
+            x[col] -= L.values[i] * xRow;
+         }
+      }
+      return new Vector(x);
+   }
+
+   public static Vector solveSkylineCholesky(final ProfileMatrix A, final Vector b) {
+      return solveCholesky(A.cholesky(), b);
+   }
+
+   /**
+    * Sets the value of the symmetric matrix, the position must be inside 
+    * of the profile.
+    */
+   public void setValue(final int row, final int col, final double value) {
+      values[getIndex(row, col)] = value;
+   }
+
+   public double getValue(final int row, final int col) {
+      final int lower = Math.max(row, col);
+      final int upper = Math.min(row, col);
+      final int firstColumn = lower - rowPointers[lower + 1] + 1 + rowPointers[lower];
+      return upper < firstColumn ? 0.0 : values[getIndex(row, col)];
+   }
+
+   private int getIndex(final int row, final int col) {
+      final int lower = Math.max(row, col);
+      final int upper = Math.min(row, col);
+      final int index = rowPointers[lower + 1] - 1 - lower + upper;
+      if (index < rowPointers[lower]) {
+         throw new IllegalArgumentException("position (" + row + "," + col + ") is outside of the profile");
+      }
+      return index;
+   }
+
+   public int getMaxRows() {
+      return rows;
+   }
+
+   /**
+    * Number of stored values (lower triangle including diagonal)
+    */
+   public int getEnvelopeSize() {
+      return values.length;
+   }
+
+}
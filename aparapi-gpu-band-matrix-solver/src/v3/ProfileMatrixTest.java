@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProfileMatrixTest {
+
+   @Test
+   public void v3_times_5x5_SymetricMatrix_CorrectResult() {
+
+      // ARRANGE
+      /*
+       * |  10   11    12    -    - |
+       * |  11   13    14   15    - |
+       * |  12   14    16   17   18 |   
+       * |  -    15    17   19   20 |
+       * |  -    -     18   20   21 |
+       */
+      final ProfileMatrix A = new ProfileMatrix(new int[] { 0, 0, 0, 1, 2 });
+      A.setValue(0, 0, 10.0);
+      A.setValue(0, 1, 11.0);
+      A.setValue(0, 2, 12.0);
+      A.setValue(1, 1, 13.0);
+      A.setValue(1, 2, 14.0);
+      A.setValue(1, 3, 15.0);
+      A.setValue(2, 2, 16.0);
+      A.setValue(2, 3, 17.0);
+      A.setValue(2, 4, 18.0);
+      A.setValue(3, 3, 19.0);
+      A.setValue(3, 4, 20.0);
+      A.setValue(4, 4, 21.0);
+      final Vector b = new Vector(new double[] { 1, 2, 3, 4, 5 });
+
+      // ACT
+      final Vector x = new Vector(5);
+      A.times(b, x);
+
+      // CHECK
+      Assert.assertArrayEquals(new double[] { 68.0, 139.0, 246.0, 257.0, 239.0 }, x.getValues(), 0.0);
+      Assert.assertEquals(12, A.getEnvelopeSize());
+   }
+
+   @Test
+   public void v3_create_BandMatrixWithOneLongCoupling_SmallEnvelope() {
+
+      // ARRANGE
+      final int rows = 1000;
+      final BandMatrixFull A = createMatrixWithLongCoupling(rows);
+
+      // ACT
+      final ProfileMatrix P = ProfileMatrix.create(A);
+
+      // CHECK
+      Assert.assertEquals(2 * rows - 1 + 98, P.getEnvelopeSize());
+      Assert.assertEquals(-0.5, P.getValue(100, 1), 0.0);
+      Assert.assertEquals(-0.5, P.getValue(1, 100), 0.0);
+      Assert.assertEquals(0.0, P.getValue(3, 0), 0.0);
+   }
+
+   @Test
+   public void v3_solveSkylineCholesky_MatrixWithLongCoupling_Solved() {
+
+      // ARRANGE
+      final int rows = 1000;
+      final BandMatrixFull A = createMatrixWithLongCoupling(rows);
+      final ProfileMatrix P = ProfileMatrix.create(A);
+      final Vector expected = new Vector(rows);
+      for (int row = 0; row < rows; row++) {
+         expected.setValue(row, Math.sin(0.1 * row));
+      }
+      final Vector b = new Vector(rows);
+      A.times(expected, b);
+      final Vector check = new Vector(rows);
+      P.times(expected, check);
+
+      // ACT
+      final Vector x = ProfileMatrix.solveSkylineCholesky(P, b);
+
+      // CHECK
+      Assert.assertArrayEquals(b.getValues(), check.getValues(), 1E-12);
+      Assert.assertArrayEquals(expected.getValues(), x.getValues(), 1E-10);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void v3_cholesky_IndefiniteMatrix_Exception() {
+
+      // ARRANGE
+      final ProfileMatrix A = new ProfileMatrix(new int[] { 0, 0 });
+      A.setValue(0, 0, 1.0);
+      A.setValue(0, 1, 2.0);
+      A.setValue(1, 1, 1.0);
+
+      // ACT
+      A.cholesky();
+   }
+
+   /**
+    * Tridiagonal matrix with one coupling between row 1 and row 100
+    */
+   private static BandMatrixFull createMatrixWithLongCoupling(final int rows) {
+      final BandMatrixFull A = new BandMatrixFull(rows, 201);
+      for (int row = 0; row < rows; row++) {
+         A.setValue(row, row, 4.0);
+         if (row + 1 < rows) {
+            A.setValue(row, row + 1, -1.0);
+         }
+      }
+      A.setValue(1, 100, -0.5);
+      return A;
+   }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+
+/**
+ * Band matrix which has been assembled from a sparse matrix after a 
+ * symmetric permutation. Right hand sides are permuted into the band 
+ * numbering and solutions are returned in the original numbering.
+ */
+public final class ReorderedBandMatrix {
+
+   private final BandMatrixFull matrix;
+
+   private final int[] permutation;
+
+   /**
+    * @param permutation the new row i is the old row permutation[i]
+    */
+   public ReorderedBandMatrix(final BandMatrixFull matrix, final int[] permutation) {
+      this.matrix = matrix;
+      this.permutation = permutation;
+   }
+
+   /**
+    * Reorders the sparse matrix with reverse Cuthill-McKee and assembles
+    * the result in the full band matrix format.
+    */
+   public static ReorderedBandMatrix create(final SparseMatrix A) {
+      final int[] permutation = ReverseCuthillMcKee.permutation(A);
+      return new ReorderedBandMatrix(A.toBandMatrixFull(permutation), permutation);
+   }
+
+   // return original numbering -> band numbering
+   public Vector permute(final Vector b) {
+      final Vector result = new Vector(b.getMaxRows());
+      for (int i = 0; i < permutation.length; i++) {
+         result.values[i] = b.values[permutation[i]];
+      }
+      return result;
+   }
+
+   // return band numbering -> original numbering
+   public Vector unpermute(final Vector x) {
+      final Vector result = new Vector(x.getMaxRows());
+      for (int i = 0; i < permutation.length; i++) {
+         result.values[permutation[i]] = x.values[i];
+      }
+      return result;
+   }
+
+   public Vector solveConjugateGradient(final Vector b) {
+      return unpermute(BandMatrixFull.solveConjugateGradient(matrix, permute(b)));
+   }
+
+   public SolveResult<Vector> solveConjugateGradientWithResult(final Vector b) {
+      return solveConjugateGradientWithResult(b, SolverOptions.DEFAULT);
+   }
+
+   public SolveResult<Vector> solveConjugateGradientWithResult(final Vector b, final SolverOptions options) {
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientWithResult(matrix, permute(b), options);
+      return result.withSolution(unpermute(result.getSolution()));
+   }
+
+   /**
+    * The initial guess x0 is given in the original numbering
+    */
+   public SolveResult<Vector> solveConjugateGradientWithResult(final Vector b, final Vector x0,
+         final SolverOptions options) {
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientWithResult(matrix, permute(b),
+            permute(x0), options);
+      return result.withSolution(unpermute(result.getSolution()));
+   }
+
+   public Vector solveConjugateGradientForkAndJoin(final Vector b) {
+      return unpermute(BandMatrixFull.solveConjugateGradientForkAndJoin(matrix, permute(b)));
+   }
+
+   public SolveResult<Vector> solveConjugateGradientForkAndJoinWithResult(final Vector b) {
+      return solveConjugateGradientForkAndJoinWithResult(b, SolverOptions.DEFAULT);
+   }
+
+   public SolveResult<Vector> solveConjugateGradientForkAndJoinWithResult(final Vector b, final SolverOptions options) {
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientForkAndJoinWithResult(matrix, permute(b),
+            options);
+      return result.withSolution(unpermute(result.getSolution()));
+   }
+
+   public SolveResult<Vector> solveConjugateGradientForkAndJoinWithResult(final Vector b, final Vector x0,
+         final SolverOptions options) {
+      final SolveResult<Vector> result = BandMatrixFull.solveConjugateGradientForkAndJoinWithResult(matrix, permute(b),
+            permute(x0), options);
+      return result.withSolution(unpermute(result.getSolution()));
+   }
+
+   public BandMatrixFull getMatrix() {
+      return matrix;
+   }
+
+   public int[] getPermutation() {
+      return permutation;
+   }
+
+}
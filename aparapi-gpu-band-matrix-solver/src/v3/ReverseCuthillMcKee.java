@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+
+/**
+ * Reverse Cuthill-McKee ordering to reduce the bandwidth of a sparse matrix.
+ * 
+ * The graph of the symmetric pattern (A + A') is traversed breadth first,
+ * neighbours are visited in order of increasing degree and every connected 
+ * component starts at a pseudo-peripheral node (George and Liu). The reverse
+ * of the visiting order is returned.
+ */
+public final class ReverseCuthillMcKee {
+
+   private ReverseCuthillMcKee() {
+   }
+
+   /**
+    * @return permutation, where the new row i is the old row permutation[i]
+    */
+   public static int[] permutation(final SparseMatrix A) {
+      final int rows = A.getMaxRows();
+      final int[][] adjacency = createAdjacency(A);
+      final int[] degree = new int[rows];
+      for (int node = 0; node < rows; node++) {
+         degree[node] = adjacency[node].length;
+      }
+      for (int node = 0; node < rows; node++) {
+         sortByDegree(adjacency[node], degree);
+      }
+
+      final int[] order = new int[rows];
+      final boolean[] visited = new boolean[rows];
+      final int[] levels = new int[rows];
+      Arrays.fill(levels, -1);
+      int count = 0;
+      for (int node = 0; node < rows; node++) {
+         if (!visited[node]) {
+            final int start = findPseudoPeripheralNode(node, adjacency, degree, levels);
+
+            // Cuthill-McKee breadth first search of the component
+            int head = count;
+            order[count++] = start;
+            visited[start] = true;
+            while (head < count) {
+               final int current = order[head++];
+               for (final int neighbour : adjacency[current]) {
+                  if (!visited[neighbour]) {
+                     visited[neighbour] = true;
+                     order[count++] = neighbour;
+                  }
+               }
+            }
+         }
+      }
+
+      // reverse
+      final int[] permutation = new int[rows];
+      for (int i = 0; i < rows; i++) {
+         permutation[i] = order[rows - 1 - i];
+      }
+      return permutation;
+   }
+
+   private static int findPseudoPeripheralNode(final int node, final int[][] adjacency, final int[] degree,
+         final int[] levels) {
+      int start = node;
+      int eccentricity = -1;
+      while (true) {
+         final int[] component = levelStructure(start, adjacency, levels);
+         final int depth = levels[component[component.length - 1]];
+
+         // continue with the node of minimal degree in the last level
+         int candidate = -1;
+         for (int i = component.length - 1; i >= 0 && levels[component[i]] == depth; i--) {
+            if (candidate < 0 || degree[component[i]] < degree[candidate]) {
+               candidate = component[i];
+            }
+         }
+         for (final int member : component) {
+            levels[member] = -1;
+         }
+
+         if (depth <= eccentricity || candidate == start) {
+            return start;
+         }
+         eccentricity = depth;
+         start = candidate;
+      }
+   }
+
+   /**
+    * Breadth first search from start, sets the levels of all reached nodes
+    * (unvisited nodes have level -1) and returns these nodes in visiting order.
+    */
+   private static int[] levelStructure(final int start, final int[][] adjacency, final int[] levels) {
+      int[] queue = new int[16];
+      int head = 0;
+      int count = 0;
+      queue[count++] = start;
+      levels[start] = 0;
+      while (head < count) {
+         final int current = queue[head++];
+         for (final int neighbour : adjacency[current]) {
+            if (levels[neighbour] < 0) {
+               levels[neighbour] = levels[current] + 1;
+               if (count == queue.length) {
+                  queue = Arrays.copyOf(queue, count << 1);
+               }
+               queue[count++] = neighbour;
+            }
+         }
+      }
+      return Arrays.copyOf(queue, count);
+   }
+
+   /**
+    * Neighbours of each node in the symmetric pattern without the diagonal
+    */
+   private static int[][] createAdjacency(final SparseMatrix A) {
+      final int rows = A.getMaxRows();
+      final int[] count = new int[rows];
+      for (int row = 0; row < rows; row++) {
+         for (int i = A.rowPointers[row]; i < A.rowPointers[row + 1]; i++) {
+            final int col = A.columnIndices[i];
+            if (col != row) {
+               count[row]++;
+               count[col]++;
+            }
+         }
+      }
+      final int[][] adjacency = new int[rows][];
+      for (int row = 0; row < rows; row++) {
+         adjacency[row] = new int[count[row]];
+         count[row] = 0;
+      }
+      for (int row = 0; row < rows; row++) {
+         for (int i = A.rowPointers[row]; i < A.rowPointers[row + 1]; i++) {
+            final int col = A.columnIndices[i];
+            if (col != row) {
+               adjacency[row][count[row]++] = col;
+               adjacency[col][count[col]++] = row;
+            }
+         }
+      }
+
+      // remove the duplicates of symmetric entries
+      for (int row = 0; row < rows; row++) {
+         final int[] neighbours = adjacency[row];
+         Arrays.sort(neighbours);
+         int unique = 0;
+         for (int i = 0; i < neighbours.length; i++) {
+            if (unique == 0 || neighbours[unique - 1] != neighbours[i]) {
+               neighbours[unique++] = neighbours[i];
+            }
+         }
+         adjacency[row] = Arrays.copyOf(neighbours, unique);
+      }
+      return adjacency;
+   }
+
+   private static void sortByDegree(final int[] nodes, final int[] degree) {
+      for (int i = 1; i < nodes.length; i++) {
+         final int node = nodes[i];
+         int k = i - 1;
+         while (k >= 0 && degree[nodes[k]] > degree[node]) {
+            nodes[k + 1] = nodes[k];
+            k--;
+         }
+         nodes[k + 1] = node;
+      }
+   }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReverseCuthillMcKeeTest {
+
+   @Test
+   public void v3_permutation_ShuffledPathGraph_BandwidthThree() {
+
+      // ARRANGE
+      //
+      // tridiagonal matrix with randomly numbered unknowns
+      final int rows = 200;
+      final int[] numbering = createShuffledNumbering(rows);
+      final SparseMatrix A = createPathMatrix(rows, numbering);
+
+      // ACT
+      final int[] permutation = ReverseCuthillMcKee.permutation(A);
+
+      // CHECK
+      Assert.assertTrue(A.getBandwidth() > 100);
+      Assert.assertEquals(3, A.getBandwidth(permutation));
+      Assert.assertArrayEquals(new boolean[rows], isMissing(permutation));
+   }
+
+   @Test
+   public void v3_permutation_ShuffledGridWithTwoComponents_BandwidthReduced() {
+
+      // ARRANGE
+      //
+      // two 5-point stencils on 10 x 10 grids
+      final int side = 10;
+      final int rows = 2 * side * side;
+      final int[] numbering = createShuffledNumbering(rows);
+      final int[] rowIndices = new int[5 * rows];
+      final int[] colIndices = new int[5 * rows];
+      final double[] values = new double[5 * rows];
+      int count = 0;
+      for (int node = 0; node < rows; node++) {
+         final int x = node % side;
+         final int y = (node / side) % side;
+         final int[] neighbours = { node, x > 0 ? node - 1 : -1, x < side - 1 ? node + 1 : -1,
+               y > 0 ? node - side : -1, y < side - 1 ? node + side : -1 };
+         for (final int neighbour : neighbours) {
+            if (neighbour >= 0) {
+               rowIndices[count] = numbering[node];
+               colIndices[count] = numbering[neighbour];
+               values[count++] = neighbour == node ? 4.0 : -1.0;
+            }
+         }
+      }
+      final SparseMatrix A = SparseMatrix.fromCoordinates(rows, Arrays.copyOf(rowIndices, count),
+            Arrays.copyOf(colIndices, count), Arrays.copyOf(values, count));
+
+      // ACT
+      final int[] permutation = ReverseCuthillMcKee.permutation(A);
+
+      // CHECK
+      Assert.assertTrue(A.getBandwidth(permutation) <= 2 * (side + 1) + 1);
+      Assert.assertArrayEquals(new boolean[rows], isMissing(permutation));
+   }
+
+   @Test
+   public void v3_solveConjugateGradient_ReorderedBandMatrix_OriginalNumbering() {
+
+      // ARRANGE
+      final int rows = 100;
+      final int[] numbering = createShuffledNumbering(rows);
+      final SparseMatrix A = createPathMatrix(rows, numbering);
+      final Vector expected = new Vector(rows);
+      for (int row = 0; row < rows; row++) {
+         expected.setValue(row, Math.cos(row));
+      }
+      final Vector b = new Vector(rows);
+      A.times(expected, b);
+
+      // ACT
+      final ReorderedBandMatrix reordered = ReorderedBandMatrix.create(A);
+      final Vector x = reordered.solveConjugateGradient(b);
+
+      // CHECK
+      Assert.assertEquals(3, reordered.getMatrix().getMaxCols());
+      Assert.assertArrayEquals(expected.getValues(), x.getValues(), 1E-4);
+   }
+
+   private static SparseMatrix createPathMatrix(final int rows, final int[] numbering) {
+      final int[] rowIndices = new int[3 * rows - 2];
+      final int[] colIndices = new int[3 * rows - 2];
+      final double[] values = new double[3 * rows - 2];
+      int count = 0;
+      for (int node = 0; node < rows; node++) {
+         rowIndices[count] = numbering[node];
+         colIndices[count] = numbering[node];
+         values[count++] = 4.0;
+         if (node > 0) {
+            rowIndices[count] = numbering[node];
+            colIndices[count] = numbering[node - 1];
+            values[count++] = -1.0;
+            rowIndices[count] = numbering[node - 1];
+            colIndices[count] = numbering[node];
+            values[count++] = -1.0;
+         }
+      }
+      return SparseMatrix.fromCoordinates(rows, rowIndices, colIndices, values);
+   }
+
+   private static int[] createShuffledNumbering(final int rows) {
+      final Random random = new Random(42);
+      final int[] numbering = new int[rows];
+      for (int i = 0; i < rows; i++) {
+         numbering[i] = i;
+      }
+      for (int i = rows - 1; i > 0; i--) {
+         final int k = random.nextInt(i + 1);
+         final int temp = numbering[i];
+         numbering[i] = numbering[k];
+         numbering[k] = temp;
+      }
+      return numbering;
+   }
+
+   private static boolean[] isMissing(final int[] permutation) {
+      final boolean[] missing = new boolean[permutation.length];
+      Arrays.fill(missing, true);
+      for (final int index : permutation) {
+         missing[index] = false;
+      }
+      return missing;
+   }
+
+}
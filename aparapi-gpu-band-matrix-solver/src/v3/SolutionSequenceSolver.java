@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+
+/**
+ * Solves a sequence of systems A * x(t) = b(t) with a constant matrix, 
+ * e.g. the time steps of a transient simulation. The initial guess of 
+ * every solve is extrapolated from the last solutions with a polynomial 
+ * in time (Lagrange form, so that the time steps need not be equal):
+ * 
+ *    CONSTANT    x0 = x(t1)
+ *    LINEAR      x0 = x(t1) + (t - t1) / (t1 - t2) * (x(t1) - x(t2))
+ *    QUADRATIC   through x(t1), x(t2) and x(t3)
+ *    
+ * As long as fewer solutions are known, the order is reduced accordingly.
+ */
+public final class SolutionSequenceSolver {
+
+   public enum Extrapolation {
+      NONE(0), CONSTANT(1), LINEAR(2), QUADRATIC(3);
+
+      private final int points;
+
+      private Extrapolation(final int points) {
+         this.points = points;
+      }
+
+      public int getPoints() {
+         return points;
+      }
+   }
+
+   private final BandMatrixFull matrix;
+
+   private final Extrapolation extrapolation;
+
+   private final boolean forkJoin;
+
+   private final SolverOptions options;
+
+   /**
+    * Last solutions and their times, the most recent one first
+    */
+   private final Vector[] solutions;
+
+   private final double[] times;
+
+   private int count;
+
+   public SolutionSequenceSolver(final BandMatrixFull matrix, final Extrapolation extrapolation,
+         final boolean forkJoin, final SolverOptions options) {
+      this.matrix = matrix;
+      this.extrapolation = extrapolation;
+      this.forkJoin = forkJoin;
+      this.options = options;
+      this.solutions = new Vector[Math.max(1, extrapolation.getPoints())];
+      this.times = new double[solutions.length];
+   }
+
+   public SolutionSequenceSolver(final BandMatrixFull matrix, final Extrapolation extrapolation) {
+      this(matrix, extrapolation, false, SolverOptions.DEFAULT);
+   }
+
+   /**
+    * Solves the system for the given time, which has to be later than the 
+    * time of the previous solve
+    */
+   public SolveResult<Vector> solve(final double time, final Vector b) {
+      if (count > 0 && !(time > times[0])) {
+         throw new IllegalArgumentException("time must increase, last time was " + times[0]);
+      }
+      final Vector x0 = extrapolate(time);
+      final SolveResult<Vector> result = forkJoin ? BandMatrixFull.solveConjugateGradientForkAndJoinWithResult(
+            matrix, b, x0, options) : BandMatrixFull.solveConjugateGradientWithResult(matrix, b, x0, options);
+      store(time, result.getSolution());
+      return result;
+   }
+
+   /**
+    * Initial guess for the given time, null if no solution is known yet or 
+    * the extrapolation is NONE
+    */
+   public Vector extrapolate(final double time) {
+      final int points = Math.min(count, extrapolation.getPoints());
+      if (points == 0) {
+         return null;
+      }
+      final Vector result = new Vector(solutions[0].getMaxRows());
+      final Vector temp = new Vector(result.getMaxRows());
+      for (int j = 0; j < points; j++) {
+         // Lagrange basis polynomial of point j
+         double weight = 1.0;
+         for (int m = 0; m < points; m++) {
+            if (m != j) {
+               weight *= (time - times[m]) / (times[j] - times[m]);
+            }
+         }
+         solutions[j].multi(weight, temp);
+         result.plus(temp, result);
+      }
+      return result;
+   }
+
+   /**
+    * Forgets the known solutions, e.g. after a discontinuity of b(t)
+    */
+   public void reset() {
+      for (int i = 0; i < solutions.length; i++) {
+         solutions[i] = null;
+      }
+      count = 0;
+   }
+
+   public int getKnownSolutions() {
+      return count;
+   }
+
+   private void store(final double time, final Vector x) {
+      System.arraycopy(solutions, 0, solutions, 1, solutions.length - 1);
+      System.arraycopy(times, 0, times, 1, times.length - 1);
+      // copy, because the caller owns the returned solution
+      solutions[0] = new Vector(x);
+      times[0] = time;
+      count = Math.min(count + 1, solutions.length);
+   }
+
+}
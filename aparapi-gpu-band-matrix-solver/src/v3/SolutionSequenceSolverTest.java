@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import solver.SolveResult;
+import solver.SolverOptions;
+import tests.BandMatrixGenerator;
+
+public class SolutionSequenceSolverTest {
+
+   private static final int ROWS = 200;
+
+   private static final BandMatrixGenerator GENERATOR = BandMatrixGenerator.poisson1D(ROWS, 1L);
+
+   private static final Vector B0 = GENERATOR.createRightHandSideV3();
+
+   private static final Vector B1 = BandMatrixGenerator.poisson1D(ROWS, 2L).createRightHandSideV3();
+
+   @Test
+   public void extrapolate_LinearFunction_Exact() {
+
+      // ARRANGE
+      final BandMatrixFull A = GENERATOR.createMatrixV3();
+      final SolutionSequenceSolver solver = new SolutionSequenceSolver(A, SolutionSequenceSolver.Extrapolation.LINEAR);
+      solver.solve(1.0, rightHandSide(1.0, 0.0));
+      solver.solve(3.0, rightHandSide(3.0, 0.0));
+
+      // ACT
+      final Vector x0 = solver.extrapolate(4.0);
+
+      // CHECK
+      final Vector expected = BandMatrixFull.solveConjugateGradient(A, rightHandSide(4.0, 0.0));
+      for (int row = 0; row < ROWS; row++) {
+         Assert.assertEquals(expected.getValue(row), x0.getValue(row), 1E-3);
+      }
+   }
+
+   @Test
+   public void solve_QuadraticSequence_FewerIterations() {
+
+      // ARRANGE
+      final BandMatrixFull A = GENERATOR.createMatrixV3();
+      final SolverOptions options = SolverOptions.DEFAULT.withRelativeTolerance(1E-8);
+      final SolutionSequenceSolver cold = new SolutionSequenceSolver(A, SolutionSequenceSolver.Extrapolation.NONE,
+            false, options);
+      final SolutionSequenceSolver warm = new SolutionSequenceSolver(A,
+            SolutionSequenceSolver.Extrapolation.QUADRATIC, true, options);
+      SolveResult<Vector> coldResult = null;
+      SolveResult<Vector> warmResult = null;
+
+      // ACT
+      for (int step = 0; step < 5; step++) {
+         final double time = 0.1 * step;
+         coldResult = cold.solve(time, rightHandSide(time, time * time));
+         warmResult = warm.solve(time, rightHandSide(time, time * time));
+      }
+
+      // CHECK
+      Assert.assertEquals(3, warm.getKnownSolutions());
+      Assert.assertTrue(warmResult.isConverged());
+      Assert.assertTrue(warmResult.getIterations() * 2 < coldResult.getIterations());
+      for (int row = 0; row < ROWS; row++) {
+         Assert.assertEquals(coldResult.getSolution().getValue(row), warmResult.getSolution().getValue(row), 1E-4);
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void solve_DecreasingTime_Exception() {
+
+      // ARRANGE
+      final SolutionSequenceSolver solver = new SolutionSequenceSolver(GENERATOR.createMatrixV3(),
+            SolutionSequenceSolver.Extrapolation.CONSTANT);
+      solver.solve(1.0, B0);
+
+      // ACT
+      solver.solve(1.0, B0);
+   }
+
+   /**
+    * b(t) = (1 + t) * B0 + s * B1
+    */
+   private static Vector rightHandSide(final double time, final double s) {
+      final Vector result = new Vector(ROWS);
+      final Vector temp = new Vector(ROWS);
+      B0.multi(1.0 + time, result);
+      B1.multi(s, temp);
+      result.plus(temp, result);
+      return result;
+   }
+
+}
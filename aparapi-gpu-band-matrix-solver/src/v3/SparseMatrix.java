@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+
+/* General sparse matrix in compressed sparse row (CSR) format:
+ * 
+ * |  4  -1   -   -  -1 |
+ * | -1   4  -1   -   - |
+ * |  -  -1   4  -1   - |   
+ * |  -   -  -1   4  -1 |
+ * | -1   -   -  -1   4 |
+ * 
+ * is stored in the arrays:
+ * 
+ * rowPointers   = [ 0, 3, 6, 9, 12, 15 ]
+ * columnIndices = [ 0, 1, 4,   0, 1, 2,   1, 2, 3,   2, 3, 4,   0, 3, 4 ] 
+ * values        = [ 4,-1,-1,  -1, 4,-1,  -1, 4,-1,  -1, 4,-1,  -1,-1, 4 ] 
+ * 
+ */
+public final class SparseMatrix {
+
+   private final int rows;
+
+   final int[] rowPointers;
+
+   final int[] columnIndices;
+
+   final double[] values;
+
+   public SparseMatrix(final int rowsNumber, final int[] rowPointers, final int[] columnIndices, final double[] values) {
+      if (rowPointers.length != rowsNumber + 1 || columnIndices.length != values.length
+            || rowPointers[rowsNumber] != values.length) {
+         throw new IllegalArgumentException("inconsistent CSR arrays");
+      }
+      rows = rowsNumber;
+      this.rowPointers = rowPointers;
+      this.columnIndices = columnIndices;
+      this.values = values;
+   }
+
+   /**
+    * Creates the CSR format from coordinate lists, the entries may be in any 
+    * order and duplicate entries are summed up.
+    */
+   public static SparseMatrix fromCoordinates(final int rowsNumber, final int[] rowIndices, final int[] colIndices,
+         final double[] entries) {
+
+      // count entries per row
+      final int[] pointers = new int[rowsNumber + 1];
+      for (final int row : rowIndices) {
+         pointers[row + 1]++;
+      }
+      for (int row = 0; row < rowsNumber; row++) {
+         pointers[row + 1] += pointers[row];
+      }
+
+      // scatter entries to rows
+      final int[] next = Arrays.copyOf(pointers, rowsNumber);
+      final int[] cols = new int[entries.length];
+      final double[] vals = new double[entries.length];
+      for (int i = 0; i < entries.length; i++) {
+         final int position = next[rowIndices[i]]++;
+         cols[position] = colIndices[i];
+         vals[position] = entries[i];
+      }
+
+      // sort each row by column and sum duplicates
+      final int[] compactPointers = new int[rowsNumber + 1];
+      int count = 0;
+      for (int row = 0; row < rowsNumber; row++) {
+         sortRow(cols, vals, pointers[row], pointers[row + 1]);
+         for (int i = pointers[row]; i < pointers[row + 1]; i++) {
+            if (count > compactPointers[row] && cols[count - 1] == cols[i]) {
+               vals[count - 1] += vals[i];
+            } else {
+               cols[count] = cols[i];
+               vals[count] = vals[i];
+               count++;
+            }
+         }
+         compactPointers[row + 1] = count;
+      }
+      return new SparseMatrix(rowsNumber, compactPointers, Arrays.copyOf(cols, count), Arrays.copyOf(vals, count));
+   }
+
+   private static void sortRow(final int[] cols, final double[] vals, final int start, final int end) {
+      // insertion sort, rows of discretization matrices are short
+      for (int i = start + 1; i < end; i++) {
+         final int col = cols[i];
+         final double value = vals[i];
+         int k = i - 1;
+         while (k >= start && cols[k] > col) {
+            cols[k + 1] = cols[k];
+            vals[k + 1] = vals[k];
+            k--;
+         }
+         cols[k + 1] = col;
+         vals[k + 1] = value;
+      }
+   }
+
+   public void times(final Vector b, final Vector result) {
+      for (int row = 0; row < rows; row++) {
+         double sum = 0.0;
+         for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+            sum += values[i] * b.values[columnIndices[i]];
+         }
+         result.values[row] = sum;
+      }
+   }
+
+   /**
+    * Bandwidth of the full band matrix format which is needed to store 
+    * this matrix with the rows and columns in the given order.
+    */
+   public int getBandwidth() {
+      int distance = 0;
+      for (int row = 0; row < rows; row++) {
+         for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+            distance = Math.max(distance, Math.abs(row - columnIndices[i]));
+         }
+      }
+      return 2 * distance + 1;
+   }
+
+   /**
+    * Bandwidth needed after the permutation, where the new row i is 
+    * the old row permutation[i].
+    */
+   public int getBandwidth(final int[] permutation) {
+      final int[] inverse = invert(permutation);
+      int distance = 0;
+      for (int row = 0; row < rows; row++) {
+         for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+            distance = Math.max(distance, Math.abs(inverse[row] - inverse[columnIndices[i]]));
+         }
+      }
+      return 2 * distance + 1;
+   }
+
+   /**
+    * Assembles the symmetric permutation P * A * P' in the full band matrix 
+    * format, where the new row i is the old row permutation[i].
+    */
+   public BandMatrixFull toBandMatrixFull(final int[] permutation) {
+      final int[] inverse = invert(permutation);
+      final int cols = getBandwidth(permutation);
+      final int mid = cols >> 1;
+      final BandMatrixFull A = new BandMatrixFull(rows, cols);
+      for (int row = 0; row < rows; row++) {
+         final int newRow = inverse[row];
+         for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+            A.values[newRow * cols + mid + inverse[columnIndices[i]] - newRow] = values[i];
+         }
+      }
+      return A;
+   }
+
+   static int[] invert(final int[] permutation) {
+      final int[] inverse = new int[permutation.length];
+      for (int i = 0; i < permutation.length; i++) {
+         inverse[permutation[i]] = i;
+      }
+      return inverse;
+   }
+
+   public int getMaxRows() {
+      return rows;
+   }
+
+   public int getNonZeros() {
+      return values.length;
+   }
+
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import tests.Parameter;
+
+/**
+ * SPIKE solver for symmetric positive definite band matrices with the half
+ * bandwidth k. The rows are split into p partitions, the diagonal block
+ * A(j) of every partition is factored independently on the fork/join pool.
+ * With the coupling block B(j) between the last k rows of partition j and
+ * the first k rows of partition j + 1 and C(j + 1) = B(j)' the solution is
+ *
+ *    x(j) = g(j) - V(j) * x(j + 1).top - W(j) * x(j - 1).bottom
+ *
+ * with g(j) = A(j)^-1 * f(j) and the spikes V(j) = A(j)^-1 * [0; B(j)] and
+ * W(j) = A(j)^-1 * [C(j); 0]. The last k rows of x(j) and the first k rows
+ * of x(j + 1) of all p - 1 interfaces form the reduced system, which is
+ * block tridiagonal with 2k x 2k blocks and only needs the tips of the
+ * spikes (first and last k rows). It is solved serially, then all
+ * partitions are retrieved in parallel.
+ *
+ * Only the first k columns of A(j)^-1 need full solves, because the tips
+ * of V(j) follow by symmetry from them and from the last k x k block of
+ * A(j)^-1, which costs O(k^3). The factorization of the partitions and the
+ * reduced system is done once, so the solver can be reused for several
+ * right hand sides.
+ */
+public final class SpikeSolver {
+
+   private final int rows;
+
+   private final int halfBandwidth;
+
+   private final int partitions;
+
+   // first row of every partition and the number of rows as last value
+   private final int[] rowStarts;
+
+   private final BandCholesky[] factors;
+
+   // B(j) for the interfaces j = 0 ... p - 2, k x k row major
+   private final double[][] couplings;
+
+   // tips of the spikes, k x k row major
+   private final double[][] vTop;
+   private final double[][] vBottom;
+   private final double[][] wTop;
+   private final double[][] wBottom;
+
+   // LU factorization of the reduced system (block Thomas algorithm)
+   private final double[][] reducedDiagonal;
+   private final int[][] reducedPivots;
+
+   public SpikeSolver(final BandMatrixFull A, final int partitions) {
+      if (partitions < 1) {
+         throw new IllegalArgumentException("number of partitions must be positive");
+      }
+      rows = A.getMaxRows();
+      halfBandwidth = A.getMaxCols() >> 1;
+
+      // every partition needs at least 2k rows, so that the tips do not overlap
+      this.partitions = Math.max(1, Math.min(partitions, rows / Math.max(1, halfBandwidth << 1)));
+      rowStarts = new int[this.partitions + 1];
+      for (int j = 0; j <= this.partitions; j++) {
+         rowStarts[j] = (int) ((long) rows * j / this.partitions);
+      }
+
+      // B(j)(a, b) = A(end - k + a, end + b), only the lower triangle is inside the band
+      couplings = new double[this.partitions - 1][];
+      final int k = halfBandwidth;
+      final int cols = A.getMaxCols();
+      for (int j = 0; j < this.partitions - 1; j++) {
+         final int end = rowStarts[j + 1];
+         final double[] B = new double[k * k];
+         for (int a = 0; a < k; a++) {
+            for (int b = 0; b <= a; b++) {
+               B[a * k + b] = A.values[(end - k + a) * cols + k + k - a + b];
+            }
+         }
+         couplings[j] = B;
+      }
+
+      factors = new BandCholesky[this.partitions];
+      vTop = new double[this.partitions][];
+      vBottom = new double[this.partitions][];
+      wTop = new double[this.partitions][];
+      wBottom = new double[this.partitions][];
+      BandMatrixFull.POOL.invoke(new FactorTask(0, this.partitions, A));
+
+      reducedDiagonal = new double[this.partitions - 1][];
+      reducedPivots = new int[this.partitions - 1][];
+      factorReducedSystem();
+   }
+
+   public static Vector solveSpike(final BandMatrixFull A, final Vector b) {
+      return new SpikeSolver(A, Parameter.NUMBER_OF_POCESSORS).solve(b);
+   }
+
+   public Vector solve(final Vector b) {
+      final int k = halfBandwidth;
+      final double[][] g = new double[partitions][];
+      BandMatrixFull.POOL.invoke(new SolveTask(0, partitions, b.values, g, null));
+
+      // forward elimination of the reduced system, y(j) = [x(j).bottom; x(j + 1).top]
+      final double[][] y = new double[partitions - 1][];
+      for (int j = 0; j < partitions - 1; j++) {
+         final double[] gj = g[j];
+         final double[] gNext = g[j + 1];
+         final double[] r = new double[k << 1];
+         System.arraycopy(gj, gj.length - k, r, 0, k);
+         System.arraycopy(gNext, 0, r, k, k);
+         if (j > 0) {
+            // r(j) -= L(j) * D'(j - 1)^-1 * r'(j - 1), L(j) = [W(j).bottom, 0; 0, 0]
+            final double[] previous = y[j - 1].clone();
+            luSolve(reducedDiagonal[j - 1], reducedPivots[j - 1], k << 1, previous);
+            subtractProduct(wBottom[j], previous, 0, r, 0, k);
+         }
+         y[j] = r;
+      }
+
+      // backward substitution y(j) = D'(j)^-1 * (r'(j) - U(j) * y(j + 1)), U(j) = [0, 0; 0, V(j + 1).top]
+      for (int j = partitions - 2; j >= 0; j--) {
+         if (j < partitions - 2) {
+            subtractProduct(vTop[j + 1], y[j + 1], k, y[j], k, k);
+         }
+         luSolve(reducedDiagonal[j], reducedPivots[j], k << 1, y[j]);
+      }
+
+      final Vector x = new Vector(rows);
+      BandMatrixFull.POOL.invoke(new SolveTask(0, partitions, b.values, y, x.values));
+      return x;
+   }
+
+   public int getPartitions() {
+      return partitions;
+   }
+
+   /**
+    * D(j) = [I, V(j).bottom; W(j + 1).top, I] and D'(j) = D(j) - L(j) *
+    * D'(j - 1)^-1 * U(j - 1)
+    */
+   private void factorReducedSystem() {
+      final int k = halfBandwidth;
+      final int n = k << 1;
+      for (int j = 0; j < partitions - 1; j++) {
+         final double[] d = new double[n * n];
+         for (int i = 0; i < k; i++) {
+            d[i * n + i] = 1.0;
+            d[(k + i) * n + k + i] = 1.0;
+            System.arraycopy(vBottom[j], i * k, d, i * n + k, k);
+            System.arraycopy(wTop[j + 1], i * k, d, (k + i) * n, k);
+         }
+         if (j > 0) {
+            // only the upper right block changes, U(j - 1) has only the lower right block V(j).top
+            final double[] column = new double[n];
+            final double[] vPrevious = vTop[j];
+            for (int c = 0; c < k; c++) {
+               Arrays.fill(column, 0.0);
+               for (int i = 0; i < k; i++) {
+                  column[k + i] = vPrevious[i * k + c];
+               }
+               luSolve(reducedDiagonal[j - 1], reducedPivots[j - 1], n, column);
+               for (int i = 0; i < k; i++) {
+                  double sum = 0.0;
+                  for (int t = 0; t < k; t++) {
+                     sum += wBottom[j][i * k + t] * column[t];
+                  }
+                  d[i * n + k + c] -= sum;
+               }
+            }
+         }
+         reducedPivots[j] = new int[n];
+         luFactor(d, reducedPivots[j], n);
+         reducedDiagonal[j] = d;
+      }
+   }
+
+   /**
+    * result[r..r+k) -= M * v[i..i+k) for a k x k row major matrix M
+    */
+   private static void subtractProduct(final double[] M, final double[] v, final int i, final double[] result,
+         final int r, final int k) {
+      for (int row = 0; row < k; row++) {
+         double sum = 0.0;
+         for (int col = 0; col < k; col++) {
+            sum += M[row * k + col] * v[i + col];
+         }
+         result[r + row] -= sum;
+      }
+   }
+
+   /**
+    * LU factorization with partial pivoting of a dense n x n matrix (row
+    * major) in place
+    */
+   static void luFactor(final double[] a, final int[] pivots, final int n) {
+      for (int col = 0; col < n; col++) {
+         int pivot = col;
+         for (int row = col + 1; row < n; row++) {
+            if (Math.abs(a[row * n + col]) > Math.abs(a[pivot * n + col])) {
+               pivot = row;
+            }
+         }
+         if (a[pivot * n + col] == 0.0) {
+            throw new IllegalStateException("reduced system is singular");
+         }
+         pivots[col] = pivot;
+         if (pivot != col) {
+            for (int c = 0; c < n; c++) {
+               final double temp = a[col * n + c];
+               a[col * n + c] = a[pivot * n + c];
+               a[pivot * n + c] = temp;
+            }
+         }
+         final double diagonal = a[col * n + col];
+         for (int row = col + 1; row < n; row++) {
+            final double factor = a[row * n + col] / diagonal;
+            a[row * n + col] = factor;
+            for (int c = col + 1; c < n; c++) {
+               a[row * n + c] -= factor * a[col * n + c];
+            }
+         }
+      }
+   }
+
+   /**
+    * Solves with the factorization of luFactor in place
+    */
+   static void luSolve(final double[] lu, final int[] pivots, final int n, final double[] x) {
+      for (int row = 0; row < n; row++) {
+         final int pivot = pivots[row];
+         if (pivot != row) {
+            final double temp = x[row];
+            x[row] = x[pivot];
+            x[pivot] = temp;
+         }
+         double sum = x[row];
+         for (int col = 0; col < row; col++) {
+            sum -= lu[row * n + col] * x[col];
+         }
+         x[row] = sum;
+      }
+      for (int row = n - 1; row >= 0; row--) {
+         double sum = x[row];
+         for (int col = row + 1; col < n; col++) {
+            sum -= lu[row * n + col] * x[col];
+         }
+         x[row] = sum / lu[row * n + row];
+      }
+   }
+
+   /**
+    * Factors the partitions [first, last) and computes the tips of their
+    * spikes
+    */
+   private final class FactorTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int first;
+      private final int last;
+      private final BandMatrixFull A;
+
+      FactorTask(final int first, final int last, final BandMatrixFull A) {
+         this.first = first;
+         this.last = last;
+         this.A = A;
+      }
+
+      @Override
+      protected void compute() {
+         if (last - first == 1) {
+            factorPartition(first);
+         } else {
+            final int mid = (last + first) >> 1;
+            final FactorTask firstWorker = new FactorTask(first, mid, A);
+            firstWorker.fork();
+            new FactorTask(mid, last, A).compute();
+            firstWorker.join();
+         }
+      }
+
+      private void factorPartition(final int j) {
+         final int k = halfBandwidth;
+         final int start = rowStarts[j];
+         final int m = rowStarts[j + 1] - start;
+         final BandCholesky L = BandCholesky.factor(A, start, start + m);
+         factors[j] = L;
+
+         // Z = first k columns of A(j)^-1 (tips only), W(j) = Z * C(j), V(j).top = Z.bottom' * B(j)
+         if (j > 0 || j < partitions - 1) {
+            final double[] zTop = new double[k * k];
+            final double[] zBottom = new double[k * k];
+            final double[] column = new double[m];
+            for (int c = 0; c < k; c++) {
+               Arrays.fill(column, 0.0);
+               column[c] = 1.0;
+               L.solveInPlace(column, 0);
+               for (int i = 0; i < k; i++) {
+                  zTop[i * k + c] = column[i];
+                  zBottom[i * k + c] = column[m - k + i];
+               }
+            }
+            if (j > 0) {
+               // C(j) = B(j - 1)'
+               final double[] C = transpose(couplings[j - 1], k);
+               wTop[j] = product(zTop, false, C, k);
+               wBottom[j] = product(zBottom, false, C, k);
+            }
+            if (j < partitions - 1) {
+               vTop[j] = product(zBottom, true, couplings[j], k);
+
+               // V(j).bottom = (last k x k block of A(j)^-1) * B(j)
+               final double[] yBottom = new double[k * k];
+               for (int c = 0; c < k; c++) {
+                  Arrays.fill(column, m - k, m, 0.0);
+                  column[m - k + c] = 1.0;
+                  L.solveInPlace(column, m - k);
+                  for (int i = 0; i < k; i++) {
+                     yBottom[i * k + c] = column[m - k + i];
+                  }
+               }
+               vBottom[j] = product(yBottom, false, couplings[j], k);
+            }
+         }
+      }
+
+   }
+
+   private static double[] transpose(final double[] M, final int k) {
+      final double[] result = new double[k * k];
+      for (int row = 0; row < k; row++) {
+         for (int col = 0; col < k; col++) {
+            result[col * k + row] = M[row * k + col];
+         }
+      }
+      return result;
+   }
+
+   /**
+    * M * N or M' * N for k x k row major matrices
+    */
+   private static double[] product(final double[] M, final boolean transposed, final double[] N, final int k) {
+      final double[] result = new double[k * k];
+      for (int row = 0; row < k; row++) {
+         for (int t = 0; t < k; t++) {
+            final double m = transposed ? M[t * k + row] : M[row * k + t];
+            if (m != 0.0) {
+               for (int col = 0; col < k; col++) {
+                  result[row * k + col] += m * N[t * k + col];
+               }
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Computes g(j) = A(j)^-1 * f(j) for the partitions [first, last)
+    * without a solution vector, otherwise the partitions of the solution
+    * with the interface values
+    */
+   private final class SolveTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int first;
+      private final int last;
+      private final double[] b;
+      private final double[][] vectors;
+      private final double[] x;
+
+      SolveTask(final int first, final int last, final double[] b, final double[][] vectors, final double[] x) {
+         this.first = first;
+         this.last = last;
+         this.b = b;
+         this.vectors = vectors;
+         this.x = x;
+      }
+
+      @Override
+      protected void compute() {
+         if (last - first == 1) {
+            solvePartition(first);
+         } else {
+            final int mid = (last + first) >> 1;
+            final SolveTask firstWorker = new SolveTask(first, mid, b, vectors, x);
+            firstWorker.fork();
+            new SolveTask(mid, last, b, vectors, x).compute();
+            firstWorker.join();
+         }
+      }
+
+      private void solvePartition(final int j) {
+         final int k = halfBandwidth;
+         final int start = rowStarts[j];
+         final int m = rowStarts[j + 1] - start;
+         final double[] f = new double[m];
+         System.arraycopy(b, start, f, 0, m);
+         if (null == x) {
+            factors[j].solveInPlace(f, 0);
+            vectors[j] = f;
+            return;
+         }
+
+         // f(j) - [0; B(j)] * x(j + 1).top - [C(j); 0] * x(j - 1).bottom
+         if (j < partitions - 1) {
+            final double[] B = couplings[j];
+            final double[] next = vectors[j];
+            for (int a = 0; a < k; a++) {
+               double sum = 0.0;
+               for (int c = 0; c < k; c++) {
+                  sum += B[a * k + c] * next[k + c];
+               }
+               f[m - k + a] -= sum;
+            }
+         }
+         if (j > 0) {
+            final double[] B = couplings[j - 1];
+            final double[] previous = vectors[j - 1];
+            for (int a = 0; a < k; a++) {
+               double sum = 0.0;
+               for (int c = 0; c < k; c++) {
+                  sum += B[c * k + a] * previous[c];
+               }
+               f[a] -= sum;
+            }
+         }
+         factors[j].solveInPlace(f, 0);
+         System.arraycopy(f, 0, x, start, m);
+      }
+
+   }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+
+public class SpikeSolverTest {
+
+   @Test
+   public void solve_SeveralPartitions_ExactSolution() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(1003, 21, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = generator.createRightHandSideV3();
+
+      // ACT
+      final SpikeSolver solver = new SpikeSolver(A, 7);
+      final Vector x = solver.solve(b);
+
+      // CHECK
+      final Vector expected = generator.createExactSolutionV3();
+      Assert.assertEquals(7, solver.getPartitions());
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(expected.getValue(row), x.getValue(row), 1E-9);
+      }
+   }
+
+   @Test
+   public void solve_IllConditionedMatrix_SameAsBandCholesky() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.conditionNumber(2000, 11, 1E4, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = generator.createRightHandSideV3();
+
+      // ACT
+      final Vector x = new SpikeSolver(A, 16).solve(b);
+
+      // CHECK
+      final Vector expected = BandCholesky.factor(A).solve(b);
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(expected.getValue(row), x.getValue(row), 1E-8 * Math.abs(expected.getValue(row)) + 1E-8);
+      }
+   }
+
+   @Test
+   public void new_TooManyPartitions_PartitionsReduced() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.poisson1D(10, 1L);
+
+      // ACT
+      final SpikeSolver solver = new SpikeSolver(generator.createMatrixV3(), 64);
+      final Vector x = solver.solve(generator.createRightHandSideV3());
+
+      // CHECK
+      Assert.assertEquals(5, solver.getPartitions());
+      final Vector expected = generator.createExactSolutionV3();
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(expected.getValue(row), x.getValue(row), 1E-10);
+      }
+   }
+
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel band Cholesky factorization as a graph of tile operations. The
+ * lower band is split into nb x nb tiles, tile column J holds the tiles
+ * (J, J) ... (J + t, J) with t = ceil(k / nb). The operations are
+ *
+ *    POTRF(J)      L(J, J) = chol(A(J, J))
+ *    TRSM(I, J)    L(I, J) = A(I, J) * L(J, J)'^-1
+ *    SYRK(I, K)    A(I, I) = A(I, I) - L(I, K) * L(I, K)'
+ *    GEMM(I, J, K) A(I, J) = A(I, J) - L(I, K) * L(J, K)'
+ *
+ * Every operation is a task of the fork/join pool, which is forked as soon
+ * as its inputs are final and the previous update of its tile is done, so
+ * the parallelism inside the band is used and not only the rows. A
+ * finished task forks its panel successors (POTRF, TRSM) last, the worker
+ * takes them first from its own deque (lookahead), so the factorization of
+ * the next panel overlaps the trailing updates of the previous ones.
+ *
+ * The factorization blocks the calling thread, it must not be called from
+ * a task of BandMatrixFull.POOL.
+ */
+public final class TiledBandCholesky {
+
+   private final int rows;
+
+   private final int halfBandwidth;
+
+   private final int nb;
+
+   private final int tileRows;
+
+   private final int tileBand;
+
+   // tiles[I][d] is the tile (I, I - d), nb x nb row major
+   private final double[][][] tiles;
+
+   private final CountDownLatch done;
+
+   private volatile Throwable failure;
+
+   private TiledBandCholesky(final BandMatrixFull A, final int tileSize) {
+      rows = A.getMaxRows();
+      halfBandwidth = A.getMaxCols() >> 1;
+      nb = tileSize;
+      tileRows = (rows + nb - 1) / nb;
+      tileBand = (halfBandwidth + nb - 1) / nb;
+      tiles = new double[tileRows][][];
+      int operations = 0;
+      for (int I = 0; I < tileRows; I++) {
+         final int d = Math.min(I, tileBand);
+         tiles[I] = new double[d + 1][nb * nb];
+         for (int J = I - d; J <= I; J++) {
+            operations += J - Math.max(0, I - tileBand) + 1;
+         }
+      }
+      done = new CountDownLatch(operations);
+   }
+
+   public static BandCholesky factor(final BandMatrixFull A) {
+      return factor(A, BandCholesky.TILE_SIZE);
+   }
+
+   /**
+    * @param tileSize edge length of the tiles, a multiple of four
+    */
+   public static BandCholesky factor(final BandMatrixFull A, final int tileSize) {
+      if (tileSize < 4 || tileSize % 4 != 0) {
+         throw new IllegalArgumentException("tile size must be a positive multiple of four");
+      }
+      final TiledBandCholesky factorization = new TiledBandCholesky(A, tileSize);
+      factorization.copyFromBand(A);
+      factorization.run();
+      return factorization.copyToBand();
+   }
+
+   private void run() {
+      // final operation (POTRF or TRSM) of every tile
+      final Operation[][] finals = new Operation[tileRows][];
+      for (int I = 0; I < tileRows; I++) {
+         finals[I] = new Operation[tiles[I].length];
+      }
+
+      // operations without predecessors, only POTRF(0) for k > 0
+      final List<Operation> roots = new ArrayList<Operation>();
+      for (int J = 0; J < tileRows; J++) {
+         for (int I = J; I < tileRows && I - J <= tileBand; I++) {
+            // updates of the tile (I, J) with the tile columns K < J in order
+            Operation previous = null;
+            for (int K = Math.max(0, I - tileBand); K < J; K++) {
+               final Operation update = new Operation(I, J, K);
+               update.dependsOn(finals[I][I - K]);
+               if (I != J) {
+                  update.dependsOn(finals[J][J - K]);
+               }
+               update.dependsOn(previous);
+               previous = update;
+            }
+
+            final Operation operation = new Operation(I, J, -1);
+            operation.dependsOn(previous);
+            if (I != J) {
+               operation.dependsOn(finals[J][0]);
+            }
+            finals[I][I - J] = operation;
+            if (operation.pending.get() == 0) {
+               roots.add(operation);
+            }
+         }
+      }
+
+      for (final Operation root : roots) {
+         BandMatrixFull.POOL.execute(root);
+      }
+      try {
+         done.await();
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("factorization interrupted", e);
+      }
+      if (failure instanceof RuntimeException) {
+         throw (RuntimeException) failure;
+      } else if (failure instanceof Error) {
+         throw (Error) failure;
+      }
+   }
+
+   /**
+    * Copies the lower band into the tiles, the rows after the last row are
+    * completed with the identity
+    */
+   private void copyFromBand(final BandMatrixFull A) {
+      final int k = halfBandwidth;
+      final int cols = A.getMaxCols();
+      for (int row = 0; row < tileRows * nb; row++) {
+         final int I = row / nb;
+         final int r = row % nb;
+         if (row >= rows) {
+            tiles[I][0][r * nb + r] = 1.0;
+            continue;
+         }
+         for (int col = Math.max(0, row - k); col <= row; col++) {
+            final int J = col / nb;
+            tiles[I][I - J][r * nb + col % nb] = A.values[row * cols + k + col - row];
+         }
+      }
+   }
+
+   private BandCholesky copyToBand() {
+      final int k = halfBandwidth;
+      final BandCholesky L = new BandCholesky(rows, k);
+      for (int row = 0; row < rows; row++) {
+         final int I = row / nb;
+         final int r = row % nb;
+         for (int col = Math.max(0, row - k); col <= row; col++) {
+            final int J = col / nb;
+            L.values[row * k + k + col] = tiles[I][I - J][r * nb + col % nb];
+         }
+      }
+      return L;
+   }
+
+   /**
+    * Dense Cholesky factorization of a diagonal tile
+    */
+   private void potrf(final double[] a, final int tileRow) {
+      for (int r = 0; r < nb; r++) {
+         for (int c = 0; c < r; c++) {
+            double sum = a[r * nb + c];
+            for (int s = 0; s < c; s++) {
+               sum -= a[r * nb + s] * a[c * nb + s];
+            }
+            a[r * nb + c] = sum / a[c * nb + c];
+         }
+         double sum = a[r * nb + r];
+         for (int s = 0; s < r; s++) {
+            sum -= a[r * nb + s] * a[r * nb + s];
+         }
+         if (sum <= 0.0) {
+            throw new IllegalStateException("matrix is not positive definite in row " + (tileRow * nb + r));
+         }
+         a[r * nb + r] = Math.sqrt(sum);
+      }
+   }
+
+   /**
+    * X = X * L'^-1, four rows at once
+    */
+   private void trsm(final double[] x, final double[] l) {
+      for (int r = 0; r < nb; r += 4) {
+         final int p0 = r * nb;
+         final int p1 = p0 + nb;
+         final int p2 = p1 + nb;
+         final int p3 = p2 + nb;
+         for (int c = 0; c < nb; c++) {
+            final int q = c * nb;
+            double sum0 = x[p0 + c];
+            double sum1 = x[p1 + c];
+            double sum2 = x[p2 + c];
+            double sum3 = x[p3 + c];
+            for (int s = 0; s < c; s++) {
+               final double value = l[q + s];
+               sum0 -= x[p0 + s] * value;
+               sum1 -= x[p1 + s] * value;
+               sum2 -= x[p2 + s] * value;
+               sum3 -= x[p3 + s] * value;
+            }
+            final double diagonal = l[q + c];
+            x[p0 + c] = sum0 / diagonal;
+            x[p1 + c] = sum1 / diagonal;
+            x[p2 + c] = sum2 / diagonal;
+            x[p3 + c] = sum3 / diagonal;
+         }
+      }
+   }
+
+   /**
+    * C = C - A * B', only the lower triangle for a diagonal tile
+    */
+   private void gemm(final double[] c, final double[] a, final double[] b, final boolean lowerOnly) {
+      for (int r = 0; r < nb; r += 4) {
+         final int colEnd = lowerOnly ? r + 4 : nb;
+         for (int col = 0; col < colEnd; col += 4) {
+            BandCholesky.microKernel(a, r * nb, b, col * nb, nb, c, r * nb + col, nb);
+         }
+      }
+   }
+
+   /**
+    * POTRF or TRSM of the tile (I, J) for K < 0, otherwise the update of
+    * the tile (I, J) with the tile column K
+    */
+   private final class Operation extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int I;
+      private final int J;
+      private final int K;
+      private final AtomicInteger pending = new AtomicInteger();
+      private final List<Operation> successors = new ArrayList<Operation>(4);
+
+      Operation(final int I, final int J, final int K) {
+         this.I = I;
+         this.J = J;
+         this.K = K;
+      }
+
+      void dependsOn(final Operation predecessor) {
+         if (null != predecessor) {
+            pending.incrementAndGet();
+            predecessor.successors.add(this);
+         }
+      }
+
+      @Override
+      protected void compute() {
+         // the successors run even after a failure, so that the latch is released
+         try {
+            if (null == failure) {
+               execute();
+            }
+         } catch (final Throwable e) {
+            failure = e;
+         }
+
+         // updates first, the panel operation last, so it is taken next
+         Operation panel = null;
+         for (final Operation successor : successors) {
+            if (successor.pending.decrementAndGet() == 0) {
+               if (successor.K < 0) {
+                  if (null != panel) {
+                     panel.fork();
+                  }
+                  panel = successor;
+               } else {
+                  successor.fork();
+               }
+            }
+         }
+         if (null != panel) {
+            panel.fork();
+         }
+         done.countDown();
+      }
+
+      private void execute() {
+         final double[] tile = tiles[I][I - J];
+         if (K >= 0) {
+            gemm(tile, tiles[I][I - K], tiles[J][J - K], I == J);
+         } else if (I == J) {
+            potrf(tile, I);
+         } else {
+            trsm(tile, tiles[J][0]);
+         }
+      }
+
+   }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+
+public class TiledBandCholeskyTest {
+
+   @Test
+   public void factor_DifferentTileSizes_SameAsUnblocked() {
+      for (final int tileSize : new int[] { 4, 16, 32 }) {
+         for (final int bandwidth : new int[] { 1, 3, 41, 101 }) {
+
+            // ARRANGE
+            final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(303, bandwidth, 5L).createMatrixV3();
+
+            // ACT
+            final BandCholesky L = TiledBandCholesky.factor(A, tileSize);
+
+            // CHECK
+            final BandCholesky expected = BandCholesky.factorUnblocked(A);
+            for (int row = 0; row < A.getMaxRows(); row++) {
+               for (int col = Math.max(0, row - (bandwidth >> 1)); col <= row; col++) {
+                  Assert.assertEquals(expected.getValue(row, col), L.getValue(row, col), 1E-12);
+               }
+            }
+         }
+      }
+   }
+
+   @Test
+   public void factor_LargeMatrix_ExactSolution() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(5000, 101, 1L);
+
+      // ACT
+      final Vector x = TiledBandCholesky.factor(generator.createMatrixV3()).solve(generator.createRightHandSideV3());
+
+      // CHECK
+      final Vector expected = generator.createExactSolutionV3();
+      for (int row = 0; row < generator.getRows(); row++) {
+         Assert.assertEquals(expected.getValue(row), x.getValue(row), 1E-10);
+      }
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void factor_IndefiniteMatrix_Exception() {
+
+      // ARRANGE
+      final BandMatrixFull A = BandMatrixGenerator.diagonallyDominant(100, 9, 1L).createMatrixV3();
+      A.setValue(57, 57, -1.0);
+
+      // ACT
+      TiledBandCholesky.factor(A, 8);
+   }
+
+}
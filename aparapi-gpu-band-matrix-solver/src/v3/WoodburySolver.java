@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+/**
+ * Solves (A + U * C * U') * x = b with the Cholesky factor of the band
+ * matrix A and a correction of low rank m, e.g. changed values outside of
+ * the band, which BandCholesky.add can not handle. With the
+ * Sherman-Morrison-Woodbury formula in the form
+ *
+ *    (A + U * C * U')^-1 = A^-1 - Z * (I + C * U' * Z)^-1 * C * U' * A^-1,  Z = A^-1 * U
+ *
+ * C need not be invertible (e.g. a changed off-diagonal pair). The
+ * constructor solves with the m columns of U and factors the m x m
+ * capacitance matrix I + C * U' * Z, a solve costs one band solve and
+ * O(n * m) more operations. The corrected matrix needs not be positive
+ * definite, only the capacitance matrix must not be singular.
+ */
+public final class WoodburySolver {
+
+   private final BandCholesky L;
+
+   private final int rank;
+
+   private final Vector[] U;
+
+   private final double[] C;
+
+   private final double[][] Z;
+
+   // LU factorization of I + C * U' * Z, row major
+   private final double[] capacitance;
+
+   private final int[] pivots;
+
+   /**
+    * @param U columns of the n x m matrix U
+    * @param C m x m matrix
+    */
+   public WoodburySolver(final BandCholesky L, final Vector[] U, final double[][] C) {
+      if (C.length != U.length) {
+         throw new IllegalArgumentException("C must be a square matrix with one row per column of U");
+      }
+      this.L = L;
+      rank = U.length;
+      this.U = U.clone();
+      this.C = new double[rank * rank];
+      for (int i = 0; i < rank; i++) {
+         if (C[i].length != rank) {
+            throw new IllegalArgumentException("C must be a square matrix with one row per column of U");
+         }
+         System.arraycopy(C[i], 0, this.C, i * rank, rank);
+      }
+
+      // Z = A^-1 * U
+      Z = new double[rank][];
+      for (int j = 0; j < rank; j++) {
+         Z[j] = U[j].values.clone();
+         L.solveInPlace(Z[j], 0);
+      }
+
+      // I + C * U' * Z
+      final double[] UZ = new double[rank * rank];
+      for (int i = 0; i < rank; i++) {
+         for (int j = 0; j < rank; j++) {
+            UZ[i * rank + j] = dotProduct(U[i].values, Z[j]);
+         }
+      }
+      capacitance = new double[rank * rank];
+      for (int i = 0; i < rank; i++) {
+         capacitance[i * rank + i] = 1.0;
+         for (int j = 0; j < rank; j++) {
+            double sum = 0.0;
+            for (int t = 0; t < rank; t++) {
+               sum += this.C[i * rank + t] * UZ[t * rank + j];
+            }
+            capacitance[i * rank + j] += sum;
+         }
+      }
+      pivots = new int[rank];
+      try {
+         SpikeSolver.luFactor(capacitance, pivots, rank);
+      } catch (final IllegalStateException e) {
+         throw new IllegalStateException("corrected matrix is singular", e);
+      }
+   }
+
+   /**
+    * Solver for the matrix A with the values deltas[i] added at the
+    * positions (rows[i], cols[i]) and (cols[i], rows[i]), U consists of the
+    * unit vectors of the affected rows
+    */
+   public static WoodburySolver create(final BandCholesky L, final int[] rows, final int[] cols,
+         final double[] deltas) {
+      if (rows.length != cols.length || rows.length != deltas.length) {
+         throw new IllegalArgumentException("rows, cols and deltas must have the same length");
+      }
+      final int[] indices = new int[2 * rows.length];
+      int rank = 0;
+      for (int i = 0; i < rows.length; i++) {
+         rank = addIndex(indices, rank, rows[i]);
+         rank = addIndex(indices, rank, cols[i]);
+      }
+      final Vector[] U = new Vector[rank];
+      for (int j = 0; j < rank; j++) {
+         U[j] = new Vector(L.getMaxRows());
+         U[j].values[indices[j]] = 1.0;
+      }
+      final double[][] C = new double[rank][rank];
+      for (int i = 0; i < rows.length; i++) {
+         final int p = indexOf(indices, rank, rows[i]);
+         final int q = indexOf(indices, rank, cols[i]);
+         C[p][q] += deltas[i];
+         if (p != q) {
+            C[q][p] += deltas[i];
+         }
+      }
+      return new WoodburySolver(L, U, C);
+   }
+
+   private static int addIndex(final int[] indices, final int count, final int index) {
+      if (indexOf(indices, count, index) >= 0) {
+         return count;
+      }
+      indices[count] = index;
+      return count + 1;
+   }
+
+   private static int indexOf(final int[] indices, final int count, final int index) {
+      for (int i = 0; i < count; i++) {
+         if (indices[i] == index) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   public Vector solve(final Vector b) {
+
+      // y = A^-1 * b
+      final double[] y = b.values.clone();
+      L.solveInPlace(y, 0);
+
+      // t = (I + C * U' * Z)^-1 * C * U' * y
+      final double[] Uy = new double[rank];
+      for (int i = 0; i < rank; i++) {
+         Uy[i] = dotProduct(U[i].values, y);
+      }
+      final double[] t = new double[rank];
+      for (int i = 0; i < rank; i++) {
+         double sum = 0.0;
+         for (int j = 0; j < rank; j++) {
+            sum += C[i * rank + j] * Uy[j];
+         }
+         t[i] = sum;
+      }
+      SpikeSolver.luSolve(capacitance, pivots, rank, t);
+
+      // x = y - Z * t
+      for (int j = 0; j < rank; j++) {
+         final double[] z = Z[j];
+         final double factor = t[j];
+         for (int row = 0; row < y.length; row++) {
+            y[row] -= factor * z[row];
+         }
+      }
+      return new Vector(y);
+   }
+
+   public int getRank() {
+      return rank;
+   }
+
+   private static double dotProduct(final double[] a, final double[] b) {
+      double sum = 0.0;
+      for (int i = 0; i < a.length; i++) {
+         sum += a[i] * b[i];
+      }
+      return sum;
+   }
+
+}
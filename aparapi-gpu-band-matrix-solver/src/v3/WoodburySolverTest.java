@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v3;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import tests.BandMatrixGenerator;
+
+public class WoodburySolverTest {
+
+   @Test
+   public void create_ValuesOutsideBand_ExactSolution() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(400, 11, 1L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final int[] rows = { 10, 50, 200, 390 };
+      final int[] cols = { 300, 50, 390, 12 };
+      final double[] deltas = { 0.5, 2.0, -0.3, 0.25 };
+      final Vector expected = generator.createExactSolutionV3();
+      final Vector b = new Vector(400);
+      A.times(expected, b);
+      for (int i = 0; i < rows.length; i++) {
+         b.setValue(rows[i], b.getValue(rows[i]) + deltas[i] * expected.getValue(cols[i]));
+         if (rows[i] != cols[i]) {
+            b.setValue(cols[i], b.getValue(cols[i]) + deltas[i] * expected.getValue(rows[i]));
+         }
+      }
+
+      // ACT
+      final WoodburySolver solver = WoodburySolver.create(BandCholesky.factor(A), rows, cols, deltas);
+      final Vector x = solver.solve(b);
+
+      // CHECK
+      Assert.assertEquals(6, solver.getRank());
+      Assert.assertArrayEquals(expected.getValues(), x.getValues(), 1E-10);
+   }
+
+   @Test
+   public void solve_RankOneCorrection_SameAsUpdatedFactor() {
+
+      // ARRANGE
+      final BandMatrixGenerator generator = BandMatrixGenerator.diagonallyDominant(300, 9, 2L);
+      final BandMatrixFull A = generator.createMatrixV3();
+      final Vector b = generator.createRightHandSideV3();
+      final Vector v = new Vector(300);
+      for (int row = 100; row < 105; row++) {
+         v.setValue(row, 1.0 - 0.2 * (row - 100));
+      }
+      final BandCholesky updated = BandCholesky.factor(A);
+      updated.update(v);
+
+      // ACT
+      final Vector x = new WoodburySolver(BandCholesky.factor(A), new Vector[] { v }, new double[][] { { 1.0 } })
+            .solve(b);
+
+      // CHECK
+      Assert.assertArrayEquals(updated.solve(b).getValues(), x.getValues(), 1E-10);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void create_SingularCorrection_Exception() {
+
+      // ARRANGE
+      final BandMatrixFull A = new BandMatrixFull(3, 3);
+      A.setValue(0, 0, 1.0);
+      A.setValue(1, 1, 1.0);
+      A.setValue(2, 2, 1.0);
+
+      // ACT
+      WoodburySolver.create(BandCholesky.factor(A), new int[] { 0, 2 }, new int[] { 0, 2 },
+            new double[] { -1.0, 0.5 });
+   }
+
+}
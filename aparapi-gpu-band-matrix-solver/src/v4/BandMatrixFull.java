@@ -30,6 +30,9 @@
  */
 package v4;
 
+import solver.SolveRecorder;
+import solver.SolveResult;
+import solver.SolverOptions;
 import tests.Parameter;
 
 import com.amd.aparapi.Kernel;
@@ -61,8 +64,6 @@ final public class BandMatrixFull {
 
    private static final String NL = System.getProperty("line.separator");
 
-   private static final int MAX_NUMBER_OF_ITTERATIONS = 100000;
-
    private final int rows;
 
    private final int cols;
@@ -136,117 +137,221 @@ final public class BandMatrixFull {
    }
 
    public static Vector solveConjugateGradientStandard(BandMatrixFull A, Vector b) {
+      return solveConjugateGradientStandard(A, b, null, new SolveRecorder("v4.solveConjugateGradientStandard",
+            b.getMaxRows(), false)).getSolution();
+   }
+
+   /**
+    * Starts the iteration with the initial guess x0 instead of zero
+    */
+   public static Vector solveConjugateGradientStandard(final BandMatrixFull A, final Vector b, final Vector x0) {
+      return solveConjugateGradientStandard(A, b, x0, new SolveRecorder("v4.solveConjugateGradientStandard",
+            b.getMaxRows(), false)).getSolution();
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientStandardWithResult(final BandMatrixFull A, final Vector b) {
+      return solveConjugateGradientStandardWithResult(A, b, SolverOptions.DEFAULT);
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientStandardWithResult(final BandMatrixFull A, final Vector b,
+         final SolverOptions options) {
+      return solveConjugateGradientStandard(A, b, null, new SolveRecorder("v4.solveConjugateGradientStandard",
+            b.getMaxRows(), true, options));
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientStandardWithResult(final BandMatrixFull A, final Vector b,
+         final Vector x0, final SolverOptions options) {
+      return solveConjugateGradientStandard(A, b, x0, new SolveRecorder("v4.solveConjugateGradientStandard",
+            b.getMaxRows(), true, options));
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   private static SolveResult<Vector> solveConjugateGradientStandard(final BandMatrixFull A, final Vector b,
+         final Vector x0, final SolveRecorder recorder) {
 
       // create local variables
       double rsnew = 1.0;
       double alpha = 0.0;
       final int numberOfEquations = b.getMaxRows();
       final Vector Ap = new Vector(numberOfEquations);
-      final Vector x = new Vector(numberOfEquations);
+      final Vector x = null == x0 ? new Vector(numberOfEquations) : new Vector(x0);
 
       // r = b - A * x
       final Vector r = new Vector(b);
       final Vector temp = new Vector(numberOfEquations);
+      long start = recorder.time();
       A.times(x, temp);
+      recorder.matVec(start);
+      start = recorder.time();
       b.minus(temp, r);
 
       // p = r
       final Vector p = new Vector(r);
+      recorder.vector(start);
 
       // rsold = r' * r
+      start = recorder.time();
       double rsold = r.dotProduct(r);
+      final double bNormSquared = null == x0 ? rsold : b.dotProduct(b);
+      recorder.reduction(start);
+      recorder.initialResidual(rsold, bNormSquared);
 
-      for (int i = 1; i < MAX_NUMBER_OF_ITTERATIONS; i++) {
+      while (!recorder.isStopped()) {
          // Ap = A * p
+         start = recorder.time();
          A.times(p, Ap);
+         recorder.matVec(start);
 
          // alpha = rsold / ( p' * Ap )
+         start = recorder.time();
          alpha = rsold / p.dotProduct(Ap);
+         recorder.reduction(start);
 
          // x = x + alpha * p
+         start = recorder.time();
          p.multi(alpha, temp);
          x.plus(temp, x);
 
          // r = r - alpha * Ap
          Ap.multi(alpha, temp);
          r.minus(temp, r);
+         recorder.vector(start);
 
          // rsnew = r' * r
+         start = recorder.time();
          rsnew = r.dotProduct(r);
-         if (rsnew < 1e-10) {
+         recorder.reduction(start);
+         recorder.coefficients(alpha, rsnew / rsold);
+         if (recorder.iteration(rsnew)) {
             break;
          }
 
          // p = r + rsnew / rsold * p
+         start = recorder.time();
          p.multi(rsnew / rsold, temp);
          r.plus(temp, p);
+         recorder.vector(start);
 
          // rsold = rsnew
          rsold = rsnew;
       }
 
-      return x;
+      return recorder.finish(x);
    }
 
    public static Vector solveConjugateGradientAparapi(BandMatrixFull A, Vector b, EXECUTION_MODE mode) {
+      return solveConjugateGradientAparapi(A, b, null, mode, new SolveRecorder("v4.solveConjugateGradientAparapi",
+            b.getMaxRows(), false)).getSolution();
+   }
+
+   public static Vector solveConjugateGradientAparapi(final BandMatrixFull A, final Vector b, final Vector x0,
+         final EXECUTION_MODE mode) {
+      return solveConjugateGradientAparapi(A, b, x0, mode, new SolveRecorder("v4.solveConjugateGradientAparapi",
+            b.getMaxRows(), false)).getSolution();
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientAparapiWithResult(final BandMatrixFull A, final Vector b,
+         final EXECUTION_MODE mode) {
+      return solveConjugateGradientAparapiWithResult(A, b, mode, SolverOptions.DEFAULT);
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientAparapiWithResult(final BandMatrixFull A, final Vector b,
+         final EXECUTION_MODE mode, final SolverOptions options) {
+      return solveConjugateGradientAparapi(A, b, null, mode, new SolveRecorder("v4.solveConjugateGradientAparapi",
+            b.getMaxRows(), true, options));
+   }
+
+   public static SolveResult<Vector> solveConjugateGradientAparapiWithResult(final BandMatrixFull A, final Vector b,
+         final Vector x0, final EXECUTION_MODE mode, final SolverOptions options) {
+      return solveConjugateGradientAparapi(A, b, x0, mode, new SolveRecorder("v4.solveConjugateGradientAparapi",
+            b.getMaxRows(), true, options));
+   }
+
+   /**
+    * @param x0 initial guess, null for zero
+    */
+   private static SolveResult<Vector> solveConjugateGradientAparapi(final BandMatrixFull A, final Vector b,
+         final Vector x0, final EXECUTION_MODE mode, final SolveRecorder recorder) {
 
       // create local variables
       double alpha = 0.0;
       double rsnew = 1.0;
       final int numberOfEquations = b.getMaxRows();
       final Vector Ap = new Vector(numberOfEquations);
-      final Vector x = new Vector(numberOfEquations);
+      final Vector x = null == x0 ? new Vector(numberOfEquations) : new Vector(x0);
 
       // r = b - A * x
       final Vector r = new Vector(b);
       final Vector temp = new Vector(numberOfEquations);
+      long start = recorder.time();
       A.times(x, temp);
+      recorder.matVec(start);
+      start = recorder.time();
       b.minus(temp, r);
 
       // p = r
       final Vector p = new Vector(r);
+      recorder.vector(start);
 
       // rsold = r' * r
+      start = recorder.time();
       double rsold = r.dotProduct(r);
-
-      // Create kernel and initialize the attributes 
-      final v4.BandMatrixMultiplicatonAparapi kernel = new v4.BandMatrixMultiplicatonAparapi();
-      kernel.setMatrixA(A.packedValues, A.getMaxRows(), A.getMaxCols());
-      kernel.setVectorX(Ap.packedValues);
-      kernel.setVectorB(p.packedValues);
-      Range range = Range.create(A.getMaxRows());
-      if (Kernel.EXECUTION_MODE.JTP.equals(mode)) {
-         range = Range.create(A.getMaxRows(), Parameter.NUMBER_OF_POCESSORS << 1);
-      }
+      final double bNormSquared = null == x0 ? rsold : b.dotProduct(b);
+      recorder.reduction(start);
+      recorder.initialResidual(rsold, bNormSquared);
+
+      // Create kernel and initialize the attributes, the first execution 
+      // includes the initial transfer of the matrix
+      start = recorder.time();
+      final v4.BandMatrixMultiplicatonAparapi kernel = createKernel(A, p, Ap);
+      final Range range = createRange(A.getMaxRows(), mode);
       kernel.setExecutionMode(mode);
       kernel.execute(range);
+      recorder.transfer(start);
 
-      for (int i = 1; i < MAX_NUMBER_OF_ITTERATIONS; i++) {
+      while (!recorder.isStopped()) {
          // Ap = A * p
+         start = recorder.time();
          kernel.putVectorB();
+         recorder.transfer(start);
+         start = recorder.time();
          kernel.execute(range);
+         recorder.matVec(start);
+         start = recorder.time();
          kernel.getVectorX();
+         recorder.transfer(start);
 
          // alpha = rsold / ( p' * Ap )
+         start = recorder.time();
          alpha = rsold / p.dotProduct(Ap);
+         recorder.reduction(start);
 
          // x = x + alpha * p
+         start = recorder.time();
          p.multi(alpha, temp);
          x.plus(temp, x);
 
          // r = r - alpha * Ap
          Ap.multi(alpha, temp);
          r.minus(temp, r);
+         recorder.vector(start);
 
          // rsnew = r' * r
+         start = recorder.time();
          rsnew = r.dotProduct(r);
-         if (rsnew < 1e-10) {
+         recorder.reduction(start);
+         recorder.coefficients(alpha, rsnew / rsold);
+         if (recorder.iteration(rsnew)) {
             break;
          }
 
          // p = r + rsnew / rsold * p
+         start = recorder.time();
          p.multi(rsnew / rsold, temp);
          r.plus(temp, p);
+         recorder.vector(start);
 
          // rsold = rsnew
          rsold = rsnew;
@@ -255,10 +360,104 @@ final public class BandMatrixFull {
       if (Kernel.EXECUTION_MODE.GPU.equals(mode)) {
          Parameter.gpu_mode_succeeded = kernel.getExecutionMode().equals(Kernel.EXECUTION_MODE.GPU);
       }
+      kernel.dispose();
+
+      return recorder.finish(x);
+   }
+
+   /**
+    * Creates the kernel for result = A * b, the vectors are transfered 
+    * with putVectorB() and getVectorX().
+    */
+   public static BandMatrixMultiplicatonAparapi createKernel(final BandMatrixFull A, final Vector b, final Vector result) {
+      final v4.BandMatrixMultiplicatonAparapi kernel = new v4.BandMatrixMultiplicatonAparapi();
+      kernel.setMatrixA(A.packedValues, A.getMaxRows(), A.getMaxCols());
+      kernel.setVectorX(result.packedValues);
+      kernel.setVectorB(b.packedValues);
+      return kernel;
+   }
+
+   /**
+    * Range for the kernel of createKernel(). In the JTP mode the group size 
+    * is the largest divisor of rows up to two threads per processor, since 
+    * Range.create() rejects a group size which does not divide the range.
+    */
+   public static Range createRange(final int rows, final EXECUTION_MODE mode) {
+      if (!Kernel.EXECUTION_MODE.JTP.equals(mode)) {
+         return Range.create(rows);
+      }
+      int localSize = Math.max(1, Math.min(rows, Parameter.NUMBER_OF_POCESSORS << 1));
+      while (rows % localSize != 0) {
+         localSize--;
+      }
+      return Range.create(rows, localSize);
+   }
 
+   /**
+    * Direct solver for symmetric positive definite matrices with the
+    * bandwidth three or five with the parallel cyclic reduction of the
+    * CyclicReductionAparapi kernel, which runs log2(n / 2) steps with one
+    * work item per 2x2 block. Only the solution is transfered back.
+    */
+   public static Vector solveCyclicReductionAparapi(final BandMatrixFull A, final Vector b, final EXECUTION_MODE mode) {
+      if (A.getMaxCols() != 3 && A.getMaxCols() != 5) {
+         throw new IllegalArgumentException("bandwidth must be three or five, but is " + A.getMaxCols());
+      }
+
+      // 2x2 blocks (row major), an odd number of rows is completed with the identity
+      final int n = b.getMaxRows();
+      final int blocks = (n + 1) >> 1;
+      final double[] lower = new double[blocks << 3];
+      final double[] diagonal = new double[blocks << 3];
+      final double[] upper = new double[blocks << 3];
+      final double[] rhs = new double[blocks << 2];
+      for (int row = 0; row < blocks << 1; row++) {
+         final int index = ((row >> 1) << 2) + ((row & 1) << 1);
+         final int first = (row >> 1) << 1;
+         for (int k = 0; k < 2; k++) {
+            lower[index + k] = A.getUnpackedValue(row, first - 2 + k);
+            diagonal[index + k] = row < n ? A.getUnpackedValue(row, first + k) : (row == first + k ? 1.0 : 0.0);
+            upper[index + k] = A.getUnpackedValue(row, first + 2 + k);
+         }
+         rhs[row] = row < n ? b.getValue(row) : 0.0;
+      }
+
+      final CyclicReductionAparapi kernel = new CyclicReductionAparapi();
+      kernel.setExecutionMode(mode);
+      kernel.setBlocks(lower, diagonal, upper, rhs, blocks);
+      final Range range = Kernel.EXECUTION_MODE.SEQ.equals(mode) ? Range.create(blocks, 1) : Range.create(blocks);
+      int stride = 1;
+      int source = 0;
+      do {
+         kernel.setStep(stride, source);
+         kernel.execute(range);
+         source = 1 - source;
+         stride <<= 1;
+      } while (stride < blocks);
+      final double[] solution = kernel.getSolution();
+      kernel.dispose();
+
+      final Vector x = new Vector(n);
+      for (int row = 0; row < n; row++) {
+         if (Double.isNaN(solution[row]) || Double.isInfinite(solution[row])) {
+            throw new IllegalArgumentException("matrix is singular");
+         }
+         x.setValue(row, solution[row]);
+      }
       return x;
    }
 
+   /**
+    * Value of the row and column, zero outside the band
+    */
+   private double getUnpackedValue(final int row, final int col) {
+      final int offset = col - row + (cols >> 1);
+      if (row >= rows || col < 0 || col >= rows || offset < 0 || offset >= cols) {
+         return 0.0;
+      }
+      return PackedDouble.unpack(packedValues[row * cols + offset]);
+   }
+
    public int getMaxRows() {
       return rows;
    }
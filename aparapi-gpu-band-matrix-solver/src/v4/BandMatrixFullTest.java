@@ -39,6 +39,7 @@ import org.junit.runners.MethodSorters;
 import tests.Parameter;
 
 import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class BandMatrixFullTest {
@@ -323,4 +324,53 @@ public class BandMatrixFullTest {
       }
    }
 
+   @Test
+   public void v4_createRange_JTP_PrimeRows_GroupSizeDividesRows() {
+
+      // ACT
+      final Range range = BandMatrixFull.createRange(1031, Kernel.EXECUTION_MODE.JTP);
+
+      // CHECK
+      Assert.assertEquals(1031, range.getGlobalSize(0));
+      Assert.assertEquals(0, 1031 % range.getLocalSize(0));
+   }
+
+   @Test
+   public void v4_solveConjugateGradient_Aparapi_JTP_OddRows_Solved() {
+
+      // ARRANGE
+      final tests.BandMatrixGenerator generator = tests.BandMatrixGenerator.diagonallyDominant(501, 5, 1L);
+      final BandMatrixFull A = generator.createMatrixV4();
+      final Vector b = generator.createRightHandSideV4();
+
+      // ACT
+      final Vector x = BandMatrixFull.solveConjugateGradientAparapi(A, b, Kernel.EXECUTION_MODE.JTP);
+
+      // CHECK
+      final Vector temp = new Vector(b.getMaxRows());
+      A.times(x, temp);
+      for (int i = 0; i < b.getMaxRows(); i++) {
+         Assert.assertEquals(b.getValue(i), temp.getValue(i), 1E-4);
+      }
+   }
+
+   @Test
+   public void v4_solveCyclicReductionAparapi_JTP_PentadiagonalMatrix_Solved() {
+
+      // ARRANGE
+      final tests.BandMatrixGenerator generator = tests.BandMatrixGenerator.diagonallyDominant(501, 5, 1L);
+      final BandMatrixFull A = generator.createMatrixV4();
+      final Vector b = generator.createRightHandSideV4();
+
+      // ACT
+      final Vector x = BandMatrixFull.solveCyclicReductionAparapi(A, b, Kernel.EXECUTION_MODE.JTP);
+
+      // CHECK
+      final Vector temp = new Vector(b.getMaxRows());
+      A.times(x, temp);
+      for (int i = 0; i < b.getMaxRows(); i++) {
+         Assert.assertEquals(b.getValue(i), temp.getValue(i), 1E-8);
+      }
+   }
+
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v4;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BandMatrixIOTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   @Test
+   public void v4_saveAndLoad_Packed_SamePackedValues() throws IOException {
+
+      // ARRANGE
+      final BandMatrixFull A = createMatrix();
+      final File file = folder.newFile("A.bin");
+
+      // ACT
+      BandMatrixIO.save(A, file, true);
+      final BandMatrixFull result = BandMatrixIO.loadBandMatrixFull(file);
+
+      // CHECK
+      Assert.assertEquals(7, result.getMaxRows());
+      Assert.assertEquals(5, result.getMaxCols());
+      Assert.assertArrayEquals(A.packedValues, result.packedValues);
+   }
+
+   @Test
+   public void v4_saveAndLoad_Double_SameValues() throws IOException {
+
+      // ARRANGE
+      final BandMatrixFull A = createMatrix();
+      final File file = folder.newFile("A.bin");
+
+      // ACT
+      BandMatrixIO.save(A, file);
+      final BandMatrixFull result = BandMatrixIO.loadBandMatrixFull(file);
+
+      // CHECK
+      for (int i = 0; i < A.packedValues.length; i++) {
+         Assert.assertEquals(PackedDouble.unpack(A.packedValues[i]), PackedDouble.unpack(result.packedValues[i]), 1E-12);
+      }
+   }
+
+   @Test
+   public void v4_load_DoubleFileOfVersion3_SameValues() throws IOException {
+
+      // ARRANGE
+      final v3.Vector b = new v3.Vector(new double[] { 1.5, -2.25, 3.125 });
+      final File file = folder.newFile("b.bin");
+      v3.BandMatrixIO.save(b, file);
+
+      // ACT
+      final Vector result = BandMatrixIO.loadVector(file);
+
+      // CHECK
+      Assert.assertEquals(3, result.getMaxRows());
+      Assert.assertEquals(1.5, result.getValue(0), 1E-12);
+      Assert.assertEquals(-2.25, result.getValue(1), 1E-12);
+      Assert.assertEquals(3.125, result.getValue(2), 1E-12);
+   }
+
+   @Test(expected = IOException.class)
+   public void v4_load_PackedFileWithVersion3_Rejected() throws IOException {
+
+      // ARRANGE
+      final Vector b = new Vector(3);
+      b.setValue(0, 1.0);
+      final File file = folder.newFile("b.bin");
+      BandMatrixIO.save(b, file, true);
+
+      // ACT
+      v3.BandMatrixIO.loadVector(file);
+   }
+
+   private static BandMatrixFull createMatrix() {
+      final BandMatrixFull A = new BandMatrixFull(7, 5);
+      for (int row = 0; row < 7; row++) {
+         for (int col = row; col < row + 3 && col < 7; col++) {
+            A.setValue(row, col, 10.0 + row + 0.1 * col);
+         }
+      }
+      return A;
+   }
+
+}
@@ -31,6 +31,7 @@
 package v4;
 
 import com.amd.aparapi.Kernel;
+import com.amd.aparapi.Range;
 
 /**
  * This class performs a band matrix multiplication (A x B = X)
@@ -53,6 +54,10 @@ public class BandMatrixMultiplicatonAparapi extends Kernel {
    long[] POW_10_LONG = new long[100];
 
    public BandMatrixMultiplicatonAparapi() {
+      final KernelListener[] listeners = KernelListeners.getListeners();
+      final Object[] contexts = started(listeners, KernelListener.Operation.CREATE);
+      final long start = System.nanoTime();
+
       setExplicit(true);
 
       POW_10_LONG[0] = 1;
@@ -64,6 +69,8 @@ public class BandMatrixMultiplicatonAparapi extends Kernel {
          }
       }
       this.put(POW_10_LONG);
+
+      completed(listeners, contexts, KernelListener.Operation.CREATE, getExecutionMode(), 0L, start);
    }
 
    @Override
@@ -115,6 +122,71 @@ public class BandMatrixMultiplicatonAparapi extends Kernel {
       this.get(vectorX);
    }
 
+   @Override
+   public synchronized Kernel execute(final Range range) {
+      final KernelListener[] listeners = KernelListeners.getListeners();
+      if (listeners.length == 0) {
+         return super.execute(range);
+      }
+      final EXECUTION_MODE requestedMode = getExecutionMode();
+      final Object[] contexts = started(listeners, KernelListener.Operation.EXECUTE);
+      final long start = System.nanoTime();
+      super.execute(range);
+      completed(listeners, contexts, KernelListener.Operation.EXECUTE, requestedMode, range.getGlobalSize(0), start);
+      return this;
+   }
+
+   @Override
+   public Kernel put(final long[] array) {
+      final KernelListener[] listeners = KernelListeners.getListeners();
+      if (listeners.length == 0) {
+         return super.put(array);
+      }
+      final EXECUTION_MODE requestedMode = getExecutionMode();
+      final Object[] contexts = started(listeners, KernelListener.Operation.PUT);
+      final long start = System.nanoTime();
+      super.put(array);
+      completed(listeners, contexts, KernelListener.Operation.PUT, requestedMode, (long) array.length << 3, start);
+      return this;
+   }
+
+   @Override
+   public Kernel get(final long[] array) {
+      final KernelListener[] listeners = KernelListeners.getListeners();
+      if (listeners.length == 0) {
+         return super.get(array);
+      }
+      final EXECUTION_MODE requestedMode = getExecutionMode();
+      final Object[] contexts = started(listeners, KernelListener.Operation.GET);
+      final long start = System.nanoTime();
+      super.get(array);
+      completed(listeners, contexts, KernelListener.Operation.GET, requestedMode, (long) array.length << 3, start);
+      return this;
+   }
+
+   private Object[] started(final KernelListener[] listeners, final KernelListener.Operation operation) {
+      if (listeners.length == 0) {
+         return null;
+      }
+      final Object[] contexts = new Object[listeners.length];
+      for (int i = 0; i < listeners.length; i++) {
+         contexts[i] = listeners[i].operationStarted(this, operation);
+      }
+      return contexts;
+   }
+
+   private void completed(final KernelListener[] listeners, final Object[] contexts,
+         final KernelListener.Operation operation, final EXECUTION_MODE requestedMode, final long size,
+         final long start) {
+      if (listeners.length == 0) {
+         return;
+      }
+      final long nanos = System.nanoTime() - start;
+      for (int i = 0; i < listeners.length; i++) {
+         listeners[i].operationCompleted(contexts[i], this, operation, requestedMode, size, nanos);
+      }
+   }
+
    //////////////////////////////////////////////////////////////
    // Copied from PackedDecimalUtil | start
    //////////////////////////////////////////////////////////////
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v4;
+
+import com.amd.aparapi.Kernel;
+
+/**
+ * This class performs one step of the parallel cyclic reduction of a block
+ * tridiagonal matrix with 2x2 blocks, one work item per block (see
+ * v3.NarrowBandSolver). The blocks are row major, the buffers hold both
+ * versions of the blocks, so that a step reads the half source[0] and
+ * writes the other half without a transfer between the steps.
+ *
+ * In contrast to BandMatrixMultiplicatonAparapi the values are doubles,
+ * because the elimination needs divisions, which the packed format does
+ * not offer.
+ */
+public class CyclicReductionAparapi extends Kernel {
+
+   double[] lower = null;
+
+   double[] diagonal = null;
+
+   double[] upper = null;
+
+   double[] rhs = null;
+
+   double[] solution = null;
+
+   int[] blockMaximum = new int[1];
+
+   int[] stride = new int[1];
+
+   int[] source = new int[1];
+
+   public CyclicReductionAparapi() {
+      setExplicit(true);
+   }
+
+   @Override
+   public void run() {
+
+      // prepare input parameter
+      final int block = getGlobalId();
+      final int blocks = blockMaximum[0];
+      final int s = stride[0];
+      final int from = source[0] * blocks;
+      final int to = (1 - source[0]) * blocks;
+
+      final int m = (from + block) << 2;
+      final int v = (from + block) << 1;
+      double d0 = diagonal[m];
+      double d1 = diagonal[m + 1];
+      double d2 = diagonal[m + 2];
+      double d3 = diagonal[m + 3];
+      double r0 = rhs[v];
+      double r1 = rhs[v + 1];
+      double l0 = 0.0;
+      double l1 = 0.0;
+      double l2 = 0.0;
+      double l3 = 0.0;
+      double u0 = 0.0;
+      double u1 = 0.0;
+      double u2 = 0.0;
+      double u3 = 0.0;
+
+      // F = -L(i) * D(i - s)^-1, L'(i) = F * L(i - s), D'(i) += F * U(i - s)
+      if (block - s >= 0) {
+         final int p = (from + block - s) << 2;
+         final int q = (from + block - s) << 1;
+         final double det = diagonal[p] * diagonal[p + 3] - diagonal[p + 1] * diagonal[p + 2];
+         final double f0 = (lower[m + 1] * diagonal[p + 2] - lower[m] * diagonal[p + 3]) / det;
+         final double f1 = (lower[m] * diagonal[p + 1] - lower[m + 1] * diagonal[p]) / det;
+         final double f2 = (lower[m + 3] * diagonal[p + 2] - lower[m + 2] * diagonal[p + 3]) / det;
+         final double f3 = (lower[m + 2] * diagonal[p + 1] - lower[m + 3] * diagonal[p]) / det;
+         l0 = f0 * lower[p] + f1 * lower[p + 2];
+         l1 = f0 * lower[p + 1] + f1 * lower[p + 3];
+         l2 = f2 * lower[p] + f3 * lower[p + 2];
+         l3 = f2 * lower[p + 1] + f3 * lower[p + 3];
+         d0 += f0 * upper[p] + f1 * upper[p + 2];
+         d1 += f0 * upper[p + 1] + f1 * upper[p + 3];
+         d2 += f2 * upper[p] + f3 * upper[p + 2];
+         d3 += f2 * upper[p + 1] + f3 * upper[p + 3];
+         r0 += f0 * rhs[q] + f1 * rhs[q + 1];
+         r1 += f2 * rhs[q] + f3 * rhs[q + 1];
+      }
+
+      // F = -U(i) * D(i + s)^-1, U'(i) = F * U(i + s), D'(i) += F * L(i + s)
+      if (block + s < blocks) {
+         final int p = (from + block + s) << 2;
+         final int q = (from + block + s) << 1;
+         final double det = diagonal[p] * diagonal[p + 3] - diagonal[p + 1] * diagonal[p + 2];
+         final double f0 = (upper[m + 1] * diagonal[p + 2] - upper[m] * diagonal[p + 3]) / det;
+         final double f1 = (upper[m] * diagonal[p + 1] - upper[m + 1] * diagonal[p]) / det;
+         final double f2 = (upper[m + 3] * diagonal[p + 2] - upper[m + 2] * diagonal[p + 3]) / det;
+         final double f3 = (upper[m + 2] * diagonal[p + 1] - upper[m + 3] * diagonal[p]) / det;
+         u0 = f0 * upper[p] + f1 * upper[p + 2];
+         u1 = f0 * upper[p + 1] + f1 * upper[p + 3];
+         u2 = f2 * upper[p] + f3 * upper[p + 2];
+         u3 = f2 * upper[p + 1] + f3 * upper[p + 3];
+         d0 += f0 * lower[p] + f1 * lower[p + 2];
+         d1 += f0 * lower[p + 1] + f1 * lower[p + 3];
+         d2 += f2 * lower[p] + f3 * lower[p + 2];
+         d3 += f2 * lower[p + 1] + f3 * lower[p + 3];
+         r0 += f0 * rhs[q] + f1 * rhs[q + 1];
+         r1 += f2 * rhs[q] + f3 * rhs[q + 1];
+      }
+
+      final int n = (to + block) << 2;
+      final int w = (to + block) << 1;
+      lower[n] = l0;
+      lower[n + 1] = l1;
+      lower[n + 2] = l2;
+      lower[n + 3] = l3;
+      diagonal[n] = d0;
+      diagonal[n + 1] = d1;
+      diagonal[n + 2] = d2;
+      diagonal[n + 3] = d3;
+      upper[n] = u0;
+      upper[n + 1] = u1;
+      upper[n + 2] = u2;
+      upper[n + 3] = u3;
+      rhs[w] = r0;
+      rhs[w + 1] = r1;
+
+      // x(i) = D'(i)^-1 * r'(i), exact after the last step
+      final double det = d0 * d3 - d1 * d2;
+      solution[block << 1] = (d3 * r0 - d1 * r1) / det;
+      solution[(block << 1) + 1] = (d0 * r1 - d2 * r0) / det;
+   }
+
+   /**
+    * The arrays hold the blocks in the first half, the second half is
+    * written by the first step
+    */
+   public void setBlocks(final double[] lowerBlocks, final double[] diagonalBlocks, final double[] upperBlocks,
+         final double[] rhsBlocks, final int blocks) {
+      lower = lowerBlocks;
+      diagonal = diagonalBlocks;
+      upper = upperBlocks;
+      rhs = rhsBlocks;
+      solution = new double[blocks << 1];
+      blockMaximum[0] = blocks;
+      this.put(lower);
+      this.put(diagonal);
+      this.put(upper);
+      this.put(rhs);
+      this.put(blockMaximum);
+   }
+
+   public void setStep(final int strideValue, final int sourceValue) {
+      stride[0] = strideValue;
+      source[0] = sourceValue;
+      this.put(stride);
+      this.put(source);
+   }
+
+   public double[] getSolution() {
+      this.get(solution);
+      return solution;
+   }
+
+}
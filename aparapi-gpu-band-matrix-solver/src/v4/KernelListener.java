@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v4;
+
+import com.amd.aparapi.Kernel.EXECUTION_MODE;
+
+/**
+ * Callback for the construction, launches and buffer transfers of the band
+ * matrix kernel. Every operation is reported twice, before it starts and
+ * after it has completed. The object returned by operationStarted is passed
+ * to operationCompleted of the same listener, so that a listener can keep
+ * its state without thread locals (e.g. a begun flight recorder event).
+ */
+public interface KernelListener {
+
+   enum Operation {
+      CREATE, EXECUTE, PUT, GET
+   }
+
+   Object operationStarted(BandMatrixMultiplicatonAparapi kernel, Operation operation);
+
+   /**
+    * The size is the global size of the range for EXECUTE and the number of
+    * bytes for PUT and GET. The requested mode is the execution mode before
+    * the operation, so a silent fallback (e.g. from GPU to JTP) shows up as
+    * a difference to kernel.getExecutionMode().
+    */
+   void operationCompleted(Object context, BandMatrixMultiplicatonAparapi kernel, Operation operation,
+         EXECUTION_MODE requestedMode, long size, long nanos);
+
+}
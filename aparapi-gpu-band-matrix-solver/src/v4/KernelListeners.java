@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014, Markus Sprunck <sprunck.markus@gmail.com>
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * - The name of its contributor may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package v4;
+
+/**
+ * Global registry of the kernel listeners. Like solver.SolverListeners the
+ * array is replaced on every change, so that the kernel reads it once per
+ * operation without locking. Without listeners the kernel only checks the
+ * length of an empty array before it delegates to Aparapi.
+ */
+public final class KernelListeners {
+
+   private static final KernelListener[] NONE = new KernelListener[0];
+
+   private static volatile KernelListener[] listeners = NONE;
+
+   private KernelListeners() {
+   }
+
+   public static synchronized void register(final KernelListener listener) {
+      if (null == listener) {
+         throw new IllegalArgumentException("listener must not be null");
+      }
+      final KernelListener[] current = listeners;
+      final KernelListener[] result = new KernelListener[current.length + 1];
+      System.arraycopy(current, 0, result, 0, current.length);
+      result[current.length] = listener;
+      listeners = result;
+   }
+
+   public static synchronized void unregister(final KernelListener listener) {
+      final KernelListener[] current = listeners;
+      for (int i = 0; i < current.length; i++) {
+         if (current[i] == listener) {
+            final KernelListener[] result = new KernelListener[current.length - 1];
+            System.arraycopy(current, 0, result, 0, i);
+            System.arraycopy(current, i + 1, result, i, current.length - i - 1);
+            listeners = result.length == 0 ? NONE : result;
+            return;
+         }
+      }
+   }
+
+   /**
+    * Snapshot of the registered listeners, must not be modified
+    */
+   static KernelListener[] getListeners() {
+      return listeners;
+   }
+
+}